@@ -3,9 +3,11 @@ import view.ImageViewImpl;
 import view.ImageViewGUI;
 import controller.ImageControllerImpl;
 import controller.ImageControllerGUI;
+import controller.daemon.ImageDaemon;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -28,6 +30,8 @@ public class Main {
       executeScriptMode(args[1]);
     } else if (args.length == 1 && args[0].equalsIgnoreCase("-text")) {
       executeInteractiveMode();
+    } else if (args.length == 2 && args[0].equalsIgnoreCase("-daemon")) {
+      executeDaemonMode(args[1]);
     } else {
       printUsageInstructions();
     }
@@ -61,6 +65,7 @@ public class Main {
       ImageModelImpl model = new ImageModelImpl();
       ImageViewImpl view = new ImageViewImpl();
       ImageControllerImpl controller = new ImageControllerImpl(model, view);
+      registerMonitor(controller, "script");
 
       while (scanner.hasNextLine()) {
         String command = scanner.nextLine().trim();
@@ -68,6 +73,11 @@ public class Main {
           controller.processCommand(command);
         }
       }
+      try {
+        controller.writeStatsFile();
+      } catch (IOException e) {
+        System.err.println("Error: Unable to write the stats file: " + e.getMessage());
+      }
 
       System.out.println("Script execution completed successfully.");
     } catch (FileNotFoundException e) {
@@ -90,6 +100,7 @@ public class Main {
     ImageModelImpl model = new ImageModelImpl();
     ImageViewImpl view = new ImageViewImpl();
     ImageControllerImpl controller = new ImageControllerImpl(model, view);
+    registerMonitor(controller, "interactive");
 
     while (true) {
       System.out.print("> ");
@@ -107,6 +118,39 @@ public class Main {
     }
   }
 
+  /**
+   * Starts the daemon mode, serving commands over a loopback socket until the process is
+   * stopped.
+   *
+   * @param port the port number to listen on.
+   */
+  private static void executeDaemonMode(String port) {
+    try (ImageDaemon daemon = new ImageDaemon(Integer.parseInt(port))) {
+      System.out.println("Image daemon listening on 127.0.0.1:" + daemon.getPort());
+      System.out.println("Session token: " + daemon.getToken());
+      daemon.serve();
+    } catch (NumberFormatException e) {
+      System.err.println("Error: Daemon port must be a valid integer.");
+    } catch (IOException e) {
+      System.err.println("Error: Unable to start the daemon: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Exposes the performance statistics of a controller over JMX. Failure to register is not
+   * fatal, since the statistics remain available through the {@code stats} command.
+   *
+   * @param controller the controller whose statistics to expose.
+   * @param name       the name that distinguishes the monitor in JMX.
+   */
+  private static void registerMonitor(ImageControllerImpl controller, String name) {
+    try {
+      controller.getMonitor().registerMBean(name);
+    } catch (IllegalStateException e) {
+      System.err.println("Warning: " + e.getMessage());
+    }
+  }
+
   /**
    * Prints the usage instructions for running the application.
    */
@@ -117,5 +161,7 @@ public class Main {
     System.err.println("  java -jar Assignment_6.jar -file <path>  : " +
             "Execute script from file and shut down");
     System.err.println("  java -jar Assignment_6.jar -text  : Open interactive text mode");
+    System.err.println("  java -jar Assignment_6.jar -daemon <port>  : " +
+            "Serve commands on a local socket");
   }
 }
@@ -1,23 +1,25 @@
 package controller;
 
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartPanel;
-import org.jfree.chart.JFreeChart;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
-
-
-import java.awt.Color;
-
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
+import controller.gui.EditStep;
+import controller.gui.LivePreview;
+import controller.gui.PreviewSession;
+import controller.gui.ProgressiveRenderer;
 import model.Image;
 import model.ImageModel;
+import model.ImageModelImpl;
+import model.histogram.Histogram;
+import model.histogram.HistogramService;
 import view.ImageViewGUI;
 
 /**
@@ -25,9 +27,31 @@ import view.ImageViewGUI;
  * It handles user actions, invokes model operations, and updates the view accordingly.
  */
 public class ImageControllerGUI {
+  /**
+   * The number of pixels counted for the histogram panel; larger images are sampled.
+   */
+  private static final int HISTOGRAM_SAMPLES = 1 << 18;
+  /**
+   * How long the sliders must rest before a live preview is computed, in milliseconds.
+   */
+  private static final long LIVE_PREVIEW_DELAY = 40;
+  /**
+   * The largest number of pixels live previews are computed on.
+   */
+  private static final int LIVE_PREVIEW_PIXELS = 1 << 18;
+
   private final ImageModel model;
   private final ImageViewGUI view;
+  private final LivePreview livePreview;
+  private final ProgressiveRenderer renderer;
+  private final ExecutorService fullSizeWorker;
+  private PreviewSession session;
+  private String renderingOperation;
+  private boolean applyingFullSize;
+  private String renderingDestName;
+  private boolean livePreviewShown;
   private String currentImageName;
+  private String displayedImageName;
   private String originalImageName;
   private String splitImageName;
   private boolean isSplitViewActive = false;
@@ -41,6 +65,47 @@ public class ImageControllerGUI {
   public ImageControllerGUI(ImageModel model, ImageViewGUI view) {
     this.model = model;
     this.view = view;
+    this.livePreview = new LivePreview(new ImageModelImpl(), new LivePreview.Listener() {
+      @Override
+      public void previewReady(Image image, EditStep step) {
+        showLivePreview(image, step);
+      }
+
+      @Override
+      public void previewFailed(String message, EditStep step) {
+        view.showStatus("Live preview of " + step.getDescription() + ": " + message);
+      }
+    }, SwingUtilities::invokeLater, LIVE_PREVIEW_DELAY, LIVE_PREVIEW_PIXELS);
+    this.renderer = new ProgressiveRenderer(new ImageModelImpl(),
+        new ProgressiveRenderer.Listener() {
+          @Override
+          public void passReady(Image image, int width, int height, EditStep step) {
+            // Passes stand for the full-resolution result, so the view keeps its zoom.
+            view.setPreviewImage(image, step.getResultWidth(session.getWidth()),
+                    step.getResultHeight(session.getHeight()));
+            view.updateHistogramPanel(image.getStatistics().getHistogram().getRgb());
+            view.showStatus(step.getDescription() + ": refining ("
+                    + image.getWidth() + "x" + image.getHeight() + " pass shown)...");
+          }
+
+          @Override
+          public void renderingFinished(Image image, EditStep step) {
+            finishOperation(step, image);
+          }
+
+          @Override
+          public void renderingFailed(String message, EditStep step) {
+            renderingOperation = null;
+            showImage(currentImageName);
+            updateHistogram(currentImageName);
+            view.showMessage("Operation failed: " + message, JOptionPane.ERROR_MESSAGE);
+          }
+        }, SwingUtilities::invokeLater);
+    this.fullSizeWorker = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "full-size-apply");
+      thread.setDaemon(true);
+      return thread;
+    });
     initializeView();
   }
 
@@ -54,12 +119,19 @@ public class ImageControllerGUI {
     view.addExecuteListener(this::handleOperationExecution);
     view.addSaveListener(this::handleSave);
     view.addToggleListener(this::handleToggleView);
+    view.addApplyListener(this::handleApply);
+    view.addUndoListener(this::handleUndo);
+    view.addRedoListener(this::handleRedo);
+    view.addLiveInputListener(this::handleLiveInput);
   }
 
   /**
    * Handles the loading of an image file into the model and updates the view with the loaded image.
    */
   private void handleLoad() {
+    if (applyingFullSize && isRendering()) {
+      return;
+    }
     String filePath = view.promptForFilePath();
     if (filePath == null || filePath.isEmpty()) {
       view.showStatus("Image loading canceled.");
@@ -73,12 +145,19 @@ public class ImageControllerGUI {
     }
 
     try {
+      livePreview.cancel();
+      livePreviewShown = false;
+      renderer.cancel();
+      renderingOperation = null;
       model.load(filePath, imageName);
-      currentImageName = imageName;
-      originalImageName = imageName;
-      BufferedImage image = view.convertToBufferedImage(model.getImage(imageName));
-      view.setImage(image);
-      updateHistogram(imageName);
+      Dimension displaySize = view.getDisplaySize();
+      session = new PreviewSession(model, imageName, displaySize.width, displaySize.height);
+      currentImageName = session.getPreviewName();
+      originalImageName = session.getOriginalPreviewName();
+      showImage(currentImageName);
+      updateHistogram(currentImageName);
+      view.enableApplyButton(false);
+      view.enableUndoRedoButtons(false, false);
       view.showStatus("Image loaded successfully! Start applying operations.");
     } catch (IOException e) {
       view.showMessage("Failed to load image: " + e.getMessage(),
@@ -95,6 +174,9 @@ public class ImageControllerGUI {
               JOptionPane.ERROR_MESSAGE);
       return;
     }
+    if (isRendering()) {
+      return;
+    }
 
     String filePath = view.promptForSaveFilePath();
     if (filePath == null || filePath.isEmpty()) {
@@ -102,25 +184,25 @@ public class ImageControllerGUI {
       return;
     }
 
-    try {
-      if (model.isProcessedImage(currentImageName)) {
-        BufferedImage processedImage = model.getProcessedImage(currentImageName);
+    view.showStatus("Saving " + filePath + "...");
+    applyPendingSteps("Save", imageName -> {
+      if (model.isProcessedImage(imageName)) {
+        BufferedImage processedImage = model.getProcessedImage(imageName);
         model.saveProcessedImage(filePath, processedImage);
       } else {
-        model.save(filePath, currentImageName);
+        model.save(filePath, imageName);
       }
+    }, () -> {
       view.showMessage("Image saved successfully!", JOptionPane.INFORMATION_MESSAGE);
       view.showStatus("Image saved successfully at: " + filePath);
-    } catch (IOException e) {
-      view.showMessage("Failed to save image: " + e.getMessage(),
-              JOptionPane.ERROR_MESSAGE);
-    }
+    }, "Failed to save image: ");
   }
 
   /**
    * Updates the view to display inputs required for the selected operation.
    */
   private void updateInputsForOperation() {
+    discardLivePreview();
     String selectedOperation = view.getSelectedOperation();
     view.showInputsForOperation(selectedOperation);
     view.showStatus("Selected operation: " + selectedOperation);
@@ -135,7 +217,11 @@ public class ImageControllerGUI {
               JOptionPane.ERROR_MESSAGE);
       return;
     }
+    if (isRendering()) {
+      return;
+    }
 
+    discardLivePreview();
     String destImageName = view.promptForImageName("Enter a name for the resulting image:");
     if (destImageName == null || destImageName.isEmpty()) {
       view.showStatus("Destination image name is required!");
@@ -144,163 +230,373 @@ public class ImageControllerGUI {
 
     try {
       String selectedOperation = view.getSelectedOperation();
-      switch (selectedOperation) {
-        case "Flip":
-          handleFlip(destImageName);
-          break;
-        case "Blur":
-          model.blur(currentImageName, destImageName);
-          break;
-        case "Sharpen":
-          model.sharpen(currentImageName, destImageName);
-          break;
-        case "Greyscale":
-          model.convertToGreyscale("luma", currentImageName, destImageName);
-          break;
-        case "Sepia":
-          model.convertToSepia(currentImageName, destImageName);
-          break;
-        case "Compression":
-          int compressionPercent = view.getCompressionPercentage();
-          model.compress(compressionPercent, currentImageName, destImageName);
-          break;
-        case "Adjust Levels":
-          int[] levels = view.getLevelAdjustments();
-          model.levelsAdjust(levels[0], levels[1], levels[2], currentImageName, destImageName);
-          break;
-        case "Color Correction":
-          model.colorCorrect(currentImageName, destImageName);
-          break;
-        case "Split View":
-          handleSplitView(destImageName);
-          break;
-        case "Visualization":
-          handleVisualization(destImageName);
-          break;
-        case "Downscale":
-          int newWidth = view.promptForDimension("Enter the new width:");
-          if (newWidth <= 0) {
-            view.showMessage("Invalid width entered. Operation aborted.",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-          }
-
-          int newHeight = view.promptForDimension("Enter the new height:");
-          if (newHeight <= 0) {
-            view.showMessage("Invalid height entered. Operation aborted.",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-          }
-
-          Image sourceImage = model.getImage(currentImageName);
-          int originalWidth = sourceImage.getWidth();
-          int originalHeight = sourceImage.getHeight();
+      EditStep step = createStep(selectedOperation);
+      if (step == null) {
+        return;
+      }
 
+      renderingOperation = selectedOperation;
+      renderingDestName = destImageName;
+      view.showStatus(step.getDescription() + ": rendering...");
+      renderer.render(session.getPreviewImage(), session.getScale(), step);
+    } catch (IllegalArgumentException e) {
+      view.showMessage("Operation failed: " + e.getMessage(), JOptionPane.ERROR_MESSAGE);
+    }
+  }
 
-          if (newWidth > originalWidth || newHeight > originalHeight) {
-            view.showMessage("Invalid dimensions! New width and height must not " +
-                    "exceed the original size.", JOptionPane.ERROR_MESSAGE);
-            return;
-          }
+  /**
+   * Records the result of the operation that finished rendering and displays it.
+   *
+   * @param step  the step of the operation.
+   * @param image the result of the step on the current image.
+   */
+  private void finishOperation(EditStep step, Image image) {
+    String selectedOperation = renderingOperation;
+    renderingOperation = null;
+    updateViewWithResult(session.preview(step, renderingDestName, image));
+    if ("Split View".equals(selectedOperation)) {
+      splitImageName = currentImageName;
+      isSplitViewActive = true;
+      view.enableToggleButton(true);
+    }
+    updateHistoryButtons();
+    view.showStatus(selectedOperation + " completed successfully!"
+            + (session.hasPendingSteps() ? " (preview; applied at full size on save)" : ""));
+  }
 
+  /**
+   * Tells the user to wait if an operation is still rendering or being applied at full size.
+   *
+   * @return true if an operation is rendering and the action must not run yet.
+   */
+  private boolean isRendering() {
+    if (renderingOperation == null) {
+      return false;
+    }
+    view.showStatus("Please wait: " + renderingOperation + " is still running.");
+    return true;
+  }
 
-          model.downscaleImage(newWidth, newHeight, currentImageName, destImageName);
-          break;
+  /**
+   * Collects the parameters of the selected operation from the user and records them in a step.
+   *
+   * @param selectedOperation the operation chosen in the operation selector.
+   * @return the step, or null if the user canceled or gave invalid parameters.
+   */
+  private EditStep createStep(String selectedOperation) {
+    switch (selectedOperation) {
+      case "Flip":
+        return createFlipStep();
+      case "Blur":
+        return new EditStep("Blur", (m, source, dest, scale) -> m.blur(source, dest));
+      case "Sharpen":
+        return new EditStep("Sharpen", (m, source, dest, scale) -> m.sharpen(source, dest));
+      case "Greyscale":
+        return new EditStep("Greyscale",
+            (m, source, dest, scale) -> m.convertToGreyscale("luma", source, dest));
+      case "Sepia":
+        return new EditStep("Sepia", (m, source, dest, scale) -> m.convertToSepia(source, dest));
+      case "Compression":
+        int compressionPercent = view.getCompressionPercentage();
+        return new EditStep("Compression " + compressionPercent + "%",
+            (m, source, dest, scale) -> m.compress(compressionPercent, source, dest));
+      case "Adjust Levels":
+        int[] levels = view.getLevelAdjustments();
+        return new EditStep("Adjust Levels " + levels[0] + "/" + levels[1] + "/" + levels[2],
+            (m, source, dest, scale) ->
+                m.levelsAdjust(levels[0], levels[1], levels[2], source, dest));
+      case "Color Correction":
+        return new EditStep("Color Correction",
+            (m, source, dest, scale) -> m.colorCorrect(source, dest));
+      case "Split View":
+        return createSplitViewStep();
+      case "Visualization":
+        return createVisualizationStep();
+      case "Downscale":
+        return createDownscaleStep();
+      default:
+        view.showStatus("Unknown operation selected.");
+        return null;
+    }
+  }
 
-        default:
-          view.showStatus("Unknown operation selected.");
-          return;
-      }
+  /**
+   * Applies the previewed operations to the full-resolution image.
+   */
+  private void handleApply() {
+    if (isRendering()) {
+      return;
+    }
+    if (session == null || !session.hasPendingSteps()) {
+      view.showStatus("Nothing to apply.");
+      return;
+    }
+    int count = session.getPendingSteps().size();
+    view.showStatus("Applying " + count + " operation(s) at full size...");
+    applyPendingSteps("Apply Full Size", imageName -> {
+      // Replaying the steps is all there is to do.
+    }, () -> view.showStatus("Applied " + count + " operation(s) at full size."),
+            "Apply failed: ");
+  }
 
-      updateViewWithResult(destImageName);
-      view.showStatus(selectedOperation + " completed successfully!");
-    } catch (IllegalArgumentException e) {
-      view.showMessage("Operation failed: " + e.getMessage(), JOptionPane.ERROR_MESSAGE);
+  /**
+   * Recomputes the live preview after a slider of the selected operation moved. The preview
+   * runs on a reduced copy of the displayed image in the background; the operation is only
+   * recorded when the user executes it.
+   */
+  private void handleLiveInput() {
+    String selectedOperation = view.getSelectedOperation();
+    if (currentImageName == null || !isLiveOperation(selectedOperation)
+            || renderingOperation != null) {
+      return;
+    }
+    EditStep step = createStep(selectedOperation);
+    if (step != null) {
+      livePreview.request(model.getImage(currentImageName), session.getScale(), step);
     }
   }
 
   /**
-   * Handles the Split View operation, applying the selected operation partially based on the
-   * given percentage.
+   * Shows the result of a live preview in place of the displayed image.
    *
-   * @param destImageName the name for the resulting image from the Split View operation
+   * @param image the result, computed on a reduced copy of the displayed image.
+   * @param step  the step that produced it.
    */
-  private void handleSplitView(String destImageName) {
-    String splitOperation = view.getSplitOperationName();
-    if (splitOperation == null || splitOperation.isEmpty()) {
-      view.showStatus("Split View operation canceled.");
+  private void showLivePreview(Image image, EditStep step) {
+    if (currentImageName == null || !isLiveOperation(view.getSelectedOperation())) {
       return;
     }
+    view.setPreviewImage(image, session.getWidth(), session.getHeight());
+    view.updateHistogramPanel(image.getStatistics().getHistogram().getRgb());
+    livePreviewShown = true;
+    view.showStatus("Live preview: " + step.getDescription()
+            + " (execute the operation to apply it)");
+  }
 
-    int splitPercentage = view.getSplitPercentage();
-    if (splitPercentage < 0 || splitPercentage > 100) {
-      view.showMessage("Invalid split percentage! It must be between 0 and 100.",
-              JOptionPane.ERROR_MESSAGE);
+  /**
+   * Cancels any live preview in progress and shows the displayed image again if a live preview
+   * replaced it.
+   */
+  private void discardLivePreview() {
+    livePreview.cancel();
+    if (livePreviewShown) {
+      livePreviewShown = false;
+      showImage(currentImageName);
+      updateHistogram(currentImageName);
+    }
+  }
+
+  private static boolean isLiveOperation(String operation) {
+    return "Compression".equals(operation) || "Adjust Levels".equals(operation)
+            || "Split View".equals(operation);
+  }
+
+  /**
+   * Undoes the last operation.
+   */
+  private void handleUndo() {
+    if (isRendering()) {
+      return;
+    }
+    if (session == null || !session.canUndo()) {
+      view.showStatus("Nothing to undo.");
       return;
     }
+    discardLivePreview();
+    String description = session.getHistory().getStep(session.getHistory().getPosition() - 1)
+            .getDescription();
+    try {
+      showHistoryState(session.undo());
+      view.showStatus("Undid " + description + ".");
+    } catch (IllegalArgumentException e) {
+      view.showMessage("Undo failed: " + e.getMessage(), JOptionPane.ERROR_MESSAGE);
+    }
+  }
 
+  /**
+   * Redoes the last undone operation.
+   */
+  private void handleRedo() {
+    if (isRendering()) {
+      return;
+    }
+    if (session == null || !session.canRedo()) {
+      view.showStatus("Nothing to redo.");
+      return;
+    }
+    discardLivePreview();
+    String description = session.getHistory().getStep(session.getHistory().getPosition())
+            .getDescription();
     try {
+      showHistoryState(session.redo());
+      view.showStatus("Redid " + description + ".");
+    } catch (IllegalArgumentException e) {
+      view.showMessage("Redo failed: " + e.getMessage(), JOptionPane.ERROR_MESSAGE);
+    }
+  }
 
-      switch (splitOperation.toLowerCase()) {
-        case "blur":
-          model.splitOperation("blur", currentImageName, destImageName,
-                  splitPercentage, null);
-          break;
-        case "sharpen":
-          model.splitOperation("sharpen", currentImageName, destImageName,
-                  splitPercentage, null);
-          break;
-        case "greyscale":
-          model.splitOperation("greyscale", currentImageName, destImageName,
-                  splitPercentage, null);
-          break;
-        case "sepia":
-          model.splitOperation("sepia", currentImageName, destImageName,
-                  splitPercentage, null);
-          break;
-        case "color correction":
-          model.splitOperation("colorcorrect", currentImageName, destImageName,
-                  splitPercentage, null);
-          break;
-        case "adjust levels":
-          int[] levels = view.getLevelAdjustments();
-          if (levels == null || levels.length != 3) {
-            view.showStatus("Invalid levels input for Adjust Levels in Split View.");
-            return;
-          }
+  /**
+   * Displays the state undo or redo moved to. The split view no longer matches it, so toggling
+   * is turned off.
+   *
+   * @param imageName the name of the image to display.
+   */
+  private void showHistoryState(String imageName) {
+    updateViewWithResult(imageName);
+    splitImageName = null;
+    isSplitViewActive = false;
+    view.enableToggleButton(false);
+    updateHistoryButtons();
+  }
 
-          Map<String, Object> additionalParams = new HashMap<>();
-          additionalParams.put("black", levels[0]);
-          additionalParams.put("mid", levels[1]);
-          additionalParams.put("white", levels[2]);
-
-          model.splitOperation("levels", currentImageName, destImageName,
-                  splitPercentage, additionalParams);
-          break;
-        default:
-          view.showStatus("Unknown split operation: " + splitOperation);
-          return;
+  /**
+   * Enables the apply, undo and redo buttons according to the session.
+   */
+  private void updateHistoryButtons() {
+    view.enableApplyButton(session.hasPendingSteps());
+    view.enableUndoRedoButtons(session.canUndo(), session.canRedo());
+  }
+
+  /**
+   * Work done on the full-resolution image of the current state after the pending steps are
+   * replayed.
+   */
+  private interface FullSizeTask {
+    void run(String imageName) throws IOException;
+  }
+
+  /**
+   * Replays the previewed operations on the full-resolution image on a background thread, so
+   * that large images do not freeze the interface. Editing actions are refused until it is
+   * done. Afterwards the full-resolution pixels are shown in place of the proxy if the current
+   * state is on display.
+   *
+   * @param operation the name of the action, shown while it runs.
+   * @param task      further work on the full-resolution image, also run in the background.
+   * @param done      run on the event dispatch thread when the work succeeded.
+   * @param failure   the prefix of the error message shown when the work failed.
+   */
+  private void applyPendingSteps(String operation, FullSizeTask task, Runnable done,
+                                 String failure) {
+    discardLivePreview();
+    PreviewSession applied = session;
+    renderingOperation = operation;
+    applyingFullSize = true;
+    view.enableApplyButton(false);
+    fullSizeWorker.execute(() -> {
+      String error = null;
+      try {
+        task.run(applied.apply());
+      } catch (IOException | RuntimeException e) {
+        error = e.getMessage();
       }
+      String message = error;
+      SwingUtilities.invokeLater(() -> {
+        renderingOperation = null;
+        applyingFullSize = false;
+        updateHistoryButtons();
+        if (currentImageName.equals(displayedImageName)) {
+          showImage(currentImageName);
+        }
+        if (message == null) {
+          done.run();
+        } else {
+          view.showMessage(failure + message, JOptionPane.ERROR_MESSAGE);
+        }
+      });
+    });
+  }
 
+  /**
+   * Asks for the new size of the image and records a downscale step.
+   *
+   * @return the step, or null if the size is invalid.
+   */
+  private EditStep createDownscaleStep() {
+    int newWidth = view.promptForDimension("Enter the new width:");
+    if (newWidth <= 0) {
+      view.showMessage("Invalid width entered. Operation aborted.",
+              JOptionPane.ERROR_MESSAGE);
+      return null;
+    }
 
-      splitImageName = destImageName;
+    int newHeight = view.promptForDimension("Enter the new height:");
+    if (newHeight <= 0) {
+      view.showMessage("Invalid height entered. Operation aborted.",
+              JOptionPane.ERROR_MESSAGE);
+      return null;
+    }
 
+    if (newWidth > session.getWidth() || newHeight > session.getHeight()) {
+      view.showMessage("Invalid dimensions! New width and height must not " +
+              "exceed the original size.", JOptionPane.ERROR_MESSAGE);
+      return null;
+    }
 
-      updateViewWithResult(destImageName);
+    return new EditStep("Downscale to " + newWidth + "x" + newHeight, newWidth, newHeight,
+        (m, source, dest, scale) -> m.downscaleImage(
+            Math.max(1, (int) Math.round(newWidth * scale)),
+            Math.max(1, (int) Math.round(newHeight * scale)), source, dest));
+  }
 
-      isSplitViewActive = true;
-      view.enableToggleButton(true);
-      view.showStatus("Split View operation completed successfully!");
-    } catch (IllegalArgumentException e) {
-      view.showMessage("Split View operation failed: " + e.getMessage(),
+  /**
+   * Asks for the operation and percentage of a Split View and records it as a step that applies
+   * the operation to part of the image.
+   *
+   * @return the step, or null if the user canceled or gave invalid input.
+   */
+  private EditStep createSplitViewStep() {
+    String splitOperation = view.getSplitOperationName();
+    if (splitOperation == null || splitOperation.isEmpty()) {
+      view.showStatus("Split View operation canceled.");
+      return null;
+    }
+
+    int splitPercentage = view.getSplitPercentage();
+    if (splitPercentage < 0 || splitPercentage > 100) {
+      view.showMessage("Invalid split percentage! It must be between 0 and 100.",
               JOptionPane.ERROR_MESSAGE);
+      return null;
     }
+
+    String operation;
+    Map<String, Object> additionalParams = null;
+    switch (splitOperation.toLowerCase()) {
+      case "blur":
+      case "sharpen":
+      case "greyscale":
+      case "sepia":
+        operation = splitOperation.toLowerCase();
+        break;
+      case "color correction":
+        operation = "colorcorrect";
+        break;
+      case "adjust levels":
+        int[] levels = view.getSplitLevelAdjustments();
+        additionalParams = new HashMap<>();
+        additionalParams.put("black", levels[0]);
+        additionalParams.put("mid", levels[1]);
+        additionalParams.put("white", levels[2]);
+        operation = "levels";
+        break;
+      default:
+        view.showStatus("Unknown split operation: " + splitOperation);
+        return null;
+    }
+
+    Map<String, Object> params = additionalParams;
+    return new EditStep("Split View " + splitOperation + " " + splitPercentage + "%",
+        (m, source, dest, scale) ->
+            m.splitOperation(operation, source, dest, splitPercentage, params));
   }
 
   /**
    * Toggles between the original image and the split view image.
    */
   private void handleToggleView() {
+    if (applyingFullSize && isRendering()) {
+      return;
+    }
     if (originalImageName == null || splitImageName == null) {
       view.showMessage("No image to toggle. Please load an image and perform a split " +
               "operation first.", JOptionPane.ERROR_MESSAGE);
@@ -308,23 +604,10 @@ public class ImageControllerGUI {
     }
 
     try {
-      BufferedImage imageToShow;
-
       isSplitViewActive = !isSplitViewActive;
 
       String imageNameToShow = isSplitViewActive ? splitImageName : originalImageName;
-
-      if (model.isProcessedImage(imageNameToShow)) {
-        imageToShow = model.getProcessedImage(imageNameToShow);
-      } else {
-        Image image = model.getImage(imageNameToShow);
-        if (image == null) {
-          throw new IllegalArgumentException("Image not found: " + imageNameToShow);
-        }
-        imageToShow = view.convertToBufferedImage(image);
-      }
-
-      view.setImage(imageToShow);
+      showImage(imageNameToShow);
 
       view.showStatus(isSplitViewActive ? "Switched to Split View." : "Switched to Original View.");
     } catch (Exception e) {
@@ -334,6 +617,34 @@ public class ImageControllerGUI {
   }
 
 
+  /**
+   * Displays an image of the model. Regular images are displayed straight from their channels,
+   * without converting the whole image first. When the image is the proxy of the current state
+   * and no steps are pending, the full-resolution image is displayed instead, with the proxy
+   * standing in for zoomed-out views. Proxies that have no full-resolution counterpart yet are
+   * displayed at the full-resolution size, so that zoom and position carry over.
+   *
+   * @param imageName the name of the image to display.
+   */
+  private void showImage(String imageName) {
+    boolean proxied = session != null && session.isProxied();
+    if (model.isProcessedImage(imageName)) {
+      view.setImage(model.getProcessedImage(imageName));
+    } else if (proxied && imageName.equals(session.getPreviewName())) {
+      if (session.hasPendingSteps()) {
+        view.setPreviewImage(model.getImage(imageName), session.getWidth(), session.getHeight());
+      } else {
+        view.setImage(model.getImage(session.getImageName()), model.getImage(imageName));
+      }
+    } else if (proxied && imageName.equals(session.getOriginalPreviewName())) {
+      view.setPreviewImage(model.getImage(imageName), session.getHistory().getWidth(0),
+              session.getHistory().getHeight(0));
+    } else {
+      view.setImage(model.getImage(imageName));
+    }
+    displayedImageName = imageName;
+  }
+
   /**
    * Updates the view with the result image and its corresponding histogram.
    *
@@ -341,16 +652,7 @@ public class ImageControllerGUI {
    */
   private void updateViewWithResult(String destImageName) {
     try {
-      BufferedImage resultImage;
-
-      if (model.isProcessedImage(destImageName)) {
-        resultImage = model.getProcessedImage(destImageName);
-      } else {
-        Image image = model.getImage(destImageName);
-        resultImage = view.convertToBufferedImage(image);
-      }
-
-      view.setImage(resultImage);
+      showImage(destImageName);
       updateHistogram(destImageName);
       currentImageName = destImageName;
     } catch (Exception e) {
@@ -361,62 +663,48 @@ public class ImageControllerGUI {
 
 
   /**
-   * Handles the flip operation on the current image.
+   * Asks for the flip direction and records a flip step.
    *
-   * @param destImageName the name of the destination image after the flip operation.
+   * @return the step, or null if the user canceled.
    */
-  private void handleFlip(String destImageName) {
+  private EditStep createFlipStep() {
     String direction = view.getFlipDirection();
     if (direction == null || direction.isEmpty()) {
       view.showStatus("Flip direction is required!");
-      return;
+      return null;
     }
-    model.flip(direction, currentImageName, destImageName);
+    return new EditStep("Flip " + direction,
+        (m, source, dest, scale) -> m.flip(direction, source, dest));
   }
 
-
   /**
-   * Handles the visualization of specific components or channels of the image.
+   * Asks for the component or channel to visualize and records a visualization step.
    *
-   * @param destImageName the name of the destination image after visualization.
+   * @return the step, or null if the user canceled.
    */
-  private void handleVisualization(String destImageName) {
+  private EditStep createVisualizationStep() {
     String visualizationType = view.getVisualizationType();
     if (visualizationType == null || visualizationType.isEmpty()) {
       view.showStatus("Visualization type selection canceled.");
-      return;
+      return null;
     }
 
-    try {
-      switch (visualizationType.toLowerCase()) {
-        case "red channel":
-          model.visualizeChannel("red", currentImageName, destImageName);
-          break;
-        case "green channel":
-          model.visualizeChannel("green", currentImageName, destImageName);
-          break;
-        case "blue channel":
-          model.visualizeChannel("blue", currentImageName, destImageName);
-          break;
-        case "luma":
-          model.visualizeComponent("luma", currentImageName, destImageName);
-          break;
-        case "value":
-          model.visualizeComponent("value", currentImageName, destImageName);
-          break;
-        case "intensity":
-          model.visualizeComponent("intensity", currentImageName, destImageName);
-          break;
-        default:
-          view.showStatus("Unknown visualization type: " + visualizationType);
-          return;
-      }
-
-      updateViewWithResult(destImageName);
-      view.showStatus("Visualization (" + visualizationType + ") completed successfully!");
-    } catch (IllegalArgumentException e) {
-      view.showMessage("Visualization failed: " + e.getMessage(),
-              JOptionPane.ERROR_MESSAGE);
+    switch (visualizationType.toLowerCase()) {
+      case "red channel":
+      case "green channel":
+      case "blue channel":
+        String channel = visualizationType.split(" ")[0].toLowerCase();
+        return new EditStep("Visualization (" + visualizationType + ")",
+            (m, source, dest, scale) -> m.visualizeChannel(channel, source, dest));
+      case "luma":
+      case "value":
+      case "intensity":
+        String component = visualizationType.toLowerCase();
+        return new EditStep("Visualization (" + visualizationType + ")",
+            (m, source, dest, scale) -> m.visualizeComponent(component, source, dest));
+      default:
+        view.showStatus("Unknown visualization type: " + visualizationType);
+        return null;
     }
   }
 
@@ -428,67 +716,21 @@ public class ImageControllerGUI {
   private void updateHistogram(String imageName) {
     try {
 
-      Image image;
+      Histogram histogram;
       if (model.isProcessedImage(imageName)) {
         BufferedImage processedImage = model.getProcessedImage(imageName);
-        image = view.convertFromBufferedImage(processedImage);
+        // A converted copy is thrown away after this update, so a sample is enough.
+        histogram = HistogramService.sample(view.convertFromBufferedImage(processedImage),
+                HISTOGRAM_SAMPLES);
       } else {
-        image = model.getImage(imageName);
-      }
-
-      int[][] redChannel = image.getRedChannel();
-      int[][] greenChannel = image.getGreenChannel();
-      int[][] blueChannel = image.getBlueChannel();
-
-      XYSeries redSeries = new XYSeries("Red");
-      XYSeries blueSeries = new XYSeries("Blue");
-      XYSeries greenSeries = new XYSeries("Green");
-
-      int[] redHist = calculateHistogram(redChannel);
-      int[] greenHist = calculateHistogram(greenChannel);
-      int[] blueHist = calculateHistogram(blueChannel);
-
-      for (int i = 0; i < 256; i++) {
-        redSeries.add(i, redHist[i]);
-        blueSeries.add(i, blueHist[i]);
-        greenSeries.add(i, greenHist[i]);
+        // Stored images keep their statistics, so later updates and color-correct reuse them.
+        histogram = model.getImage(imageName).getStatistics().getHistogram();
       }
 
-      XYSeriesCollection dataset = new XYSeriesCollection();
-      dataset.addSeries(redSeries);
-      dataset.addSeries(blueSeries);
-      dataset.addSeries(greenSeries);
-
-      JFreeChart chart = ChartFactory.createXYLineChart("Histogram", "Intensity",
-              "Frequency", dataset);
-
-
-      chart.getXYPlot().getRenderer().setSeriesPaint(0, Color.RED);
-      chart.getXYPlot().getRenderer().setSeriesPaint(1, Color.BLUE);
-      chart.getXYPlot().getRenderer().setSeriesPaint(2, Color.GREEN);
-
-      ChartPanel chartPanel = new ChartPanel(chart);
-      view.updateHistogramPanel(chartPanel);
+      view.updateHistogramPanel(histogram.getRgb());
     } catch (Exception e) {
       view.showMessage("Failed to update histogram: " + e.getMessage(),
               JOptionPane.ERROR_MESSAGE);
     }
   }
-
-
-  /**
-   * Calculates the histogram of pixel intensity values for a given channel.
-   *
-   * @param channel a 2D array representing the pixel intensities of a color channel.
-   * @return an array where each index represents the frequency of a specific intensity value.
-   */
-  private int[] calculateHistogram(int[][] channel) {
-    int[] histogram = new int[256];
-    for (int[] row : channel) {
-      for (int value : row) {
-        histogram[value]++;
-      }
-    }
-    return histogram;
-  }
 }
\ No newline at end of file
@@ -3,30 +3,45 @@ package controller;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
 
 import controller.command.BasicOperationCommand;
+import controller.command.BatchCommand;
 import controller.command.BrightenCommand;
 import controller.command.ChannelCommand;
 import controller.command.ColorCorrectCommand;
+import controller.command.ColorMatrixCommand;
 import controller.command.CompressCommand;
 import controller.command.ComponentCommand;
+import controller.command.ConvolveCommand;
+import controller.command.CropCommand;
 import controller.command.DownscaleCommand;
+import controller.command.FilterChainCommand;
 import controller.command.FlipCommand;
 import controller.command.GreyscaleCommand;
 import controller.command.HistogramCommand;
 import controller.command.ImageCommand;
+import controller.command.InstrumentedCommand;
+import controller.command.KernelBenchCommand;
 import controller.command.LevelsAdjustCommand;
 import controller.command.LoadCommand;
+import controller.command.MorphologyCommand;
+import controller.command.RankFilterCommand;
 import controller.command.RgbCombineCommand;
 import controller.command.RgbSplitCommand;
 import controller.command.RunScriptCommand;
 import controller.command.SaveCommand;
 import controller.command.SplitCommand;
+import controller.command.StatsCommand;
+import controller.command.TiledCommand;
+import controller.command.UnsharpCommand;
 
 import model.ImageModel;
+import model.metrics.InstrumentedImageModel;
+import model.metrics.PerformanceMonitor;
 import view.ImageView;
 
 /**
@@ -35,8 +50,15 @@ import view.ImageView;
  * results to the view.
  */
 public class ImageControllerImpl implements ImageController {
+  /**
+   * System property naming a file to which performance statistics are written as JSON when a
+   * script finishes.
+   */
+  public static final String STATS_FILE_PROPERTY = "ime.stats.file";
+
   private final ImageModel model;
   private final ImageView view;
+  private final PerformanceMonitor monitor;
   private final Map<String, ImageCommand> commands;
 
   /**
@@ -46,12 +68,34 @@ public class ImageControllerImpl implements ImageController {
    * @param view  the view that displays messages to the user.
    */
   public ImageControllerImpl(ImageModel model, ImageView view) {
-    this.model = model;
+    this(model, view, new PerformanceMonitor());
+  }
+
+  /**
+   * Constructs an ImageControllerImpl that records the cost of every command and model
+   * operation with the given performance monitor.
+   *
+   * @param model   the image model that performs the actual image processing.
+   * @param view    the view that displays messages to the user.
+   * @param monitor the monitor that collects performance statistics.
+   */
+  public ImageControllerImpl(ImageModel model, ImageView view, PerformanceMonitor monitor) {
+    this.model = new InstrumentedImageModel(model, monitor);
     this.view = view;
+    this.monitor = monitor;
     this.commands = new HashMap<>();
     initCommands();
   }
 
+  /**
+   * Returns the monitor that collects performance statistics for this controller.
+   *
+   * @return the performance monitor.
+   */
+  public PerformanceMonitor getMonitor() {
+    return monitor;
+  }
+
   private void initCommands() {
     commands.put("load", new LoadCommand(model, view));
     commands.put("save", new SaveCommand(model, view));
@@ -76,7 +120,34 @@ public class ImageControllerImpl implements ImageController {
     commands.put("split", new SplitCommand(model, view));
     commands.put("compress", new CompressCommand(model, view));
     commands.put("downscale", new DownscaleCommand(model, view));
+    commands.put("crop", new CropCommand(model, view));
+    commands.put("color-matrix", new ColorMatrixCommand(model, view));
+    commands.put("filter-chain", new FilterChainCommand(model, view));
+    commands.put("convolve", new ConvolveCommand(model, view));
+    commands.put("rank-filter", new RankFilterCommand(model, view));
+    commands.put("erode", new MorphologyCommand(model, view, "erode"));
+    commands.put("dilate", new MorphologyCommand(model, view, "dilate"));
+    commands.put("open", new MorphologyCommand(model, view, "open"));
+    commands.put("close", new MorphologyCommand(model, view, "close"));
+    commands.put("unsharp", new UnsharpCommand(model, view));
+    commands.put("batch", new BatchCommand(model, view));
+    commands.put("tiled", new TiledCommand(model, view));
     commands.put("run", new RunScriptCommand(this, view));
+    for (Map.Entry<String, ImageCommand> entry : commands.entrySet()) {
+      entry.setValue(new InstrumentedCommand(entry.getKey(), entry.getValue(), monitor));
+    }
+    commands.put("stats", new StatsCommand(monitor, view));
+    commands.put("kernel-bench", new KernelBenchCommand(view));
+  }
+
+  /**
+   * Reports whether a command name is known to this controller.
+   *
+   * @param action the command name, in any case.
+   * @return true if {@link #processCommand} would run a command for this name.
+   */
+  public boolean hasCommand(String action) {
+    return commands.containsKey(action.toLowerCase());
   }
 
   /**
@@ -124,6 +195,25 @@ public class ImageControllerImpl implements ImageController {
       view.renderMessage("Script executed successfully.");
     } catch (IOException e) {
       view.renderMessage("Error reading script file: " + e.getMessage());
+      return;
+    }
+    try {
+      writeStatsFile();
+    } catch (IOException e) {
+      view.renderMessage("Error writing stats file: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the collected performance statistics as JSON to the file named by the
+   * {@value #STATS_FILE_PROPERTY} system property. Does nothing if the property is not set.
+   *
+   * @throws IOException if the statistics file cannot be written.
+   */
+  public void writeStatsFile() throws IOException {
+    String statsFile = System.getProperty(STATS_FILE_PROPERTY);
+    if (statsFile != null && !statsFile.isEmpty()) {
+      monitor.writeJson(Paths.get(statsFile));
     }
   }
 }
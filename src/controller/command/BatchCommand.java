@@ -0,0 +1,40 @@
+package controller.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to apply one operation to many image files, overlapping file I/O with processing.
+ */
+public class BatchCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public BatchCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide operation, output directory, and at least one "
+              + "input file path.");
+      return;
+    }
+    String operation = tokenizer.nextToken();
+    String outputDirectory = tokenizer.nextToken();
+    List<String> inputPaths = new ArrayList<>();
+    while (tokenizer.hasMoreTokens()) {
+      inputPaths.add(tokenizer.nextToken());
+    }
+
+    List<String> written = model.batchProcess(operation, inputPaths, outputDirectory);
+    view.renderMessage("Batch " + operation + " processed " + written.size() + " images into "
+            + outputDirectory);
+  }
+}
@@ -0,0 +1,58 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ColorMatrix;
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to apply a chain of color matrices to an image in a single pass. Each matrix is
+ * either a name such as {@code sepia} or {@code luma}, or twelve numbers giving the red, green
+ * and blue rows (three weights and an offset each). The matrices are applied in the order given
+ * and multiplied together before any pixel is touched.
+ */
+public class ColorMatrixCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public ColorMatrixCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide source image name, destination image name, and at "
+              + "least one matrix name or 12 matrix values.");
+      return;
+    }
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    ColorMatrix matrix = ColorMatrix.IDENTITY;
+    int count = 0;
+    while (tokenizer.hasMoreTokens()) {
+      String token = tokenizer.nextToken();
+      ColorMatrix next;
+      if (Character.isLetter(token.charAt(0))) {
+        next = ColorMatrix.named(token);
+      } else {
+        double[] values = new double[12];
+        values[0] = Double.parseDouble(token);
+        for (int i = 1; i < values.length; i++) {
+          if (!tokenizer.hasMoreTokens()) {
+            throw new IllegalArgumentException("A color matrix needs 12 values.");
+          }
+          values[i] = Double.parseDouble(tokenizer.nextToken());
+        }
+        next = ColorMatrix.of(values);
+      }
+      matrix = count == 0 ? next : matrix.then(next);
+      count++;
+    }
+    model.applyOperation(matrix, imageName, destImageName);
+    view.renderMessage("Applied " + count + " color matrix step" + (count == 1 ? "" : "s")
+            + " to " + imageName + ": " + destImageName);
+  }
+}
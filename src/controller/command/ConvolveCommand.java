@@ -0,0 +1,38 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.Convolution;
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to convolve an image with a kernel read from a text file, one kernel row per line.
+ * Kernels of {@value Convolution#FOURIER_MIN_SIZE}x{@value Convolution#FOURIER_MIN_SIZE} and
+ * larger are applied through the Fourier transform.
+ */
+public class ConvolveCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public ConvolveCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide kernel file path, source image name, and destination "
+              + "image name.");
+      return;
+    }
+    String kernelFile = tokenizer.nextToken();
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    Convolution convolution = Convolution.read(kernelFile);
+    model.applyOperation(convolution, imageName, destImageName);
+    view.renderMessage("Convolved " + imageName + " with a " + convolution.getSize() + "x"
+            + convolution.getSize() + " kernel: " + destImageName);
+  }
+}
@@ -0,0 +1,37 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to copy a rectangle of an image into a new image.
+ */
+public class CropCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public CropCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 6) {
+      view.renderMessage("Error: Provide x, y, width, height, source image name, and "
+              + "destination image name.");
+      return;
+    }
+    int x = Integer.parseInt(tokenizer.nextToken());
+    int y = Integer.parseInt(tokenizer.nextToken());
+    int width = Integer.parseInt(tokenizer.nextToken());
+    int height = Integer.parseInt(tokenizer.nextToken());
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    model.cropImage(x, y, width, height, imageName, destImageName);
+    view.renderMessage("Cropped image " + imageName + " to " + width + "x" + height + " at "
+            + x + "," + y + ": " + destImageName);
+  }
+}
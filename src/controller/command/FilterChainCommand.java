@@ -0,0 +1,40 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ConvolutionChain;
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to apply a chain of convolution filters to an image in a single pass. Each filter is
+ * named ({@code blur} or {@code sharpen}) and may repeat; the filters are applied in the order
+ * given, tile by tile, without storing the intermediate images.
+ */
+public class FilterChainCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public FilterChainCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide source image name, destination image name, and at "
+              + "least one filter name.");
+      return;
+    }
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    ConvolutionChain chain = ConvolutionChain.named(tokenizer.nextToken());
+    while (tokenizer.hasMoreTokens()) {
+      chain = chain.then(ConvolutionChain.named(tokenizer.nextToken()));
+    }
+    model.applyOperation(chain, imageName, destImageName);
+    view.renderMessage("Applied " + chain.getLength() + " filter"
+            + (chain.getLength() == 1 ? "" : "s") + " to " + imageName + ": " + destImageName);
+  }
+}
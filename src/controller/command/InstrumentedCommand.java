@@ -0,0 +1,36 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.metrics.PerformanceMonitor;
+
+/**
+ * A command decorator that records each execution of another command with a
+ * {@link PerformanceMonitor} under the name {@code command:<name>}.
+ */
+public class InstrumentedCommand implements ImageCommand {
+  private final String name;
+  private final ImageCommand command;
+  private final PerformanceMonitor monitor;
+
+  /**
+   * Constructs a decorator that records the executions of the given command.
+   *
+   * @param name    the command name used in scripts.
+   * @param command the command to execute.
+   * @param monitor the monitor to record executions with.
+   */
+  public InstrumentedCommand(String name, ImageCommand command, PerformanceMonitor monitor) {
+    this.name = name;
+    this.command = command;
+    this.monitor = monitor;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    monitor.measureCommand("command:" + name, () -> {
+      command.execute(tokenizer);
+      return null;
+    });
+  }
+}
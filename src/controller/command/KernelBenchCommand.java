@@ -0,0 +1,32 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.kernel.KernelBenchmark;
+import view.ImageView;
+
+/**
+ * Command to time the pixel kernels of every backend on a random image.
+ */
+public class KernelBenchCommand implements ImageCommand {
+  private static final int DEFAULT_WIDTH = 1920;
+  private static final int DEFAULT_HEIGHT = 1080;
+  private static final int ROUNDS = 10;
+
+  private final ImageView view;
+
+  public KernelBenchCommand(ImageView view) {
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    int width = DEFAULT_WIDTH;
+    int height = DEFAULT_HEIGHT;
+    if (tokenizer.countTokens() >= 2) {
+      width = Integer.parseInt(tokenizer.nextToken());
+      height = Integer.parseInt(tokenizer.nextToken());
+    }
+    view.renderMessage(new KernelBenchmark(width, height, ROUNDS).run());
+  }
+}
@@ -3,12 +3,18 @@ package controller.command;
 import java.util.StringTokenizer;
 
 import model.ImageModel;
+import model.factory.LoadOptions;
 import view.ImageView;
 
 /**
- * Command to load an image from a file path.
+ * Command to load an image from a file path. An optional {@code --region X Y WIDTH HEIGHT}
+ * loads only that rectangle and an optional {@code --max WIDTHxHEIGHT} shrinks the image to fit
+ * within that size; both are applied while the file is decoded.
  */
 public class LoadCommand implements ImageCommand {
+  private static final String USAGE = "Error: Usage: load <file-path> <image-name> "
+          + "[--region X Y WIDTH HEIGHT] [--max WIDTHxHEIGHT]";
+
   private final ImageModel model;
   private final ImageView view;
 
@@ -25,7 +31,21 @@ public class LoadCommand implements ImageCommand {
     }
     String filePath = tokenizer.nextToken();
     String imageName = tokenizer.nextToken();
-    model.load(filePath, imageName);
+    LoadOptions options = LoadOptions.NONE;
+    while (tokenizer.hasMoreTokens()) {
+      String option = tokenizer.nextToken();
+      if (option.equals("--max") && tokenizer.countTokens() >= 1) {
+        options = options.withMaxSize(tokenizer.nextToken());
+      } else if (option.equals("--region") && tokenizer.countTokens() >= 4) {
+        options = options.withRegion(Integer.parseInt(tokenizer.nextToken()),
+                Integer.parseInt(tokenizer.nextToken()), Integer.parseInt(tokenizer.nextToken()),
+                Integer.parseInt(tokenizer.nextToken()));
+      } else {
+        view.renderMessage(USAGE);
+        return;
+      }
+    }
+    model.load(filePath, imageName, options);
     view.renderMessage("Loaded image: " + imageName);
   }
 }
@@ -0,0 +1,40 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import model.Morphology;
+import view.ImageView;
+
+/**
+ * Command for the morphological operations (erode, dilate, open, close) that prepare mask
+ * images, using a rectangular structuring element of the given width and height.
+ */
+public class MorphologyCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+  private final String action;
+
+  public MorphologyCommand(ImageModel model, ImageView view, String action) {
+    this.model = model;
+    this.view = view;
+    this.action = action;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 4) {
+      view.renderMessage("Error: Provide element width, element height, mask image name, and "
+              + "destination image name.");
+      return;
+    }
+    int elementWidth = Integer.parseInt(tokenizer.nextToken());
+    int elementHeight = Integer.parseInt(tokenizer.nextToken());
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    model.applyOperation(Morphology.named(action, elementWidth, elementHeight), imageName,
+            destImageName);
+    view.renderMessage(action + " applied with a " + elementWidth + "x" + elementHeight
+            + " element to " + imageName + ": " + destImageName);
+  }
+}
@@ -0,0 +1,38 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import model.RankFilter;
+import view.ImageView;
+
+/**
+ * Command to apply a median, minimum or maximum filter over a square window of the given radius.
+ * The median removes speckle noise while keeping edges sharp.
+ */
+public class RankFilterCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public RankFilterCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 4) {
+      view.renderMessage("Error: Provide filter (median, min or max), radius, source image name, "
+              + "and destination image name.");
+      return;
+    }
+    String filterName = tokenizer.nextToken();
+    int radius = Integer.parseInt(tokenizer.nextToken());
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    RankFilter filter = RankFilter.named(filterName, radius);
+    model.applyOperation(filter, imageName, destImageName);
+    view.renderMessage("Applied " + filter.getRank().name().toLowerCase() + " filter of radius "
+            + radius + " to " + imageName + ": " + destImageName);
+  }
+}
@@ -0,0 +1,40 @@
+package controller.command;
+
+import java.nio.file.Paths;
+import java.util.StringTokenizer;
+
+import model.metrics.PerformanceMonitor;
+import view.ImageView;
+
+/**
+ * Command to show, export or reset the performance statistics collected for commands and model
+ * operations.
+ */
+public class StatsCommand implements ImageCommand {
+  private final PerformanceMonitor monitor;
+  private final ImageView view;
+
+  public StatsCommand(PerformanceMonitor monitor, ImageView view) {
+    this.monitor = monitor;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (!tokenizer.hasMoreTokens()) {
+      view.renderMessage(monitor.getSummary());
+      return;
+    }
+    String action = tokenizer.nextToken().toLowerCase();
+    if (action.equals("reset")) {
+      monitor.reset();
+      view.renderMessage("Performance statistics reset.");
+    } else if (action.equals("json") && tokenizer.hasMoreTokens()) {
+      String path = tokenizer.nextToken();
+      monitor.writeJson(Paths.get(path));
+      view.renderMessage("Performance statistics written to: " + path);
+    } else {
+      view.renderMessage("Error: Usage is 'stats', 'stats reset' or 'stats json <path>'.");
+    }
+  }
+}
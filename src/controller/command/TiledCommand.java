@@ -0,0 +1,42 @@
+package controller.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import view.ImageView;
+
+/**
+ * Command to apply an operation to an image file that is too large to load, processing it tile
+ * by tile from disk.
+ */
+public class TiledCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public TiledCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide operation, any operation arguments, input file path, "
+              + "and output file path.");
+      return;
+    }
+    String operation = tokenizer.nextToken();
+    List<String> tokens = new ArrayList<>();
+    while (tokenizer.hasMoreTokens()) {
+      tokens.add(tokenizer.nextToken());
+    }
+    String inputPath = tokens.get(tokens.size() - 2);
+    String outputPath = tokens.get(tokens.size() - 1);
+    List<String> arguments = tokens.subList(0, tokens.size() - 2);
+
+    model.tiledProcess(operation, arguments, inputPath, outputPath);
+    view.renderMessage("Tiled " + operation + " applied to: " + inputPath + " -> " + outputPath);
+  }
+}
@@ -0,0 +1,38 @@
+package controller.command;
+
+import java.util.StringTokenizer;
+
+import model.ImageModel;
+import model.UnsharpMask;
+import view.ImageView;
+
+/**
+ * Command to sharpen an image with an unsharp mask of the given radius, amount and threshold,
+ * the adjustable counterpart of the fixed sharpen kernel.
+ */
+public class UnsharpCommand implements ImageCommand {
+  private final ImageModel model;
+  private final ImageView view;
+
+  public UnsharpCommand(ImageModel model, ImageView view) {
+    this.model = model;
+    this.view = view;
+  }
+
+  @Override
+  public void execute(StringTokenizer tokenizer) throws Exception {
+    if (tokenizer.countTokens() < 5) {
+      view.renderMessage("Error: Provide radius, amount, threshold, source image name, and "
+              + "destination image name.");
+      return;
+    }
+    double radius = Double.parseDouble(tokenizer.nextToken());
+    double amount = Double.parseDouble(tokenizer.nextToken());
+    int threshold = Integer.parseInt(tokenizer.nextToken());
+    String imageName = tokenizer.nextToken();
+    String destImageName = tokenizer.nextToken();
+    model.applyOperation(new UnsharpMask(radius, amount, threshold), imageName,
+            destImageName);
+    view.renderMessage("Unsharp mask applied to " + imageName + ": " + destImageName);
+  }
+}
@@ -0,0 +1,239 @@
+package controller.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.StringTokenizer;
+import java.util.regex.Pattern;
+
+import controller.ImageControllerImpl;
+import model.ImageModel;
+import view.StreamImageView;
+
+/**
+ * Serves one client connection of the {@link ImageDaemon}.
+ * <p>
+ * The client first sends the daemon's session token on a line of its own; a wrong token closes
+ * the connection. After that it sends one command per line, using the same syntax as script
+ * files. The session answers with the messages produced by the command, followed by a line containing a single
+ * {@code "."}. Images loaded in a session are only visible to that session, because every
+ * session has its own model. Two commands exist only in daemon mode:
+ * </p>
+ * <ul>
+ *   <li>{@code upload <image-name> <format> <byte-count>} followed by exactly
+ *       {@code byte-count} bytes of an encoded PNG, JPG or PPM file.</li>
+ *   <li>{@code quit} to close the connection.</li>
+ * </ul>
+ * <p>
+ * A command line longer than {@link #MAX_LINE_LENGTH} bytes, an unknown command and a line that
+ * looks like part of an HTTP request are answered with an error and the connection is closed,
+ * so a browser request sent to the daemon's port cannot run the commands in its body.
+ * </p>
+ */
+class DaemonSession implements Runnable {
+  /**
+   * The longest command line accepted, in bytes. A longer line ends the session, so a client
+   * that never sends a line terminator cannot fill the heap of the shared daemon.
+   */
+  static final int MAX_LINE_LENGTH = 64 * 1024;
+
+  /**
+   * Matches an HTTP request line or header line.
+   */
+  private static final Pattern HTTP_LINE = Pattern.compile(
+          "^((GET|POST|PUT|DELETE|HEAD|OPTIONS|PATCH|CONNECT|TRACE) |[A-Za-z0-9-]+:)");
+
+  private final Socket socket;
+  private final ImageModel model;
+  private final String token;
+
+  /**
+   * Constructs a session for an accepted connection.
+   *
+   * @param socket the client connection.
+   * @param model  the model holding this session's images.
+   * @param token  the token the client must send as its first line.
+   */
+  DaemonSession(Socket socket, ImageModel model, String token) {
+    this.socket = socket;
+    this.model = model;
+    this.token = token;
+  }
+
+  @Override
+  public void run() {
+    try (Socket client = socket) {
+      InputStream in = new BufferedInputStream(client.getInputStream());
+      StreamImageView view = new StreamImageView(client.getOutputStream());
+      ImageControllerImpl controller = new ImageControllerImpl(model, view);
+
+      view.renderMessage("Image daemon ready.");
+      view.endResponse();
+
+      try {
+        if (authenticate(in, view)) {
+          serve(in, view, controller);
+        }
+      } catch (LineTooLongException e) {
+        view.renderMessage("Error: " + e.getMessage());
+        view.endResponse();
+      }
+    } catch (IOException e) {
+      // The client disconnected; nothing is left to answer.
+    }
+  }
+
+  /**
+   * Reads the first line of the client and compares it with the session token.
+   *
+   * @param in   the stream the token is read from.
+   * @param view the view the result is written to.
+   * @return true if the client sent the token.
+   * @throws IOException if reading from or writing to the connection fails.
+   */
+  private boolean authenticate(InputStream in, StreamImageView view) throws IOException {
+    String line = readLine(in);
+    if (line == null) {
+      return false;
+    }
+    if (!MessageDigest.isEqual(line.trim().getBytes(StandardCharsets.UTF_8),
+            token.getBytes(StandardCharsets.UTF_8))) {
+      view.renderMessage("Error: Invalid session token; closing connection.");
+      view.endResponse();
+      return false;
+    }
+    view.renderMessage("Authenticated.");
+    view.endResponse();
+    return true;
+  }
+
+  /**
+   * Answers commands from the client until it quits, disconnects or sends a line that is not a
+   * command.
+   *
+   * @param in         the stream commands and upload data are read from.
+   * @param view       the view answers are written to.
+   * @param controller the controller running the commands.
+   * @throws IOException if reading from or writing to the connection fails.
+   */
+  private void serve(InputStream in, StreamImageView view, ImageControllerImpl controller)
+          throws IOException {
+    String line;
+    while ((line = readLine(in)) != null) {
+      line = line.trim();
+      if (line.equalsIgnoreCase("quit")) {
+        view.renderMessage("Goodbye.");
+        view.endResponse();
+        break;
+      }
+      if (HTTP_LINE.matcher(line).find()) {
+        view.renderMessage("Error: HTTP requests are not accepted; closing connection.");
+        view.endResponse();
+        break;
+      }
+      if (line.toLowerCase().startsWith("upload ")) {
+        handleUpload(line, in, view);
+      } else if (!line.isEmpty() && !line.startsWith("#")) {
+        String action = new StringTokenizer(line).nextToken();
+        if (!controller.hasCommand(action)) {
+          view.renderMessage("Error: Unknown command: " + action + "; closing connection.");
+          view.endResponse();
+          break;
+        }
+        controller.processCommand(line);
+      }
+      view.endResponse();
+    }
+  }
+
+  /**
+   * Receives an encoded image from the client and loads it into the session's model.
+   *
+   * @param line the upload command line.
+   * @param in   the stream the image bytes are read from.
+   * @param view the view used to report the result.
+   * @throws IOException if the connection fails while reading the image bytes.
+   */
+  private void handleUpload(String line, InputStream in, StreamImageView view)
+          throws IOException {
+    StringTokenizer tokenizer = new StringTokenizer(line);
+    tokenizer.nextToken();
+    if (tokenizer.countTokens() < 3) {
+      view.renderMessage("Error: Provide image name, format, and byte count for upload.");
+      return;
+    }
+    String imageName = tokenizer.nextToken();
+    String format = tokenizer.nextToken().toLowerCase();
+    int length;
+    try {
+      length = Integer.parseInt(tokenizer.nextToken());
+    } catch (NumberFormatException e) {
+      view.renderMessage("Error: Byte count must be a valid integer.");
+      return;
+    }
+    if (length < 0) {
+      view.renderMessage("Error: Byte count must not be negative.");
+      return;
+    }
+
+    byte[] data = in.readNBytes(length);
+    if (data.length < length) {
+      throw new IOException("Connection closed during upload.");
+    }
+
+    Path temp = Files.createTempFile("ime-upload", "." + format);
+    try {
+      Files.write(temp, data);
+      model.load(temp.toString(), imageName);
+      view.renderMessage("Uploaded image: " + imageName);
+    } catch (IOException | IllegalArgumentException | UnsupportedOperationException e) {
+      view.renderMessage("Error executing command: upload - " + e.getMessage());
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Reads one line of UTF-8 text from the same stream that upload data is read from, so bytes
+   * following the line are left for {@link #handleUpload}.
+   *
+   * @param in the stream to read from.
+   * @return the line without its terminator, or null at the end of the stream.
+   * @throws LineTooLongException if the line is longer than {@link #MAX_LINE_LENGTH} bytes.
+   * @throws IOException if reading fails.
+   */
+  private static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != -1) {
+      if (b == '\n') {
+        break;
+      }
+      if (b != '\r') {
+        if (buffer.size() == MAX_LINE_LENGTH) {
+          throw new LineTooLongException();
+        }
+        buffer.write(b);
+      }
+    }
+    if (b == -1 && buffer.size() == 0) {
+      return null;
+    }
+    return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Signals a command line longer than {@link #MAX_LINE_LENGTH} bytes.
+   */
+  private static class LineTooLongException extends IOException {
+    LineTooLongException() {
+      super("Command line exceeds " + MAX_LINE_LENGTH + " bytes; closing connection.");
+    }
+  }
+}
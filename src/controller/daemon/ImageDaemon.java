@@ -0,0 +1,127 @@
+package controller.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import model.ImageModel;
+import model.ImageModelImpl;
+import model.pipeline.IoThreads;
+
+/**
+ * A long-running server that accepts image processing commands over a local socket.
+ * <p>
+ * Running the daemon once and sending it commands avoids paying JVM startup, class loading and
+ * JIT warm-up on every script. The server only listens on the loopback interface. Each
+ * connection is served by its own {@link DaemonSession} with a separate model, so sessions run
+ * concurrently and cannot see each other's images.
+ * </p>
+ * <p>
+ * Listening on loopback does not keep other local processes out: a web page can make the
+ * browser POST to a local port. Every start therefore creates a random session token, and a
+ * client must send it as its first line before any command runs.
+ * </p>
+ */
+public class ImageDaemon implements Closeable {
+  private final ServerSocket serverSocket;
+  private final Supplier<ImageModel> modelFactory;
+  private final ExecutorService sessions;
+  private final String token;
+
+  /**
+   * Constructs a daemon listening on the given loopback port, creating an
+   * {@link ImageModelImpl} for every session.
+   *
+   * @param port the port to listen on, or 0 to pick a free port.
+   * @throws IOException if the port cannot be bound.
+   */
+  public ImageDaemon(int port) throws IOException {
+    this(port, ImageModelImpl::new);
+  }
+
+  /**
+   * Constructs a daemon listening on the given loopback port.
+   *
+   * @param port         the port to listen on, or 0 to pick a free port.
+   * @param modelFactory creates the model used by each new session.
+   * @throws IOException if the port cannot be bound.
+   */
+  public ImageDaemon(int port, Supplier<ImageModel> modelFactory) throws IOException {
+    this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    this.modelFactory = modelFactory;
+    this.sessions = IoThreads.newExecutor("image-daemon-session");
+    this.token = newToken();
+  }
+
+  private static String newToken() {
+    byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Returns the port the daemon is listening on.
+   *
+   * @return the local port number.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the token a client must send as its first line.
+   *
+   * @return the session token created when this daemon was constructed.
+   */
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * Accepts connections until the daemon is closed, serving each one concurrently.
+   */
+  public void serve() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket client = serverSocket.accept();
+        sessions.submit(new DaemonSession(client, modelFactory.get(), token));
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          System.err.println("Error accepting connection: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts serving connections on a background thread.
+   *
+   * @return the thread running the accept loop.
+   */
+  public Thread start() {
+    Thread acceptor = new Thread(this::serve, "image-daemon-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    return acceptor;
+  }
+
+  /**
+   * Stops accepting connections and interrupts running sessions.
+   *
+   * @throws IOException if closing the server socket fails.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    sessions.shutdownNow();
+  }
+}
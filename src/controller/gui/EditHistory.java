@@ -0,0 +1,531 @@
+package controller.gui;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import model.Image;
+import model.ImageModel;
+
+/**
+ * The undo and redo history of the steps applied to an image, kept without a full copy of every
+ * intermediate result.
+ * <p>
+ * State 0 is the image the history starts from and state {@code i} is the result of the first
+ * {@code i} steps. Every step is recorded with its parameters, so any state can be recomputed by
+ * replaying steps from an earlier one. Some states also keep a checkpoint: either the whole image
+ * or, when a step changed only part of the image, the changed rectangle, stored as deflated
+ * differences from the state before it. Checkpoints are kept
+ * within a memory budget; when it is exceeded, checkpoints are dropped where they are most
+ * densely spaced, so replay distances stay short across the whole history. State 0 and the
+ * current state are always available without replaying.
+ * </p>
+ */
+public class EditHistory {
+
+  /**
+   * System property with the memory budget for checkpoints, in megabytes.
+   */
+  public static final String BUDGET_PROPERTY = "ime.history.budget";
+
+  /**
+   * The memory budget for checkpoints when {@value #BUDGET_PROPERTY} is not set, in megabytes.
+   */
+  public static final int DEFAULT_BUDGET_MB = 128;
+
+  private static final String WORK_PREFIX = "~history";
+
+  private final ImageModel model;
+  private final long budget;
+  private final List<Entry> entries = new ArrayList<>();
+  private final Image start;
+  private final int startWidth;
+  private final int startHeight;
+  private Image current;
+  private int position;
+  private long memoryUsed;
+
+  /**
+   * Starts a history with the memory budget given by {@value #BUDGET_PROPERTY}.
+   *
+   * @param model  the model the steps run in when states are recomputed.
+   * @param start  the image of state 0.
+   * @param width  the full-resolution width of state 0.
+   * @param height the full-resolution height of state 0.
+   */
+  public EditHistory(ImageModel model, Image start, int width, int height) {
+    this(model, start, width, height, defaultBudget());
+  }
+
+  /**
+   * Starts a history.
+   *
+   * @param model  the model the steps run in when states are recomputed.
+   * @param start  the image of state 0.
+   * @param width  the full-resolution width of state 0, which may differ from the width of the
+   *               image when the steps run on a reduced copy.
+   * @param height the full-resolution height of state 0.
+   * @param budget the largest number of bytes the checkpoints may take.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public EditHistory(ImageModel model, Image start, int width, int height, long budget) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("History memory budget must not be negative.");
+    }
+    this.model = model;
+    this.start = start;
+    this.startWidth = width;
+    this.startHeight = height;
+    this.budget = budget;
+    this.current = start;
+  }
+
+  /**
+   * Returns the memory budget given by {@value #BUDGET_PROPERTY}.
+   *
+   * @return the budget in bytes.
+   */
+  public static long defaultBudget() {
+    return (long) Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) << 20;
+  }
+
+  /**
+   * Records a step that has just been applied to the current state. Any undone steps are
+   * discarded.
+   *
+   * @param step          the step.
+   * @param destImageName the name the user gave the result.
+   * @param result        the image the step produced from the current state.
+   * @param width         the full-resolution width of the result.
+   * @param height        the full-resolution height of the result.
+   */
+  public void record(EditStep step, String destImageName, Image result, int width, int height) {
+    while (entries.size() > position) {
+      dropCheckpoint(entries.remove(entries.size() - 1));
+    }
+    Entry entry = new Entry(step, destImageName, width, height);
+    entry.checkpoint = Checkpoint.between(current, result);
+    entries.add(entry);
+    memoryUsed += entry.checkpoint.bytes;
+    position++;
+    current = result;
+    enforceBudget();
+  }
+
+  /**
+   * Returns whether there is a step to undo.
+   *
+   * @return true if the current state is not state 0.
+   */
+  public boolean canUndo() {
+    return position > 0;
+  }
+
+  /**
+   * Returns whether there is an undone step to redo.
+   *
+   * @return true if a step after the current state was undone and not discarded.
+   */
+  public boolean canRedo() {
+    return position < entries.size();
+  }
+
+  /**
+   * Moves back one step.
+   *
+   * @return the image of the new current state.
+   * @throws IllegalStateException if there is nothing to undo.
+   */
+  public Image undo() {
+    if (!canUndo()) {
+      throw new IllegalStateException("Nothing to undo.");
+    }
+    current = imageAt(position - 1);
+    position--;
+    return current;
+  }
+
+  /**
+   * Moves forward one undone step.
+   *
+   * @return the image of the new current state.
+   * @throws IllegalStateException if there is nothing to redo.
+   */
+  public Image redo() {
+    if (!canRedo()) {
+      throw new IllegalStateException("Nothing to redo.");
+    }
+    current = imageAt(position + 1);
+    position++;
+    return current;
+  }
+
+  /**
+   * Returns the image of a state, from its checkpoint or by replaying steps from the nearest
+   * earlier state that is available.
+   *
+   * @param state the state, between 0 and {@link #size()}.
+   * @return the image of the state.
+   * @throws IllegalArgumentException if there is no such state.
+   */
+  public Image imageAt(int state) {
+    if (state < 0 || state > entries.size()) {
+      throw new IllegalArgumentException("No history state " + state + ".");
+    }
+    int from = state;
+    while (from > 0 && from != position && entries.get(from - 1).checkpoint == null) {
+      from--;
+    }
+    Image image = from == position ? current : from == 0 ? start : null;
+    if (image == null) {
+      image = entries.get(from - 1).checkpoint.restore(this, from);
+    }
+    for (int i = from + 1; i <= state; i++) {
+      image = replay(entries.get(i - 1).step, image, getWidth(i - 1));
+    }
+    return image;
+  }
+
+  /**
+   * Returns the current state.
+   *
+   * @return the number of steps applied, not counting undone ones.
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Returns the number of recorded steps, including undone ones.
+   *
+   * @return the number of steps.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a recorded step.
+   *
+   * @param index the index of the step; step {@code i} leads to state {@code i + 1}.
+   * @return the step.
+   */
+  public EditStep getStep(int index) {
+    return entries.get(index).step;
+  }
+
+  /**
+   * Returns the name the user gave the result of a step.
+   *
+   * @param index the index of the step.
+   * @return the name of the result.
+   */
+  public String getImageName(int index) {
+    return entries.get(index).imageName;
+  }
+
+  /**
+   * Returns the full-resolution width of a state.
+   *
+   * @param state the state.
+   * @return the width in pixels.
+   */
+  public int getWidth(int state) {
+    return state == 0 ? startWidth : entries.get(state - 1).width;
+  }
+
+  /**
+   * Returns the full-resolution height of a state.
+   *
+   * @param state the state.
+   * @return the height in pixels.
+   */
+  public int getHeight(int state) {
+    return state == 0 ? startHeight : entries.get(state - 1).height;
+  }
+
+  /**
+   * Returns whether a state has a checkpoint. State 0 and the current state are available
+   * whether or not they have one.
+   *
+   * @param state the state, from 1.
+   * @return true if the state is restored without replaying its step.
+   */
+  public boolean hasCheckpoint(int state) {
+    return entries.get(state - 1).checkpoint != null;
+  }
+
+  /**
+   * Returns the memory the checkpoints take.
+   *
+   * @return an estimate in bytes.
+   */
+  public long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  /**
+   * Returns the memory budget for checkpoints.
+   *
+   * @return the budget in bytes.
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  private Image replay(EditStep step, Image source, int fullWidth) {
+    String sourceName = WORK_PREFIX + "-source";
+    String destName = WORK_PREFIX + "-result";
+    model.putImage(sourceName, source);
+    try {
+      step.apply(model, sourceName, destName, (double) source.getWidth() / fullWidth);
+      return model.getImage(destName);
+    } finally {
+      model.removeImage(sourceName);
+      model.removeImage(destName);
+    }
+  }
+
+  private void enforceBudget() {
+    while (memoryUsed > budget) {
+      int victim = -1;
+      int smallestGap = Integer.MAX_VALUE;
+      int previous = 0;
+      for (int state = 1; state <= entries.size(); state++) {
+        if (entries.get(state - 1).checkpoint == null) {
+          continue;
+        }
+        int gap = state - previous;
+        if (gap < smallestGap) {
+          smallestGap = gap;
+          victim = state;
+        }
+        previous = state;
+      }
+      if (victim < 0) {
+        return;
+      }
+      dropCheckpoint(entries.get(victim - 1));
+    }
+  }
+
+  private void dropCheckpoint(Entry entry) {
+    if (entry.checkpoint != null) {
+      memoryUsed -= entry.checkpoint.bytes;
+      entry.checkpoint = null;
+    }
+  }
+
+  private static long bytes(int width, int height) {
+    return 12L * width * height + 48L * height;
+  }
+
+  /**
+   * One recorded step and what is kept of its result.
+   */
+  private static final class Entry {
+    private final EditStep step;
+    private final String imageName;
+    private final int width;
+    private final int height;
+    private Checkpoint checkpoint;
+
+    Entry(EditStep step, String imageName, int width, int height) {
+      this.step = step;
+      this.imageName = imageName;
+      this.width = width;
+      this.height = height;
+    }
+  }
+
+  /**
+   * What is kept of one state: the whole image, or the rectangle in which it differs from the
+   * state before it. The rectangle holds the difference of every channel value from the state
+   * before, modulo 256 and three bytes per pixel, deflated; pixels inside the rectangle that did
+   * not change are zeros and compress to almost nothing.
+   */
+  private static final class Checkpoint {
+    private final Image image;
+    private final byte[] patch;
+    private final int x;
+    private final int y;
+    private final int patchWidth;
+    private final int patchHeight;
+    private final long bytes;
+
+    private Checkpoint(Image image, long bytes) {
+      this(image, null, 0, 0, 0, 0, bytes);
+    }
+
+    private Checkpoint(Image image, byte[] patch, int x, int y, int patchWidth, int patchHeight,
+                       long bytes) {
+      this.image = image;
+      this.patch = patch;
+      this.x = x;
+      this.y = y;
+      this.patchWidth = patchWidth;
+      this.patchHeight = patchHeight;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Returns the cheaper checkpoint of a result: the rectangle that changed if the step kept
+     * the size and changed less than half of the image, the whole result otherwise.
+     */
+    static Checkpoint between(Image before, Image after) {
+      int width = after.getWidth();
+      int height = after.getHeight();
+      if (before.getWidth() != width || before.getHeight() != height) {
+        return new Checkpoint(after, bytes(width, height));
+      }
+      int top = height;
+      int bottom = -1;
+      int left = width;
+      int right = -1;
+      for (int row = 0; row < height; row++) {
+        int first = firstDifference(before, after, row);
+        if (first < 0) {
+          continue;
+        }
+        top = Math.min(top, row);
+        bottom = row;
+        left = Math.min(left, first);
+        right = Math.max(right, lastDifference(before, after, row));
+      }
+      if (bottom < 0) {
+        return new Checkpoint(null, 0);
+      }
+      int patchWidth = right - left + 1;
+      int patchHeight = bottom - top + 1;
+      if (2L * patchWidth * patchHeight >= (long) width * height) {
+        return new Checkpoint(after, bytes(width, height));
+      }
+      byte[] patch = deflate(differences(before, after, left, top, patchWidth, patchHeight));
+      return new Checkpoint(null, patch, left, top, patchWidth, patchHeight,
+              patch.length + 64L);
+    }
+
+    private static byte[] differences(Image before, Image after, int left, int top, int width,
+                                      int height) {
+      int[][][] from = {before.getRedChannel(), before.getGreenChannel(),
+          before.getBlueChannel()};
+      int[][][] to = {after.getRedChannel(), after.getGreenChannel(), after.getBlueChannel()};
+      byte[] differences = new byte[width * height * 3];
+      int i = 0;
+      for (int row = top; row < top + height; row++) {
+        for (int column = left; column < left + width; column++) {
+          for (int c = 0; c < 3; c++) {
+            differences[i++] = (byte) (to[c][row][column] - from[c][row][column]);
+          }
+        }
+      }
+      return differences;
+    }
+
+    private static byte[] deflate(byte[] data) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+          out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    private byte[] inflate() {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(patch);
+        byte[] data = new byte[patchWidth * patchHeight * 3];
+        int length = 0;
+        while (length < data.length) {
+          int count = inflater.inflate(data, length, data.length - length);
+          if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+            throw new DataFormatException("data ends early");
+          }
+          length += count;
+        }
+        return data;
+      } catch (DataFormatException e) {
+        throw new IllegalStateException("Corrupt history checkpoint: " + e.getMessage(), e);
+      } finally {
+        inflater.end();
+      }
+    }
+
+    /**
+     * Restores a state that has a whole-image checkpoint, or one whose delta applies to a state
+     * that must itself be restored from the history.
+     */
+    Image restore(EditHistory history, int state) {
+      return image != null ? image : restore(history.imageAt(state - 1));
+    }
+
+    /**
+     * Restores the state from the state before it.
+     */
+    Image restore(Image before) {
+      if (image != null) {
+        return image;
+      }
+      if (patch == null) {
+        return before;
+      }
+      int width = before.getWidth();
+      int height = before.getHeight();
+      int[][][] channels = {before.getRedChannel(), before.getGreenChannel(),
+          before.getBlueChannel()};
+      int[][][] result = new int[3][][];
+      for (int c = 0; c < 3; c++) {
+        // Rows outside the patch are shared with the state before; images are never modified.
+        result[c] = channels[c].clone();
+      }
+      byte[] differences = inflate();
+      int i = 0;
+      for (int row = y; row < y + patchHeight; row++) {
+        for (int c = 0; c < 3; c++) {
+          result[c][row] = channels[c][row].clone();
+        }
+        for (int column = x; column < x + patchWidth; column++) {
+          for (int c = 0; c < 3; c++) {
+            result[c][row][column] = (result[c][row][column] + differences[i++]) & 0xFF;
+          }
+        }
+      }
+      return new Image(width, height, result[0], result[1], result[2]);
+    }
+
+    private static int firstDifference(Image before, Image after, int row) {
+      for (int column = 0; column < after.getWidth(); column++) {
+        if (differs(before, after, row, column)) {
+          return column;
+        }
+      }
+      return -1;
+    }
+
+    private static int lastDifference(Image before, Image after, int row) {
+      for (int column = after.getWidth() - 1; column >= 0; column--) {
+        if (differs(before, after, row, column)) {
+          return column;
+        }
+      }
+      return -1;
+    }
+
+    private static boolean differs(Image before, Image after, int row, int column) {
+      return before.getRedChannel()[row][column] != after.getRedChannel()[row][column]
+              || before.getGreenChannel()[row][column] != after.getGreenChannel()[row][column]
+              || before.getBlueChannel()[row][column] != after.getBlueChannel()[row][column];
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package controller.gui;
+
+import java.awt.image.BufferedImage;
+
+import model.BufferedImageConverter;
+import model.ImageModel;
+
+/**
+ * One operation chosen in the GUI, recorded with its parameters so that it can be run on a
+ * reduced copy of the image for the preview and replayed on the full-resolution image later.
+ */
+public final class EditStep {
+
+  /**
+   * The model call behind a step.
+   */
+  public interface Operation {
+
+    /**
+     * Runs the operation.
+     *
+     * @param model         the model holding the images.
+     * @param imageName     the name of the source image.
+     * @param destImageName the name to store the result under.
+     * @param scale         the size of the source relative to the full-resolution image, for
+     *                      operations whose parameters are in pixels.
+     */
+    void apply(ImageModel model, String imageName, String destImageName, double scale);
+  }
+
+  private final String description;
+  private final int width;
+  private final int height;
+  private final Operation operation;
+
+  /**
+   * Creates a step that keeps the size of the image.
+   *
+   * @param description a short description of the step for the user, e.g. "Blur".
+   * @param operation   the model call behind the step.
+   */
+  public EditStep(String description, Operation operation) {
+    this(description, 0, 0, operation);
+  }
+
+  /**
+   * Creates a step that resizes the full-resolution image to the given size.
+   *
+   * @param description a short description of the step for the user.
+   * @param width       the full-resolution width of the result.
+   * @param height      the full-resolution height of the result.
+   * @param operation   the model call behind the step, which scales the size by its scale.
+   */
+  public EditStep(String description, int width, int height, Operation operation) {
+    this.description = description;
+    this.width = width;
+    this.height = height;
+    this.operation = operation;
+  }
+
+  /**
+   * Returns the description of the step.
+   *
+   * @return the description given when the step was created.
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Returns the full-resolution width of the result of this step.
+   *
+   * @param sourceWidth the full-resolution width of the source.
+   * @return the width of the result.
+   */
+  public int getResultWidth(int sourceWidth) {
+    return width > 0 ? width : sourceWidth;
+  }
+
+  /**
+   * Returns the full-resolution height of the result of this step.
+   *
+   * @param sourceHeight the full-resolution height of the source.
+   * @return the height of the result.
+   */
+  public int getResultHeight(int sourceHeight) {
+    return height > 0 ? height : sourceHeight;
+  }
+
+  /**
+   * Runs the step. Results the model keeps as processed images are stored as regular images, so
+   * that the next step can read them.
+   *
+   * @param model         the model holding the images.
+   * @param imageName     the name of the source image.
+   * @param destImageName the name to store the result under.
+   * @param scale         the size of the source relative to the full-resolution image.
+   */
+  public void apply(ImageModel model, String imageName, String destImageName, double scale) {
+    if (!destImageName.equals(imageName)) {
+      model.removeImage(destImageName);
+    }
+    operation.apply(model, imageName, destImageName, scale);
+    if (model.isProcessedImage(destImageName)) {
+      BufferedImage processed = model.getProcessedImage(destImageName);
+      model.putImage(destImageName, new BufferedImageConverter().toCustomImage(processed));
+    }
+  }
+}
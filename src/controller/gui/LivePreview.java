@@ -0,0 +1,196 @@
+package controller.gui;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Image;
+import model.ImageModel;
+import model.ImageUtils;
+
+/**
+ * Recomputes a preview in the background while the user drags a slider.
+ * <p>
+ * Each {@link #request} supersedes the previous one. Requests are coalesced: the step runs only
+ * after no new request has arrived for the debounce delay, so a drag produces a handful of
+ * computations rather than one per slider value. A request that arrives while a computation is
+ * running cancels it, and results of superseded requests are dropped both before and after they
+ * are handed to the listener's executor, so a stale result never replaces a newer one.
+ * </p>
+ * <p>
+ * Steps run on a copy of the source reduced to at most {@link #getMaxPixels()} pixels, in a
+ * workspace model of their own that only the background thread touches.
+ * </p>
+ */
+public class LivePreview {
+
+  /**
+   * Receives the results of live previews.
+   */
+  public interface Listener {
+
+    /**
+     * Called with the result of the latest request.
+     *
+     * @param image the result, computed on the reduced copy of the source.
+     * @param step  the step that produced it.
+     */
+    void previewReady(Image image, EditStep step);
+
+    /**
+     * Called when the step of the latest request rejected its parameters.
+     *
+     * @param message the reason.
+     * @param step    the step that failed.
+     */
+    void previewFailed(String message, EditStep step);
+  }
+
+  private static final String SOURCE_NAME = "~live-source";
+  private static final String RESULT_NAME = "~live-result";
+
+  private final ImageModel workspace;
+  private final Listener listener;
+  private final Executor delivery;
+  private final long delayMillis;
+  private final int maxPixels;
+  private final ScheduledExecutorService worker;
+  private final AtomicLong generation = new AtomicLong();
+  private Future<?> pending;
+  private Image source;
+  private Image reduced;
+
+  /**
+   * Creates a live preview.
+   *
+   * @param workspace   an empty model the steps run in, used by no one else.
+   * @param listener    receives the results.
+   * @param delivery    runs the listener calls, e.g. on the event dispatch thread.
+   * @param delayMillis how long the requests must pause before a step runs.
+   * @param maxPixels   the largest number of pixels of the reduced copy.
+   * @throws IllegalArgumentException if the delay is negative or the size not positive.
+   */
+  public LivePreview(ImageModel workspace, Listener listener, Executor delivery,
+                     long delayMillis, int maxPixels) {
+    if (delayMillis < 0 || maxPixels <= 0) {
+      throw new IllegalArgumentException("Live preview needs a non-negative delay and a "
+              + "positive size.");
+    }
+    this.workspace = workspace;
+    this.listener = listener;
+    this.delivery = delivery;
+    this.delayMillis = delayMillis;
+    this.maxPixels = maxPixels;
+    this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "live-preview");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Asks for a step to be previewed on an image, superseding any earlier request.
+   *
+   * @param image the image to preview the step on.
+   * @param scale the size of the image relative to the full-resolution image.
+   * @param step  the step.
+   */
+  public synchronized void request(Image image, double scale, EditStep step) {
+    long id = generation.incrementAndGet();
+    if (pending != null) {
+      pending.cancel(true);
+    }
+    pending = worker.schedule(() -> run(id, image, scale, step), delayMillis,
+            TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Drops the current request, whether it is waiting, running or about to be delivered.
+   */
+  public synchronized void cancel() {
+    generation.incrementAndGet();
+    if (pending != null) {
+      pending.cancel(true);
+      pending = null;
+    }
+  }
+
+  /**
+   * Returns whether a result is still to come for the latest request.
+   *
+   * @return true if the latest request has neither been delivered nor cancelled.
+   */
+  public synchronized boolean isPending() {
+    return pending != null && !pending.isDone();
+  }
+
+  /**
+   * Returns the largest number of pixels the steps run on.
+   *
+   * @return the pixel count of the reduced copy.
+   */
+  public int getMaxPixels() {
+    return maxPixels;
+  }
+
+  /**
+   * Stops the background thread; later requests are rejected.
+   */
+  public void shutdown() {
+    cancel();
+    worker.shutdownNow();
+  }
+
+  private void run(long id, Image image, double scale, EditStep step) {
+    if (id != generation.get()) {
+      return;
+    }
+    Image copy = reduce(image);
+    workspace.putImage(SOURCE_NAME, copy);
+    Image result;
+    try {
+      step.apply(workspace, SOURCE_NAME, RESULT_NAME,
+              scale * copy.getWidth() / image.getWidth());
+      result = workspace.getImage(RESULT_NAME);
+    } catch (IllegalArgumentException e) {
+      deliver(id, () -> listener.previewFailed(e.getMessage(), step));
+      return;
+    } finally {
+      workspace.removeImage(RESULT_NAME);
+    }
+    deliver(id, () -> listener.previewReady(result, step));
+  }
+
+  private void deliver(long id, Runnable call) {
+    if (id != generation.get()) {
+      return;
+    }
+    delivery.execute(() -> {
+      if (id == generation.get()) {
+        call.run();
+      }
+    });
+  }
+
+  /**
+   * Returns the reduced copy of an image, reusing the last one while the image is the same.
+   */
+  private Image reduce(Image image) {
+    if (image != source) {
+      long pixels = (long) image.getWidth() * image.getHeight();
+      if (pixels <= maxPixels) {
+        reduced = image;
+      } else {
+        double factor = Math.sqrt((double) maxPixels / pixels);
+        reduced = ImageUtils.downscale(image,
+                Math.max(1, (int) (image.getWidth() * factor)),
+                Math.max(1, (int) (image.getHeight() * factor)));
+      }
+      source = image;
+    }
+    return reduced;
+  }
+}
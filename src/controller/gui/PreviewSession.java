@@ -0,0 +1,355 @@
+package controller.gui;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Image;
+import model.ImageModel;
+
+/**
+ * The editing state of the GUI: a full-resolution image, a proxy of it no larger than the
+ * display, and the steps applied to the proxy but not yet to the full-resolution image.
+ * <p>
+ * Each step runs on the proxy straight away, which is what the user sees. The recorded steps are
+ * replayed on the full-resolution image only when {@link #apply()} is called, on save or when the
+ * user asks for it. Images no larger than the display need no proxy; their steps run at full
+ * resolution at once.
+ * </p>
+ * <p>
+ * Steps can be undone and redone through an {@link EditHistory} of the displayed images. Undoing
+ * a step that was already applied at full resolution goes back to the full-resolution result of
+ * the earlier state if the model still holds it under its name, and otherwise to the image the
+ * session started on, leaving the remaining steps pending.
+ * </p>
+ */
+public class PreviewSession {
+
+  /**
+   * Suffix of the names under which proxies are stored in the model.
+   */
+  public static final String PREVIEW_SUFFIX = "~preview";
+
+  private final ImageModel model;
+  private final boolean proxied;
+  private final String originalName;
+  private final Image originalImage;
+  private final String originalPreviewName;
+  private final EditHistory history;
+  private final List<WeakReference<Image>> appliedResults = new ArrayList<>();
+  private String imageName;
+  private String previewName;
+  private int width;
+  private int height;
+
+  /**
+   * Starts a session on an image of the model.
+   *
+   * @param model     the model holding the image.
+   * @param imageName the name of the full-resolution image.
+   * @param maxWidth  the largest width of the proxy.
+   * @param maxHeight the largest height of the proxy.
+   * @throws IllegalArgumentException if the image does not exist or a bound is not positive.
+   */
+  public PreviewSession(ImageModel model, String imageName, int maxWidth, int maxHeight) {
+    this(model, imageName, maxWidth, maxHeight, EditHistory.defaultBudget());
+  }
+
+  /**
+   * Starts a session on an image of the model with the given memory budget for its history.
+   *
+   * @param model         the model holding the image.
+   * @param imageName     the name of the full-resolution image.
+   * @param maxWidth      the largest width of the proxy.
+   * @param maxHeight     the largest height of the proxy.
+   * @param historyBudget the largest number of bytes the undo checkpoints may take.
+   * @throws IllegalArgumentException if the image does not exist, a bound is not positive or the
+   *                                  budget is negative.
+   */
+  public PreviewSession(ImageModel model, String imageName, int maxWidth, int maxHeight,
+                        long historyBudget) {
+    if (maxWidth <= 0 || maxHeight <= 0) {
+      throw new IllegalArgumentException("Preview size must be positive.");
+    }
+    this.model = model;
+    this.imageName = imageName;
+    this.originalName = imageName;
+    this.originalImage = model.getImage(imageName);
+    this.width = originalImage.getWidth();
+    this.height = originalImage.getHeight();
+    double scale = Math.min(1, Math.min((double) maxWidth / width, (double) maxHeight / height));
+    this.proxied = scale < 1;
+    if (proxied) {
+      this.previewName = imageName + PREVIEW_SUFFIX;
+      model.downscaleImage(Math.max(1, (int) Math.round(width * scale)),
+              Math.max(1, (int) Math.round(height * scale)), imageName, previewName);
+    } else {
+      this.previewName = imageName;
+    }
+    this.originalPreviewName = previewName;
+    this.history = new EditHistory(model, model.getImage(previewName), width, height,
+            historyBudget);
+  }
+
+  /**
+   * Runs a step on the current image for preview and records it.
+   *
+   * @param step          the step.
+   * @param destImageName the name of the full-resolution result once the step is applied.
+   * @return the name of the image to display.
+   */
+  public String preview(EditStep step, String destImageName) {
+    String destName = proxied ? destImageName + PREVIEW_SUFFIX : destImageName;
+    step.apply(model, previewName, destName, getScale());
+    return preview(step, destImageName, model.getImage(destName));
+  }
+
+  /**
+   * Records a step whose result on the current image was computed elsewhere, e.g. in the
+   * background from {@link #getPreviewImage()} and {@link #getScale()}.
+   *
+   * @param step          the step.
+   * @param destImageName the name of the full-resolution result once the step is applied.
+   * @param result        the result of the step on the current image.
+   * @return the name of the image to display.
+   */
+  public String preview(EditStep step, String destImageName, Image result) {
+    if (!proxied) {
+      model.putImage(destImageName, result);
+      imageName = destImageName;
+      previewName = destImageName;
+      width = result.getWidth();
+      height = result.getHeight();
+      history.record(step, destImageName, result, width, height);
+      return destImageName;
+    }
+    String destPreviewName = destImageName + PREVIEW_SUFFIX;
+    model.putImage(destPreviewName, result);
+    replacePreview(destPreviewName);
+    width = step.getResultWidth(width);
+    height = step.getResultHeight(height);
+    history.record(step, destImageName, result, width, height);
+    return previewName;
+  }
+
+  /**
+   * Returns the image the next step runs on for its preview.
+   *
+   * @return the proxy of the current state, or the current image if it needs no proxy.
+   */
+  public Image getPreviewImage() {
+    return model.getImage(previewName);
+  }
+
+  /**
+   * Undoes the last step.
+   *
+   * @return the name of the image to display.
+   * @throws IllegalStateException if there is nothing to undo.
+   */
+  public String undo() {
+    Image image = history.undo();
+    int position = history.getPosition();
+    if (proxied && appliedResults.size() > position) {
+      rewindFullResolution(position);
+    }
+    return show(image, position);
+  }
+
+  /**
+   * Redoes the last undone step.
+   *
+   * @return the name of the image to display.
+   * @throws IllegalStateException if there is nothing to redo.
+   */
+  public String redo() {
+    return show(history.redo(), history.getPosition());
+  }
+
+  /**
+   * Returns whether there is a step to undo.
+   *
+   * @return true if a step has been previewed since the session started.
+   */
+  public boolean canUndo() {
+    return history.canUndo();
+  }
+
+  /**
+   * Returns whether there is an undone step to redo.
+   *
+   * @return true if a step was undone and no new step has been previewed since.
+   */
+  public boolean canRedo() {
+    return history.canRedo();
+  }
+
+  /**
+   * Returns the undo history of the session.
+   *
+   * @return the history of the displayed images.
+   */
+  public EditHistory getHistory() {
+    return history;
+  }
+
+  /**
+   * Replays the recorded steps on the full-resolution image. Each step stores its result under
+   * the name it was given, as if it had run at full resolution to begin with.
+   *
+   * @return the name of the full-resolution result.
+   */
+  public String apply() {
+    if (!proxied) {
+      return imageName;
+    }
+    for (int i = appliedResults.size(); i < history.getPosition(); i++) {
+      String destImageName = history.getImageName(i);
+      history.getStep(i).apply(model, imageName, destImageName, 1);
+      imageName = destImageName;
+      // Weak references tell whether the model still holds a result without keeping it alive.
+      appliedResults.add(new WeakReference<>(model.getImage(destImageName)));
+    }
+    return imageName;
+  }
+
+  /**
+   * Returns whether the image is larger than the display and edited through a proxy.
+   *
+   * @return true if steps run on a proxy before they are applied at full resolution.
+   */
+  public boolean isProxied() {
+    return proxied;
+  }
+
+  /**
+   * Returns whether some steps have only been applied to the proxy.
+   *
+   * @return true if {@link #apply()} has work to do.
+   */
+  public boolean hasPendingSteps() {
+    return proxied && appliedResults.size() < history.getPosition();
+  }
+
+  /**
+   * Returns the steps applied to the proxy but not yet to the full-resolution image.
+   *
+   * @return the pending steps, oldest first.
+   */
+  public List<EditStep> getPendingSteps() {
+    List<EditStep> steps = new ArrayList<>();
+    if (proxied) {
+      for (int i = appliedResults.size(); i < history.getPosition(); i++) {
+        steps.add(history.getStep(i));
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * Returns the name of the full-resolution image, which does not include the pending steps.
+   *
+   * @return the name of the last full-resolution result.
+   */
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Returns the name of the image to display for the current state.
+   *
+   * @return the name of the proxy, or of the image itself if it needs no proxy.
+   */
+  public String getPreviewName() {
+    return previewName;
+  }
+
+  /**
+   * Returns the name of the image to display for the image the session started on.
+   *
+   * @return the name of the proxy of the original image.
+   */
+  public String getOriginalPreviewName() {
+    return originalPreviewName;
+  }
+
+  /**
+   * Returns the full-resolution width of the current state, including the pending steps.
+   *
+   * @return the width in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the full-resolution height of the current state, including the pending steps.
+   *
+   * @return the height in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the size of the proxy relative to the full-resolution image.
+   *
+   * @return a scale factor no larger than 1.
+   */
+  public double getScale() {
+    if (!proxied) {
+      return 1;
+    }
+    return (double) model.getImage(previewName).getWidth() / width;
+  }
+
+  private String show(Image image, int position) {
+    width = history.getWidth(position);
+    height = history.getHeight(position);
+    String name = position == 0 ? originalName : history.getImageName(position - 1);
+    if (!proxied) {
+      model.putImage(name, image);
+      imageName = name;
+      previewName = name;
+      return name;
+    }
+    String destPreviewName = position == 0 ? originalPreviewName : name + PREVIEW_SUFFIX;
+    model.putImage(destPreviewName, image);
+    replacePreview(destPreviewName);
+    return previewName;
+  }
+
+  private void replacePreview(String destPreviewName) {
+    if (!previewName.equals(originalPreviewName) && !previewName.equals(destPreviewName)) {
+      model.removeImage(previewName);
+    }
+    previewName = destPreviewName;
+  }
+
+  /**
+   * Makes the full-resolution image that of the latest state, at most the given one, whose
+   * result the model still holds; the steps after it become pending again.
+   */
+  private void rewindFullResolution(int position) {
+    int state = position;
+    while (state > 0) {
+      Image result = appliedResults.get(state - 1).get();
+      String name = history.getImageName(state - 1);
+      if (result != null && model.imageExists(name) && model.getImage(name) == result) {
+        break;
+      }
+      state--;
+    }
+    if (state == 0) {
+      if (!model.imageExists(originalName) || model.getImage(originalName) != originalImage) {
+        model.putImage(originalName, originalImage);
+      }
+      imageName = originalName;
+    } else {
+      imageName = history.getImageName(state - 1);
+    }
+    while (appliedResults.size() > state) {
+      appliedResults.remove(appliedResults.size() - 1);
+    }
+  }
+}
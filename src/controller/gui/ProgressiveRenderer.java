@@ -0,0 +1,211 @@
+package controller.gui;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Image;
+import model.ImageModel;
+import model.ImageUtils;
+
+/**
+ * Runs a step in the background in several passes of increasing resolution, so that a coarse
+ * result can be shown at once and refined while the full-resolution pass is still running.
+ * <p>
+ * Each coarse pass runs the step on a copy of the source reduced by one of the given fractions,
+ * from the smallest up, and the last pass runs it on the source itself. Every pass is handed to
+ * the listener as soon as it completes. Small sources skip the coarse passes, since the full
+ * pass is quick anyway. Starting a new rendering or calling {@link #cancel()} drops the passes
+ * of the previous one that have not been delivered yet.
+ * </p>
+ * <p>
+ * The passes run in a workspace model of their own that only the background thread touches;
+ * the listener decides what to do with the final result.
+ * </p>
+ */
+public class ProgressiveRenderer {
+
+  /**
+   * The fractions of the source size the coarse passes run at by default.
+   */
+  public static final double[] DEFAULT_FRACTIONS = {0.125, 0.5};
+
+  /**
+   * Sources with fewer pixels than this are rendered in a single pass.
+   */
+  public static final int MIN_PROGRESSIVE_PIXELS = 1 << 16;
+
+  /**
+   * Receives the passes of a rendering.
+   */
+  public interface Listener {
+
+    /**
+     * Called with the result of a coarse pass.
+     *
+     * @param image  the result, computed on a reduced copy of the source.
+     * @param width  the width to display it at, that of the full-resolution result.
+     * @param height the height to display it at.
+     * @param step   the step being rendered.
+     */
+    void passReady(Image image, int width, int height, EditStep step);
+
+    /**
+     * Called with the result of the final pass, after which no more calls follow.
+     *
+     * @param image the result computed on the source itself.
+     * @param step  the step being rendered.
+     */
+    void renderingFinished(Image image, EditStep step);
+
+    /**
+     * Called instead of {@link #renderingFinished} when a pass fails; no more calls follow.
+     *
+     * @param message the reason.
+     * @param step    the step being rendered.
+     */
+    void renderingFailed(String message, EditStep step);
+  }
+
+  private static final String SOURCE_NAME = "~progressive-source";
+  private static final String RESULT_NAME = "~progressive-result";
+
+  private final ImageModel workspace;
+  private final Listener listener;
+  private final Executor delivery;
+  private final double[] fractions;
+  private final ExecutorService worker;
+  private final AtomicLong generation = new AtomicLong();
+  private Future<?> pending;
+
+  /**
+   * Creates a renderer with the default coarse passes.
+   *
+   * @param workspace an empty model the passes run in, used by no one else.
+   * @param listener  receives the passes.
+   * @param delivery  runs the listener calls, e.g. on the event dispatch thread.
+   */
+  public ProgressiveRenderer(ImageModel workspace, Listener listener, Executor delivery) {
+    this(workspace, listener, delivery, DEFAULT_FRACTIONS);
+  }
+
+  /**
+   * Creates a renderer.
+   *
+   * @param workspace an empty model the passes run in, used by no one else.
+   * @param listener  receives the passes.
+   * @param delivery  runs the listener calls, e.g. on the event dispatch thread.
+   * @param fractions the fractions of the source size of the coarse passes, in increasing
+   *                  order, each between 0 and 1.
+   * @throws IllegalArgumentException if the fractions are not increasing or out of range.
+   */
+  public ProgressiveRenderer(ImageModel workspace, Listener listener, Executor delivery,
+                             double... fractions) {
+    double previous = 0;
+    for (double fraction : fractions) {
+      if (!(fraction > previous && fraction < 1)) {
+        throw new IllegalArgumentException("Pass fractions must increase strictly between 0 "
+                + "and 1.");
+      }
+      previous = fraction;
+    }
+    this.workspace = workspace;
+    this.listener = listener;
+    this.delivery = delivery;
+    this.fractions = fractions.clone();
+    this.worker = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "progressive-render");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts rendering a step, dropping any rendering still in progress.
+   *
+   * @param source the image to run the step on.
+   * @param scale  the size of the source relative to the full-resolution image.
+   * @param step   the step.
+   */
+  public synchronized void render(Image source, double scale, EditStep step) {
+    long id = generation.incrementAndGet();
+    if (pending != null) {
+      pending.cancel(true);
+    }
+    pending = worker.submit(() -> run(id, source, scale, step));
+  }
+
+  /**
+   * Drops the rendering in progress; none of its remaining passes is delivered.
+   */
+  public synchronized void cancel() {
+    generation.incrementAndGet();
+    if (pending != null) {
+      pending.cancel(true);
+      pending = null;
+    }
+  }
+
+  /**
+   * Stops the background thread; later renderings are rejected.
+   */
+  public void shutdown() {
+    cancel();
+    worker.shutdownNow();
+  }
+
+  private void run(long id, Image source, double scale, EditStep step) {
+    try {
+      long pixels = (long) source.getWidth() * source.getHeight();
+      if (pixels >= MIN_PROGRESSIVE_PIXELS) {
+        for (double fraction : fractions) {
+          if (id != generation.get()) {
+            return;
+          }
+          int width = Math.max(1, (int) Math.round(source.getWidth() * fraction));
+          int height = Math.max(1, (int) Math.round(source.getHeight() * fraction));
+          Image reduced = ImageUtils.downscale(source, width, height);
+          Image result = apply(step, reduced, scale * width / source.getWidth());
+          // Scale the display size from the reduced source, so that passes of steps that keep
+          // the size are shown at exactly the size of the final result.
+          int displayWidth = (int) Math.round((double) result.getWidth() * source.getWidth()
+                  / width);
+          int displayHeight = (int) Math.round((double) result.getHeight() * source.getHeight()
+                  / height);
+          deliver(id, () -> listener.passReady(result, displayWidth, displayHeight, step));
+        }
+      }
+      if (id != generation.get()) {
+        return;
+      }
+      Image result = apply(step, source, scale);
+      deliver(id, () -> listener.renderingFinished(result, step));
+    } catch (RuntimeException e) {
+      deliver(id, () -> listener.renderingFailed(e.getMessage(), step));
+    }
+  }
+
+  private Image apply(EditStep step, Image source, double scale) {
+    workspace.putImage(SOURCE_NAME, source);
+    try {
+      step.apply(workspace, SOURCE_NAME, RESULT_NAME, scale);
+      return workspace.getImage(RESULT_NAME);
+    } finally {
+      workspace.removeImage(SOURCE_NAME);
+      workspace.removeImage(RESULT_NAME);
+    }
+  }
+
+  private void deliver(long id, Runnable call) {
+    if (id != generation.get()) {
+      return;
+    }
+    delivery.execute(() -> {
+      if (id == generation.get()) {
+        call.run();
+      }
+    });
+  }
+}
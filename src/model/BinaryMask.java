@@ -0,0 +1,324 @@
+package model;
+
+/**
+ * A binary image packed 64 pixels to a {@code long}, used to prepare the masks of the masked
+ * operations.
+ * <p>
+ * A pixel is set when it is selected, that is, when the masked operations change it: where the
+ * mask image's red value is 0. Growing the mask with {@link #dilate} therefore widens the area
+ * an operation affects and {@link #erode} narrows it.
+ * </p>
+ * <p>
+ * Erosion and dilation with a rectangular structuring element are separable into a pass along
+ * the rows and one along the columns. The column pass runs the van Herk/Gil-Werman algorithm on
+ * whole words, 64 columns at a time: the rows are cut into blocks as tall as the element, and
+ * every window is the combination of a suffix of one block and a prefix of the next, so each
+ * word costs three operations whatever the element height. Along a row the pixels of a word are
+ * bits, so the row pass instead doubles the window by combining shifted copies of the row,
+ * {@code log2} of the element width word operations per 64 pixels. Pixels beyond the edges
+ * never affect the result, as with the edge clamping of the other filters.
+ * </p>
+ */
+public final class BinaryMask {
+
+  private final int width;
+  private final int height;
+  private final int words;
+  private final long[] bits;
+
+  /**
+   * Creates a mask with no pixel set.
+   *
+   * @param width  the width in pixels.
+   * @param height the height in pixels.
+   * @throws IllegalArgumentException if a dimension is not positive.
+   */
+  public BinaryMask(int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Mask dimensions must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.words = (width + 63) >>> 6;
+    this.bits = new long[words * height];
+  }
+
+  /**
+   * Reads a mask image: the pixels whose red value is 0 are set.
+   *
+   * @param image the mask image.
+   * @return the packed mask.
+   */
+  public static BinaryMask of(Image image) {
+    BinaryMask mask = new BinaryMask(image.getWidth(), image.getHeight());
+    int[][] red = image.getRedChannel();
+    for (int y = 0; y < mask.height; y++) {
+      int[] row = red[y];
+      int base = y * mask.words;
+      for (int x = 0; x < mask.width; x++) {
+        if (row[x] == 0) {
+          mask.bits[base + (x >>> 6)] |= 1L << x;
+        }
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Returns the mask as an image: black where a pixel is set and white elsewhere.
+   *
+   * @return the mask image.
+   */
+  public Image toImage() {
+    int[][] values = new int[height][width];
+    for (int y = 0; y < height; y++) {
+      int base = y * words;
+      for (int x = 0; x < width; x++) {
+        values[y][x] = (bits[base + (x >>> 6)] & (1L << x)) != 0 ? 0 : 255;
+      }
+    }
+    return new Image(width, height, values, copy(values), copy(values));
+  }
+
+  /**
+   * Returns the width of the mask.
+   *
+   * @return the width in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the mask.
+   *
+   * @return the height in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns whether a pixel is set.
+   *
+   * @param x the column.
+   * @param y the row.
+   * @return true if the pixel is selected.
+   */
+  public boolean get(int x, int y) {
+    return (bits[y * words + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  /**
+   * Sets or clears a pixel.
+   *
+   * @param x     the column.
+   * @param y     the row.
+   * @param value whether the pixel is selected.
+   */
+  public void set(int x, int y, boolean value) {
+    if (value) {
+      bits[y * words + (x >>> 6)] |= 1L << x;
+    } else {
+      bits[y * words + (x >>> 6)] &= ~(1L << x);
+    }
+  }
+
+  /**
+   * Returns the number of pixels set.
+   *
+   * @return the selected pixel count.
+   */
+  public int count() {
+    int count = 0;
+    for (long word : bits) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Shrinks the mask: a pixel stays set only if every pixel of the rectangle around it is set.
+   * The rectangle reaches {@code (elementWidth - 1) / 2} pixels left and
+   * {@code elementWidth / 2} right, and likewise up and down.
+   *
+   * @param elementWidth  the width of the structuring element.
+   * @param elementHeight the height of the structuring element.
+   * @return the eroded mask.
+   * @throws IllegalArgumentException if a dimension of the element is not positive.
+   */
+  public BinaryMask erode(int elementWidth, int elementHeight) {
+    checkElement(elementWidth, elementHeight);
+    return filter(-(elementWidth - 1) / 2, elementWidth / 2, -(elementHeight - 1) / 2,
+            elementHeight / 2, true);
+  }
+
+  /**
+   * Grows the mask: a pixel becomes set if any pixel of the reflected rectangle around it is
+   * set, so that dilating undoes what eroding with the same element removed from large areas.
+   *
+   * @param elementWidth  the width of the structuring element.
+   * @param elementHeight the height of the structuring element.
+   * @return the dilated mask.
+   * @throws IllegalArgumentException if a dimension of the element is not positive.
+   */
+  public BinaryMask dilate(int elementWidth, int elementHeight) {
+    checkElement(elementWidth, elementHeight);
+    return filter(-elementWidth / 2, (elementWidth - 1) / 2, -elementHeight / 2,
+            (elementHeight - 1) / 2, false);
+  }
+
+  /**
+   * Erodes and then dilates the mask, removing the parts smaller than the element.
+   *
+   * @param elementWidth  the width of the structuring element.
+   * @param elementHeight the height of the structuring element.
+   * @return the opened mask.
+   * @throws IllegalArgumentException if a dimension of the element is not positive.
+   */
+  public BinaryMask open(int elementWidth, int elementHeight) {
+    return erode(elementWidth, elementHeight).dilate(elementWidth, elementHeight);
+  }
+
+  /**
+   * Dilates and then erodes the mask, filling the gaps smaller than the element.
+   *
+   * @param elementWidth  the width of the structuring element.
+   * @param elementHeight the height of the structuring element.
+   * @return the closed mask.
+   * @throws IllegalArgumentException if a dimension of the element is not positive.
+   */
+  public BinaryMask close(int elementWidth, int elementHeight) {
+    return dilate(elementWidth, elementHeight).erode(elementWidth, elementHeight);
+  }
+
+  /**
+   * Combines, with AND or OR, every pixel with the pixels from {@code left} to {@code right}
+   * columns and {@code top} to {@code bottom} rows away, ignoring those outside the mask.
+   */
+  private BinaryMask filter(int left, int right, int top, int bottom, boolean and) {
+    BinaryMask rows = new BinaryMask(width, height);
+    long[] row = new long[words];
+    long[] ahead = new long[words];
+    long[] behind = new long[words];
+    long[] shifted = new long[words];
+    long padding = width % 64 == 0 ? 0 : -1L << width;
+    for (int y = 0; y < height; y++) {
+      // The unused bits of the last word act as pixels past the edge, so they hold the neutral
+      // value while the row is processed. The window is split at the pixel itself into the
+      // part ahead and the part behind, so that each half only reads past one edge.
+      System.arraycopy(bits, y * words, row, 0, words);
+      if (and) {
+        row[words - 1] |= padding;
+      }
+      slide(row, ahead, shifted, right, 1, and);
+      slide(row, behind, shifted, -left, -1, and);
+      combine(ahead, behind, and);
+      ahead[words - 1] &= ~padding;
+      System.arraycopy(ahead, 0, rows.bits, y * words, words);
+    }
+
+    BinaryMask result = new BinaryMask(width, height);
+    int length = bottom - top + 1;
+    if (length == 1) {
+      System.arraycopy(rows.bits, 0, result.bits, 0, bits.length);
+      return result;
+    }
+    // Van Herk/Gil-Werman over the extended row range [top, height - 1 + bottom], whose rows
+    // outside the mask hold the neutral value: prefix[e] combines block rows up to e and
+    // suffix[e] those from e on, so the window starting at e is suffix[e] with prefix[e + L - 1].
+    long neutral = and ? -1L : 0L;
+    int extended = height + length - 1;
+    long[] prefix = new long[extended * words];
+    long[] suffix = new long[extended * words];
+    for (int e = 0; e < extended; e++) {
+      int y = e + top;
+      boolean inside = y >= 0 && y < height;
+      boolean start = e % length == 0;
+      for (int j = 0; j < words; j++) {
+        long value = inside ? rows.bits[y * words + j] : neutral;
+        prefix[e * words + j] = start ? value
+                : and ? prefix[(e - 1) * words + j] & value : prefix[(e - 1) * words + j] | value;
+      }
+    }
+    for (int e = extended - 1; e >= 0; e--) {
+      int y = e + top;
+      boolean inside = y >= 0 && y < height;
+      boolean end = e % length == length - 1 || e == extended - 1;
+      for (int j = 0; j < words; j++) {
+        long value = inside ? rows.bits[y * words + j] : neutral;
+        suffix[e * words + j] = end ? value
+                : and ? suffix[(e + 1) * words + j] & value : suffix[(e + 1) * words + j] | value;
+      }
+    }
+    for (int y = 0; y < height; y++) {
+      for (int j = 0; j < words; j++) {
+        long first = suffix[y * words + j];
+        long last = prefix[(y + length - 1) * words + j];
+        result.bits[y * words + j] = and ? first & last : first | last;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Sets {@code run[x]} to the combination of the pixels from {@code x} to
+   * {@code x + direction * reach} of the row, doubling the span of a run up to the largest
+   * power of two within the window and covering the rest with one more shifted copy.
+   */
+  private void slide(long[] row, long[] run, long[] shifted, int reach, int direction,
+                     boolean and) {
+    System.arraycopy(row, 0, run, 0, words);
+    int length = reach + 1;
+    int span = 1;
+    while (span * 2 <= length) {
+      shift(run, shifted, direction * span, and);
+      combine(run, shifted, and);
+      span *= 2;
+    }
+    if (span < length) {
+      shift(run, shifted, direction * (length - span), and);
+      combine(run, shifted, and);
+    }
+  }
+
+  /**
+   * Sets {@code dest[x]} to {@code source[x + offset]} bit by bit, reading bits past either end
+   * as set when {@code fill} is true and as clear otherwise.
+   */
+  private void shift(long[] source, long[] dest, int offset, boolean fill) {
+    long outside = fill ? -1L : 0L;
+    int wordOffset = Math.floorDiv(offset, 64);
+    int bitOffset = Math.floorMod(offset, 64);
+    for (int j = 0; j < words; j++) {
+      int k = j + wordOffset;
+      long low = k >= 0 && k < words ? source[k] : outside;
+      if (bitOffset == 0) {
+        dest[j] = low;
+      } else {
+        long high = k + 1 >= 0 && k + 1 < words ? source[k + 1] : outside;
+        dest[j] = (low >>> bitOffset) | (high << (64 - bitOffset));
+      }
+    }
+  }
+
+  private void combine(long[] target, long[] other, boolean and) {
+    for (int j = 0; j < words; j++) {
+      target[j] = and ? target[j] & other[j] : target[j] | other[j];
+    }
+  }
+
+  private static void checkElement(int elementWidth, int elementHeight) {
+    if (elementWidth <= 0 || elementHeight <= 0) {
+      throw new IllegalArgumentException("Structuring element dimensions must be positive.");
+    }
+  }
+
+  private static int[][] copy(int[][] values) {
+    int[][] copy = new int[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      copy[i] = values[i].clone();
+    }
+    return copy;
+  }
+}
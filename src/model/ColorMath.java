@@ -0,0 +1,83 @@
+package model;
+
+/**
+ * Per-pixel access to the sepia tone and the luma component, shared by every code path that
+ * applies them one pixel at a time; the coefficients live in {@link ColorMatrix}.
+ * <p>
+ * By default color matrices are evaluated in Q16 fixed point: each coefficient is stored as an
+ * integer scaled by 2<sup>16</sup>, the products are summed as integers and the sum is shifted
+ * back, which truncates just like the {@code (int)} cast of the floating-point form. The rounding
+ * of the coefficients makes the result differ from the floating-point form by at most one level,
+ * for fewer than one in a thousand inputs. Setting the {@value #EXACT_PROPERTY} system property to
+ * {@code true} selects the floating-point form instead.
+ * </p>
+ */
+public final class ColorMath {
+
+  /**
+   * System property that selects the floating-point color matrices when set to {@code true}.
+   */
+  public static final String EXACT_PROPERTY = "ime.color.exact";
+
+  private static final boolean EXACT = Boolean.getBoolean(EXACT_PROPERTY);
+
+  private ColorMath() {
+  }
+
+  /**
+   * Returns whether the floating-point color matrices are in use.
+   *
+   * @return true if {@value #EXACT_PROPERTY} is set.
+   */
+  public static boolean isExact() {
+    return EXACT;
+  }
+
+  /**
+   * Computes the red channel of the sepia tone of a pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped sepia red value.
+   */
+  public static int sepiaRed(int r, int g, int b) {
+    return ColorMatrix.SEPIA.red(r, g, b);
+  }
+
+  /**
+   * Computes the green channel of the sepia tone of a pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped sepia green value.
+   */
+  public static int sepiaGreen(int r, int g, int b) {
+    return ColorMatrix.SEPIA.green(r, g, b);
+  }
+
+  /**
+   * Computes the blue channel of the sepia tone of a pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped sepia blue value.
+   */
+  public static int sepiaBlue(int r, int g, int b) {
+    return ColorMatrix.SEPIA.blue(r, g, b);
+  }
+
+  /**
+   * Computes the luma of a pixel using the Rec. 709 weights.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the luma value.
+   */
+  public static int luma(int r, int g, int b) {
+    return ColorMatrix.LUMA.red(r, g, b);
+  }
+}
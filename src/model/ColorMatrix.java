@@ -0,0 +1,269 @@
+package model;
+
+import java.util.Arrays;
+
+import model.kernel.PixelKernels;
+import model.strategy.ImageOperation;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * A linear color transform with an offset, stored as a 3x4 matrix whose rows compute the red,
+ * green and blue results from the source red, green and blue values plus a constant.
+ * <p>
+ * Sepia, luma and the single-channel visualizations are all color matrices. Matrices compose
+ * with {@link #then(ColorMatrix)} before any pixel is touched, so a chain of color transforms
+ * costs one pass over the image. A composed chain skips the clamping and truncation between its
+ * steps, so where an intermediate step would have clamped, its result can differ from running
+ * the steps one by one.
+ * </p>
+ * <p>
+ * Matrices are evaluated in Q16 fixed point unless {@link ColorMath#isExact()}, like the other
+ * color operations, and the result is truncated and clamped to 0-255.
+ * </p>
+ */
+public final class ColorMatrix implements ImageOperation {
+
+  /**
+   * The transform that leaves every pixel unchanged.
+   */
+  public static final ColorMatrix IDENTITY = new ColorMatrix(
+          1, 0, 0, 0,
+          0, 1, 0, 0,
+          0, 0, 1, 0);
+
+  /**
+   * The sepia tone.
+   */
+  public static final ColorMatrix SEPIA = new ColorMatrix(
+          0.393, 0.769, 0.189, 0,
+          0.349, 0.686, 0.168, 0,
+          0.272, 0.534, 0.131, 0);
+
+  /**
+   * The Rec. 709 luma, written to all three channels.
+   */
+  public static final ColorMatrix LUMA = new ColorMatrix(
+          0.2126, 0.7152, 0.0722, 0,
+          0.2126, 0.7152, 0.0722, 0,
+          0.2126, 0.7152, 0.0722, 0);
+
+  /**
+   * The average of the three channels, written to all three channels.
+   */
+  public static final ColorMatrix INTENSITY = new ColorMatrix(
+          1.0 / 3, 1.0 / 3, 1.0 / 3, 0,
+          1.0 / 3, 1.0 / 3, 1.0 / 3, 0,
+          1.0 / 3, 1.0 / 3, 1.0 / 3, 0);
+
+  /**
+   * Keeps the red channel and clears the others.
+   */
+  public static final ColorMatrix RED = new ColorMatrix(
+          1, 0, 0, 0,
+          0, 0, 0, 0,
+          0, 0, 0, 0);
+
+  /**
+   * Keeps the green channel and clears the others.
+   */
+  public static final ColorMatrix GREEN = new ColorMatrix(
+          0, 0, 0, 0,
+          0, 1, 0, 0,
+          0, 0, 0, 0);
+
+  /**
+   * Keeps the blue channel and clears the others.
+   */
+  public static final ColorMatrix BLUE = new ColorMatrix(
+          0, 0, 0, 0,
+          0, 0, 0, 0,
+          0, 0, 1, 0);
+
+  private static final int FRACTION_BITS = 16;
+  private static final double MAX_COEFFICIENT = 32;
+  private static final double MAX_OFFSET = 4096;
+
+  private final double[] coefficients;
+  private final int[] fixed;
+
+  private ColorMatrix(double... coefficients) {
+    if (coefficients.length != 12) {
+      throw new IllegalArgumentException("A color matrix needs 12 coefficients.");
+    }
+    this.coefficients = coefficients.clone();
+    this.fixed = new int[12];
+    for (int i = 0; i < 12; i++) {
+      double limit = i % 4 == 3 ? MAX_OFFSET : MAX_COEFFICIENT;
+      if (!(Math.abs(coefficients[i]) <= limit)) {
+        throw new IllegalArgumentException("Color matrix coefficients must lie within +/-"
+                + (int) MAX_COEFFICIENT + " and offsets within +/-" + (int) MAX_OFFSET + ".");
+      }
+      fixed[i] = (int) Math.round(coefficients[i] * (1 << FRACTION_BITS));
+    }
+  }
+
+  /**
+   * Creates a color matrix from its rows.
+   *
+   * @param coefficients twelve values in row-major order: the red row (red, green and blue
+   *                     weights and an offset), then the green row, then the blue row.
+   * @return the matrix.
+   * @throws IllegalArgumentException if there are not twelve values, a weight is outside +/-32
+   *                                  or an offset is outside +/-4096.
+   */
+  public static ColorMatrix of(double... coefficients) {
+    return new ColorMatrix(coefficients);
+  }
+
+  /**
+   * Returns the matrix with the given name.
+   *
+   * @param name one of "identity", "sepia", "luma", "intensity", "red", "green" or "blue".
+   * @return the matrix.
+   * @throws IllegalArgumentException if the name is unknown.
+   */
+  public static ColorMatrix named(String name) {
+    switch (name.toLowerCase()) {
+      case "identity":
+        return IDENTITY;
+      case "sepia":
+        return SEPIA;
+      case "luma":
+        return LUMA;
+      case "intensity":
+        return INTENSITY;
+      case "red":
+        return RED;
+      case "green":
+        return GREEN;
+      case "blue":
+        return BLUE;
+      default:
+        throw new IllegalArgumentException("Unknown color matrix: " + name);
+    }
+  }
+
+  /**
+   * Returns the matrix that applies this transform and then the given one.
+   *
+   * @param next the transform to apply to the result of this one.
+   * @return the composed matrix.
+   */
+  public ColorMatrix then(ColorMatrix next) {
+    double[] a = next.coefficients;
+    double[] b = coefficients;
+    double[] product = new double[12];
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 4; column++) {
+        double sum = column == 3 ? a[row * 4 + 3] : 0;
+        for (int k = 0; k < 3; k++) {
+          sum += a[row * 4 + k] * b[k * 4 + column];
+        }
+        product[row * 4 + column] = sum;
+      }
+    }
+    return new ColorMatrix(product);
+  }
+
+  /**
+   * Computes the red result for one pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped red result.
+   */
+  public int red(int r, int g, int b) {
+    return evaluate(0, r, g, b);
+  }
+
+  /**
+   * Computes the green result for one pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped green result.
+   */
+  public int green(int r, int g, int b) {
+    return evaluate(4, r, g, b);
+  }
+
+  /**
+   * Computes the blue result for one pixel.
+   *
+   * @param r the red value of the pixel.
+   * @param g the green value of the pixel.
+   * @param b the blue value of the pixel.
+   * @return the clamped blue result.
+   */
+  public int blue(int r, int g, int b) {
+    return evaluate(8, r, g, b);
+  }
+
+  /**
+   * Applies the transform to every pixel of an image in a single pass.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  @Override
+  public Image apply(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][] red = new int[height][width];
+    int[][] green = new int[height][width];
+    int[][] blue = new int[height][width];
+
+    if (!ColorMath.isExact()) {
+      PixelKernels kernels = PixelKernels.get();
+      for (int i = 0; i < height; i++) {
+        kernels.colorMatrix(image.getRedChannel()[i], image.getGreenChannel()[i],
+                image.getBlueChannel()[i], red[i], green[i], blue[i], fixed, width);
+      }
+      return new Image(width, height, red, green, blue);
+    }
+
+    for (int i = 0; i < height; i++) {
+      int[] sourceRed = image.getRedChannel()[i];
+      int[] sourceGreen = image.getGreenChannel()[i];
+      int[] sourceBlue = image.getBlueChannel()[i];
+      for (int j = 0; j < width; j++) {
+        int r = sourceRed[j];
+        int g = sourceGreen[j];
+        int b = sourceBlue[j];
+        red[i][j] = evaluate(0, r, g, b);
+        green[i][j] = evaluate(4, r, g, b);
+        blue[i][j] = evaluate(8, r, g, b);
+      }
+    }
+
+    return new Image(width, height, red, green, blue);
+  }
+
+  private int evaluate(int row, int r, int g, int b) {
+    if (ColorMath.isExact()) {
+      return clamp((int) (coefficients[row] * r + coefficients[row + 1] * g
+              + coefficients[row + 2] * b + coefficients[row + 3]));
+    }
+    return clamp((fixed[row] * r + fixed[row + 1] * g + fixed[row + 2] * b + fixed[row + 3])
+            >> FRACTION_BITS);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ColorMatrix
+            && Arrays.equals(coefficients, ((ColorMatrix) other).coefficients);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(coefficients);
+  }
+
+  @Override
+  public String toString() {
+    return "ColorMatrix" + Arrays.toString(coefficients);
+  }
+}
@@ -0,0 +1,314 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import model.factory.LoadOptions;
+import model.strategy.ImageOperation;
+
+/**
+ * A thread-safe {@link ImageModel} that can be shared by several controllers.
+ * <p>
+ * Images are kept in concurrent maps and every operation locks the names it touches: source
+ * and mask images are read-locked and destination images are write-locked. An operation
+ * therefore always sees a consistent source, and a destination (or all destinations of an
+ * {@code rgbSplit}) becomes visible to other threads in one step when the operation finishes.
+ * Operations on unrelated names usually run in parallel. Names share a fixed set of striped
+ * locks, so the number of locks stays the same however many names a long session uses; two
+ * names that hash to the same stripe are serialized. Stripes are locked in index order, so
+ * operations that share stripes cannot deadlock.
+ * </p>
+ */
+public class ConcurrentImageModel extends ImageModelImpl {
+  private static final int LOCK_STRIPES = 64;
+
+  private final ReentrantReadWriteLock[] locks;
+
+  /**
+   * Constructs a {@code ConcurrentImageModel} with an empty collection of images.
+   */
+  public ConcurrentImageModel() {
+    super(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    this.locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Override
+  public Image getImage(String imageName) {
+    return withLocks(names(imageName), names(), () -> super.getImage(imageName));
+  }
+
+  @Override
+  public void load(String filePath, String imageName) {
+    withLocks(names(), names(imageName), () -> super.load(filePath, imageName));
+  }
+
+  @Override
+  public void load(String filePath, String imageName, LoadOptions options) {
+    withLocks(names(), names(imageName), () -> super.load(filePath, imageName, options));
+  }
+
+  @Override
+  public void save(String filePath, String imageName) {
+    // Saving a processed image removes it from the model, so it needs the write lock.
+    withLocks(names(), names(imageName), () -> super.save(filePath, imageName));
+  }
+
+  @Override
+  public BufferedImage getProcessedImage(String imageName) {
+    return withLocks(names(imageName), names(), () -> super.getProcessedImage(imageName));
+  }
+
+  @Override
+  public void visualizeChannel(String channel, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.visualizeChannel(channel, imageName, destImageName));
+  }
+
+  @Override
+  public void visualizeChannel(String channel, String imageName, String maskImageName,
+                               String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.visualizeChannel(channel, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void visualizeComponent(String component, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.visualizeComponent(component, imageName, destImageName));
+  }
+
+  @Override
+  public void visualizeComponent(String component, String imageName, String maskImageName,
+                                 String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.visualizeComponent(component, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void flip(String direction, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.flip(direction, imageName, destImageName));
+  }
+
+  @Override
+  public void brighten(int amount, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.brighten(amount, imageName, destImageName));
+  }
+
+  @Override
+  public void blur(String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.blur(imageName, destImageName));
+  }
+
+  @Override
+  public void blur(String imageName, String maskImageName, String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.blur(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void sharpen(String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.sharpen(imageName, destImageName));
+  }
+
+  @Override
+  public void sharpen(String imageName, String maskImageName, String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.sharpen(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void convertToSepia(String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.convertToSepia(imageName, destImageName));
+  }
+
+  @Override
+  public void convertToSepia(String imageName, String maskImageName, String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.convertToSepia(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void rgbSplit(String imageName, String redImageName, String greenImageName,
+                       String blueImageName) {
+    withLocks(names(imageName), names(redImageName, greenImageName, blueImageName),
+            () -> super.rgbSplit(imageName, redImageName, greenImageName, blueImageName));
+  }
+
+  @Override
+  public void rgbCombine(String destImageName, String redImageName, String greenImageName,
+                         String blueImageName) {
+    withLocks(names(redImageName, greenImageName, blueImageName), names(destImageName),
+            () -> super.rgbCombine(destImageName, redImageName, greenImageName, blueImageName));
+  }
+
+  @Override
+  public void convertToGreyscale(String component, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.convertToGreyscale(component, imageName, destImageName));
+  }
+
+  @Override
+  public void convertToGreyscale(String component, String imageName, String maskImageName,
+                                 String destImageName) {
+    withLocks(names(imageName, maskImageName), names(destImageName),
+            () -> super.convertToGreyscale(component, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void histogram(String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.histogram(imageName, destImageName));
+  }
+
+  @Override
+  public void colorCorrect(String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.colorCorrect(imageName, destImageName));
+  }
+
+  @Override
+  public void levelsAdjust(int black, int mid, int white, String imageName,
+                           String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.levelsAdjust(black, mid, white, imageName, destImageName));
+  }
+
+  @Override
+  public void splitOperation(String operation, String imageName, String destImageName,
+                             Integer splitPercentage, Map<String, Object> additionalParams) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.splitOperation(operation, imageName, destImageName, splitPercentage,
+                    additionalParams));
+  }
+
+  @Override
+  public void compress(double percent, String imageName, String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.compress(percent, imageName, destImageName));
+  }
+
+  @Override
+  public void downscaleImage(int newWidth, int newHeight, String imageName,
+                             String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.downscaleImage(newWidth, newHeight, imageName, destImageName));
+  }
+
+  @Override
+  public void putImage(String imageName, Image image) {
+    withLocks(names(), names(imageName), () -> super.putImage(imageName, image));
+  }
+
+  @Override
+  public void removeImage(String imageName) {
+    withLocks(names(), names(imageName), () -> super.removeImage(imageName));
+  }
+
+  @Override
+  public void cropImage(int x, int y, int width, int height, String imageName,
+                        String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.cropImage(x, y, width, height, imageName, destImageName));
+  }
+
+  @Override
+  public void applyOperation(ImageOperation operation, String imageName,
+                             String destImageName) {
+    withLocks(names(imageName), names(destImageName),
+            () -> super.applyOperation(operation, imageName, destImageName));
+  }
+
+  @Override
+  public void executeOperationWithMask(String operation, float[][] kernel, String component,
+                                       String sourceImageName, String maskName,
+                                       String destImageName) {
+    withLocks(names(sourceImageName, maskName), names(destImageName),
+            () -> super.executeOperationWithMask(operation, kernel, component, sourceImageName,
+                    maskName, destImageName));
+  }
+
+  private static String[] names(String... names) {
+    return names;
+  }
+
+  /**
+   * Runs an action while holding read locks on the source names and write locks on the
+   * destination names. A stripe that covers both a read and a written name is only
+   * write-locked.
+   *
+   * @param readNames  the names of images the action reads; null entries are ignored.
+   * @param writeNames the names of images the action creates or replaces.
+   * @param action     the action to run.
+   */
+  private void withLocks(String[] readNames, String[] writeNames, Runnable action) {
+    withLocks(readNames, writeNames, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs an action while holding read locks on the source names and write locks on the
+   * destination names, returning its result.
+   *
+   * @param readNames  the names of images the action reads; null entries are ignored.
+   * @param writeNames the names of images the action creates or replaces.
+   * @param action     the action to run.
+   * @param <T>        the type of the result.
+   * @return the result of the action.
+   */
+  private <T> T withLocks(String[] readNames, String[] writeNames, Supplier<T> action) {
+    TreeMap<Integer, Boolean> ordered = new TreeMap<>();
+    for (String name : readNames) {
+      if (name != null) {
+        ordered.putIfAbsent(stripe(name), false);
+      }
+    }
+    for (String name : writeNames) {
+      if (name != null) {
+        ordered.put(stripe(name), true);
+      }
+    }
+
+    List<Lock> held = new ArrayList<>();
+    try {
+      for (Map.Entry<Integer, Boolean> entry : ordered.entrySet()) {
+        ReentrantReadWriteLock lock = locks[entry.getKey()];
+        Lock acquired = entry.getValue() ? lock.writeLock() : lock.readLock();
+        acquired.lock();
+        held.add(acquired);
+      }
+      return action.get();
+    } finally {
+      for (int i = held.size() - 1; i >= 0; i--) {
+        held.get(i).unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the lock stripe guarding an image name.
+   *
+   * @param name the image name.
+   * @return an index into {@code locks}.
+   */
+  private static int stripe(String name) {
+    int hash = name.hashCode();
+    return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+  }
+}
@@ -0,0 +1,291 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import model.strategy.ImageOperation;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * A convolution with an arbitrary square kernel, such as one read from a file.
+ * <p>
+ * Like {@code blur} and {@code sharpen}, each result is the weighted sum of the pixels under the
+ * kernel, centred on the pixel, with reads past the edges clamped to the nearest edge pixel,
+ * rounded and clamped to 0-255. Kernels narrower than {@value #FOURIER_MIN_SIZE} pixels are
+ * applied directly, as a {@link ConvolutionChain} of one kernel, which costs a multiply-add per
+ * kernel entry and pixel. Wider kernels are applied through the Fourier transform, whose cost
+ * grows only with the logarithm of the kernel size.
+ * </p>
+ * <p>
+ * The Fourier path splits the result into square tiles and computes each from its source region
+ * grown by the kernel radius, read with the same edge clamping, by multiplying spectra of a
+ * power-of-two block (overlap-save). The block size is chosen per image to minimize the total
+ * transform work. Red and green are transformed together as the real and imaginary parts of
+ * one block, since the kernel is real. The transform works in double precision, so its results
+ * can differ from the direct float sums by one level where a sum falls next to a rounding
+ * boundary.
+ * </p>
+ */
+public final class Convolution implements ImageOperation {
+
+  /**
+   * The smallest kernel edge length applied through the Fourier transform.
+   */
+  public static final int FOURIER_MIN_SIZE = 9;
+
+  private static final int MAX_BLOCK_SIZE = 1024;
+
+  private final float[][] kernel;
+  private final int radius;
+  private final ConvolutionChain direct;
+  private final Map<Integer, Spectrum> spectra = new ConcurrentHashMap<>();
+  private final ThreadLocal<double[][]> blocks = new ThreadLocal<>();
+
+  private Convolution(float[][] kernel) {
+    this.direct = ConvolutionChain.of(kernel);
+    this.kernel = new float[kernel.length][];
+    for (int i = 0; i < kernel.length; i++) {
+      this.kernel[i] = kernel[i].clone();
+    }
+    this.radius = kernel.length / 2;
+  }
+
+  /**
+   * Creates a convolution.
+   *
+   * @param kernel a square kernel with an odd edge length.
+   * @return the convolution.
+   * @throws IllegalArgumentException if the kernel is not square or its edge length is even.
+   */
+  public static Convolution of(float[][] kernel) {
+    return new Convolution(kernel);
+  }
+
+  /**
+   * Parses a kernel written as text: one kernel row per line, the weights separated by spaces or
+   * commas. Blank lines and everything after a {@code #} are ignored.
+   *
+   * @param text the kernel text.
+   * @return the convolution.
+   * @throws IllegalArgumentException if a weight is not a number or the kernel is not square
+   *                                  with an odd edge length.
+   */
+  public static Convolution parse(String text) {
+    List<float[]> rows = new ArrayList<>();
+    for (String line : text.split("\\R")) {
+      int comment = line.indexOf('#');
+      String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+      if (content.isEmpty()) {
+        continue;
+      }
+      String[] tokens = content.split("[\\s,]+");
+      float[] row = new float[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        try {
+          row[i] = Float.parseFloat(tokens[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid kernel weight: " + tokens[i]);
+        }
+      }
+      rows.add(row);
+    }
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("The kernel is empty.");
+    }
+    return of(rows.toArray(new float[0][]));
+  }
+
+  /**
+   * Reads a kernel file in the format of {@link #parse(String)}.
+   *
+   * @param filePath the path of the kernel file.
+   * @return the convolution.
+   * @throws IllegalArgumentException if the file cannot be read or holds no valid kernel.
+   */
+  public static Convolution read(String filePath) {
+    try {
+      return parse(new String(Files.readAllBytes(Paths.get(filePath))));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to read kernel file: " + filePath, e);
+    }
+  }
+
+  /**
+   * Returns the edge length of the kernel.
+   *
+   * @return the kernel size.
+   */
+  public int getSize() {
+    return kernel.length;
+  }
+
+  /**
+   * Returns whether {@link #apply(Image)} goes through the Fourier transform.
+   *
+   * @return true if the kernel is at least {@value #FOURIER_MIN_SIZE} pixels wide.
+   */
+  public boolean isFourier() {
+    return kernel.length >= FOURIER_MIN_SIZE;
+  }
+
+  /**
+   * Returns the name of the convolution, which is that of the command running it.
+   *
+   * @return {@code "convolve"}.
+   */
+  @Override
+  public String getName() {
+    return "convolve";
+  }
+
+  /**
+   * Convolves an image, directly or through the Fourier transform depending on the kernel
+   * size.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  @Override
+  public Image apply(Image image) {
+    return isFourier() ? applyFourier(image) : applyDirect(image);
+  }
+
+  /**
+   * Convolves an image by summing the weighted pixels under the kernel.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  public Image applyDirect(Image image) {
+    return direct.apply(image);
+  }
+
+  /**
+   * Convolves an image through the Fourier transform, tile by tile.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  public Image applyFourier(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    Spectrum spectrum = spectra.computeIfAbsent(blockSize(width, height), Spectrum::new);
+    int tile = spectrum.transform.getSize() - 2 * radius;
+    int[][][] dest = new int[3][height][width];
+    int columns = (width + tile - 1) / tile;
+    int rows = (height + tile - 1) / tile;
+    IntStream.range(0, columns * rows).parallel().forEach(index -> {
+      int x0 = (index % columns) * tile;
+      int y0 = (index / columns) * tile;
+      int x1 = Math.min(width, x0 + tile);
+      int y1 = Math.min(height, y0 + tile);
+      convolveTile(spectrum, image.getRedChannel(), image.getGreenChannel(), dest[0], dest[1],
+              x0, y0, x1, y1);
+      convolveTile(spectrum, image.getBlueChannel(), null, dest[2], null, x0, y0, x1, y1);
+    });
+    return new Image(width, height, dest[0], dest[1], dest[2]);
+  }
+
+  /**
+   * Convolves one or two channels over a tile from {@code (x0, y0)} to {@code (x1, y1)},
+   * exclusive, the first in the real and the second in the imaginary part of the block.
+   */
+  private void convolveTile(Spectrum spectrum, int[][] first, int[][] second, int[][] firstDest,
+                            int[][] secondDest, int x0, int y0, int x1, int y1) {
+    int size = spectrum.transform.getSize();
+    double[][] block = blocks.get();
+    if (block == null || block[0].length != size * size) {
+      block = new double[][]{new double[size * size], new double[size * size]};
+      blocks.set(block);
+    }
+    double[] re = block[0];
+    double[] im = block[1];
+    int height = first.length;
+    int width = first[0].length;
+    // Block row t holds source row y0 + t - radius, clamped, and likewise for columns, so the
+    // result for tile offset t lies at block position t + radius and reads no wrapped input.
+    for (int t = 0; t < size; t++) {
+      int y = Math.min(Math.max(y0 - radius + t, 0), height - 1);
+      int[] firstRow = first[y];
+      int[] secondRow = second == null ? null : second[y];
+      for (int s = 0; s < size; s++) {
+        int x = Math.min(Math.max(x0 - radius + s, 0), width - 1);
+        re[t * size + s] = firstRow[x];
+        im[t * size + s] = secondRow == null ? 0 : secondRow[x];
+      }
+    }
+
+    spectrum.transform.forward(re, im);
+    for (int i = 0; i < size * size; i++) {
+      double a = re[i];
+      double b = im[i];
+      re[i] = a * spectrum.re[i] - b * spectrum.im[i];
+      im[i] = a * spectrum.im[i] + b * spectrum.re[i];
+    }
+    spectrum.transform.inverse(re, im);
+
+    for (int y = y0; y < y1; y++) {
+      int rowStart = (y - y0 + radius) * size + radius - x0;
+      for (int x = x0; x < x1; x++) {
+        firstDest[y][x] = clamp((int) Math.round(re[rowStart + x]));
+        if (secondDest != null) {
+          secondDest[y][x] = clamp((int) Math.round(im[rowStart + x]));
+        }
+      }
+    }
+  }
+
+  /**
+   * Chooses the power-of-two block edge that minimizes the transform work over the whole image,
+   * counting {@code n^2 log n} per block.
+   */
+  private int blockSize(int width, int height) {
+    int smallest = Integer.highestOneBit(2 * kernel.length - 1) * 2;
+    int largest = Math.max(smallest, Math.min(MAX_BLOCK_SIZE,
+            Integer.highestOneBit(Math.max(width, height) + 2 * radius - 1) * 2));
+    int best = smallest;
+    double bestCost = Double.MAX_VALUE;
+    for (int size = smallest; size <= largest; size *= 2) {
+      int tile = size - 2 * radius;
+      long tiles = (long) ((width + tile - 1) / tile) * ((height + tile - 1) / tile);
+      double cost = tiles * (double) size * size * Integer.numberOfTrailingZeros(size);
+      if (cost < bestCost) {
+        best = size;
+        bestCost = cost;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * The kernel spectrum for one block size, laid out to multiply a forward transform.
+   */
+  private final class Spectrum {
+    private final FourierTransform transform;
+    private final double[] re;
+    private final double[] im;
+
+    private Spectrum(int size) {
+      this.transform = new FourierTransform(size);
+      this.re = new double[size * size];
+      this.im = new double[size * size];
+      // The results are correlations, as in blur and sharpen, so the weight for the offset
+      // (kx, ky) goes to (-kx, -ky), wrapped around the block.
+      for (int ky = -radius; ky <= radius; ky++) {
+        for (int kx = -radius; kx <= radius; kx++) {
+          int row = (size - ky) % size;
+          int column = (size - kx) % size;
+          re[row * size + column] = kernel[ky + radius][kx + radius];
+        }
+      }
+      transform.forward(re, im);
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import model.strategy.BlurOperation;
+import model.strategy.ImageOperation;
+import model.strategy.SharpenOperation;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * A sequence of convolutions, such as a blur followed by a sharpen, applied in one pass over the
+ * image.
+ * <p>
+ * Running the filters one by one streams the whole image through memory once per filter and
+ * allocates a full intermediate image each time. A chain instead walks the result in tiles of
+ * {@value #TILE_SIZE}x{@value #TILE_SIZE} pixels, one channel at a time. For each tile it copies
+ * the source pixels the whole chain depends on, the tile grown by the sum of the kernel radii,
+ * into a scratch buffer once, then runs every kernel between two scratch buffers small enough to
+ * stay in cache, each stage shrinking the area by its radius until the last one writes the
+ * tile. Tiles are processed in parallel.
+ * </p>
+ * <p>
+ * Every stage reads with the edge clamping of {@code ImageModelImpl}'s blur and sharpen and
+ * rounds and clamps its result to 0-255 before the next stage reads it, so a chain produces
+ * exactly the image the separate operations would.
+ * </p>
+ */
+public final class ConvolutionChain implements ImageOperation {
+
+  /**
+   * The edge length of the tiles a chain is computed in.
+   */
+  public static final int TILE_SIZE = 128;
+
+  /**
+   * The 3x3 Gaussian blur.
+   */
+  public static final ConvolutionChain BLUR = of(BlurOperation.getKernel());
+
+  /**
+   * The 5x5 sharpen.
+   */
+  public static final ConvolutionChain SHARPEN = of(SharpenOperation.getKernel());
+
+  private final float[][][] kernels;
+  private final int radius;
+  private final ThreadLocal<int[][]> scratch;
+  private final ThreadLocal<float[]> sums;
+
+  private ConvolutionChain(float[][][] kernels) {
+    this.kernels = kernels;
+    int sum = 0;
+    for (float[][] kernel : kernels) {
+      sum += kernel.length / 2;
+    }
+    this.radius = sum;
+    int side = TILE_SIZE + 2 * sum;
+    this.scratch = ThreadLocal.withInitial(() -> new int[][]{new int[side * side],
+        new int[side * side]});
+    this.sums = ThreadLocal.withInitial(() -> new float[side]);
+  }
+
+  /**
+   * Creates a chain of one convolution.
+   *
+   * @param kernel a square kernel with an odd edge length.
+   * @return the chain.
+   * @throws IllegalArgumentException if the kernel is not square or its edge length is even.
+   */
+  public static ConvolutionChain of(float[][] kernel) {
+    int size = kernel.length;
+    if (size % 2 == 0) {
+      throw new IllegalArgumentException("A convolution kernel needs an odd edge length.");
+    }
+    float[][] copy = new float[size][];
+    for (int i = 0; i < size; i++) {
+      if (kernel[i].length != size) {
+        throw new IllegalArgumentException("A convolution kernel must be square.");
+      }
+      copy[i] = kernel[i].clone();
+    }
+    return new ConvolutionChain(new float[][][]{copy});
+  }
+
+  /**
+   * Returns the filter with the given name.
+   *
+   * @param name "blur" or "sharpen".
+   * @return the chain of that one filter.
+   * @throws IllegalArgumentException if the name is unknown.
+   */
+  public static ConvolutionChain named(String name) {
+    switch (name.toLowerCase()) {
+      case "blur":
+        return BLUR;
+      case "sharpen":
+        return SHARPEN;
+      default:
+        throw new IllegalArgumentException("Unknown filter: " + name);
+    }
+  }
+
+  /**
+   * Returns the chain that applies this chain and then the given one.
+   *
+   * @param next the chain to apply to the result of this one.
+   * @return the longer chain.
+   */
+  public ConvolutionChain then(ConvolutionChain next) {
+    List<float[][]> all = new ArrayList<>(Arrays.asList(kernels));
+    all.addAll(Arrays.asList(next.kernels));
+    return new ConvolutionChain(all.toArray(new float[0][][]));
+  }
+
+  /**
+   * Returns the number of convolutions in the chain.
+   *
+   * @return the chain length.
+   */
+  public int getLength() {
+    return kernels.length;
+  }
+
+  /**
+   * Returns how far the result at a pixel depends on its neighbours.
+   *
+   * @return the sum of the kernel radii.
+   */
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Returns the name of the chain, which is that of the command running it.
+   *
+   * @return {@code "filter-chain"}.
+   */
+  @Override
+  public String getName() {
+    return "filter-chain";
+  }
+
+  /**
+   * Applies the whole chain to an image in a single pass.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  @Override
+  public Image apply(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][][] source = {image.getRedChannel(), image.getGreenChannel(), image.getBlueChannel()};
+    int[][][] dest = new int[3][height][width];
+    int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+    int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+    IntStream.range(0, columns * rows).parallel().forEach(tile -> {
+      int x0 = (tile % columns) * TILE_SIZE;
+      int y0 = (tile / columns) * TILE_SIZE;
+      int[][] buffers = scratch.get();
+      for (int channel = 0; channel < 3; channel++) {
+        convolveTile(source[channel], dest[channel], width, height, x0, y0,
+                Math.min(width, x0 + TILE_SIZE), Math.min(height, y0 + TILE_SIZE), buffers);
+      }
+    });
+    return new Image(width, height, dest[0], dest[1], dest[2]);
+  }
+
+  /**
+   * Computes one channel of the tile from {@code (x0, y0)} to {@code (x1, y1)}, exclusive.
+   */
+  private void convolveTile(int[][] source, int[][] dest, int width, int height, int x0, int y0,
+                            int x1, int y1, int[][] buffers) {
+    int inX0 = Math.max(0, x0 - radius);
+    int inY0 = Math.max(0, y0 - radius);
+    int inStride = Math.min(width, x1 + radius) - inX0;
+    int inY1 = Math.min(height, y1 + radius);
+    int[] in = buffers[0];
+    for (int y = inY0; y < inY1; y++) {
+      System.arraycopy(source[y], inX0, in, (y - inY0) * inStride, inStride);
+    }
+
+    int remaining = radius;
+    for (int stage = 0; stage < kernels.length; stage++) {
+      float[][] kernel = kernels[stage];
+      int size = kernel.length;
+      int r = size / 2;
+      remaining -= r;
+      int outX0 = Math.max(0, x0 - remaining);
+      int outY0 = Math.max(0, y0 - remaining);
+      int outX1 = Math.min(width, x1 + remaining);
+      int outY1 = Math.min(height, y1 + remaining);
+      int outStride = outX1 - outX0;
+      boolean last = stage == kernels.length - 1;
+      int[] out = buffers[(stage + 1) % 2];
+      float[] sum = sums.get();
+
+      int outWidth = outX1 - outX0;
+      int interiorStart = Math.min(Math.max(outX0, r), outX1);
+      int interiorEnd = Math.max(interiorStart, Math.min(outX1, width - r));
+      for (int y = outY0; y < outY1; y++) {
+        // Accumulate a whole row one kernel tap at a time, like the vectorized kernels, so the
+        // inner loop is a straight multiply-add over contiguous pixels. Each pixel still sums
+        // its taps in kernel row-major order.
+        Arrays.fill(sum, 0, outWidth, 0f);
+        for (int ky = -r; ky <= r; ky++) {
+          int rowStart = (Math.min(Math.max(y + ky, 0), height - 1) - inY0) * inStride - inX0;
+          for (int kx = -r; kx <= r; kx++) {
+            float weight = kernel[ky + r][kx + r];
+            for (int x = outX0; x < interiorStart; x++) {
+              sum[x - outX0] += in[rowStart + Math.min(Math.max(x + kx, 0), width - 1)] * weight;
+            }
+            int shift = rowStart + kx;
+            for (int x = interiorStart; x < interiorEnd; x++) {
+              sum[x - outX0] += in[shift + x] * weight;
+            }
+            for (int x = interiorEnd; x < outX1; x++) {
+              sum[x - outX0] += in[rowStart + Math.min(Math.max(x + kx, 0), width - 1)] * weight;
+            }
+          }
+        }
+        int[] row = last ? dest[y] : out;
+        int offset = last ? outX0 : (y - outY0) * outStride;
+        for (int i = 0; i < outWidth; i++) {
+          row[offset + i] = clamp(Math.round(sum[i]));
+        }
+      }
+      in = out;
+      inX0 = outX0;
+      inY0 = outY0;
+      inStride = outStride;
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ConvolutionChain
+            && Arrays.deepEquals(kernels, ((ConvolutionChain) other).kernels);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.deepHashCode(kernels);
+  }
+
+  @Override
+  public String toString() {
+    return "ConvolutionChain[" + kernels.length + " kernels, radius " + radius + "]";
+  }
+}
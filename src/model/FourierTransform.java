@@ -0,0 +1,129 @@
+package model;
+
+/**
+ * Two-dimensional discrete Fourier transform of square blocks whose edge length is a power of
+ * two, computed with the iterative radix-2 algorithm.
+ * <p>
+ * A block is stored row-major as separate real and imaginary arrays. To keep every pass on
+ * contiguous memory, the forward transform transforms the rows, transposes and transforms the
+ * rows again, so the spectrum comes out transposed; the inverse transform expects that layout
+ * and returns the block in its original one. Spectra are only ever multiplied element by
+ * element, so the transposition never shows.
+ * </p>
+ */
+final class FourierTransform {
+
+  private final int size;
+  private final int[] reversed;
+  private final double[] cos;
+  private final double[] sin;
+
+  /**
+   * Prepares the transform of blocks of the given edge length.
+   *
+   * @param size the edge length, a power of two.
+   * @throws IllegalArgumentException if the size is not a power of two.
+   */
+  FourierTransform(int size) {
+    if (size < 1 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("The transform size must be a power of two.");
+    }
+    this.size = size;
+    this.reversed = new int[size];
+    int bits = Integer.numberOfTrailingZeros(size);
+    for (int i = 0; i < size; i++) {
+      reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+    }
+    this.cos = new double[size / 2];
+    this.sin = new double[size / 2];
+    for (int i = 0; i < size / 2; i++) {
+      cos[i] = Math.cos(2 * Math.PI * i / size);
+      sin[i] = Math.sin(2 * Math.PI * i / size);
+    }
+  }
+
+  /**
+   * Returns the edge length of the blocks.
+   *
+   * @return the size.
+   */
+  int getSize() {
+    return size;
+  }
+
+  /**
+   * Replaces a block by its spectrum, in transposed layout.
+   *
+   * @param re the real parts, {@code size * size} values.
+   * @param im the imaginary parts.
+   */
+  void forward(double[] re, double[] im) {
+    transformRows(re, im, false);
+    transpose(re);
+    transpose(im);
+    transformRows(re, im, false);
+  }
+
+  /**
+   * Replaces a transposed spectrum by the block it is the spectrum of, scaled so that
+   * {@code inverse(forward(x))} is {@code x}.
+   *
+   * @param re the real parts, {@code size * size} values.
+   * @param im the imaginary parts.
+   */
+  void inverse(double[] re, double[] im) {
+    transformRows(re, im, true);
+    transpose(re);
+    transpose(im);
+    transformRows(re, im, true);
+    double scale = 1.0 / ((double) size * size);
+    for (int i = 0; i < size * size; i++) {
+      re[i] *= scale;
+      im[i] *= scale;
+    }
+  }
+
+  private void transformRows(double[] re, double[] im, boolean inverse) {
+    double sign = inverse ? 1 : -1;
+    for (int row = 0; row < size * size; row += size) {
+      for (int i = 0; i < size; i++) {
+        int j = reversed[i];
+        if (j > i) {
+          swap(re, row + i, row + j);
+          swap(im, row + i, row + j);
+        }
+      }
+      for (int half = 1; half < size; half *= 2) {
+        int step = size / (2 * half);
+        for (int start = row; start < row + size; start += 2 * half) {
+          for (int k = 0; k < half; k++) {
+            double wr = cos[k * step];
+            double wi = sign * sin[k * step];
+            int a = start + k;
+            int b = a + half;
+            double tr = re[b] * wr - im[b] * wi;
+            double ti = re[b] * wi + im[b] * wr;
+            re[b] = re[a] - tr;
+            im[b] = im[a] - ti;
+            re[a] += tr;
+            im[a] += ti;
+          }
+        }
+      }
+    }
+  }
+
+  private void transpose(double[] values) {
+    for (int y = 0; y < size; y++) {
+      for (int x = y + 1; x < size; x++) {
+        swap(values, y * size + x, x * size + y);
+      }
+    }
+  }
+
+  private static void swap(double[] values, int a, int b) {
+    double temp = values[a];
+    values[a] = values[b];
+    values[b] = temp;
+  }
+}
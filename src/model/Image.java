@@ -1,9 +1,16 @@
 package model;
 
+import model.histogram.HistogramService;
+import model.histogram.ImageStatistics;
+
 /**
  * Represents an image with RGB color channels.
  * This class stores the width, height, and pixel data for the red, green, and
  * blue channels of the image.
+ * <p>
+ * Images are never modified once constructed, so their {@link ImageStatistics} are computed on
+ * first use and then kept.
+ * </p>
  */
 public class Image {
   private final int width;
@@ -11,6 +18,7 @@ public class Image {
   private final int[][] redChannel;
   private final int[][] greenChannel;
   private final int[][] blueChannel;
+  private volatile ImageStatistics statistics;
 
   /**
    * Constructs an Image object with the specified width, height, and RGB channels.
@@ -73,4 +81,37 @@ public class Image {
   public int[][] getBlueChannel() {
     return blueChannel;
   }
+
+  /**
+   * Returns the histogram-based statistics of the image, computing them on the first call.
+   *
+   * @return the statistics.
+   */
+  public ImageStatistics getStatistics() {
+    ImageStatistics result = statistics;
+    if (result == null) {
+      result = ImageStatistics.of(HistogramService.compute(this));
+      statistics = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the statistics of the image are already known.
+   *
+   * @return true if {@link #getStatistics()} returns without scanning the pixels.
+   */
+  public boolean hasStatistics() {
+    return statistics != null;
+  }
+
+  /**
+   * Records statistics that are known without a scan, such as those derived from the source of a
+   * lookup-table operation. The statistics must describe this image's pixels.
+   *
+   * @param statistics the statistics of this image.
+   */
+  public void setStatistics(ImageStatistics statistics) {
+    this.statistics = statistics;
+  }
 }
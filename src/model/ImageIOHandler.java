@@ -1,13 +1,17 @@
 package model;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 
 import javax.imageio.ImageIO;
 
 import model.factory.ImageLoaderFactory;
+import model.factory.LoadOptions;
 
 /**
  * A utility class for loading and saving images in various formats (PPM, PNG, JPG, JPEG).
@@ -18,15 +22,26 @@ public class ImageIOHandler {
   private final FileHandler fileHandler;
   private final ImageParser imageParser;
   private final BufferedImageConverter bufferedImageConverter;
+  private final PngWriter pngWriter;
 
   /**
    * Constructs an {@link ImageIOHandler} with default instances of {@link FileHandler},
-   * {@link ImageParser}, and {@link BufferedImageConverter}.
+   * {@link ImageParser}, {@link BufferedImageConverter} and {@link PngWriter}.
    */
   public ImageIOHandler() {
+    this(new PngWriter());
+  }
+
+  /**
+   * Constructs an {@link ImageIOHandler} that encodes PNG files with the given writer.
+   *
+   * @param pngWriter the writer used for PNG output.
+   */
+  public ImageIOHandler(PngWriter pngWriter) {
     this.fileHandler = new FileHandler();
     this.imageParser = new ImageParser();
     this.bufferedImageConverter = new BufferedImageConverter();
+    this.pngWriter = pngWriter;
   }
 
   /**
@@ -47,6 +62,19 @@ public class ImageIOHandler {
     return ImageLoaderFactory.getLoader(filePath).load(filePath);
   }
 
+  /**
+   * Loads an image from the specified file path, applying the given load options.
+   *
+   * @param filePath the path to the image file to be loaded.
+   * @param options  the options to apply, e.g. a maximum size.
+   * @return an {@link Image} object representing the loaded image.
+   * @throws IOException if an error occurs while reading the image file.
+   * @throws UnsupportedOperationException if the file format is not supported.
+   */
+  public Image loadImage(String filePath, LoadOptions options) throws IOException {
+    return ImageLoaderFactory.getLoader(filePath).load(filePath, options);
+  }
+
   /**
    * Loads a PPM image from the specified file path.
    *
@@ -78,7 +106,8 @@ public class ImageIOHandler {
    *
    * <p>
    * This method checks the file extension to determine whether the image should be saved as a
-   * PPM file or converted to a standard format (PNG, JPG, JPEG).
+   * PPM file or converted to a standard format (PNG, JPG, JPEG). PNG files are streamed from the
+   * image channels by the {@link PngWriter} without building a {@link BufferedImage}.
    * </p>
    *
    * @param filePath the path to the file where the image should be saved.
@@ -88,13 +117,19 @@ public class ImageIOHandler {
   public void saveImage(String filePath, Image image) throws IOException {
     if (filePath.toLowerCase().endsWith(".ppm")) {
       saveAsPPM(filePath, image);
+    } else if (filePath.toLowerCase().endsWith(".png")) {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath))) {
+        pngWriter.write(image, out);
+      }
     } else {
       saveProcessedImage(filePath, bufferedImageConverter.toBufferedImage(image));
     }
   }
 
   /**
-   * Saves a processed image to the specified file path in PNG, JPG, or JPEG format.
+   * Saves a processed image to the specified file path in PNG, JPG, or JPEG format. Opaque
+   * images are encoded as PNG by the {@link PngWriter}; images with transparency go through
+   * {@link ImageIO} so that their alpha channel is kept.
    *
    * @param filePath the path to the file where the image should be saved.
    * @param bufferedImage the {@link BufferedImage} to be saved.
@@ -102,6 +137,12 @@ public class ImageIOHandler {
    */
   public void saveProcessedImage(String filePath, BufferedImage bufferedImage) throws IOException {
     String format = getFileFormat(filePath);
+    if (format.equals("png") && !bufferedImage.getColorModel().hasAlpha()) {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath))) {
+        pngWriter.write(bufferedImage, out);
+      }
+      return;
+    }
     ImageIO.write(bufferedImage, format, new File(filePath));
   }
 
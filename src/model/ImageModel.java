@@ -2,8 +2,12 @@ package model;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
+import model.factory.LoadOptions;
+import model.strategy.ImageOperation;
+
 /**
  * An interface for an image processing model that defines the operations
  * available for manipulating images.
@@ -19,6 +23,17 @@ public interface ImageModel {
    */
   void load(String filePath, String imageName) throws IOException;
 
+  /**
+   * Loads an image from the specified file path with the given options, e.g. shrinking it to a
+   * maximum size while decoding, and assigns it a unique name in the model.
+   *
+   * @param filePath  the file path of the image to load.
+   * @param imageName the unique name to assign to the loaded image.
+   * @param options   the options to apply while loading.
+   * @throws IOException if an error occurs while reading the file.
+   */
+  void load(String filePath, String imageName, LoadOptions options) throws IOException;
+
   /**
    * Saves the image with the specified name to the given file path.
    *
@@ -260,6 +275,76 @@ public interface ImageModel {
    */
   void downscaleImage(int newWidth, int newHeight, String imageName, String destImageName);
 
+  /**
+   * Copies a rectangle of the image and saves it under a new name.
+   *
+   * @param x             the left edge of the rectangle.
+   * @param y             the top edge of the rectangle.
+   * @param width         the width of the rectangle.
+   * @param height        the height of the rectangle.
+   * @param imageName     the name of the source image.
+   * @param destImageName the name to assign to the cropped image.
+   * @throws IllegalArgumentException if the image does not exist or the rectangle is empty or
+   *         not inside it.
+   */
+  void cropImage(int x, int y, int width, int height, String imageName, String destImageName);
+
+  /**
+   * Applies an image operation to the image and saves the result under a new name. Color
+   * matrices, convolutions and convolution chains, rank filters, morphology and unsharp masks
+   * are all applied this way.
+   *
+   * @param operation     the operation to apply.
+   * @param imageName     the name of the source image.
+   * @param destImageName the name to assign to the resulting image.
+   * @throws IllegalArgumentException if the image does not exist.
+   */
+  void applyOperation(ImageOperation operation, String imageName, String destImageName);
+
+  /**
+   * Applies an operation to a batch of image files and saves each result into the output
+   * directory. Decoding, processing and encoding of different files overlap, so the operation
+   * runs while the next file is read and the previous result is written.
+   *
+   * @param operation       the operation to apply (e.g., "blur", "sharpen", "sepia",
+   *                        "greyscale", "colorcorrect", "unsharp").
+   * @param inputPaths      the paths of the image files to process.
+   * @param outputDirectory the directory in which to save the results.
+   * @return the paths of the files that were written, in input order.
+   * @throws IllegalArgumentException if the operation is unknown, the output directory cannot
+   *                                  be created, or two inputs would be saved to the same file.
+   */
+  List<String> batchProcess(String operation, List<String> inputPaths, String outputDirectory);
+
+  /**
+   * Applies an operation to an image file too large to load, streaming it through a
+   * memory-mapped file of tiles, and writes the result to another file. The image is not
+   * added to the model.
+   *
+   * @param operation  the operation to apply (e.g., "brighten", "blur", "sharpen", "sepia",
+   *                   "flip", "greyscale", "downscale", "red-component").
+   * @param arguments  the arguments of the operation, as in the matching script command.
+   * @param inputPath  the path of the image file to read.
+   * @param outputPath the path of the image file to write.
+   */
+  void tiledProcess(String operation, List<String> arguments, String inputPath,
+                    String outputPath);
+
+  /**
+   * Stores an image under a name, replacing any image or processed image of that name.
+   *
+   * @param imageName the name to store the image under.
+   * @param image     the image.
+   */
+  void putImage(String imageName, Image image);
+
+  /**
+   * Removes the image or processed image with the given name, if there is one.
+   *
+   * @param imageName the name of the image to remove.
+   */
+  void removeImage(String imageName);
+
   /**
    * Checks if an image with the specified name exists in the model.
    *
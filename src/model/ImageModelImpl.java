@@ -1,14 +1,21 @@
 package model;
 
-import java.awt.Graphics2D;
-import java.awt.Color;
 
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import model.factory.LoadOptions;
+import model.histogram.HistogramRenderer;
+import model.kernel.PixelKernels;
+import model.pipeline.ImagePipeline;
+import model.tiled.TiledImage;
+import model.tiled.TiledImageProcessor;
+
 import model.strategy.BlurOperation;
 import model.strategy.ColorCorrectOperation;
 import model.strategy.GreyscaleOperation;
@@ -34,8 +41,20 @@ public class ImageModelImpl implements ImageModel {
    * Constructs an {@code ImageModelImpl} with an empty collection of images.
    */
   public ImageModelImpl() {
-    this.images = new HashMap<>();
-    this.processedImages = new HashMap<>();
+    this(new HashMap<>(), new HashMap<>());
+  }
+
+  /**
+   * Constructs an {@code ImageModelImpl} that stores images in the given maps. Subclasses use
+   * this to supply map implementations with different concurrency guarantees.
+   *
+   * @param images          the map holding images by name; expected to be empty.
+   * @param processedImages the map holding processed images by name; expected to be empty.
+   */
+  protected ImageModelImpl(Map<String, Image> images,
+                           Map<String, BufferedImage> processedImages) {
+    this.images = images;
+    this.processedImages = processedImages;
     this.ioHandler = new ImageIOHandler();
     this.strategies = new HashMap<>();
     strategies.put("blur", new BlurOperation());
@@ -43,6 +62,7 @@ public class ImageModelImpl implements ImageModel {
     strategies.put("sepia", new SepiaOperation());
     strategies.put("greyscale", new GreyscaleOperation());
     strategies.put("colorcorrect", new ColorCorrectOperation());
+    strategies.put("unsharp", UnsharpMask.DEFAULT);
   }
 
   @Override
@@ -64,6 +84,15 @@ public class ImageModelImpl implements ImageModel {
     }
   }
 
+  @Override
+  public void load(String filePath, String imageName, LoadOptions options) {
+    try {
+      images.put(imageName, ioHandler.loadImage(filePath, options));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to load image from file path: " + filePath, e);
+    }
+  }
+
   @Override
   public void save(String filePath, String imageName) {
     try {
@@ -141,6 +170,16 @@ public class ImageModelImpl implements ImageModel {
    * @throws IllegalArgumentException if an unknown component is specified.
    */
   private Image processComponentImage(String component, Image image) {
+    switch (component.toLowerCase()) {
+      case "luma":
+      case "red":
+      case "green":
+      case "blue":
+        return ColorMatrix.named(component).apply(image);
+      default:
+        break;
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
 
@@ -164,7 +203,7 @@ public class ImageModelImpl implements ImageModel {
             setAllChannels(red, green, blue, i, j, avgValue);
             break;
           case "luma":
-            int lumaValue = (int) (0.2126 * r + 0.7152 * g + 0.0722 * b);
+            int lumaValue = ColorMath.luma(r, g, b);
             setAllChannels(red, green, blue, i, j, lumaValue);
             break;
           case "red":
@@ -308,15 +347,22 @@ public class ImageModelImpl implements ImageModel {
     int[][] green = new int[height][width];
     int[][] blue = new int[height][width];
 
+    PixelKernels kernels = PixelKernels.get();
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        red[i][j] = clamp(image.getRedChannel()[i][j] + amount);
-        green[i][j] = clamp(image.getGreenChannel()[i][j] + amount);
-        blue[i][j] = clamp(image.getBlueChannel()[i][j] + amount);
-      }
+      kernels.add(image.getRedChannel()[i], red[i], amount, width);
+      kernels.add(image.getGreenChannel()[i], green[i], amount, width);
+      kernels.add(image.getBlueChannel()[i], blue[i], amount, width);
     }
 
-    images.put(destImageName, new Image(width, height, red, green, blue));
+    Image result = new Image(width, height, red, green, blue);
+    if (image.hasStatistics()) {
+      int[] table = new int[256];
+      for (int value = 0; value < table.length; value++) {
+        table[value] = clamp(value + amount);
+      }
+      result.setStatistics(image.getStatistics().map(table));
+    }
+    images.put(destImageName, result);
   }
 
   @Override
@@ -364,26 +410,7 @@ public class ImageModelImpl implements ImageModel {
    * @param destImageName the name to assign to the image after the sepia filter has been applied.
    */
   private void applySepiaFilter(String imageName, String destImageName) {
-    Image image = images.get(imageName);
-    int width = image.getWidth();
-    int height = image.getHeight();
-
-    int[][] red = new int[height][width];
-    int[][] green = new int[height][width];
-    int[][] blue = new int[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = image.getRedChannel()[i][j];
-        int g = image.getGreenChannel()[i][j];
-        int b = image.getBlueChannel()[i][j];
-        red[i][j] = clamp((int) (0.393 * r + 0.769 * g + 0.189 * b));
-        green[i][j] = clamp((int) (0.349 * r + 0.686 * g + 0.168 * b));
-        blue[i][j] = clamp((int) (0.272 * r + 0.534 * g + 0.131 * b));
-      }
-    }
-
-    images.put(destImageName, new Image(width, height, red, green, blue));
+    images.put(destImageName, applySepiaFilter(images.get(imageName)));
   }
 
   /**
@@ -397,25 +424,7 @@ public class ImageModelImpl implements ImageModel {
    * @return a new {@link Image} object with the sepia filter applied.
    */
   private Image applySepiaFilter(Image image) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    int[][] red = new int[height][width];
-    int[][] green = new int[height][width];
-    int[][] blue = new int[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = image.getRedChannel()[i][j];
-        int g = image.getGreenChannel()[i][j];
-        int b = image.getBlueChannel()[i][j];
-
-        red[i][j] = clamp((int) (0.393 * r + 0.769 * g + 0.189 * b));
-        green[i][j] = clamp((int) (0.349 * r + 0.686 * g + 0.168 * b));
-        blue[i][j] = clamp((int) (0.272 * r + 0.534 * g + 0.131 * b));
-      }
-    }
-
-    return new Image(width, height, red, green, blue);
+    return ColorMatrix.SEPIA.apply(image);
   }
 
   @Override
@@ -586,27 +595,11 @@ public class ImageModelImpl implements ImageModel {
     int[][] red = new int[height][width];
     int[][] green = new int[height][width];
     int[][] blue = new int[height][width];
-    int kernelRadius = kernel.length / 2;
-
+    PixelKernels kernels = PixelKernels.get();
     for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        float[] newColor = {0f, 0f, 0f};
-        for (int ky = -kernelRadius; ky <= kernelRadius; ky++) {
-          for (int kx = -kernelRadius; kx <= kernelRadius; kx++) {
-            int pixelY = Math.min(Math.max(y + ky, 0), height - 1);
-            int pixelX = Math.min(Math.max(x + kx, 0), width - 1);
-            newColor[0] += image.getRedChannel()[pixelY][pixelX] * kernel[ky + kernelRadius]
-                    [kx + kernelRadius];
-            newColor[1] += image.getGreenChannel()[pixelY][pixelX] * kernel[ky + kernelRadius]
-                    [kx + kernelRadius];
-            newColor[2] += image.getBlueChannel()[pixelY][pixelX] * kernel[ky + kernelRadius]
-                    [kx + kernelRadius];
-          }
-        }
-        red[y][x] = clamp(Math.round(newColor[0]));
-        green[y][x] = clamp(Math.round(newColor[1]));
-        blue[y][x] = clamp(Math.round(newColor[2]));
-      }
+      kernels.convolveRow(image.getRedChannel(), y, kernel, red[y]);
+      kernels.convolveRow(image.getGreenChannel(), y, kernel, green[y]);
+      kernels.convolveRow(image.getBlueChannel(), y, kernel, blue[y]);
     }
 
     images.put(destImageName, new Image(width, height, red, green, blue));
@@ -625,101 +618,8 @@ public class ImageModelImpl implements ImageModel {
               "original imageMap");
     }
 
-    int[][] histograms = calculateHistograms(image);
-
-    BufferedImage histogramImage = createHistogramImage(histograms);
-    processedImages.put(destImageName, histogramImage);
-  }
-
-  /**
-   * Calculates the histograms for the red, green, and blue color channels of an image.
-   * The histograms are arrays of size 256, where each index corresponds to the intensity value
-   * of the respective color channel. The value at each index represents the frequency of that
-   * intensity value in the respective color channel.
-   *
-   * @param image the {@link Image} object for which the histograms are calculated.
-   * @return a 2D array containing the histograms for the red, green, and blue channels.
-   *         The first array represents the red channel, the second represents the green channel,
-   *         and the third represents the blue channel.
-   */
-  private int[][] calculateHistograms(Image image) {
-    int[] redHist = new int[256];
-    int[] greenHist = new int[256];
-    int[] blueHist = new int[256];
-
-    for (int i = 0; i < image.getHeight(); i++) {
-      for (int j = 0; j < image.getWidth(); j++) {
-        redHist[image.getRedChannel()[i][j]]++;
-        greenHist[image.getGreenChannel()[i][j]]++;
-        blueHist[image.getBlueChannel()[i][j]]++;
-      }
-    }
-    return new int[][]{redHist, greenHist, blueHist};
-  }
-
-  /**
-   * Draws a line graph of a histogram on the provided graphics context.
-   * The line graph represents the frequency of pixel intensities across all bins (0 to 255).
-   * The graph is drawn in the specified color, with the y-axis representing intensity frequency
-   * and the x-axis representing the intensity levels.
-   *
-   * @param g the {@link Graphics2D} object used to draw the line graph.
-   * @param histogram the histogram data representing frequency of intensity levels.
-   * @param color the color in which the histogram graph is drawn.
-   */
-  private void drawLineGraph(Graphics2D g, int[] histogram, Color color) {
-    g.setColor(color);
-    int max = Arrays.stream(histogram).max().orElse(1);
-
-    int prevX = 0;
-    int prevY = 256;
-
-    for (int x = 0; x < histogram.length; x++) {
-      int height = (int) (((double) histogram[x] / max) * 256);
-      int y = 256 - height; // Invert height for correct top-down drawing
-
-      if (x > 0) {
-        g.drawLine(prevX, prevY, x, y);
-      }
-
-      prevX = x;
-      prevY = y;
-    }
-  }
-
-  /**
-   * Creates a {@link BufferedImage} that visually represents the histograms for the red, green,
-   * and blue channels of an image as line graphs. The image will have a size of 256x256 pixels,
-   * with each color channel's histogram displayed in a corresponding color.
-   * <p>
-   * The background is white, and grid lines are drawn for visual reference.
-   * </p>
-   *
-   * @param histograms a 2D array where each row contains the histogram data for one of the
-   *                   color channels (red, green, blue). The first row is for red, the second
-   *                   for green, and the third for blue.
-   * @return a {@link BufferedImage} object containing the visual representation of the histograms.
-   */
-  private BufferedImage createHistogramImage(int[][] histograms) {
-    BufferedImage histogramImage = new BufferedImage(256, 256,
-            BufferedImage.TYPE_INT_RGB);
-    Graphics2D g = (Graphics2D) histogramImage.getGraphics();
-    g.setColor(Color.WHITE);
-    g.fillRect(0, 0, 256, 256);
-
-
-    g.setColor(Color.LIGHT_GRAY);
-    for (int i = 0; i <= 256; i += 64) {
-      g.drawLine(i, 0, i, 256);
-      g.drawLine(0, 256 - i, 256, 256 - i);
-    }
-
-
-    drawLineGraph(g, histograms[0], Color.RED);
-    drawLineGraph(g, histograms[1], Color.GREEN);
-    drawLineGraph(g, histograms[2], Color.BLUE);
-
-    return histogramImage;
+    int[][] histograms = image.getStatistics().getHistogram().getRgb();
+    processedImages.put(destImageName, HistogramRenderer.render(histograms));
   }
 
   @Override
@@ -744,7 +644,7 @@ public class ImageModelImpl implements ImageModel {
    */
   private Image colorCorrectImage(Image image) {
 
-    int[][] histograms = calculateHistograms(image);
+    int[][] histograms = image.getStatistics().getHistogram().getRgb();
     int[] peaks = findPeaks(histograms);
     int averagePeak = (peaks[0] + peaks[1] + peaks[2]) / 3;
 
@@ -856,28 +756,29 @@ public class ImageModelImpl implements ImageModel {
    * @return a new {@link Image} with adjusted levels for each color channel.
    */
   private Image adjustLevels(Image image, int black, int mid, int white) {
-    int[][] adjustedRed = adjustLevelForChannel(image.getRedChannel(), black, mid, white);
-    int[][] adjustedGreen = adjustLevelForChannel(image.getGreenChannel(), black, mid, white);
-    int[][] adjustedBlue = adjustLevelForChannel(image.getBlueChannel(), black, mid, white);
+    int[] table = new int[256];
+    for (int value = 0; value < table.length; value++) {
+      table[value] = adjustLevel(value, black, mid, white);
+    }
+    int[][] adjustedRed = adjustLevelForChannel(image.getRedChannel(), table);
+    int[][] adjustedGreen = adjustLevelForChannel(image.getGreenChannel(), table);
+    int[][] adjustedBlue = adjustLevelForChannel(image.getBlueChannel(), table);
 
     return new Image(image.getWidth(), image.getHeight(), adjustedRed, adjustedGreen, adjustedBlue);
   }
 
   /**
-   * Adjusts a single color channel using levels adjustment logic.
+   * Adjusts a single color channel through a table of the adjusted value of every level.
    *
    * @param channel the color channel to adjust.
-   * @param black   the black point (darkest value).
-   * @param mid     the mid point (neutral value).
-   * @param white   the white point (brightest value).
+   * @param table   the adjusted value of each level from 0 to 255.
    * @return the adjusted channel.
    */
-  private int[][] adjustLevelForChannel(int[][] channel, int black, int mid, int white) {
+  private int[][] adjustLevelForChannel(int[][] channel, int[] table) {
+    PixelKernels kernels = PixelKernels.get();
     int[][] adjustedChannel = new int[channel.length][channel[0].length];
     for (int i = 0; i < channel.length; i++) {
-      for (int j = 0; j < channel[i].length; j++) {
-        adjustedChannel[i][j] = adjustLevel(channel[i][j], black, mid, white);
-      }
+      kernels.lookup(channel[i], adjustedChannel[i], table, channel[i].length);
     }
     return adjustedChannel;
   }
@@ -1414,20 +1315,27 @@ public class ImageModelImpl implements ImageModel {
     // Validate dimensions
     validateDownscaleDimensions(newWidth, newHeight, sourceImage);
 
-    // Calculate scaling factors
-    double xScale = calculateScalingFactor(sourceImage.getWidth(), newWidth);
-    double yScale = calculateScalingFactor(sourceImage.getHeight(), newHeight);
+    images.put(destImageName, ImageUtils.downscale(sourceImage, newWidth, newHeight));
+  }
 
-    // Downscale each channel
-    int[][] newRed = downscaleChannel(sourceImage.getRedChannel(), newWidth, newHeight,
-            xScale, yScale);
-    int[][] newGreen = downscaleChannel(sourceImage.getGreenChannel(), newWidth, newHeight,
-            xScale, yScale);
-    int[][] newBlue = downscaleChannel(sourceImage.getBlueChannel(), newWidth, newHeight,
-            xScale, yScale);
+  @Override
+  public void cropImage(int x, int y, int width, int height, String imageName,
+                        String destImageName) {
+    Image sourceImage = images.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found: " + imageName);
+    }
+    images.put(destImageName, ImageUtils.crop(sourceImage, x, y, width, height));
+  }
 
-    // Store the downscaled image
-    images.put(destImageName, new Image(newWidth, newHeight, newRed, newGreen, newBlue));
+  @Override
+  public void applyOperation(ImageOperation operation, String imageName,
+                             String destImageName) {
+    Image sourceImage = images.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found: " + imageName);
+    }
+    images.put(destImageName, operation.apply(sourceImage));
   }
 
   /**
@@ -1448,94 +1356,6 @@ public class ImageModelImpl implements ImageModel {
     }
   }
 
-  /**
-   * Calculates the scaling factor for downscaling an image from the original size to a new size.
-   *
-   * @param originalSize the original dimension (width or height) of the image.
-   * @param newSize the new dimension (width or height) after downscaling.
-   * @return the scaling factor to be applied to the image.
-   */
-  private double calculateScalingFactor(int originalSize, int newSize) {
-    return (double) originalSize / newSize;
-  }
-
-  /**
-   * Downscales a single color channel (Red, Green, or Blue) of the image using bilinear
-   * interpolation.
-   *
-   * @param channel the channel (2D array) to be downscaled.
-   * @param newWidth the new width of the downscaled image.
-   * @param newHeight the new height of the downscaled image.
-   * @param xScale the scaling factor for the x dimension (width).
-   * @param yScale the scaling factor for the y dimension (height).
-   * @return a 2D array representing the downscaled color channel.
-   */
-  private int[][] downscaleChannel(int[][] channel, int newWidth, int newHeight,
-                                   double xScale, double yScale) {
-    int[][] downscaledChannel = new int[newHeight][newWidth];
-
-    for (int y = 0; y < newHeight; y++) {
-      for (int x = 0; x < newWidth; x++) {
-        downscaledChannel[y][x] = calculateDownscaledPixel(channel, x, y, xScale, yScale);
-      }
-    }
-
-    return downscaledChannel;
-  }
-
-  /**
-   * Computes the pixel value at a specified position in a downscaled image channel
-   * using bilinear interpolation.
-   *
-   * @param channel the 2D array of the original image channel (e.g., red, green, blue).
-   * @param x       the x-coordinate in the downscaled image.
-   * @param y       the y-coordinate in the downscaled image.
-   * @param xScale  the scale factor along the x-axis.
-   * @param yScale  the scale factor along the y-axis.
-   * @return the interpolated pixel value at the specified position.
-   */
-  private int calculateDownscaledPixel(int[][] channel, int x, int y, double xScale,
-                                       double yScale) {
-    double originalX = x * xScale;
-    double originalY = y * yScale;
-
-    int x1 = (int) Math.floor(originalX);
-    int x2 = Math.min(x1 + 1, channel[0].length - 1);
-    int y1 = (int) Math.floor(originalY);
-    int y2 = Math.min(y1 + 1, channel.length - 1);
-
-    double xFraction = originalX - x1;
-    double yFraction = originalY - y1;
-
-
-    return interpolatePixel(channel, x1, x2, y1, y2, xFraction, yFraction);
-  }
-
-  /**
-   * Interpolates a pixel's value using bilinear interpolation between the four nearest neighbors.
-   *
-   * @param channel the color channel (2D array) of the image.
-   * @param x1 the x-coordinate of the top-left neighboring pixel.
-   * @param x2 the x-coordinate of the top-right neighboring pixel.
-   * @param y1 the y-coordinate of the top-left neighboring pixel.
-   * @param y2 the y-coordinate of the bottom-right neighboring pixel.
-   * @param xFraction the fractional distance of the pixel along the x-axis.
-   * @param yFraction the fractional distance of the pixel along the y-axis.
-   * @return the interpolated pixel value.
-   */
-  private int interpolatePixel(int[][] channel, int x1, int x2, int y1, int y2, double xFraction,
-                               double yFraction) {
-    int topLeft = channel[y1][x1];
-    int topRight = channel[y1][x2];
-    int bottomLeft = channel[y2][x1];
-    int bottomRight = channel[y2][x2];
-
-    int top = (int) ((1 - xFraction) * topLeft + xFraction * topRight);
-    int bottom = (int) ((1 - xFraction) * bottomLeft + xFraction * bottomRight);
-    return (int) ((1 - yFraction) * top + yFraction * bottom);
-  }
-
-
   /**
    * Applies an operation to an image using a mask image. The mask determines which pixels are
    * affected.
@@ -1623,9 +1443,9 @@ public class ImageModelImpl implements ImageModel {
     int g = sourceImage.getGreenChannel()[row][col];
     int b = sourceImage.getBlueChannel()[row][col];
 
-    int newRed = clamp((int) (0.393 * r + 0.769 * g + 0.189 * b));
-    int newGreen = clamp((int) (0.349 * r + 0.686 * g + 0.168 * b));
-    int newBlue = clamp((int) (0.272 * r + 0.534 * g + 0.131 * b));
+    int newRed = ColorMath.sepiaRed(r, g, b);
+    int newGreen = ColorMath.sepiaGreen(r, g, b);
+    int newBlue = ColorMath.sepiaBlue(r, g, b);
 
     return new int[]{newRed, newGreen, newBlue};
   }
@@ -1656,7 +1476,7 @@ public class ImageModelImpl implements ImageModel {
         int avgValue = (r + g + b) / 3;
         return new int[]{avgValue, avgValue, avgValue};
       case "luma":
-        int lumaValue = (int) (0.2126 * r + 0.7152 * g + 0.0722 * b);
+        int lumaValue = ColorMath.luma(r, g, b);
         return new int[]{lumaValue, lumaValue, lumaValue};
       case "red":
         return new int[]{r, 0, 0};
@@ -1703,6 +1523,71 @@ public class ImageModelImpl implements ImageModel {
             clamp(Math.round(blueSum))};
   }
 
+  @Override
+  public List<String> batchProcess(String operation, List<String> inputPaths,
+                                   String outputDirectory) {
+    ImageOperation strategy = strategies.get(operation.toLowerCase());
+    if (strategy == null) {
+      throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+    File directory = new File(outputDirectory);
+    List<String> outputPaths = new ArrayList<>();
+    Map<String, String> sources = new HashMap<>();
+    for (String inputPath : inputPaths) {
+      String outputPath = batchOutputPath(inputPath, operation.toLowerCase(), directory);
+      String previous = sources.putIfAbsent(outputPath, inputPath);
+      if (previous != null) {
+        throw new IllegalArgumentException("Batch inputs " + previous + " and " + inputPath
+                + " would both be saved as " + outputPath);
+      }
+      outputPaths.add(outputPath);
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("Cannot create output directory: " + outputDirectory);
+    }
+    return new ImagePipeline(ioHandler).run(inputPaths, outputPaths, strategy);
+  }
+
+  /**
+   * Builds the output path for a batch result by inserting the operation name before the file
+   * extension of the input, e.g. {@code photos/beach.png} becomes {@code out/beach-blur.png}.
+   *
+   * @param inputPath the path of the source image.
+   * @param operation the name of the applied operation.
+   * @param directory the directory the result is saved in.
+   * @return the output file path.
+   */
+  private String batchOutputPath(String inputPath, String operation, File directory) {
+    String fileName = new File(inputPath).getName();
+    int dot = fileName.lastIndexOf('.');
+    String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+    String extension = dot > 0 ? fileName.substring(dot) : ".png";
+    return new File(directory, baseName + "-" + operation + extension).getPath();
+  }
+
+  @Override
+  public void tiledProcess(String operation, List<String> arguments, String inputPath,
+                           String outputPath) {
+    try {
+      new TiledImageProcessor(TiledImage.DEFAULT_TILE_SIZE).process(operation, arguments,
+              inputPath, outputPath);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to process tiled image: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void putImage(String imageName, Image image) {
+    processedImages.remove(imageName);
+    images.put(imageName, image);
+  }
+
+  @Override
+  public void removeImage(String imageName) {
+    processedImages.remove(imageName);
+    images.remove(imageName);
+  }
+
   @Override
   public boolean imageExists(String imageName) {
     return images.containsKey(imageName);
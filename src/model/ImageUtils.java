@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Arrays;
+
 /**
  * A utility class providing helper methods for image processing tasks.
  * This class includes common utility functions that can be used across
@@ -22,4 +24,140 @@ public class ImageUtils {
     return Math.max(0, Math.min(255, value));
   }
 
+  /**
+   * Downscales an image to the given size using bilinear interpolation.
+   *
+   * @param image     the image to downscale.
+   * @param newWidth  the width of the result, at most the width of the image.
+   * @param newHeight the height of the result, at most the height of the image.
+   * @return the downscaled image.
+   */
+  public static Image downscale(Image image, int newWidth, int newHeight) {
+    // Calculate scaling factors
+    double xScale = calculateScalingFactor(image.getWidth(), newWidth);
+    double yScale = calculateScalingFactor(image.getHeight(), newHeight);
+
+    // Downscale each channel
+    int[][] newRed = downscaleChannel(image.getRedChannel(), newWidth, newHeight,
+            xScale, yScale);
+    int[][] newGreen = downscaleChannel(image.getGreenChannel(), newWidth, newHeight,
+            xScale, yScale);
+    int[][] newBlue = downscaleChannel(image.getBlueChannel(), newWidth, newHeight,
+            xScale, yScale);
+    return new Image(newWidth, newHeight, newRed, newGreen, newBlue);
+  }
+
+  /**
+   * Copies a rectangle out of an image.
+   *
+   * @param image  the image to crop.
+   * @param x      the left edge of the rectangle.
+   * @param y      the top edge of the rectangle.
+   * @param width  the width of the rectangle.
+   * @param height the height of the rectangle.
+   * @return the cropped image.
+   * @throws IllegalArgumentException if the rectangle is empty or not inside the image.
+   */
+  public static Image crop(Image image, int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > image.getWidth()
+            || y + height > image.getHeight()) {
+      throw new IllegalArgumentException("Crop region must lie within the image.");
+    }
+    int[][] red = new int[height][];
+    int[][] green = new int[height][];
+    int[][] blue = new int[height][];
+    for (int row = 0; row < height; row++) {
+      red[row] = Arrays.copyOfRange(image.getRedChannel()[y + row], x, x + width);
+      green[row] = Arrays.copyOfRange(image.getGreenChannel()[y + row], x, x + width);
+      blue[row] = Arrays.copyOfRange(image.getBlueChannel()[y + row], x, x + width);
+    }
+    return new Image(width, height, red, green, blue);
+  }
+
+  /**
+   * Calculates the scaling factor for downscaling an image from the original size to a new size.
+   *
+   * @param originalSize the original dimension (width or height) of the image.
+   * @param newSize the new dimension (width or height) after downscaling.
+   * @return the scaling factor to be applied to the image.
+   */
+  private static double calculateScalingFactor(int originalSize, int newSize) {
+    return (double) originalSize / newSize;
+  }
+
+  /**
+   * Downscales a single color channel (Red, Green, or Blue) of the image using bilinear
+   * interpolation.
+   *
+   * @param channel the channel (2D array) to be downscaled.
+   * @param newWidth the new width of the downscaled image.
+   * @param newHeight the new height of the downscaled image.
+   * @param xScale the scaling factor for the x dimension (width).
+   * @param yScale the scaling factor for the y dimension (height).
+   * @return a 2D array representing the downscaled color channel.
+   */
+  private static int[][] downscaleChannel(int[][] channel, int newWidth, int newHeight,
+                                          double xScale, double yScale) {
+    int[][] downscaledChannel = new int[newHeight][newWidth];
+
+    for (int y = 0; y < newHeight; y++) {
+      for (int x = 0; x < newWidth; x++) {
+        downscaledChannel[y][x] = calculateDownscaledPixel(channel, x, y, xScale, yScale);
+      }
+    }
+
+    return downscaledChannel;
+  }
+
+  /**
+   * Computes the pixel value at a specified position in a downscaled image channel
+   * using bilinear interpolation.
+   *
+   * @param channel the 2D array of the original image channel (e.g., red, green, blue).
+   * @param x       the x-coordinate in the downscaled image.
+   * @param y       the y-coordinate in the downscaled image.
+   * @param xScale  the scale factor along the x-axis.
+   * @param yScale  the scale factor along the y-axis.
+   * @return the interpolated pixel value at the specified position.
+   */
+  private static int calculateDownscaledPixel(int[][] channel, int x, int y, double xScale,
+                                              double yScale) {
+    double originalX = x * xScale;
+    double originalY = y * yScale;
+
+    int x1 = (int) Math.floor(originalX);
+    int x2 = Math.min(x1 + 1, channel[0].length - 1);
+    int y1 = (int) Math.floor(originalY);
+    int y2 = Math.min(y1 + 1, channel.length - 1);
+
+    double xFraction = originalX - x1;
+    double yFraction = originalY - y1;
+
+
+    return interpolatePixel(channel, x1, x2, y1, y2, xFraction, yFraction);
+  }
+
+  /**
+   * Interpolates a pixel's value using bilinear interpolation between the four nearest neighbors.
+   *
+   * @param channel the color channel (2D array) of the image.
+   * @param x1 the x-coordinate of the top-left neighboring pixel.
+   * @param x2 the x-coordinate of the top-right neighboring pixel.
+   * @param y1 the y-coordinate of the top-left neighboring pixel.
+   * @param y2 the y-coordinate of the bottom-right neighboring pixel.
+   * @param xFraction the fractional distance of the pixel along the x-axis.
+   * @param yFraction the fractional distance of the pixel along the y-axis.
+   * @return the interpolated pixel value.
+   */
+  private static int interpolatePixel(int[][] channel, int x1, int x2, int y1, int y2,
+                                      double xFraction, double yFraction) {
+    int topLeft = channel[y1][x1];
+    int topRight = channel[y1][x2];
+    int bottomLeft = channel[y2][x1];
+    int bottomRight = channel[y2][x2];
+
+    int top = (int) ((1 - xFraction) * topLeft + xFraction * topRight);
+    int bottom = (int) ((1 - xFraction) * bottomLeft + xFraction * bottomRight);
+    return (int) ((1 - yFraction) * top + yFraction * bottom);
+  }
 }
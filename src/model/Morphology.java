@@ -0,0 +1,153 @@
+package model;
+
+import model.strategy.ImageOperation;
+
+/**
+ * Erosion, dilation, opening or closing of a mask image with a rectangular structuring element.
+ * <p>
+ * The mask is read as a {@link BinaryMask}, selected where its red value is 0, and the result is
+ * a black and white mask image for the masked blur, sharpen, sepia and component operations.
+ * Dilating grows the selected area and eroding shrinks it; opening removes selected specks
+ * smaller than the element and closing fills gaps smaller than it. The cost does not depend on
+ * the element size.
+ * </p>
+ */
+public final class Morphology implements ImageOperation {
+
+  /**
+   * The morphological operations.
+   */
+  public enum Operation {
+    /**
+     * Shrinks the selected area.
+     */
+    ERODE,
+    /**
+     * Grows the selected area.
+     */
+    DILATE,
+    /**
+     * Erodes then dilates.
+     */
+    OPEN,
+    /**
+     * Dilates then erodes.
+     */
+    CLOSE
+  }
+
+  private final Operation operation;
+  private final int elementWidth;
+  private final int elementHeight;
+
+  /**
+   * Creates a morphological operation.
+   *
+   * @param operation     the operation.
+   * @param elementWidth  the width of the rectangular structuring element.
+   * @param elementHeight the height of the rectangular structuring element.
+   * @throws IllegalArgumentException if a dimension of the element is not positive.
+   */
+  public Morphology(Operation operation, int elementWidth, int elementHeight) {
+    if (elementWidth <= 0 || elementHeight <= 0) {
+      throw new IllegalArgumentException("Structuring element dimensions must be positive.");
+    }
+    this.operation = operation;
+    this.elementWidth = elementWidth;
+    this.elementHeight = elementHeight;
+  }
+
+  /**
+   * Creates the operation with the given name.
+   *
+   * @param name          "erode", "dilate", "open" or "close".
+   * @param elementWidth  the width of the rectangular structuring element.
+   * @param elementHeight the height of the rectangular structuring element.
+   * @return the operation.
+   * @throws IllegalArgumentException if the name is unknown or the element empty.
+   */
+  public static Morphology named(String name, int elementWidth, int elementHeight) {
+    switch (name.toLowerCase()) {
+      case "erode":
+        return new Morphology(Operation.ERODE, elementWidth, elementHeight);
+      case "dilate":
+        return new Morphology(Operation.DILATE, elementWidth, elementHeight);
+      case "open":
+        return new Morphology(Operation.OPEN, elementWidth, elementHeight);
+      case "close":
+        return new Morphology(Operation.CLOSE, elementWidth, elementHeight);
+      default:
+        throw new IllegalArgumentException("Unknown morphological operation: " + name);
+    }
+  }
+
+  /**
+   * Returns the operation.
+   *
+   * @return the operation.
+   */
+  public Operation getOperation() {
+    return operation;
+  }
+
+  /**
+   * Applies the operation to a packed mask.
+   *
+   * @param mask the mask.
+   * @return the resulting mask.
+   */
+  public BinaryMask apply(BinaryMask mask) {
+    switch (operation) {
+      case ERODE:
+        return mask.erode(elementWidth, elementHeight);
+      case DILATE:
+        return mask.dilate(elementWidth, elementHeight);
+      case OPEN:
+        return mask.open(elementWidth, elementHeight);
+      default:
+        return mask.close(elementWidth, elementHeight);
+    }
+  }
+
+  /**
+   * Returns the name of the operation, such as {@code "erode"}.
+   *
+   * @return the operation name in lower case.
+   */
+  @Override
+  public String getName() {
+    return operation.name().toLowerCase();
+  }
+
+  /**
+   * Applies the operation to a mask image.
+   *
+   * @param image the mask image, selected where its red value is 0.
+   * @return the resulting mask image, black where selected and white elsewhere.
+   */
+  @Override
+  public Image apply(Image image) {
+    return apply(BinaryMask.of(image)).toImage();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Morphology)) {
+      return false;
+    }
+    Morphology that = (Morphology) other;
+    return operation == that.operation && elementWidth == that.elementWidth
+            && elementHeight == that.elementHeight;
+  }
+
+  @Override
+  public int hashCode() {
+    return (operation.hashCode() * 31 + elementWidth) * 31 + elementHeight;
+  }
+
+  @Override
+  public String toString() {
+    return "Morphology[" + operation.name().toLowerCase() + ", " + elementWidth + "x"
+            + elementHeight + "]";
+  }
+}
@@ -0,0 +1,293 @@
+package model;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes PNG files row by row, so that only one scanline and its predecessor are held in
+ * memory at a time.
+ * <p>
+ * Non-interlaced 8-bit truecolor and truecolor-with-alpha images and indexed images of any bit
+ * depth are decoded; alpha is dropped, as it is when loading through {@code ImageIO}. Callers
+ * check {@link #isSupported()} after construction and decode any other PNG with
+ * {@code ImageIO}. Unlike a region read through an {@code ImageReader}, which restarts the
+ * decode from the top of the file for every region, the rows are inflated and unfiltered in a
+ * single pass.
+ * </p>
+ */
+public class PngReader {
+  private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+  private final DataInputStream input;
+  private int width;
+  private int height;
+  private int bitDepth;
+  private int colorType;
+  private int interlace;
+  private int[] palette;
+  private int bitsPerPixel;
+  private byte[] previous;
+  private byte[] current;
+  private DataInputStream rows;
+  private int rowsRead;
+
+  /**
+   * Reads the PNG header and every chunk up to the first image data chunk.
+   *
+   * @param in the stream to read from, positioned at the PNG signature; it is not closed.
+   * @throws IOException if the stream cannot be read or is not a PNG file.
+   */
+  public PngReader(InputStream in) throws IOException {
+    this.input = new DataInputStream(in);
+    byte[] signature = new byte[SIGNATURE.length];
+    input.readFully(signature);
+    for (int i = 0; i < SIGNATURE.length; i++) {
+      if (signature[i] != SIGNATURE[i]) {
+        throw new IOException("Not a PNG file.");
+      }
+    }
+    while (true) {
+      int length = input.readInt();
+      String type = readType();
+      if (type.equals("IDAT")) {
+        if (width == 0) {
+          throw new IOException("PNG image data before header.");
+        }
+        rows = new DataInputStream(new InflaterInputStream(new IdatInputStream(length)));
+        break;
+      }
+      byte[] data = new byte[length];
+      input.readFully(data);
+      input.readInt(); // CRC
+      if (type.equals("IHDR")) {
+        readHeader(data);
+      } else if (type.equals("PLTE")) {
+        palette = new int[data.length / 3];
+        for (int i = 0; i < palette.length; i++) {
+          palette[i] = ((data[i * 3] & 0xFF) << 16) | ((data[i * 3 + 1] & 0xFF) << 8)
+                  | (data[i * 3 + 2] & 0xFF);
+        }
+      } else if (type.equals("IEND")) {
+        throw new IOException("PNG file has no image data.");
+      }
+    }
+    int stride = (width * bitsPerPixel + 7) / 8;
+    previous = new byte[stride];
+    current = new byte[stride];
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Reports whether this reader can decode the image. Grey, 16-bit and interlaced images are
+   * left to {@code ImageIO}.
+   *
+   * @return true if {@link #readRows} can be used.
+   */
+  public boolean isSupported() {
+    if (interlace != 0) {
+      return false;
+    }
+    if (colorType == 3) {
+      return palette != null;
+    }
+    return (colorType == 2 || colorType == 6) && bitDepth == 8;
+  }
+
+  /**
+   * Decodes the next rows of the image.
+   *
+   * @param count  the number of rows to decode.
+   * @param pixels the array to fill with {@code count * width} packed {@code 0xRRGGBB} pixels.
+   * @throws IOException if the image data cannot be read or is corrupt.
+   */
+  public void readRows(int count, int[] pixels) throws IOException {
+    if (!isSupported()) {
+      throw new IOException("Unsupported PNG format.");
+    }
+    if (count > height - rowsRead) {
+      throw new IllegalArgumentException("Cannot read past the last row of the image.");
+    }
+    int bytesPerPixel = Math.max(1, bitsPerPixel / 8);
+    for (int row = 0; row < count; row++) {
+      int filter;
+      try {
+        filter = rows.readUnsignedByte();
+        rows.readFully(current);
+      } catch (EOFException e) {
+        throw new IOException("PNG image data ends early.", e);
+      }
+      unfilter(filter, bytesPerPixel);
+      unpack(pixels, row * width);
+      byte[] swap = previous;
+      previous = current;
+      current = swap;
+      rowsRead++;
+    }
+  }
+
+  private void readHeader(byte[] data) throws IOException {
+    if (data.length < 13) {
+      throw new IOException("Invalid PNG header.");
+    }
+    width = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8)
+            | (data[3] & 0xFF);
+    height = ((data[4] & 0xFF) << 24) | ((data[5] & 0xFF) << 16) | ((data[6] & 0xFF) << 8)
+            | (data[7] & 0xFF);
+    bitDepth = data[8] & 0xFF;
+    colorType = data[9] & 0xFF;
+    interlace = data[12] & 0xFF;
+    if (width <= 0 || height <= 0) {
+      throw new IOException("Invalid PNG dimensions.");
+    }
+    int channels;
+    switch (colorType) {
+      case 2:
+        channels = 3;
+        break;
+      case 4:
+        channels = 2;
+        break;
+      case 6:
+        channels = 4;
+        break;
+      default:
+        channels = 1;
+        break;
+    }
+    bitsPerPixel = channels * bitDepth;
+  }
+
+  /**
+   * Reverses the PNG filter of the current row in place.
+   *
+   * @param filter        the filter type byte of the row.
+   * @param bytesPerPixel the distance to the corresponding byte of the pixel to the left.
+   * @throws IOException if the filter type is invalid.
+   */
+  private void unfilter(int filter, int bytesPerPixel) throws IOException {
+    int length = current.length;
+    switch (filter) {
+      case 0:
+        break;
+      case 1:
+        for (int i = bytesPerPixel; i < length; i++) {
+          current[i] += current[i - bytesPerPixel];
+        }
+        break;
+      case 2:
+        for (int i = 0; i < length; i++) {
+          current[i] += previous[i];
+        }
+        break;
+      case 3:
+        for (int i = 0; i < length; i++) {
+          int left = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+          current[i] += (left + (previous[i] & 0xFF)) >>> 1;
+        }
+        break;
+      case 4:
+        for (int i = 0; i < length; i++) {
+          int left = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+          int upLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+          current[i] += paeth(left, previous[i] & 0xFF, upLeft);
+        }
+        break;
+      default:
+        throw new IOException("Invalid PNG filter type: " + filter);
+    }
+  }
+
+  private static int paeth(int left, int up, int upLeft) {
+    int estimate = left + up - upLeft;
+    int distanceLeft = Math.abs(estimate - left);
+    int distanceUp = Math.abs(estimate - up);
+    int distanceUpLeft = Math.abs(estimate - upLeft);
+    if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+      return left;
+    }
+    return distanceUp <= distanceUpLeft ? up : upLeft;
+  }
+
+  private void unpack(int[] pixels, int start) {
+    if (colorType == 3) {
+      int mask = (1 << bitDepth) - 1;
+      for (int x = 0; x < width; x++) {
+        int bit = x * bitDepth;
+        int index = ((current[bit >>> 3] & 0xFF) >>> (8 - bitDepth - (bit & 7))) & mask;
+        pixels[start + x] = index < palette.length ? palette[index] : 0;
+      }
+      return;
+    }
+    int step = colorType == 6 ? 4 : 3;
+    for (int x = 0, i = 0; x < width; x++, i += step) {
+      pixels[start + x] = ((current[i] & 0xFF) << 16) | ((current[i + 1] & 0xFF) << 8)
+              | (current[i + 2] & 0xFF);
+    }
+  }
+
+  private String readType() throws IOException {
+    byte[] type = new byte[4];
+    input.readFully(type);
+    return new String(type, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Presents the data of consecutive IDAT chunks as one stream.
+   */
+  private final class IdatInputStream extends InputStream {
+    private int remaining;
+    private boolean finished;
+
+    private IdatInputStream(int length) {
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      while (remaining == 0) {
+        if (finished) {
+          return -1;
+        }
+        input.readInt(); // CRC of the previous chunk
+        remaining = input.readInt();
+        if (!readType().equals("IDAT")) {
+          finished = true;
+          remaining = 0;
+        }
+      }
+      int count = input.read(buffer, offset, Math.min(length, remaining));
+      if (count == -1) {
+        throw new EOFException("PNG image data ends early.");
+      }
+      remaining -= count;
+      return count;
+    }
+  }
+}
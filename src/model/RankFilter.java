@@ -0,0 +1,305 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import model.strategy.ImageOperation;
+
+/**
+ * A rank filter: each result is the median, minimum or maximum of the square window of
+ * {@code (2r + 1)^2} pixels centred on the pixel, channel by channel, with reads past the edges
+ * clamped to the nearest edge pixel as in {@code blur}.
+ * <p>
+ * The filter runs in constant time per pixel whatever the radius (Perreault and Hebert). Every
+ * column keeps a histogram of its {@code 2r + 1} pixels around the current row, updated with
+ * one removal and one addition when moving down a row. The window histogram is the sum of the
+ * column histograms under the window, updated when moving right by adding the column that
+ * enters and subtracting the one that leaves. Both levels are split into 16 coarse bins of 16
+ * values each; the coarse window histogram is kept current, and the 16 fine bins of a coarse
+ * bin are only brought up to date when the search for the rank ends up in that bin.
+ * </p>
+ * <p>
+ * The image is cut into bands of rows processed in parallel, each band starting its own column
+ * histograms.
+ * </p>
+ */
+public final class RankFilter implements ImageOperation {
+
+  /**
+   * The largest supported radius.
+   */
+  public static final int MAX_RADIUS = 255;
+
+  private static final int MIN_BAND_ROWS = 64;
+  private static final int COARSE = 16;
+  private static final int LEVELS = 256;
+
+  /**
+   * The statistic a rank filter computes.
+   */
+  public enum Rank {
+    /**
+     * The middle value of the window.
+     */
+    MEDIAN,
+    /**
+     * The smallest value of the window.
+     */
+    MIN,
+    /**
+     * The largest value of the window.
+     */
+    MAX
+  }
+
+  private final Rank rank;
+  private final int radius;
+
+  private RankFilter(Rank rank, int radius) {
+    if (radius < 0 || radius > MAX_RADIUS) {
+      throw new IllegalArgumentException("The filter radius must be between 0 and "
+              + MAX_RADIUS + ".");
+    }
+    this.rank = rank;
+    this.radius = radius;
+  }
+
+  /**
+   * Creates a median filter.
+   *
+   * @param radius the window reaches this many pixels on each side.
+   * @return the filter.
+   * @throws IllegalArgumentException if the radius is negative or above {@value #MAX_RADIUS}.
+   */
+  public static RankFilter median(int radius) {
+    return new RankFilter(Rank.MEDIAN, radius);
+  }
+
+  /**
+   * Creates a minimum filter.
+   *
+   * @param radius the window reaches this many pixels on each side.
+   * @return the filter.
+   * @throws IllegalArgumentException if the radius is negative or above {@value #MAX_RADIUS}.
+   */
+  public static RankFilter min(int radius) {
+    return new RankFilter(Rank.MIN, radius);
+  }
+
+  /**
+   * Creates a maximum filter.
+   *
+   * @param radius the window reaches this many pixels on each side.
+   * @return the filter.
+   * @throws IllegalArgumentException if the radius is negative or above {@value #MAX_RADIUS}.
+   */
+  public static RankFilter max(int radius) {
+    return new RankFilter(Rank.MAX, radius);
+  }
+
+  /**
+   * Creates the filter with the given name.
+   *
+   * @param name   "median", "min" or "max".
+   * @param radius the window reaches this many pixels on each side.
+   * @return the filter.
+   * @throws IllegalArgumentException if the name is unknown or the radius out of range.
+   */
+  public static RankFilter named(String name, int radius) {
+    switch (name.toLowerCase()) {
+      case "median":
+        return median(radius);
+      case "min":
+        return min(radius);
+      case "max":
+        return max(radius);
+      default:
+        throw new IllegalArgumentException("Unknown rank filter: " + name);
+    }
+  }
+
+  /**
+   * Returns the statistic the filter computes.
+   *
+   * @return the rank.
+   */
+  public Rank getRank() {
+    return rank;
+  }
+
+  /**
+   * Returns the radius of the window.
+   *
+   * @return the radius.
+   */
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Filters an image.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  @Override
+  public Image apply(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][][] source = {image.getRedChannel(), image.getGreenChannel(), image.getBlueChannel()};
+    int[][][] dest = new int[3][height][width];
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    int bandRows = Math.max(MIN_BAND_ROWS, (height + 4 * parallelism - 1) / (4 * parallelism));
+    int bands = (height + bandRows - 1) / bandRows;
+    IntStream.range(0, bands).parallel().forEach(band -> {
+      Histograms histograms = new Histograms(width);
+      for (int channel = 0; channel < 3; channel++) {
+        filterBand(source[channel], dest[channel], band * bandRows,
+                Math.min(height, (band + 1) * bandRows), histograms);
+      }
+    });
+    return new Image(width, height, dest[0], dest[1], dest[2]);
+  }
+
+  /**
+   * Filters the rows from {@code y0} to {@code y1}, exclusive, of one channel.
+   */
+  private void filterBand(int[][] source, int[][] dest, int y0, int y1, Histograms histograms) {
+    int height = source.length;
+    int width = source[0].length;
+    int window = 2 * radius + 1;
+    int target = rank == Rank.MIN ? 0 : rank == Rank.MAX ? window * window - 1
+            : window * window / 2;
+    int[] columnCoarse = histograms.columnCoarse;
+    int[] columnFine = histograms.columnFine;
+    int[] coarse = histograms.coarse;
+    int[] fine = histograms.fine;
+    int[] fineColumn = histograms.fineColumn;
+
+    Arrays.fill(columnCoarse, 0);
+    Arrays.fill(columnFine, 0);
+    for (int dy = -radius; dy <= radius; dy++) {
+      int[] row = source[clampIndex(y0 + dy, height)];
+      for (int x = 0; x < width; x++) {
+        columnCoarse[x * COARSE + (row[x] >> 4)]++;
+        columnFine[x * LEVELS + row[x]]++;
+      }
+    }
+
+    for (int y = y0; y < y1; y++) {
+      if (y > y0) {
+        int[] leaving = source[clampIndex(y - radius - 1, height)];
+        int[] entering = source[clampIndex(y + radius, height)];
+        for (int x = 0; x < width; x++) {
+          columnCoarse[x * COARSE + (leaving[x] >> 4)]--;
+          columnFine[x * LEVELS + leaving[x]]--;
+          columnCoarse[x * COARSE + (entering[x] >> 4)]++;
+          columnFine[x * LEVELS + entering[x]]++;
+        }
+      }
+
+      Arrays.fill(coarse, 0);
+      for (int dx = -radius; dx <= radius; dx++) {
+        int column = clampIndex(dx, width) * COARSE;
+        for (int bin = 0; bin < COARSE; bin++) {
+          coarse[bin] += columnCoarse[column + bin];
+        }
+      }
+      Arrays.fill(fineColumn, Integer.MIN_VALUE);
+
+      int[] out = dest[y];
+      for (int x = 0; x < width; x++) {
+        if (x > 0) {
+          int entering = clampIndex(x + radius, width) * COARSE;
+          int leaving = clampIndex(x - radius - 1, width) * COARSE;
+          for (int bin = 0; bin < COARSE; bin++) {
+            coarse[bin] += columnCoarse[entering + bin] - columnCoarse[leaving + bin];
+          }
+        }
+
+        int bin = 0;
+        int below = 0;
+        while (below + coarse[bin] <= target) {
+          below += coarse[bin];
+          bin++;
+        }
+
+        updateFine(fine, fineColumn, columnFine, bin, x, width);
+        int value = bin * COARSE;
+        while (below + fine[value] <= target) {
+          below += fine[value];
+          value++;
+        }
+        out[x] = value;
+      }
+    }
+  }
+
+  /**
+   * Brings the fine window histogram of one coarse bin up to column {@code x}, sliding it from
+   * the column it was last computed for, or summing it afresh if that is further than a window
+   * away.
+   */
+  private void updateFine(int[] fine, int[] fineColumn, int[] columnFine, int bin, int x,
+                          int width) {
+    int offset = bin * COARSE;
+    int last = fineColumn[bin];
+    if (last == x) {
+      return;
+    }
+    if (last == Integer.MIN_VALUE || x - last > 2 * radius + 1) {
+      Arrays.fill(fine, offset, offset + COARSE, 0);
+      for (int dx = -radius; dx <= radius; dx++) {
+        int column = clampIndex(x + dx, width) * LEVELS + offset;
+        for (int i = 0; i < COARSE; i++) {
+          fine[offset + i] += columnFine[column + i];
+        }
+      }
+    } else {
+      for (int step = last + 1; step <= x; step++) {
+        int entering = clampIndex(step + radius, width) * LEVELS + offset;
+        int leaving = clampIndex(step - radius - 1, width) * LEVELS + offset;
+        for (int i = 0; i < COARSE; i++) {
+          fine[offset + i] += columnFine[entering + i] - columnFine[leaving + i];
+        }
+      }
+    }
+    fineColumn[bin] = x;
+  }
+
+  private static int clampIndex(int index, int length) {
+    return Math.min(Math.max(index, 0), length - 1);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RankFilter && ((RankFilter) other).rank == rank
+            && ((RankFilter) other).radius == radius;
+  }
+
+  @Override
+  public int hashCode() {
+    return rank.hashCode() * 31 + radius;
+  }
+
+  @Override
+  public String toString() {
+    return "RankFilter[" + rank.name().toLowerCase() + ", radius " + radius + "]";
+  }
+
+  /**
+   * The histograms a band works with, allocated once per band and reused for each channel.
+   */
+  private static final class Histograms {
+    private final int[] columnCoarse;
+    private final int[] columnFine;
+    private final int[] coarse = new int[COARSE];
+    private final int[] fine = new int[LEVELS];
+    private final int[] fineColumn = new int[COARSE];
+
+    private Histograms(int width) {
+      this.columnCoarse = new int[width * COARSE];
+      this.columnFine = new int[width * LEVELS];
+    }
+  }
+}
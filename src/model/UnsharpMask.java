@@ -0,0 +1,410 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import model.strategy.ImageOperation;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * Sharpening by unsharp masking: every value moves away from a Gaussian blur of the image by
+ * {@code amount} times its difference from the blur, where that difference is at least the
+ * threshold, so that smooth areas and faint noise are left alone.
+ * <p>
+ * From a radius of {@value #BOX_MIN_RADIUS} pixels up, the Gaussian is approximated by three
+ * box blurs of suitable widths, each computed with a running sum, so the cost per pixel does not
+ * depend on the radius. Smaller radii, for which boxes of whole pixels are too coarse, use the
+ * sampled Gaussian directly. The image is never blurred as a whole: each channel streams
+ * through a pipeline of a horizontal pass, which blurs a source row, and vertical passes that
+ * each keep only the few rows they span. As soon as a blurred row comes out of the pipeline it
+ * is combined with the source row into the result, so the blur and the sharpening are a single
+ * pass with no full-size intermediate image. Reads past the edges are clamped to the nearest
+ * edge pixel, as in {@code blur}, and bands of rows are sharpened in parallel, each with its own
+ * pipeline.
+ * </p>
+ */
+public final class UnsharpMask implements ImageOperation {
+
+  /**
+   * The largest supported radius, the standard deviation of the Gaussian in pixels.
+   */
+  public static final double MAX_RADIUS = 250;
+
+  /**
+   * The largest supported amount.
+   */
+  public static final double MAX_AMOUNT = 10;
+
+  /**
+   * The smallest radius at which the Gaussian is approximated by box blurs.
+   */
+  public static final double BOX_MIN_RADIUS = 2;
+
+  /**
+   * The unsharp mask used by {@code batch unsharp}: radius 1, amount 1 and threshold 0.
+   */
+  public static final UnsharpMask DEFAULT = new UnsharpMask(1, 1, 0);
+
+  private static final int BOXES = 3;
+  private static final int MIN_BAND_ROWS = 64;
+
+  private final double radius;
+  private final double amount;
+  private final int threshold;
+  private final int[] boxRadii;
+  private final double[] weights;
+
+  /**
+   * Creates an unsharp mask.
+   *
+   * @param radius    the standard deviation of the Gaussian blur, in pixels.
+   * @param amount    how far values move away from the blur, as a multiple of their difference
+   *                  from it; 1 doubles the difference.
+   * @param threshold the smallest difference from the blur, in levels, that is sharpened.
+   * @throws IllegalArgumentException if the radius is not positive or above
+   *                                  {@value #MAX_RADIUS}, the amount is negative or above
+   *                                  {@value #MAX_AMOUNT}, or the threshold is outside 0-255.
+   */
+  public UnsharpMask(double radius, double amount, int threshold) {
+    if (!(radius > 0 && radius <= MAX_RADIUS)) {
+      throw new IllegalArgumentException("The unsharp mask radius must be above 0 and at most "
+              + (int) MAX_RADIUS + ".");
+    }
+    if (!(amount >= 0 && amount <= MAX_AMOUNT)) {
+      throw new IllegalArgumentException("The unsharp mask amount must be between 0 and "
+              + (int) MAX_AMOUNT + ".");
+    }
+    if (threshold < 0 || threshold > 255) {
+      throw new IllegalArgumentException("The unsharp mask threshold must be between 0 and "
+              + "255.");
+    }
+    this.radius = radius;
+    this.amount = amount;
+    this.threshold = threshold;
+    if (radius >= BOX_MIN_RADIUS) {
+      this.boxRadii = boxRadii(radius);
+      this.weights = null;
+    } else {
+      this.boxRadii = new int[0];
+      this.weights = gaussian(radius);
+    }
+  }
+
+  /**
+   * Returns the standard deviation of the blur.
+   *
+   * @return the radius in pixels.
+   */
+  public double getRadius() {
+    return radius;
+  }
+
+  /**
+   * Returns how far values move away from the blur.
+   *
+   * @return the amount.
+   */
+  public double getAmount() {
+    return amount;
+  }
+
+  /**
+   * Returns the smallest difference from the blur that is sharpened.
+   *
+   * @return the threshold in levels.
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Returns the radii of the three box blurs that approximate the Gaussian.
+   *
+   * @return each box reaches this many pixels on each side; empty below
+   *         {@value #BOX_MIN_RADIUS}, where the Gaussian is sampled instead.
+   */
+  public int[] getBoxRadii() {
+    return boxRadii.clone();
+  }
+
+  /**
+   * Returns the name of the sharpening, which is that of the command running it.
+   *
+   * @return {@code "unsharp"}.
+   */
+  @Override
+  public String getName() {
+    return "unsharp";
+  }
+
+  /**
+   * Sharpens an image in a single streaming pass.
+   *
+   * @param image the source image.
+   * @return a new image holding the result.
+   */
+  @Override
+  public Image apply(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][][] source = {image.getRedChannel(), image.getGreenChannel(), image.getBlueChannel()};
+    int[][][] dest = new int[3][height][];
+    int reach = weights == null ? 0 : weights.length / 2;
+    for (int box : boxRadii) {
+      reach += box;
+    }
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    int bandRows = Math.max(Math.max(MIN_BAND_ROWS, 4 * reach),
+            (height + 4 * parallelism - 1) / (4 * parallelism));
+    int bands = (height + bandRows - 1) / bandRows;
+    IntStream.range(0, bands * 3).parallel().forEach(task -> {
+      int channel = task % 3;
+      int y0 = (task / 3) * bandRows;
+      sharpenBand(source[channel], dest[channel], y0, Math.min(height, y0 + bandRows));
+    });
+    return new Image(width, height, dest[0], dest[1], dest[2]);
+  }
+
+  /**
+   * Sharpens the rows from {@code y0} to {@code y1}, exclusive, of one channel.
+   */
+  private void sharpenBand(int[][] source, int[][] dest, int y0, int y1) {
+    int width = source[0].length;
+    int height = source.length;
+    // Each stage keeps the rows the next one reads: a vertical pass of radius r reads the
+    // rows from y - r - 1 to y + r when moving to row y.
+    Rows rows;
+    if (weights != null) {
+      rows = new HorizontalBlur(source, boxRadii, weights, weights.length + 1);
+      rows = new VerticalKernel(rows, weights, height, width);
+    } else {
+      rows = new HorizontalBlur(source, boxRadii, null, 2 * boxRadii[0] + 2);
+      for (int i = 0; i < BOXES; i++) {
+        int kept = i + 1 < BOXES ? 2 * boxRadii[i + 1] + 2 : 1;
+        rows = new VerticalBox(rows, boxRadii[i], height, width, kept);
+      }
+    }
+    for (int y = y0; y < y1; y++) {
+      double[] blurred = rows.row(y);
+      int[] in = source[y];
+      int[] out = new int[width];
+      for (int x = 0; x < width; x++) {
+        double difference = in[x] - blurred[x];
+        out[x] = Math.abs(difference) < threshold ? in[x]
+                : clamp((int) Math.round(in[x] + amount * difference));
+      }
+      dest[y] = out;
+    }
+  }
+
+  /**
+   * Chooses the radii of three box blurs whose succession has the variance of a Gaussian of
+   * the given standard deviation, as closely as odd box widths allow.
+   */
+  private static int[] boxRadii(double sigma) {
+    double ideal = Math.sqrt(12 * sigma * sigma / BOXES + 1);
+    int lower = (int) Math.floor(ideal);
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    int upper = lower + 2;
+    // The number of boxes of the lower width that brings the total variance closest.
+    double count = (12 * sigma * sigma - BOXES * lower * lower - 4.0 * BOXES * lower
+            - 3.0 * BOXES) / (-4.0 * lower - 4);
+    int lowerCount = (int) Math.round(count);
+    int[] radii = new int[BOXES];
+    for (int i = 0; i < BOXES; i++) {
+      radii[i] = ((i < lowerCount ? lower : upper) - 1) / 2;
+    }
+    return radii;
+  }
+
+  /**
+   * Samples a normalized Gaussian out to three standard deviations.
+   */
+  private static double[] gaussian(double sigma) {
+    int reach = (int) Math.ceil(3 * sigma);
+    double[] weights = new double[2 * reach + 1];
+    double total = 0;
+    for (int d = -reach; d <= reach; d++) {
+      weights[d + reach] = Math.exp(-d * d / (2 * sigma * sigma));
+      total += weights[d + reach];
+    }
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] /= total;
+    }
+    return weights;
+  }
+
+  /**
+   * A source of rows computed in increasing order, of which the last few stay available.
+   */
+  private abstract static class Rows {
+    private final double[][] ring;
+    private int first = -1;
+    private int last = -1;
+
+    Rows(int width, int kept) {
+      this.ring = new double[kept][width];
+    }
+
+    /**
+     * Returns a row, computing the rows up to it if needed. The row must not be older than the
+     * rows kept.
+     */
+    final double[] row(int y) {
+      if (first < 0) {
+        first = y;
+        last = y - 1;
+      }
+      while (last < y) {
+        last++;
+        compute(last, ring[last % ring.length]);
+      }
+      if (y < first || last - y >= ring.length) {
+        throw new IllegalStateException("Row " + y + " is no longer available.");
+      }
+      return ring[y % ring.length];
+    }
+
+    abstract void compute(int y, double[] dest);
+  }
+
+  /**
+   * Blurs each source row with the sampled Gaussian, or with the boxes in turn.
+   */
+  private static final class HorizontalBlur extends Rows {
+    private final int[][] source;
+    private final int[] radii;
+    private final double[] weights;
+    private final double[] scratch;
+
+    HorizontalBlur(int[][] source, int[] radii, double[] weights, int kept) {
+      super(source[0].length, kept);
+      this.source = source;
+      this.radii = radii;
+      this.weights = weights;
+      this.scratch = new double[source[0].length];
+    }
+
+    @Override
+    void compute(int y, double[] dest) {
+      int[] row = source[y];
+      int width = row.length;
+      if (weights != null) {
+        int reach = weights.length / 2;
+        for (int x = 0; x < width; x++) {
+          double sum = 0;
+          for (int d = -reach; d <= reach; d++) {
+            sum += weights[d + reach] * row[Math.min(Math.max(x + d, 0), width - 1)];
+          }
+          dest[x] = sum;
+        }
+        return;
+      }
+      for (int x = 0; x < width; x++) {
+        scratch[x] = row[x];
+      }
+      for (int i = 0; i < radii.length; i++) {
+        double[] from = i % 2 == 0 ? scratch : dest;
+        double[] to = i % 2 == 0 ? dest : scratch;
+        box(from, to, radii[i]);
+      }
+      if (radii.length % 2 == 0) {
+        System.arraycopy(scratch, 0, dest, 0, dest.length);
+      }
+    }
+
+    private static void box(double[] from, double[] to, int r) {
+      int width = from.length;
+      double sum = 0;
+      for (int d = -r; d <= r; d++) {
+        sum += from[Math.min(Math.max(d, 0), width - 1)];
+      }
+      double scale = 1.0 / (2 * r + 1);
+      for (int x = 0; x < width; x++) {
+        to[x] = sum * scale;
+        sum += from[Math.min(x + r + 1, width - 1)] - from[Math.max(x - r, 0)];
+      }
+    }
+  }
+
+  /**
+   * Blurs the rows of the previous stage down the columns with one box, keeping a running sum
+   * per column.
+   */
+  private static final class VerticalBox extends Rows {
+    private final Rows input;
+    private final int radius;
+    private final int height;
+    private final double[] sum;
+    private final double scale;
+    private int previous = -1;
+
+    VerticalBox(Rows input, int radius, int height, int width, int kept) {
+      super(width, kept);
+      this.input = input;
+      this.radius = radius;
+      this.height = height;
+      this.sum = new double[width];
+      this.scale = 1.0 / (2 * radius + 1);
+    }
+
+    @Override
+    void compute(int y, double[] dest) {
+      int width = sum.length;
+      if (previous < 0) {
+        for (int d = -radius; d <= radius; d++) {
+          double[] row = input.row(clampRow(y + d));
+          for (int x = 0; x < width; x++) {
+            sum[x] += row[x];
+          }
+        }
+      } else {
+        double[] entering = input.row(clampRow(y + radius));
+        double[] leaving = input.row(clampRow(y - radius - 1));
+        for (int x = 0; x < width; x++) {
+          sum[x] += entering[x] - leaving[x];
+        }
+      }
+      previous = y;
+      for (int x = 0; x < width; x++) {
+        dest[x] = sum[x] * scale;
+      }
+    }
+
+    private int clampRow(int y) {
+      return Math.min(Math.max(y, 0), height - 1);
+    }
+  }
+
+  /**
+   * Blurs the rows of the previous stage down the columns with the sampled Gaussian.
+   */
+  private static final class VerticalKernel extends Rows {
+    private final Rows input;
+    private final double[] weights;
+    private final int height;
+
+    VerticalKernel(Rows input, double[] weights, int height, int width) {
+      super(width, 1);
+      this.input = input;
+      this.weights = weights;
+      this.height = height;
+    }
+
+    @Override
+    void compute(int y, double[] dest) {
+      int reach = weights.length / 2;
+      Arrays.fill(dest, 0);
+      for (int d = -reach; d <= reach; d++) {
+        double[] row = input.row(Math.min(Math.max(y + d, 0), height - 1));
+        double weight = weights[d + reach];
+        for (int x = 0; x < dest.length; x++) {
+          dest[x] += weight * row[x];
+        }
+      }
+    }
+  }
+}
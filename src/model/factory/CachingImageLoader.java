@@ -0,0 +1,67 @@
+package model.factory;
+
+import java.io.IOException;
+
+import model.Image;
+
+/**
+ * An {@link ImageLoader} decorator that serves unchanged files from a {@link RawImageCache} and
+ * stores every freshly decoded image in it. The cache only speeds up loading: if it cannot be
+ * read or written, the image is decoded as usual.
+ */
+public class CachingImageLoader implements ImageLoader {
+  private final ImageLoader delegate;
+  private final RawImageCache cache;
+
+  /**
+   * Constructs a loader that caches the images decoded by another loader.
+   *
+   * @param delegate the loader that decodes image files.
+   * @param cache    the cache of decoded images.
+   */
+  public CachingImageLoader(ImageLoader delegate, RawImageCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public Image load(String filePath) throws IOException {
+    try {
+      Image cached = cache.get(filePath);
+      if (cached != null) {
+        return cached;
+      }
+    } catch (IOException e) {
+      // Fall through and decode the source file.
+    }
+
+    Image image = delegate.load(filePath);
+    try {
+      cache.put(filePath, image);
+    } catch (IOException e) {
+      // The image is still usable; it will be decoded again next time.
+    }
+    return image;
+  }
+
+  /**
+   * Loads an image with options. A cached full-size copy is used if there is one; otherwise the
+   * delegate applies the options while decoding and the result, not being the full image, is not
+   * cached.
+   */
+  @Override
+  public Image load(String filePath, LoadOptions options) throws IOException {
+    if (options.isDefault()) {
+      return load(filePath);
+    }
+    try {
+      Image cached = cache.get(filePath);
+      if (cached != null) {
+        return options.apply(cached);
+      }
+    } catch (IOException e) {
+      // Fall through and decode the source file.
+    }
+    return delegate.load(filePath, options);
+  }
+}
@@ -18,4 +18,18 @@ public interface ImageLoader {
    * @throws IOException if an error occurs while reading the image file.
    */
   Image load(String filePath) throws IOException;
+
+  /**
+   * Loads an image from the specified file path, applying the given options. By default the
+   * image is loaded in full and the options are applied afterwards; loaders that can apply them
+   * while decoding override this.
+   *
+   * @param filePath the path to the image file to be loaded.
+   * @param options  the options to apply.
+   * @return an {@link Image} object representing the loaded image.
+   * @throws IOException if an error occurs while reading the image file.
+   */
+  default Image load(String filePath, LoadOptions options) throws IOException {
+    return options.apply(load(filePath));
+  }
 }
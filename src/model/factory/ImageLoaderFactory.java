@@ -1,12 +1,23 @@
 package model.factory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 /**
  * Factory that returns the appropriate {@link ImageLoader} based on the file extension.
  */
 public class ImageLoaderFactory {
 
   /**
-   * Returns the correct loader for the given file path based on its extension.
+   * System property naming a directory for a {@link RawImageCache}. When set, loaders keep
+   * decoded images there and reload unchanged files without decoding them.
+   */
+  public static final String CACHE_DIR_PROPERTY = "ime.cache.dir";
+
+  /**
+   * Returns the correct loader for the given file path based on its extension. If the
+   * {@value #CACHE_DIR_PROPERTY} system property is set, the loader is backed by a raw image
+   * cache.
    *
    * @param filePath the path to the image file.
    * @return an {@link ImageLoader} capable of loading the specified file format.
@@ -14,13 +25,27 @@ public class ImageLoaderFactory {
    */
   public static ImageLoader getLoader(String filePath) {
     String lowerPath = filePath.toLowerCase();
+    ImageLoader loader;
     if (lowerPath.endsWith(".ppm")) {
-      return new PPMLoader();
+      loader = new PPMLoader();
     } else if (lowerPath.endsWith(".png") || lowerPath.endsWith(".jpg")
             || lowerPath.endsWith(".jpeg")) {
-      return new StandardImageLoader();
+      loader = new StandardImageLoader();
     } else {
       throw new UnsupportedOperationException("Only PPM, PNG, JPG, JPEG formats are supported.");
     }
+    return withCache(loader);
+  }
+
+  private static ImageLoader withCache(ImageLoader loader) {
+    String cacheDirectory = System.getProperty(CACHE_DIR_PROPERTY);
+    if (cacheDirectory == null || cacheDirectory.isEmpty()) {
+      return loader;
+    }
+    try {
+      return new CachingImageLoader(loader, new RawImageCache(Paths.get(cacheDirectory)));
+    } catch (IOException e) {
+      return loader;
+    }
   }
 }
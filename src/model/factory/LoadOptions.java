@@ -0,0 +1,184 @@
+package model.factory;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+import model.Image;
+import model.ImageUtils;
+
+/**
+ * Options that change how an image file is loaded. Loaders that can honor an option while
+ * decoding, such as reading only a region of a JPEG or a subsampled one, do so; the others load
+ * the image in full and apply the options afterwards through {@link #apply(Image)}.
+ * <p>
+ * A region is cut out first and the maximum size then applies to the region.
+ * </p>
+ */
+public final class LoadOptions {
+
+  /**
+   * Options that load the image unchanged.
+   */
+  public static final LoadOptions NONE = new LoadOptions(null, 0, 0);
+
+  private final Rectangle region;
+  private final int maxWidth;
+  private final int maxHeight;
+
+  private LoadOptions(Rectangle region, int maxWidth, int maxHeight) {
+    this.region = region;
+    this.maxWidth = maxWidth;
+    this.maxHeight = maxHeight;
+  }
+
+  /**
+   * Returns options that shrink the loaded image, keeping its aspect ratio, until it fits within
+   * the given bounds. Images that already fit are loaded unchanged.
+   *
+   * @param maxWidth  the largest width of the loaded image.
+   * @param maxHeight the largest height of the loaded image.
+   * @return the options.
+   * @throws IllegalArgumentException if a bound is not positive.
+   */
+  public static LoadOptions maxSize(int maxWidth, int maxHeight) {
+    return NONE.withMaxSize(maxWidth, maxHeight);
+  }
+
+  /**
+   * Returns a copy of these options with the given maximum size.
+   *
+   * @param maxWidth  the largest width of the loaded image.
+   * @param maxHeight the largest height of the loaded image.
+   * @return the new options.
+   * @throws IllegalArgumentException if a bound is not positive.
+   */
+  public LoadOptions withMaxSize(int maxWidth, int maxHeight) {
+    if (maxWidth <= 0 || maxHeight <= 0) {
+      throw new IllegalArgumentException("Maximum load size must be positive.");
+    }
+    return new LoadOptions(region, maxWidth, maxHeight);
+  }
+
+  /**
+   * Returns a copy of these options with a maximum size of the form {@code <width>x<height>},
+   * e.g. {@code 800x600}.
+   *
+   * @param size the size to parse.
+   * @return the new options.
+   * @throws IllegalArgumentException if the size is malformed or not positive.
+   */
+  public LoadOptions withMaxSize(String size) {
+    String message = "Invalid maximum size, expected WIDTHxHEIGHT: " + size;
+    int separator = size.toLowerCase().indexOf('x');
+    if (separator <= 0) {
+      throw new IllegalArgumentException(message);
+    }
+    try {
+      return withMaxSize(Integer.parseInt(size.substring(0, separator)),
+              Integer.parseInt(size.substring(separator + 1)));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(message, e);
+    }
+  }
+
+  /**
+   * Returns a copy of these options that loads only the given rectangle of the image.
+   *
+   * @param x      the left edge of the rectangle.
+   * @param y      the top edge of the rectangle.
+   * @param width  the width of the rectangle.
+   * @param height the height of the rectangle.
+   * @return the new options.
+   * @throws IllegalArgumentException if the rectangle is empty or has a negative corner.
+   */
+  public LoadOptions withRegion(int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Load region must have a non-negative corner and a "
+              + "positive size.");
+    }
+    return new LoadOptions(new Rectangle(x, y, width, height), maxWidth, maxHeight);
+  }
+
+  /**
+   * Returns whether these options load the image unchanged.
+   *
+   * @return true if neither a region nor a maximum size is set.
+   */
+  public boolean isDefault() {
+    return region == null && !hasMaxSize();
+  }
+
+  /**
+   * Returns whether these options limit the size of the loaded image.
+   *
+   * @return true if a maximum size is set.
+   */
+  public boolean hasMaxSize() {
+    return maxWidth > 0;
+  }
+
+  /**
+   * Returns the rectangle of an image of the given size that is loaded.
+   *
+   * @param width  the width of the image in the file.
+   * @param height the height of the image in the file.
+   * @return the region to load, or the whole image if no region is set.
+   * @throws IllegalArgumentException if the region does not lie within the image.
+   */
+  public Rectangle regionWithin(int width, int height) {
+    if (region == null) {
+      return new Rectangle(0, 0, width, height);
+    }
+    if (region.x + region.width > width || region.y + region.height > height) {
+      throw new IllegalArgumentException("Load region " + region.x + "," + region.y + " "
+              + region.width + "x" + region.height + " lies outside the " + width + "x" + height
+              + " image.");
+    }
+    return new Rectangle(region);
+  }
+
+  /**
+   * Returns the size a region of the given size is loaded at.
+   *
+   * @param width  the width of the region.
+   * @param height the height of the region.
+   * @return the size of the loaded image.
+   */
+  public Dimension fit(int width, int height) {
+    if (!hasMaxSize() || (width <= maxWidth && height <= maxHeight)) {
+      return new Dimension(width, height);
+    }
+    double scale = Math.min((double) maxWidth / width, (double) maxHeight / height);
+    return new Dimension(Math.max(1, Math.min(maxWidth, (int) Math.round(width * scale))),
+            Math.max(1, Math.min(maxHeight, (int) Math.round(height * scale))));
+  }
+
+  /**
+   * Applies these options to an image that was loaded in full.
+   *
+   * @param image the loaded image.
+   * @return the image itself if it needs no change, otherwise a cropped or downscaled copy.
+   */
+  public Image apply(Image image) {
+    Rectangle area = regionWithin(image.getWidth(), image.getHeight());
+    Image cropped = image;
+    if (area.width != image.getWidth() || area.height != image.getHeight()) {
+      cropped = ImageUtils.crop(image, area.x, area.y, area.width, area.height);
+    }
+    return resize(cropped, fit(cropped.getWidth(), cropped.getHeight()));
+  }
+
+  /**
+   * Downscales a loaded image to the given size unless it already has that size.
+   *
+   * @param image the loaded image.
+   * @param size  the size computed by {@link #fit}.
+   * @return the image itself or a downscaled copy.
+   */
+  static Image resize(Image image, Dimension size) {
+    if (size.width == image.getWidth() && size.height == image.getHeight()) {
+      return image;
+    }
+    return ImageUtils.downscale(image, size.width, size.height);
+  }
+}
@@ -4,10 +4,22 @@ import model.FileHandler;
 import model.Image;
 import model.ImageParser;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
- * Loads images in PPM (P3) format.
+ * Loads images in PPM format, both plain (P3) and binary (P6).
+ * <p>
+ * Binary files are read straight from the file channel: with a region or a maximum size only the
+ * rows that contribute to the result are read, each from its computed offset, so extracting a
+ * small patch costs no more than the patch itself. Plain files have no fixed row offsets and are
+ * always parsed in full.
+ * </p>
  */
 public class PPMLoader implements ImageLoader {
   private final FileHandler fileHandler;
@@ -20,6 +32,110 @@ public class PPMLoader implements ImageLoader {
 
   @Override
   public Image load(String filePath) throws IOException {
-    return imageParser.parsePPM(fileHandler.readFile(filePath));
+    return load(filePath, LoadOptions.NONE);
+  }
+
+  @Override
+  public Image load(String filePath, LoadOptions options) throws IOException {
+    try (FileInputStream input = new FileInputStream(filePath)) {
+      HeaderReader header = new HeaderReader(input);
+      String magic = header.next();
+      if (magic.equals("P6")) {
+        int width = Integer.parseInt(header.next());
+        int height = Integer.parseInt(header.next());
+        int maxValue = Integer.parseInt(header.next());
+        if (width <= 0 || height <= 0 || maxValue <= 0 || maxValue > 65535) {
+          throw new IOException("Invalid binary PPM header.");
+        }
+        // A single whitespace byte separates the header from the pixels; next() consumed it.
+        return readBinary(input.getChannel(), header.getOffset(), width, height, maxValue,
+                options);
+      }
+    }
+    return options.apply(imageParser.parsePPM(fileHandler.readFile(filePath)));
+  }
+
+  private Image readBinary(FileChannel channel, long dataOffset, int width, int height,
+                           int maxValue, LoadOptions options) throws IOException {
+    Rectangle region = options.regionWithin(width, height);
+    Dimension size = options.fit(region.width, region.height);
+    int step = Math.max(1, Math.min(region.width / size.width, region.height / size.height));
+    int columns = (region.width + step - 1) / step;
+    int rows = (region.height + step - 1) / step;
+    int sampleBytes = maxValue < 256 ? 1 : 2;
+    int pixelBytes = 3 * sampleBytes;
+
+    int[][] red = new int[rows][columns];
+    int[][] green = new int[rows][columns];
+    int[][] blue = new int[rows][columns];
+    ByteBuffer row = ByteBuffer.allocate(((columns - 1) * step + 1) * pixelBytes);
+    for (int y = 0; y < rows; y++) {
+      long position = dataOffset
+              + ((long) (region.y + y * step) * width + region.x) * pixelBytes;
+      row.clear();
+      while (row.hasRemaining()) {
+        if (channel.read(row, position + row.position()) < 0) {
+          throw new IOException("Invalid or truncated PPM pixel data.");
+        }
+      }
+      for (int x = 0; x < columns; x++) {
+        int index = x * step * pixelBytes;
+        red[y][x] = sample(row, index, sampleBytes, maxValue);
+        green[y][x] = sample(row, index + sampleBytes, sampleBytes, maxValue);
+        blue[y][x] = sample(row, index + 2 * sampleBytes, sampleBytes, maxValue);
+      }
+    }
+    return LoadOptions.resize(new Image(columns, rows, red, green, blue), size);
+  }
+
+  private static int sample(ByteBuffer row, int index, int sampleBytes, int maxValue) {
+    int value = sampleBytes == 1 ? row.get(index) & 0xFF : row.getShort(index) & 0xFFFF;
+    return maxValue == 255 ? value : Math.min(255, value * 255 / maxValue);
+  }
+
+  /**
+   * Reads whitespace-separated header tokens one byte at a time, skipping comments, and keeps
+   * track of how many bytes were consumed.
+   */
+  private static final class HeaderReader {
+    private final InputStream input;
+    private long offset;
+
+    HeaderReader(InputStream input) {
+      this.input = input;
+    }
+
+    String next() throws IOException {
+      StringBuilder token = new StringBuilder();
+      int c = read();
+      while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+        if (c == '#') {
+          while (c != -1 && c != '\n') {
+            c = read();
+          }
+        }
+        c = read();
+      }
+      while (c != -1 && !Character.isWhitespace(c)) {
+        token.append((char) c);
+        c = read();
+      }
+      if (token.length() == 0) {
+        throw new IOException("Unexpected end of PPM header.");
+      }
+      return token.toString();
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    private int read() throws IOException {
+      int c = input.read();
+      if (c != -1) {
+        offset++;
+      }
+      return c;
+    }
   }
 }
@@ -0,0 +1,189 @@
+package model.factory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import model.Image;
+
+/**
+ * An on-disk cache of decoded images in a raw planar layout, so an image file that has not
+ * changed can be reloaded without decoding it again.
+ * <p>
+ * An entry is keyed by the absolute path, modification time and size of the source file, so any
+ * change to the source makes its old entry unreachable; storing a new entry removes older entries
+ * for the same path. An entry holds an 8-byte magic, the width and height as big-endian ints, and
+ * then the red, green and blue planes as one unsigned byte per pixel in row-major order. Entries
+ * are read through {@link FileChannel#map}, so the operating system pages them in lazily and a
+ * cached load costs one copy from the page cache into the image channels.
+ * </p>
+ */
+public class RawImageCache {
+  private static final byte[] MAGIC = "IMERAW1\n".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_BYTES = MAGIC.length + 8;
+
+  private final Path directory;
+
+  /**
+   * Constructs a cache that keeps its entries in the given directory, creating it if needed.
+   *
+   * @param directory the cache directory.
+   * @throws IOException if the directory cannot be created.
+   */
+  public RawImageCache(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  /**
+   * Returns the cached pixels of an image file if the file is unchanged since they were stored.
+   *
+   * @param sourcePath the path of the source image file.
+   * @return the cached image, or null if there is no valid entry.
+   * @throws IOException if the source file cannot be examined or the entry cannot be read.
+   */
+  public Image get(String sourcePath) throws IOException {
+    Path entry = entryFor(sourcePath);
+    if (!Files.isRegularFile(entry)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      byte[] magic = new byte[MAGIC.length];
+      buffer.get(magic);
+      int width = buffer.getInt();
+      int height = buffer.getInt();
+      if (!Arrays.equals(magic, MAGIC) || width <= 0 || height <= 0
+              || size != HEADER_BYTES + 3L * width * height) {
+        return null;
+      }
+      byte[] row = new byte[width];
+      int[][] red = readPlane(buffer, row, height);
+      int[][] green = readPlane(buffer, row, height);
+      int[][] blue = readPlane(buffer, row, height);
+      return new Image(width, height, red, green, blue);
+    }
+  }
+
+  /**
+   * Stores the pixels of an image decoded from the given file. Images with channel values outside
+   * 0-255 cannot be represented and are not stored.
+   *
+   * @param sourcePath the path of the source image file.
+   * @param image      the decoded image.
+   * @throws IOException if the entry cannot be written.
+   */
+  public void put(String sourcePath, Image image) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    for (int[][] plane : new int[][][]{image.getRedChannel(), image.getGreenChannel(),
+            image.getBlueChannel()}) {
+      for (int[] values : plane) {
+        for (int value : values) {
+          if (value < 0 || value > 255) {
+            return;
+          }
+        }
+      }
+    }
+
+    Path entry = entryFor(sourcePath);
+    removeStaleEntries(sourcePath, entry);
+    Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.put(MAGIC).putInt(width).putInt(height).flip();
+        channel.write(header);
+        ByteBuffer row = ByteBuffer.allocate(width);
+        for (int[][] plane : new int[][][]{image.getRedChannel(), image.getGreenChannel(),
+                image.getBlueChannel()}) {
+          for (int y = 0; y < height; y++) {
+            row.clear();
+            for (int x = 0; x < width; x++) {
+              row.put((byte) plane[y][x]);
+            }
+            row.flip();
+            while (row.hasRemaining()) {
+              channel.write(row);
+            }
+          }
+        }
+      }
+      try {
+        Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private static int[][] readPlane(MappedByteBuffer buffer, byte[] row, int height) {
+    int[][] plane = new int[height][row.length];
+    for (int y = 0; y < height; y++) {
+      buffer.get(row);
+      int[] values = plane[y];
+      for (int x = 0; x < row.length; x++) {
+        values[x] = row[x] & 0xFF;
+      }
+    }
+    return plane;
+  }
+
+  /**
+   * Returns the entry path for the current state of a source file. The name starts with a hash of
+   * the path, followed by the modification time and size.
+   *
+   * @param sourcePath the path of the source image file.
+   * @return the entry path.
+   * @throws IOException if the source file cannot be examined.
+   */
+  private Path entryFor(String sourcePath) throws IOException {
+    Path source = Path.of(sourcePath).toAbsolutePath().normalize();
+    return directory.resolve(pathHash(sourcePath) + "-"
+            + Long.toHexString(Files.getLastModifiedTime(source).toMillis()) + "-"
+            + Long.toHexString(Files.size(source)) + ".raw");
+  }
+
+  private void removeStaleEntries(String sourcePath, Path current) throws IOException {
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory,
+            pathHash(sourcePath) + "-*.raw")) {
+      for (Path entry : entries) {
+        if (!entry.equals(current)) {
+          Files.deleteIfExists(entry);
+        }
+      }
+    }
+  }
+
+  private static String pathHash(String sourcePath) {
+    String path = Path.of(sourcePath).toAbsolutePath().normalize().toString();
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+              .digest(path.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        hex.append(String.format("%02x", digest[i]));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+}
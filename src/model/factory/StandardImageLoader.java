@@ -4,9 +4,15 @@ import model.BufferedImageConverter;
 import model.Image;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 
 /**
  * Loads images in standard formats (PNG, JPG, JPEG) using ImageIO.
@@ -26,4 +32,37 @@ public class StandardImageLoader implements ImageLoader {
     }
     return bufferedImageConverter.toCustomImage(bufferedImage);
   }
+
+  /**
+   * Loads an image with options by asking the decoder for just the requested region and, when a
+   * maximum size is set, for every n-th pixel of every n-th row, with n the largest step that
+   * still leaves at least the target size. The full-resolution image is never materialized; the
+   * subsampled result is then scaled down to the exact target size.
+   */
+  @Override
+  public Image load(String filePath, LoadOptions options) throws IOException {
+    if (options.isDefault()) {
+      return load(filePath);
+    }
+    try (ImageInputStream input = ImageIO.createImageInputStream(new File(filePath))) {
+      Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+      if (readers == null || !readers.hasNext()) {
+        throw new IOException("Unsupported image format.");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        Rectangle region = options.regionWithin(reader.getWidth(0), reader.getHeight(0));
+        Dimension size = options.fit(region.width, region.height);
+        int step = Math.max(1, Math.min(region.width / size.width, region.height / size.height));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(region);
+        param.setSourceSubsampling(step, step, 0, 0);
+        Image image = bufferedImageConverter.toCustomImage(reader.read(0, param));
+        return LoadOptions.resize(image, size);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
 }
@@ -0,0 +1,142 @@
+package model.histogram;
+
+/**
+ * The red, green, blue and luma histograms of an image: for each channel, how many pixels have
+ * each value from 0 to 255.
+ * <p>
+ * A histogram computed from a sample of the pixels has its counts scaled up to the size of the
+ * whole image, so it can be used in place of the exact one where an estimate is enough.
+ * </p>
+ * <p>
+ * A histogram derived through {@link #map(int[])} has no luma counts, because the luma of a pixel
+ * depends on all three channels together.
+ * </p>
+ */
+public final class Histogram {
+
+  /**
+   * The number of bins of each channel.
+   */
+  public static final int BINS = 256;
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+  private final int[] luma;
+  private final long pixels;
+  private final boolean sampled;
+
+  Histogram(int[] red, int[] green, int[] blue, int[] luma, long pixels, boolean sampled) {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+    this.luma = luma;
+    this.pixels = pixels;
+    this.sampled = sampled;
+  }
+
+  /**
+   * Returns the counts of the red channel.
+   *
+   * @return a copy of the 256 red bins.
+   */
+  public int[] getRed() {
+    return red.clone();
+  }
+
+  /**
+   * Returns the counts of the green channel.
+   *
+   * @return a copy of the 256 green bins.
+   */
+  public int[] getGreen() {
+    return green.clone();
+  }
+
+  /**
+   * Returns the counts of the blue channel.
+   *
+   * @return a copy of the 256 blue bins.
+   */
+  public int[] getBlue() {
+    return blue.clone();
+  }
+
+  /**
+   * Returns the counts of the Rec. 709 luma of each pixel.
+   *
+   * @return a copy of the 256 luma bins.
+   * @throws IllegalStateException if the histogram was derived and has no luma counts.
+   */
+  public int[] getLuma() {
+    if (luma == null) {
+      throw new IllegalStateException("A derived histogram has no luma counts.");
+    }
+    return luma.clone();
+  }
+
+  /**
+   * Returns whether the luma counts are known.
+   *
+   * @return false if the histogram was derived through {@link #map(int[])}.
+   */
+  public boolean hasLuma() {
+    return luma != null;
+  }
+
+  /**
+   * Returns the histogram of the image produced by passing every red, green and blue value of
+   * this histogram's image through a lookup table, without looking at any pixel.
+   *
+   * @param table the new value of each value from 0 to 255.
+   * @return the histogram of the result, without luma counts.
+   * @throws IllegalArgumentException if the table does not have 256 entries from 0 to 255.
+   */
+  public Histogram map(int[] table) {
+    if (table.length != BINS) {
+      throw new IllegalArgumentException("A lookup table needs " + BINS + " entries.");
+    }
+    for (int value : table) {
+      if (value < 0 || value >= BINS) {
+        throw new IllegalArgumentException("Lookup table entries must lie within 0-255.");
+      }
+    }
+    return new Histogram(map(red, table), map(green, table), map(blue, table), null, pixels,
+            sampled);
+  }
+
+  /**
+   * Returns the red, green and blue counts in the layout used by the histogram operations.
+   *
+   * @return copies of the red, green and blue bins, in that order.
+   */
+  public int[][] getRgb() {
+    return new int[][]{getRed(), getGreen(), getBlue()};
+  }
+
+  /**
+   * Returns the number of pixels of the image the histogram describes.
+   *
+   * @return the pixel count of the whole image, even if only a sample was counted.
+   */
+  public long getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Returns whether the counts are estimated from a sample of the pixels.
+   *
+   * @return true if only some pixels were counted.
+   */
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  private static int[] map(int[] bins, int[] table) {
+    int[] mapped = new int[BINS];
+    for (int value = 0; value < BINS; value++) {
+      mapped[table[value]] += bins[value];
+    }
+    return mapped;
+  }
+}
@@ -0,0 +1,87 @@
+package model.histogram;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the red, green and blue histograms of an image as line graphs over a light grid. The
+ * {@code histogram} command renders to a 256x256 image and the GUI draws straight into its
+ * histogram panel at whatever size the panel has.
+ */
+public final class HistogramRenderer {
+
+  /**
+   * The size of the images produced by {@link #render(int[][])}.
+   */
+  public static final int SIZE = 256;
+
+  private static final Color[] CHANNEL_COLORS = {Color.RED, Color.GREEN, Color.BLUE};
+
+  private HistogramRenderer() {
+  }
+
+  /**
+   * Renders histograms into a new 256x256 image, one pixel column per value.
+   *
+   * @param histograms the red, green and blue histograms, in that order.
+   * @return the rendered image.
+   */
+  public static BufferedImage render(int[][] histograms) {
+    BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      draw(g, histograms, SIZE, SIZE);
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * Draws histograms into an area of the given size whose top left corner is the origin of the
+   * graphics context. Each channel is scaled so that its most common value reaches the top.
+   *
+   * @param g          the graphics context to draw into.
+   * @param histograms the red, green and blue histograms, in that order.
+   * @param width      the width of the area.
+   * @param height     the height of the area.
+   */
+  public static void draw(Graphics2D g, int[][] histograms, int width, int height) {
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, width, height);
+
+    g.setColor(Color.LIGHT_GRAY);
+    for (int i = 0; i <= Histogram.BINS; i += Histogram.BINS / 4) {
+      int x = i * width / Histogram.BINS;
+      int y = height - i * height / Histogram.BINS;
+      g.drawLine(x, 0, x, height);
+      g.drawLine(0, y, width, y);
+    }
+
+    for (int channel = 0; channel < histograms.length; channel++) {
+      drawLineGraph(g, histograms[channel], CHANNEL_COLORS[channel], width, height);
+    }
+  }
+
+  private static void drawLineGraph(Graphics2D g, int[] histogram, Color color, int width,
+                                    int height) {
+    g.setColor(color);
+    int max = 0;
+    for (int count : histogram) {
+      max = Math.max(max, count);
+    }
+
+    int previousX = 0;
+    int previousY = height;
+    for (int value = 0; value < histogram.length; value++) {
+      int x = value * width / Histogram.BINS;
+      int y = height - (int) (((double) histogram[value] / max) * height);
+      if (value > 0) {
+        g.drawLine(previousX, previousY, x, y);
+      }
+      previousX = x;
+      previousY = y;
+    }
+  }
+}
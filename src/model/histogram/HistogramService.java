@@ -0,0 +1,113 @@
+package model.histogram;
+
+import java.util.stream.IntStream;
+
+import model.ColorMatrix;
+import model.Image;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * Computes {@link Histogram}s, the one place every histogram of the application is counted.
+ * <p>
+ * Large images are split into bands of rows that are counted in parallel. Each worker counts
+ * into its own partial histogram, so no bin is ever shared between threads, and the partial
+ * histograms are added together at the end. Small images are counted on the calling thread.
+ * </p>
+ */
+public final class HistogramService {
+  private static final int PARALLEL_THRESHOLD = 1 << 16;
+  private static final int BAND_PIXELS = 1 << 15;
+
+  private HistogramService() {
+  }
+
+  /**
+   * Counts every pixel of an image.
+   *
+   * @param image the image.
+   * @return its exact histogram.
+   */
+  public static Histogram compute(Image image) {
+    return count(image, 1);
+  }
+
+  /**
+   * Counts about the given number of pixels of an image, spread evenly over it, and scales the
+   * counts up to the size of the image. Images with no more pixels than that are counted in full.
+   *
+   * @param image      the image.
+   * @param maxSamples the largest number of pixels to count.
+   * @return the estimated histogram.
+   * @throws IllegalArgumentException if maxSamples is not positive.
+   */
+  public static Histogram sample(Image image, int maxSamples) {
+    if (maxSamples <= 0) {
+      throw new IllegalArgumentException("The number of samples must be positive.");
+    }
+    long pixels = (long) image.getWidth() * image.getHeight();
+    int step = (int) Math.ceil(Math.sqrt((double) pixels / maxSamples));
+    return count(image, Math.max(1, step));
+  }
+
+  private static Histogram count(Image image, int step) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int rows = (height + step - 1) / step;
+    int columns = (width + step - 1) / step;
+    int bandRows = Math.max(1, BAND_PIXELS / Math.max(1, columns));
+    int bands = (rows + bandRows - 1) / bandRows;
+
+    IntStream stream = IntStream.range(0, bands);
+    if ((long) rows * columns >= PARALLEL_THRESHOLD) {
+      stream = stream.parallel();
+    }
+    int[][] totals = stream.collect(() -> new int[4][Histogram.BINS],
+        (partial, band) -> {
+          int end = Math.min(rows, (band + 1) * bandRows);
+          for (int row = band * bandRows; row < end; row++) {
+            countRow(image, row * step, step, partial);
+          }
+        },
+        HistogramService::merge);
+
+    long pixels = (long) width * height;
+    boolean sampled = step > 1;
+    if (sampled) {
+      double scale = (double) pixels / ((long) rows * columns);
+      for (int[] bins : totals) {
+        for (int i = 0; i < bins.length; i++) {
+          bins[i] = (int) Math.round(bins[i] * scale);
+        }
+      }
+    }
+    return new Histogram(totals[0], totals[1], totals[2], totals[3], pixels, sampled);
+  }
+
+  private static void countRow(Image image, int y, int step, int[][] partial) {
+    int[] red = image.getRedChannel()[y];
+    int[] green = image.getGreenChannel()[y];
+    int[] blue = image.getBlueChannel()[y];
+    int[] redBins = partial[0];
+    int[] greenBins = partial[1];
+    int[] blueBins = partial[2];
+    int[] lumaBins = partial[3];
+    for (int x = 0; x < red.length; x += step) {
+      int r = clamp(red[x]);
+      int g = clamp(green[x]);
+      int b = clamp(blue[x]);
+      redBins[r]++;
+      greenBins[g]++;
+      blueBins[b]++;
+      lumaBins[ColorMatrix.LUMA.red(r, g, b)]++;
+    }
+  }
+
+  private static void merge(int[][] into, int[][] from) {
+    for (int channel = 0; channel < into.length; channel++) {
+      for (int i = 0; i < Histogram.BINS; i++) {
+        into[channel][i] += from[channel][i];
+      }
+    }
+  }
+}
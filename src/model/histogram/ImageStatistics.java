@@ -0,0 +1,132 @@
+package model.histogram;
+
+/**
+ * Summary statistics of an image: its histogram and, for each of the red, green and blue
+ * channels, the smallest and largest value, the mean and the most common value. Everything but
+ * the histogram is derived from the histogram in constant time.
+ * <p>
+ * Images compute their statistics once, on first use, and keep them (see
+ * {@link model.Image#getStatistics()}).
+ * </p>
+ */
+public final class ImageStatistics {
+
+  /**
+   * Index of the red channel.
+   */
+  public static final int RED = 0;
+
+  /**
+   * Index of the green channel.
+   */
+  public static final int GREEN = 1;
+
+  /**
+   * Index of the blue channel.
+   */
+  public static final int BLUE = 2;
+
+  private final Histogram histogram;
+  private final int[] min = new int[3];
+  private final int[] max = new int[3];
+  private final int[] peak = new int[3];
+  private final double[] mean = new double[3];
+
+  private ImageStatistics(Histogram histogram) {
+    this.histogram = histogram;
+    int[][] rgb = histogram.getRgb();
+    for (int channel = 0; channel < 3; channel++) {
+      int[] bins = rgb[channel];
+      long count = 0;
+      long sum = 0;
+      min[channel] = -1;
+      for (int value = 0; value < Histogram.BINS; value++) {
+        if (bins[value] == 0) {
+          continue;
+        }
+        if (min[channel] < 0) {
+          min[channel] = value;
+        }
+        max[channel] = value;
+        if (bins[value] > bins[peak[channel]]) {
+          peak[channel] = value;
+        }
+        count += bins[value];
+        sum += (long) bins[value] * value;
+      }
+      min[channel] = Math.max(0, min[channel]);
+      mean[channel] = count == 0 ? 0 : (double) sum / count;
+    }
+  }
+
+  /**
+   * Derives the statistics of an image from its histogram.
+   *
+   * @param histogram the histogram of the image.
+   * @return the statistics.
+   */
+  public static ImageStatistics of(Histogram histogram) {
+    return new ImageStatistics(histogram);
+  }
+
+  /**
+   * Returns the statistics of the image produced by passing every red, green and blue value
+   * through a lookup table, as brighten does, without looking at any pixel.
+   *
+   * @param table the new value of each value from 0 to 255.
+   * @return the statistics of the result.
+   * @throws IllegalArgumentException if the table does not have 256 entries from 0 to 255.
+   */
+  public ImageStatistics map(int[] table) {
+    return new ImageStatistics(histogram.map(table));
+  }
+
+  /**
+   * Returns the histogram the statistics were derived from.
+   *
+   * @return the histogram.
+   */
+  public Histogram getHistogram() {
+    return histogram;
+  }
+
+  /**
+   * Returns the smallest value of a channel.
+   *
+   * @param channel {@link #RED}, {@link #GREEN} or {@link #BLUE}.
+   * @return the smallest value, or 0 for an empty image.
+   */
+  public int getMin(int channel) {
+    return min[channel];
+  }
+
+  /**
+   * Returns the largest value of a channel.
+   *
+   * @param channel {@link #RED}, {@link #GREEN} or {@link #BLUE}.
+   * @return the largest value, or 0 for an empty image.
+   */
+  public int getMax(int channel) {
+    return max[channel];
+  }
+
+  /**
+   * Returns the mean value of a channel.
+   *
+   * @param channel {@link #RED}, {@link #GREEN} or {@link #BLUE}.
+   * @return the mean value, or 0 for an empty image.
+   */
+  public double getMean(int channel) {
+    return mean[channel];
+  }
+
+  /**
+   * Returns the most common value of a channel.
+   *
+   * @param channel {@link #RED}, {@link #GREEN} or {@link #BLUE}.
+   * @return the most common value; the smallest one if several are equally common.
+   */
+  public int getPeak(int channel) {
+    return peak[channel];
+  }
+}
@@ -0,0 +1,108 @@
+package model.kernel;
+
+import java.util.Random;
+
+/**
+ * Times every kernel of each backend on the same random image and reports the results side by
+ * side, so the backends can be compared on the machine at hand.
+ */
+public class KernelBenchmark {
+  private static final int WARMUP_ROUNDS = 10;
+
+  private final int width;
+  private final int height;
+  private final int rounds;
+  private final int[][] red;
+  private final int[][] green;
+  private final int[][] blue;
+  private final int[][] out;
+  private final int[][] outGreen;
+  private final int[][] outBlue;
+
+  /**
+   * Creates a benchmark over a random image of the given size.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param rounds the number of timed runs of each kernel.
+   * @throws IllegalArgumentException if a value is not positive.
+   */
+  public KernelBenchmark(int width, int height, int rounds) {
+    if (width <= 0 || height <= 0 || rounds <= 0) {
+      throw new IllegalArgumentException("Benchmark size and rounds must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.rounds = rounds;
+    Random random = new Random(42);
+    this.red = randomChannel(random);
+    this.green = randomChannel(random);
+    this.blue = randomChannel(random);
+    this.out = new int[height][width];
+    this.outGreen = new int[height][width];
+    this.outBlue = new int[height][width];
+  }
+
+  /**
+   * Runs the benchmark on the scalar and the vectorized backend.
+   *
+   * @return one line per kernel and backend with the average time per run and the throughput.
+   */
+  public String run() {
+    StringBuilder report = new StringBuilder(String.format("Kernel benchmark, %dx%d, %d runs%n",
+            width, height, rounds));
+    for (String kernel : new String[]{"add", "lookup", "color-matrix", "convolve"}) {
+      for (PixelKernels backend : new PixelKernels[]{PixelKernels.named("scalar"),
+              PixelKernels.named("vectorized")}) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+          runOnce(backend, kernel);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+          runOnce(backend, kernel);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / rounds;
+        report.append(String.format("%-13s %-11s %9.3f ms %9.1f Mpx/s%n", kernel,
+                backend.getName(), millis, (double) width * height / millis / 1000));
+      }
+    }
+    return report.toString();
+  }
+
+  private void runOnce(PixelKernels backend, String kernel) {
+    int[] table = new int[256];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = 255 - i;
+    }
+    int[] matrix = {25756, 50397, 12386, 0, 22872, 44958, 11010, 0, 17826, 34996, 8585, 0};
+    float[][] blur = {{0.0625f, 0.125f, 0.0625f}, {0.125f, 0.25f, 0.125f},
+        {0.0625f, 0.125f, 0.0625f}};
+    for (int y = 0; y < height; y++) {
+      switch (kernel) {
+        case "add":
+          backend.add(red[y], out[y], 40, width);
+          break;
+        case "lookup":
+          backend.lookup(red[y], out[y], table, width);
+          break;
+        case "color-matrix":
+          backend.colorMatrix(red[y], green[y], blue[y], out[y], outGreen[y], outBlue[y], matrix,
+                  width);
+          break;
+        default:
+          backend.convolveRow(red, y, blur, out[y]);
+          break;
+      }
+    }
+  }
+
+  private int[][] randomChannel(Random random) {
+    int[][] channel = new int[height][width];
+    for (int[] row : channel) {
+      for (int x = 0; x < width; x++) {
+        row[x] = random.nextInt(256);
+      }
+    }
+    return channel;
+  }
+}
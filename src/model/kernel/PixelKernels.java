@@ -0,0 +1,117 @@
+package model.kernel;
+
+/**
+ * Row-level primitives behind the point operations and convolutions of the model. Every
+ * implementation must produce exactly the same results; they differ only in how the loops are
+ * written.
+ * <p>
+ * The backend in use is chosen once, from the {@value #BACKEND_PROPERTY} system property:
+ * {@code scalar} selects {@link ScalarKernels}, the straightforward per-pixel reference, and
+ * anything else, the default, selects {@link VectorizedKernels}, whose loops are shaped so that
+ * the JIT compiler turns them into SIMD instructions.
+ * </p>
+ */
+public interface PixelKernels {
+
+  /**
+   * System property that selects the kernel backend, {@code scalar} or {@code vectorized}.
+   */
+  String BACKEND_PROPERTY = "ime.kernels";
+
+  /**
+   * Returns the backend chosen by {@value #BACKEND_PROPERTY}.
+   *
+   * @return the kernels to use.
+   */
+  static PixelKernels get() {
+    return Backends.SELECTED;
+  }
+
+  /**
+   * Returns the backend with the given name.
+   *
+   * @param name "scalar" or "vectorized".
+   * @return the kernels.
+   * @throws IllegalArgumentException if the name is unknown.
+   */
+  static PixelKernels named(String name) {
+    switch (name.toLowerCase()) {
+      case "scalar":
+        return Backends.SCALAR;
+      case "vectorized":
+        return Backends.VECTORIZED;
+      default:
+        throw new IllegalArgumentException("Unknown kernel backend: " + name);
+    }
+  }
+
+  /**
+   * Returns the name of this backend.
+   *
+   * @return the name accepted by {@link #named(String)}.
+   */
+  String getName();
+
+  /**
+   * Adds a constant to every value and clamps the results to 0-255.
+   *
+   * @param source the values to read.
+   * @param dest   the array to write; may be the source.
+   * @param amount the amount to add.
+   * @param length the number of values.
+   */
+  void add(int[] source, int[] dest, int amount, int length);
+
+  /**
+   * Replaces every value by its entry in a 256-entry table. Values outside 0-255 use the entry
+   * of the nearest end.
+   *
+   * @param source the values to read.
+   * @param dest   the array to write; may be the source.
+   * @param table  the table of 256 results.
+   * @param length the number of values.
+   */
+  void lookup(int[] source, int[] dest, int[] table, int length);
+
+  /**
+   * Applies a 3x4 color matrix in Q16 fixed point: each result is the weighted sum of the source
+   * channels plus the offset, shifted right by 16 and clamped to 0-255.
+   *
+   * @param red       the source red values.
+   * @param green     the source green values.
+   * @param blue      the source blue values.
+   * @param outRed    the array to write the red results to.
+   * @param outGreen  the array to write the green results to.
+   * @param outBlue   the array to write the blue results to.
+   * @param matrix    twelve Q16 coefficients in row-major order, each row three weights and an
+   *                  offset.
+   * @param length    the number of pixels.
+   */
+  void colorMatrix(int[] red, int[] green, int[] blue, int[] outRed, int[] outGreen,
+                   int[] outBlue, int[] matrix, int length);
+
+  /**
+   * Convolves one row of a channel with a square kernel, clamping reads at the image edges. Each
+   * result is the float sum of value times weight, accumulated in kernel row-major order, then
+   * rounded and clamped to 0-255.
+   *
+   * @param channel the whole channel, indexed by row then column.
+   * @param y       the row to compute.
+   * @param kernel  the square kernel with odd edge length.
+   * @param dest    the array to write the row to.
+   */
+  void convolveRow(int[][] channel, int y, float[][] kernel, int[] dest);
+
+  /**
+   * Holds the backend instances so that they are created once.
+   */
+  final class Backends {
+    static final PixelKernels SCALAR = new ScalarKernels();
+    static final PixelKernels VECTORIZED = new VectorizedKernels();
+    static final PixelKernels SELECTED = "scalar".equalsIgnoreCase(
+            System.getProperty(BACKEND_PROPERTY)) ? SCALAR : VECTORIZED;
+
+    private Backends() {
+    }
+  }
+}
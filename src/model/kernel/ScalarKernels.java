@@ -0,0 +1,59 @@
+package model.kernel;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * The reference kernels: one pixel at a time, written for clarity.
+ */
+public class ScalarKernels implements PixelKernels {
+
+  @Override
+  public String getName() {
+    return "scalar";
+  }
+
+  @Override
+  public void add(int[] source, int[] dest, int amount, int length) {
+    for (int i = 0; i < length; i++) {
+      dest[i] = clamp(source[i] + amount);
+    }
+  }
+
+  @Override
+  public void lookup(int[] source, int[] dest, int[] table, int length) {
+    for (int i = 0; i < length; i++) {
+      dest[i] = table[clamp(source[i])];
+    }
+  }
+
+  @Override
+  public void colorMatrix(int[] red, int[] green, int[] blue, int[] outRed, int[] outGreen,
+                          int[] outBlue, int[] matrix, int length) {
+    for (int i = 0; i < length; i++) {
+      int r = red[i];
+      int g = green[i];
+      int b = blue[i];
+      outRed[i] = clamp((matrix[0] * r + matrix[1] * g + matrix[2] * b + matrix[3]) >> 16);
+      outGreen[i] = clamp((matrix[4] * r + matrix[5] * g + matrix[6] * b + matrix[7]) >> 16);
+      outBlue[i] = clamp((matrix[8] * r + matrix[9] * g + matrix[10] * b + matrix[11]) >> 16);
+    }
+  }
+
+  @Override
+  public void convolveRow(int[][] channel, int y, float[][] kernel, int[] dest) {
+    int height = channel.length;
+    int width = channel[0].length;
+    int radius = kernel.length / 2;
+    for (int x = 0; x < width; x++) {
+      float sum = 0f;
+      for (int ky = -radius; ky <= radius; ky++) {
+        for (int kx = -radius; kx <= radius; kx++) {
+          int pixelY = Math.min(Math.max(y + ky, 0), height - 1);
+          int pixelX = Math.min(Math.max(x + kx, 0), width - 1);
+          sum += channel[pixelY][pixelX] * kernel[ky + radius][kx + radius];
+        }
+      }
+      dest[x] = clamp(Math.round(sum));
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package model.metrics;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import model.Image;
+import model.ImageModel;
+import model.factory.LoadOptions;
+import model.strategy.ImageOperation;
+
+/**
+ * An {@link ImageModel} decorator that records every image operation with a
+ * {@link PerformanceMonitor} under the name {@code model:<operation>}.
+ * <p>
+ * The pixel count of an operation is the size of its source image; loads count the pixels of
+ * the loaded image. Batch and tiled processing read their images from files and count no
+ * pixels. Queries such as {@link #getImage} and {@link #imageExists} are passed through without
+ * measuring.
+ * </p>
+ */
+public class InstrumentedImageModel implements ImageModel {
+  private final ImageModel delegate;
+  private final PerformanceMonitor monitor;
+
+  /**
+   * Constructs a decorator that records the operations of the given model.
+   *
+   * @param delegate the model that performs the operations.
+   * @param monitor  the monitor to record the operations with.
+   */
+  public InstrumentedImageModel(ImageModel delegate, PerformanceMonitor monitor) {
+    this.delegate = delegate;
+    this.monitor = monitor;
+  }
+
+  @Override
+  public void load(String filePath, String imageName) throws IOException {
+    monitor.measureOperation("model:load", () -> pixels(imageName), () -> {
+      delegate.load(filePath, imageName);
+      return null;
+    });
+  }
+
+  @Override
+  public void load(String filePath, String imageName, LoadOptions options) throws IOException {
+    monitor.measureOperation("model:load", () -> pixels(imageName), () -> {
+      delegate.load(filePath, imageName, options);
+      return null;
+    });
+  }
+
+  @Override
+  public void save(String filePath, String imageName) throws IOException {
+    // Saving a processed image removes it, so its size has to be taken beforehand.
+    long count = pixels(imageName);
+    monitor.measureOperation("model:save", () -> count, () -> {
+      delegate.save(filePath, imageName);
+      return null;
+    });
+  }
+
+  @Override
+  public void visualizeChannel(String channel, String imageName, String destImageName) {
+    measure("model:" + channel + "-component", imageName,
+            () -> delegate.visualizeChannel(channel, imageName, destImageName));
+  }
+
+  @Override
+  public void visualizeChannel(String channel, String imageName, String maskImageName,
+                               String destImageName) {
+    measure("model:" + channel + "-component", imageName,
+            () -> delegate.visualizeChannel(channel, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void visualizeComponent(String component, String imageName, String destImageName) {
+    measure("model:" + component + "-component", imageName,
+            () -> delegate.visualizeComponent(component, imageName, destImageName));
+  }
+
+  @Override
+  public void visualizeComponent(String component, String imageName, String maskImageName,
+                                 String destImageName) {
+    measure("model:" + component + "-component", imageName,
+            () -> delegate.visualizeComponent(component, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void flip(String direction, String imageName, String destImageName) {
+    measure("model:" + direction + "-flip", imageName,
+            () -> delegate.flip(direction, imageName, destImageName));
+  }
+
+  @Override
+  public void brighten(int amount, String imageName, String destImageName) {
+    measure("model:brighten", imageName,
+            () -> delegate.brighten(amount, imageName, destImageName));
+  }
+
+  @Override
+  public void blur(String imageName, String destImageName) {
+    measure("model:blur", imageName, () -> delegate.blur(imageName, destImageName));
+  }
+
+  @Override
+  public void blur(String imageName, String maskImageName, String destImageName) {
+    measure("model:blur", imageName,
+            () -> delegate.blur(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void sharpen(String imageName, String destImageName) {
+    measure("model:sharpen", imageName, () -> delegate.sharpen(imageName, destImageName));
+  }
+
+  @Override
+  public void sharpen(String imageName, String maskImageName, String destImageName) {
+    measure("model:sharpen", imageName,
+            () -> delegate.sharpen(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void convertToSepia(String imageName, String destImageName) {
+    measure("model:sepia", imageName, () -> delegate.convertToSepia(imageName, destImageName));
+  }
+
+  @Override
+  public void convertToSepia(String imageName, String maskImageName, String destImageName) {
+    measure("model:sepia", imageName,
+            () -> delegate.convertToSepia(imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void rgbSplit(String imageName, String redImageName, String greenImageName,
+                       String blueImageName) {
+    measure("model:rgb-split", imageName,
+            () -> delegate.rgbSplit(imageName, redImageName, greenImageName, blueImageName));
+  }
+
+  @Override
+  public void rgbCombine(String destImageName, String redImageName, String greenImageName,
+                         String blueImageName) {
+    measure("model:rgb-combine", redImageName,
+            () -> delegate.rgbCombine(destImageName, redImageName, greenImageName, blueImageName));
+  }
+
+  @Override
+  public void convertToGreyscale(String component, String imageName, String destImageName) {
+    measure("model:greyscale", imageName,
+            () -> delegate.convertToGreyscale(component, imageName, destImageName));
+  }
+
+  @Override
+  public void convertToGreyscale(String component, String imageName, String maskImageName,
+                                 String destImageName) {
+    measure("model:greyscale", imageName,
+            () -> delegate.convertToGreyscale(component, imageName, maskImageName, destImageName));
+  }
+
+  @Override
+  public void histogram(String imageName, String destImageName) {
+    measure("model:histogram", imageName, () -> delegate.histogram(imageName, destImageName));
+  }
+
+  @Override
+  public void colorCorrect(String imageName, String destImageName) {
+    measure("model:color-correct", imageName,
+            () -> delegate.colorCorrect(imageName, destImageName));
+  }
+
+  @Override
+  public void levelsAdjust(int black, int mid, int white, String imageName,
+                           String destImageName) {
+    measure("model:levels-adjust", imageName,
+            () -> delegate.levelsAdjust(black, mid, white, imageName, destImageName));
+  }
+
+  @Override
+  public void splitOperation(String operation, String imageName, String destImageName,
+                             Integer splitPercentage, Map<String, Object> additionalParams) {
+    measure("model:split-" + operation, imageName,
+            () -> delegate.splitOperation(operation, imageName, destImageName, splitPercentage,
+                    additionalParams));
+  }
+
+  @Override
+  public void compress(double percent, String imageName, String destImageName) {
+    measure("model:compress", imageName,
+            () -> delegate.compress(percent, imageName, destImageName));
+  }
+
+  @Override
+  public boolean isProcessedImage(String imageName) {
+    return delegate.isProcessedImage(imageName);
+  }
+
+  @Override
+  public void saveProcessedImage(String filePath, BufferedImage processedImage) {
+    long count = (long) processedImage.getWidth() * processedImage.getHeight();
+    monitor.measureOperation("model:save", () -> count, () -> {
+      delegate.saveProcessedImage(filePath, processedImage);
+      return null;
+    });
+  }
+
+  @Override
+  public void downscaleImage(int newWidth, int newHeight, String imageName,
+                             String destImageName) {
+    measure("model:downscale", imageName,
+            () -> delegate.downscaleImage(newWidth, newHeight, imageName, destImageName));
+  }
+
+  @Override
+  public void cropImage(int x, int y, int width, int height, String imageName,
+                        String destImageName) {
+    measure("model:crop", imageName,
+            () -> delegate.cropImage(x, y, width, height, imageName, destImageName));
+  }
+
+  @Override
+  public void applyOperation(ImageOperation operation, String imageName,
+                             String destImageName) {
+    measure("model:" + operation.getName(), imageName,
+            () -> delegate.applyOperation(operation, imageName, destImageName));
+  }
+
+  @Override
+  public List<String> batchProcess(String operation, List<String> inputPaths,
+                                   String outputDirectory) {
+    return monitor.measureOperation("model:batch-" + operation, () -> 0,
+            () -> delegate.batchProcess(operation, inputPaths, outputDirectory));
+  }
+
+  @Override
+  public void tiledProcess(String operation, List<String> arguments, String inputPath,
+                           String outputPath) {
+    monitor.measureOperation("model:tiled-" + operation, () -> 0, () -> {
+      delegate.tiledProcess(operation, arguments, inputPath, outputPath);
+      return null;
+    });
+  }
+
+  @Override
+  public void putImage(String imageName, Image image) {
+    delegate.putImage(imageName, image);
+  }
+
+  @Override
+  public void removeImage(String imageName) {
+    delegate.removeImage(imageName);
+  }
+
+  @Override
+  public boolean imageExists(String imageName) {
+    return delegate.imageExists(imageName);
+  }
+
+  @Override
+  public Image getImage(String imageName) {
+    return delegate.getImage(imageName);
+  }
+
+  @Override
+  public BufferedImage getProcessedImage(String imageName) {
+    return delegate.getProcessedImage(imageName);
+  }
+
+  private void measure(String name, String sourceImageName, Runnable operation) {
+    long count = pixels(sourceImageName);
+    monitor.measureOperation(name, () -> count, () -> {
+      operation.run();
+      return null;
+    });
+  }
+
+  /**
+   * Returns the number of pixels in the named image or processed image.
+   *
+   * @param imageName the name of the image.
+   * @return the pixel count, or 0 if no such image exists.
+   */
+  private long pixels(String imageName) {
+    try {
+      if (delegate.imageExists(imageName)) {
+        Image image = delegate.getImage(imageName);
+        return (long) image.getWidth() * image.getHeight();
+      }
+      if (delegate.isProcessedImage(imageName)) {
+        BufferedImage image = delegate.getProcessedImage(imageName);
+        return (long) image.getWidth() * image.getHeight();
+      }
+    } catch (IllegalArgumentException e) {
+      // The image was removed concurrently; count nothing.
+    }
+    return 0;
+  }
+}
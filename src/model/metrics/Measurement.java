@@ -0,0 +1,78 @@
+package model.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A running measurement of wall time, CPU time and allocated bytes on the current thread.
+ * <p>
+ * CPU time and allocation come from the platform {@link ThreadMXBean}. Allocation tracking uses
+ * the {@code com.sun.management} extension, which HotSpot-based JDKs provide. On a JVM without
+ * it, allocated bytes are reported as zero.
+ * </p>
+ */
+public final class Measurement {
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+          THREADS instanceof com.sun.management.ThreadMXBean
+                  ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+  private final long startWall;
+  private final long startCpu;
+  private final long startAllocated;
+
+  private Measurement() {
+    this.startWall = System.nanoTime();
+    this.startCpu = cpuTime();
+    this.startAllocated = currentAllocatedBytes();
+  }
+
+  /**
+   * Starts a new measurement on the calling thread.
+   *
+   * @return the started measurement.
+   */
+  public static Measurement start() {
+    return new Measurement();
+  }
+
+  /**
+   * Returns the wall time since the measurement started.
+   *
+   * @return the elapsed wall time in nanoseconds.
+   */
+  public long wallNanos() {
+    return System.nanoTime() - startWall;
+  }
+
+  /**
+   * Returns the CPU time used by the calling thread since the measurement started. Must be called
+   * on the thread that started the measurement.
+   *
+   * @return the CPU time in nanoseconds, or 0 if CPU time is not supported.
+   */
+  public long cpuNanos() {
+    return Math.max(0, cpuTime() - startCpu);
+  }
+
+  /**
+   * Returns the bytes allocated by the calling thread since the measurement started. Must be
+   * called on the thread that started the measurement.
+   *
+   * @return the allocated bytes, or 0 if allocation tracking is not supported.
+   */
+  public long allocatedBytes() {
+    return Math.max(0, currentAllocatedBytes() - startAllocated);
+  }
+
+  private static long cpuTime() {
+    return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+  }
+
+  private static long currentAllocatedBytes() {
+    if (ALLOCATIONS == null || !ALLOCATIONS.isThreadAllocatedMemorySupported()) {
+      return 0;
+    }
+    return ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
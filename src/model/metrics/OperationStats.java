@@ -0,0 +1,75 @@
+package model.metrics;
+
+/**
+ * Accumulated performance figures for one named operation or command.
+ * All methods are thread-safe.
+ */
+public class OperationStats {
+  private final String name;
+  private long count;
+  private long wallNanos;
+  private long cpuNanos;
+  private long allocatedBytes;
+  private long pixels;
+
+  /**
+   * Constructs empty statistics for the given operation name.
+   *
+   * @param name the name of the operation.
+   */
+  public OperationStats(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Adds one invocation to the statistics.
+   *
+   * @param wall       the wall time of the invocation in nanoseconds.
+   * @param cpu        the CPU time of the invocation in nanoseconds.
+   * @param allocated  the bytes allocated during the invocation.
+   * @param pixelCount the number of pixels processed by the invocation.
+   */
+  public synchronized void add(long wall, long cpu, long allocated, long pixelCount) {
+    count++;
+    wallNanos += wall;
+    cpuNanos += cpu;
+    allocatedBytes += allocated;
+    pixels += pixelCount;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getWallNanos() {
+    return wallNanos;
+  }
+
+  public synchronized long getCpuNanos() {
+    return cpuNanos;
+  }
+
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public synchronized long getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Returns the throughput in megapixels per second of wall time.
+   *
+   * @return the throughput, or 0 if no time or no pixels were recorded.
+   */
+  public synchronized double getMegapixelsPerSecond() {
+    if (wallNanos == 0) {
+      return 0;
+    }
+    return (pixels / 1e6) / (wallNanos / 1e9);
+  }
+}
@@ -0,0 +1,195 @@
+package model.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects wall time, CPU time, allocated bytes and pixel throughput per named operation.
+ * <p>
+ * Model operations are recorded with {@link #measureOperation}, which also adds their pixel
+ * count to a per-thread tally. Commands are recorded with {@link #measureCommand}, which credits
+ * a command with the pixels of every operation it ran on the same thread, so a command and the
+ * operations inside it can both report throughput without double counting.
+ * </p>
+ */
+public class PerformanceMonitor implements PerformanceMonitorMXBean {
+
+  /**
+   * A unit of work whose cost is measured.
+   *
+   * @param <T> the type of the result.
+   * @param <E> the type of checked exception the work may throw.
+   */
+  public interface Task<T, E extends Exception> {
+
+    /**
+     * Runs the work.
+     *
+     * @return the result of the work.
+     * @throws E if the work fails.
+     */
+    T run() throws E;
+  }
+
+  private final Map<String, OperationStats> stats;
+  private final ThreadLocal<long[]> pixelsOnThread;
+
+  /**
+   * Constructs a monitor with no recorded statistics.
+   */
+  public PerformanceMonitor() {
+    this.stats = new ConcurrentSkipListMap<>();
+    this.pixelsOnThread = ThreadLocal.withInitial(() -> new long[1]);
+  }
+
+  /**
+   * Runs and records one model operation.
+   *
+   * @param name   the name to record the operation under.
+   * @param pixels the number of pixels the operation processed, evaluated after it completes.
+   * @param task   the operation to run.
+   * @param <T>    the type of the result.
+   * @param <E>    the type of checked exception the operation may throw.
+   * @return the result of the operation.
+   * @throws E if the operation fails; failed operations are not recorded.
+   */
+  public <T, E extends Exception> T measureOperation(String name, LongSupplier pixels,
+                                                     Task<T, E> task) throws E {
+    Measurement measurement = Measurement.start();
+    T result = task.run();
+    long count = pixels.getAsLong();
+    pixelsOnThread.get()[0] += count;
+    record(name, measurement, count);
+    return result;
+  }
+
+  /**
+   * Runs and records one command, crediting it with the pixels of the operations it ran.
+   *
+   * @param name the name to record the command under.
+   * @param task the command to run.
+   * @param <T>  the type of the result.
+   * @param <E>  the type of checked exception the command may throw.
+   * @return the result of the command.
+   * @throws E if the command fails; failed commands are still recorded.
+   */
+  public <T, E extends Exception> T measureCommand(String name, Task<T, E> task) throws E {
+    long[] tally = pixelsOnThread.get();
+    long before = tally[0];
+    Measurement measurement = Measurement.start();
+    try {
+      return task.run();
+    } finally {
+      record(name, measurement, tally[0] - before);
+    }
+  }
+
+  private void record(String name, Measurement measurement, long pixels) {
+    long wall = measurement.wallNanos();
+    long cpu = measurement.cpuNanos();
+    long allocated = measurement.allocatedBytes();
+    stats.computeIfAbsent(name, OperationStats::new).add(wall, cpu, allocated, pixels);
+  }
+
+  /**
+   * Returns the statistics of every recorded operation, sorted by name.
+   *
+   * @return a snapshot list of the statistics.
+   */
+  public List<OperationStats> getStats() {
+    return new ArrayList<>(stats.values());
+  }
+
+  @Override
+  public String[] getOperationNames() {
+    return stats.keySet().toArray(new String[0]);
+  }
+
+  @Override
+  public String getSummary() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format("%-28s %6s %12s %12s %14s %10s", "operation", "count",
+            "wall ms", "cpu ms", "allocated KB", "MP/s"));
+    for (OperationStats entry : stats.values()) {
+      builder.append(System.lineSeparator());
+      builder.append(String.format("%-28s %6d %12.3f %12.3f %14d %10.2f", entry.getName(),
+              entry.getCount(), entry.getWallNanos() / 1e6, entry.getCpuNanos() / 1e6,
+              entry.getAllocatedBytes() / 1024, entry.getMegapixelsPerSecond()));
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String getJson() {
+    StringBuilder builder = new StringBuilder("{\n  \"operations\": [");
+    String separator = "\n";
+    for (OperationStats entry : stats.values()) {
+      builder.append(separator);
+      builder.append("    {\"name\": \"").append(escape(entry.getName())).append('"');
+      builder.append(", \"count\": ").append(entry.getCount());
+      builder.append(", \"wallNanos\": ").append(entry.getWallNanos());
+      builder.append(", \"cpuNanos\": ").append(entry.getCpuNanos());
+      builder.append(", \"allocatedBytes\": ").append(entry.getAllocatedBytes());
+      builder.append(", \"pixels\": ").append(entry.getPixels());
+      builder.append(", \"megapixelsPerSecond\": ")
+              .append(String.format(Locale.ROOT, "%.3f",
+                      entry.getMegapixelsPerSecond()));
+      builder.append('}');
+      separator = ",\n";
+    }
+    builder.append("\n  ]\n}\n");
+    return builder.toString();
+  }
+
+  /**
+   * Writes the statistics as JSON to a file, replacing any existing content.
+   *
+   * @param path the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public void writeJson(Path path) throws IOException {
+    Files.write(path, getJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void reset() {
+    stats.clear();
+  }
+
+  /**
+   * Registers this monitor with the platform MBean server.
+   *
+   * @param name the value of the {@code name} key in the object name.
+   * @return the object name the monitor was registered under.
+   * @throws IllegalStateException if the monitor cannot be registered.
+   */
+  public ObjectName registerMBean(String name) {
+    try {
+      ObjectName objectName = new ObjectName("model.metrics:type=PerformanceMonitor,name="
+              + ObjectName.quote(name));
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Unable to register performance monitor: "
+              + e.getMessage(), e);
+    }
+  }
+
+  private static String escape(String text) {
+    return text.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -0,0 +1,34 @@
+package model.metrics;
+
+/**
+ * JMX management interface of a {@link PerformanceMonitor}, so statistics can be inspected
+ * with tools such as JConsole or VisualVM while the application runs.
+ */
+public interface PerformanceMonitorMXBean {
+
+  /**
+   * Returns the names of all operations that have statistics.
+   *
+   * @return the operation names in sorted order.
+   */
+  String[] getOperationNames();
+
+  /**
+   * Returns the statistics as a human-readable table.
+   *
+   * @return the formatted table.
+   */
+  String getSummary();
+
+  /**
+   * Returns the statistics as a JSON document.
+   *
+   * @return the JSON text.
+   */
+  String getJson();
+
+  /**
+   * Discards all recorded statistics.
+   */
+  void reset();
+}
@@ -0,0 +1,228 @@
+package model.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Image;
+import model.ImageIOHandler;
+import model.strategy.ImageOperation;
+
+/**
+ * A three-stage batch pipeline that overlaps decoding, processing and encoding of image files.
+ *
+ * <p>
+ * Reader tasks decode input files and hand them to the processing stage through a bounded queue.
+ * The processing stage runs on the calling thread and applies an {@link ImageOperation}, then
+ * hands the result to writer tasks through a second bounded queue. While image N is being
+ * processed, image N+1 can already be decoded and image N-1 can still be encoding. The bounded
+ * queues limit how many decoded images are held in memory at once.
+ * </p>
+ *
+ * <p>
+ * The reader and writer tasks run on the executor returned by {@link IoThreads#newExecutor}, so
+ * they use virtual threads when the JDK supports them.
+ * </p>
+ */
+public class ImagePipeline {
+  private static final Stage POISON = new Stage(-1, null, null);
+
+  private final ImageIOHandler ioHandler;
+  private final int queueCapacity;
+  private final int ioParallelism;
+
+  /**
+   * Constructs a pipeline with a queue capacity of four images and two reader and writer tasks.
+   *
+   * @param ioHandler the handler used to decode and encode image files.
+   */
+  public ImagePipeline(ImageIOHandler ioHandler) {
+    this(ioHandler, 4, 2);
+  }
+
+  /**
+   * Constructs a pipeline with the given queue capacity and I/O parallelism.
+   *
+   * @param ioHandler     the handler used to decode and encode image files.
+   * @param queueCapacity the maximum number of images waiting between two stages.
+   * @param ioParallelism the number of concurrent reader tasks and writer tasks.
+   * @throws IllegalArgumentException if the capacity or parallelism is less than one.
+   */
+  public ImagePipeline(ImageIOHandler ioHandler, int queueCapacity, int ioParallelism) {
+    if (queueCapacity < 1 || ioParallelism < 1) {
+      throw new IllegalArgumentException("Queue capacity and I/O parallelism must be positive.");
+    }
+    this.ioHandler = ioHandler;
+    this.queueCapacity = queueCapacity;
+    this.ioParallelism = ioParallelism;
+  }
+
+  /**
+   * Loads every input file, applies the operation and saves each result to the matching output
+   * path.
+   *
+   * <p>
+   * A failure on one image does not stop the others. If any image fails, an exception is thrown
+   * after the whole batch has finished.
+   * </p>
+   *
+   * @param inputPaths  the paths of the images to load.
+   * @param outputPaths the paths to save the results to, in the same order as the inputs.
+   * @param operation   the operation applied to every image.
+   * @return the output paths that were written, in input order.
+   * @throws IllegalArgumentException if the lists differ in size or any image fails.
+   */
+  public List<String> run(List<String> inputPaths, List<String> outputPaths,
+                          ImageOperation operation) {
+    if (inputPaths.size() != outputPaths.size()) {
+      throw new IllegalArgumentException("Each input path needs exactly one output path.");
+    }
+
+    int total = inputPaths.size();
+    BlockingQueue<Stage> decoded = new ArrayBlockingQueue<>(queueCapacity);
+    BlockingQueue<Stage> processed = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicInteger nextInput = new AtomicInteger();
+    String[] written = new String[total];
+    List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+
+    ExecutorService io = IoThreads.newExecutor("image-pipeline-io");
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int i = 0; i < ioParallelism; i++) {
+        io.submit(() -> readStage(inputPaths, outputPaths, nextInput, decoded));
+        writers.add(io.submit(() -> writeStage(processed, written, failures)));
+      }
+
+      processStage(total, decoded, processed, operation);
+
+      for (int i = 0; i < ioParallelism; i++) {
+        processed.put(POISON);
+      }
+      for (Future<?> writer : writers) {
+        writer.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Batch processing was interrupted.", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Batch writer failed: " + e.getCause().getMessage(),
+              e.getCause());
+    } finally {
+      io.shutdownNow();
+    }
+
+    if (!failures.isEmpty()) {
+      Exception first = failures.get(0);
+      throw new IllegalArgumentException("Batch failed for " + failures.size() + " of " + total
+              + " images: " + first.getMessage(), first);
+    }
+    return Arrays.asList(written);
+  }
+
+  /**
+   * Decodes inputs until none are left, placing each one on the decoded queue.
+   *
+   * @param inputPaths  the paths of the images to load.
+   * @param outputPaths the output paths carried along with each image.
+   * @param nextInput   the shared index of the next input to decode.
+   * @param decoded     the queue feeding the processing stage.
+   */
+  private void readStage(List<String> inputPaths, List<String> outputPaths,
+                         AtomicInteger nextInput, BlockingQueue<Stage> decoded) {
+    int index;
+    try {
+      while ((index = nextInput.getAndIncrement()) < inputPaths.size()) {
+        Stage stage = new Stage(index, inputPaths.get(index), outputPaths.get(index));
+        try {
+          stage.image = ioHandler.loadImage(stage.inputPath);
+        } catch (IOException | RuntimeException e) {
+          stage.error = new IllegalArgumentException("Failed to load " + stage.inputPath
+                  + ": " + e.getMessage(), e);
+        }
+        decoded.put(stage);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Applies the operation to every decoded image and passes the results to the writers.
+   *
+   * @param total     the number of images expected from the readers.
+   * @param decoded   the queue filled by the readers.
+   * @param processed the queue drained by the writers.
+   * @param operation the operation to apply.
+   * @throws InterruptedException if the calling thread is interrupted while waiting.
+   */
+  private void processStage(int total, BlockingQueue<Stage> decoded,
+                            BlockingQueue<Stage> processed, ImageOperation operation)
+          throws InterruptedException {
+    for (int i = 0; i < total; i++) {
+      Stage stage = decoded.take();
+      if (stage.error == null) {
+        try {
+          stage.image = operation.apply(stage.image);
+        } catch (RuntimeException e) {
+          stage.error = new IllegalArgumentException("Failed to process " + stage.inputPath
+                  + ": " + e.getMessage(), e);
+        }
+      }
+      processed.put(stage);
+    }
+  }
+
+  /**
+   * Encodes processed images until a poison marker is received.
+   *
+   * @param processed the queue filled by the processing stage.
+   * @param written   the output paths written so far, indexed by input position.
+   * @param failures  the errors collected across all stages.
+   */
+  private void writeStage(BlockingQueue<Stage> processed, String[] written,
+                          List<Exception> failures) {
+    try {
+      Stage stage;
+      while ((stage = processed.take()) != POISON) {
+        if (stage.error != null) {
+          failures.add(stage.error);
+          continue;
+        }
+        try {
+          ioHandler.saveImage(stage.outputPath, stage.image);
+          written[stage.index] = stage.outputPath;
+        } catch (IOException | RuntimeException e) {
+          failures.add(new IllegalArgumentException("Failed to save " + stage.outputPath
+                  + ": " + e.getMessage(), e));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A single image moving through the pipeline together with any error it encountered.
+   */
+  private static final class Stage {
+    private final int index;
+    private final String inputPath;
+    private final String outputPath;
+    private Image image;
+    private Exception error;
+
+    private Stage(int index, String inputPath, String outputPath) {
+      this.index = index;
+      this.inputPath = inputPath;
+      this.outputPath = outputPath;
+    }
+  }
+}
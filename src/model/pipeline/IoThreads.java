@@ -0,0 +1,55 @@
+package model.pipeline;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for blocking I/O work such as decoding and encoding image files.
+ *
+ * <p>
+ * On a JDK that provides virtual threads the executor starts one virtual thread per task, so
+ * blocked reads and writes do not tie up platform threads. The project still targets Java 11,
+ * so the virtual-thread factory is looked up reflectively and a cached pool of daemon platform
+ * threads is used when it is not available.
+ * </p>
+ */
+public final class IoThreads {
+
+  private IoThreads() {
+  }
+
+  /**
+   * Returns a new executor suited to blocking I/O tasks.
+   *
+   * @param name the prefix used for the names of platform threads in the fallback pool.
+   * @return a virtual-thread-per-task executor if supported, otherwise a cached thread pool.
+   */
+  public static ExecutorService newExecutor(String name) {
+    ExecutorService virtual = newVirtualThreadExecutor();
+    if (virtual != null) {
+      return virtual;
+    }
+    return Executors.newCachedThreadPool(daemonThreadFactory(name));
+  }
+
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  private static ThreadFactory daemonThreadFactory(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
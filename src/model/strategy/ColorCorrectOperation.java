@@ -11,28 +11,13 @@ public class ColorCorrectOperation implements ImageOperation {
 
   @Override
   public Image apply(Image image) {
-    int[][] histograms = calculateHistograms(image);
+    int[][] histograms = image.getStatistics().getHistogram().getRgb();
     int[] peaks = findPeaks(histograms);
     int averagePeak = (peaks[0] + peaks[1] + peaks[2]) / 3;
 
     return adjustImageColors(image, peaks, averagePeak);
   }
 
-  private int[][] calculateHistograms(Image image) {
-    int[] redHist = new int[256];
-    int[] greenHist = new int[256];
-    int[] blueHist = new int[256];
-
-    for (int i = 0; i < image.getHeight(); i++) {
-      for (int j = 0; j < image.getWidth(); j++) {
-        redHist[image.getRedChannel()[i][j]]++;
-        greenHist[image.getGreenChannel()[i][j]]++;
-        blueHist[image.getBlueChannel()[i][j]]++;
-      }
-    }
-    return new int[][]{redHist, greenHist, blueHist};
-  }
-
   private int[] findPeaks(int[][] histograms) {
     return new int[]{findPeak(histograms[0]), findPeak(histograms[1]), findPeak(histograms[2])};
   }
@@ -15,4 +15,16 @@ public interface ImageOperation {
    * @return a new {@link Image} with the operation applied.
    */
   Image apply(Image image);
+
+  /**
+   * Returns the name the operation is reported under, for example in performance statistics.
+   * By default the class name without an {@code Operation} suffix, in lower case with words
+   * separated by hyphens.
+   *
+   * @return the name of the operation.
+   */
+  default String getName() {
+    return getClass().getSimpleName().replaceFirst("Operation$", "")
+            .replaceAll("([a-z])([A-Z])", "$1-$2").toLowerCase();
+  }
 }
@@ -0,0 +1,294 @@
+package model.tiled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.Image;
+
+/**
+ * An image stored out of core in a file of fixed-size square tiles.
+ * <p>
+ * Each tile occupies {@code tileSize * tileSize * 3} bytes of the file, in row-major tile order,
+ * holding interleaved 8-bit red, green and blue samples. Edge tiles are padded to the full tile
+ * size so that every tile starts at a fixed offset. Tiles are memory-mapped on demand and a small
+ * least-recently-used cache keeps the most recent mappings, so only a few tiles are resident at
+ * any time no matter how large the image is. Pixels are exchanged as packed {@code 0xRRGGBB}
+ * integers.
+ * </p>
+ * <p>
+ * Tiles of a file given to {@link #create} are forced to the file when they leave the cache and
+ * when the image is closed. Java has no way to unmap a buffer: an evicted mapping stays valid,
+ * possibly still in use by another thread's transfer, until the garbage collector releases it.
+ * Until then the mapped pages still count against the address space, and on Windows the backing
+ * file cannot be deleted; a temporary file that cannot be deleted on close is therefore deleted
+ * when the JVM exits instead.
+ * </p>
+ */
+public class TiledImage implements Closeable {
+  /**
+   * The tile edge length used when none is given.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  /**
+   * The number of tile mappings kept by default.
+   */
+  public static final int DEFAULT_CACHE_TILES = 64;
+
+  private final Path file;
+  private final boolean temporary;
+  private final FileChannel channel;
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final int tilesAcross;
+  private final int tilesDown;
+  private final long tileBytes;
+  private final Map<Integer, MappedByteBuffer> cache;
+
+  private TiledImage(Path file, boolean temporary, int width, int height, int tileSize,
+                     int cacheTiles) throws IOException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Image dimensions must be positive.");
+    }
+    if (tileSize <= 0 || cacheTiles <= 0) {
+      throw new IllegalArgumentException("Tile size and cache size must be positive.");
+    }
+    this.file = file;
+    this.temporary = temporary;
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    this.tilesAcross = (width + tileSize - 1) / tileSize;
+    this.tilesDown = (height + tileSize - 1) / tileSize;
+    this.tileBytes = (long) tileSize * tileSize * 3;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    channel.truncate(0);
+    // Extend the file to its final size; the unwritten region reads back as black.
+    channel.write(ByteBuffer.allocate(1), tileBytes * tilesAcross * tilesDown - 1);
+    this.cache = new LinkedHashMap<Integer, MappedByteBuffer>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, MappedByteBuffer> eldest) {
+        if (size() <= cacheTiles) {
+          return false;
+        }
+        if (!temporary) {
+          eldest.getValue().force();
+        }
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Creates a black tiled image backed by the given file, replacing its contents.
+   *
+   * @param file     the file that stores the tiles.
+   * @param width    the width of the image in pixels.
+   * @param height   the height of the image in pixels.
+   * @param tileSize the edge length of a tile in pixels.
+   * @return the created image.
+   * @throws IOException if the file cannot be created.
+   */
+  public static TiledImage create(Path file, int width, int height, int tileSize)
+          throws IOException {
+    return new TiledImage(file, false, width, height, tileSize, DEFAULT_CACHE_TILES);
+  }
+
+  /**
+   * Creates a black tiled image backed by a temporary file that is deleted when the image is
+   * closed.
+   *
+   * @param width    the width of the image in pixels.
+   * @param height   the height of the image in pixels.
+   * @param tileSize the edge length of a tile in pixels.
+   * @return the created image.
+   * @throws IOException if the temporary file cannot be created.
+   */
+  public static TiledImage createTemporary(int width, int height, int tileSize)
+          throws IOException {
+    Path file = Files.createTempFile("tiled-image", ".tiles");
+    return new TiledImage(file, true, width, height, tileSize, DEFAULT_CACHE_TILES);
+  }
+
+  /**
+   * Copies an in-memory image into a temporary tiled image.
+   *
+   * @param image    the image to copy.
+   * @param tileSize the edge length of a tile in pixels.
+   * @return the tiled copy.
+   * @throws IOException if the temporary file cannot be written.
+   */
+  public static TiledImage fromImage(Image image, int tileSize) throws IOException {
+    TiledImage tiled = createTemporary(image.getWidth(), image.getHeight(), tileSize);
+    int[] row = new int[image.getWidth()];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = (image.getRedChannel()[y][x] << 16) | (image.getGreenChannel()[y][x] << 8)
+                | image.getBlueChannel()[y][x];
+      }
+      tiled.writeRegion(0, y, row.length, 1, row);
+    }
+    return tiled;
+  }
+
+  /**
+   * Copies this image into memory. Only suitable for images that fit in the heap.
+   *
+   * @return the in-memory copy.
+   */
+  public Image toImage() {
+    int[][] red = new int[height][width];
+    int[][] green = new int[height][width];
+    int[][] blue = new int[height][width];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      readRegion(0, y, width, 1, row);
+      for (int x = 0; x < width; x++) {
+        red[y][x] = (row[x] >> 16) & 0xFF;
+        green[y][x] = (row[x] >> 8) & 0xFF;
+        blue[y][x] = row[x] & 0xFF;
+      }
+    }
+    return new Image(width, height, red, green, blue);
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  public int getTilesAcross() {
+    return tilesAcross;
+  }
+
+  public int getTilesDown() {
+    return tilesDown;
+  }
+
+  /**
+   * Reads a rectangle of pixels into a packed {@code 0xRRGGBB} array in row-major order.
+   *
+   * @param x      the left edge of the rectangle.
+   * @param y      the top edge of the rectangle.
+   * @param w      the width of the rectangle.
+   * @param h      the height of the rectangle.
+   * @param pixels the array to fill; must hold at least {@code w * h} entries.
+   */
+  public void readRegion(int x, int y, int w, int h, int[] pixels) {
+    transfer(x, y, w, h, pixels, false);
+  }
+
+  /**
+   * Writes a rectangle of pixels from a packed {@code 0xRRGGBB} array in row-major order.
+   *
+   * @param x      the left edge of the rectangle.
+   * @param y      the top edge of the rectangle.
+   * @param w      the width of the rectangle.
+   * @param h      the height of the rectangle.
+   * @param pixels the pixels to write; must hold at least {@code w * h} entries.
+   */
+  public void writeRegion(int x, int y, int w, int h, int[] pixels) {
+    transfer(x, y, w, h, pixels, true);
+  }
+
+  private void transfer(int x, int y, int w, int h, int[] pixels, boolean write) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > width || y + h > height) {
+      throw new IllegalArgumentException("Region " + x + "," + y + " " + w + "x" + h
+              + " lies outside the " + width + "x" + height + " image.");
+    }
+    for (int ty = y / tileSize; ty * tileSize < y + h; ty++) {
+      int top = Math.max(y, ty * tileSize);
+      int bottom = Math.min(y + h, (ty + 1) * tileSize);
+      for (int tx = x / tileSize; tx * tileSize < x + w; tx++) {
+        int left = Math.max(x, tx * tileSize);
+        int right = Math.min(x + w, (tx + 1) * tileSize);
+        MappedByteBuffer tile = tile(tx, ty);
+        for (int py = top; py < bottom; py++) {
+          int offset = ((py - ty * tileSize) * tileSize + (left - tx * tileSize)) * 3;
+          int index = (py - y) * w + (left - x);
+          for (int px = left; px < right; px++, offset += 3, index++) {
+            if (write) {
+              int rgb = pixels[index];
+              tile.put(offset, (byte) (rgb >> 16));
+              tile.put(offset + 1, (byte) (rgb >> 8));
+              tile.put(offset + 2, (byte) rgb);
+            } else {
+              pixels[index] = ((tile.get(offset) & 0xFF) << 16)
+                      | ((tile.get(offset + 1) & 0xFF) << 8) | (tile.get(offset + 2) & 0xFF);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the mapping of one tile, mapping it if it is not cached.
+   *
+   * @param tx the tile column.
+   * @param ty the tile row.
+   * @return the mapped tile bytes.
+   */
+  private MappedByteBuffer tile(int tx, int ty) {
+    int index = ty * tilesAcross + tx;
+    synchronized (cache) {
+      MappedByteBuffer tile = cache.get(index);
+      if (tile == null) {
+        try {
+          tile = channel.map(FileChannel.MapMode.READ_WRITE, index * tileBytes, tileBytes);
+        } catch (IOException e) {
+          throw new IllegalStateException("Unable to map tile " + tx + "," + ty + " of "
+                  + file + ": " + e.getMessage(), e);
+        }
+        cache.put(index, tile);
+      }
+      return tile;
+    }
+  }
+
+  /**
+   * Releases the tile mappings and closes the backing file, deleting it if it is temporary.
+   * The tiles of a file that is kept are forced to the file first. A temporary file that is
+   * still mapped cannot be deleted on some platforms; it is deleted when the JVM exits.
+   *
+   * @throws IOException if the file cannot be closed or deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (cache) {
+      if (!temporary) {
+        for (MappedByteBuffer tile : cache.values()) {
+          tile.force();
+        }
+      }
+      cache.clear();
+    }
+    channel.close();
+    if (temporary) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (FileSystemException e) {
+        // Windows refuses to delete a file while the collector has not released its mappings.
+        file.toFile().deleteOnExit();
+      }
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package model.tiled;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+import javax.imageio.ImageIO;
+
+import model.PngReader;
+import model.PngWriter;
+
+/**
+ * Reads image files into {@link TiledImage}s and writes them back, one strip of tile rows at a
+ * time so that the whole image never has to be held in the heap.
+ * <p>
+ * PPM files are parsed as a stream and PNG files are decoded row by row through a
+ * {@link PngReader}. JPG files, and PNG variants the streaming reader does not handle, are
+ * decoded by {@code ImageIO} in a single pass, which needs heap for one decoded copy of the
+ * image while it is copied into tiles. PPM and PNG output are streamed, the latter through a
+ * {@link PngWriter}; JPG output is encoded from a packed in-heap copy, so very large images
+ * should be written as PPM or PNG.
+ * </p>
+ */
+public final class TiledImageIO {
+
+  private TiledImageIO() {
+  }
+
+  /**
+   * Reads an image file into a temporary tiled image.
+   *
+   * @param filePath the path of a PPM, PNG or JPG file.
+   * @param tileSize the edge length of a tile in pixels.
+   * @return the tiled image; the caller must close it.
+   * @throws IOException if the file cannot be read.
+   */
+  public static TiledImage read(String filePath, int tileSize) throws IOException {
+    String lowerPath = filePath.toLowerCase();
+    if (lowerPath.endsWith(".ppm")) {
+      return readPPM(filePath, tileSize);
+    } else if (lowerPath.endsWith(".png")) {
+      return readPNG(filePath, tileSize);
+    } else if (lowerPath.endsWith(".jpg") || lowerPath.endsWith(".jpeg")) {
+      return readStandard(filePath, tileSize);
+    }
+    throw new UnsupportedOperationException("Only PPM, PNG, JPG, JPEG formats are supported.");
+  }
+
+  /**
+   * Writes a tiled image to a file in the format given by the file extension.
+   *
+   * @param image    the image to write.
+   * @param filePath the path of the PPM, PNG or JPG file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(TiledImage image, String filePath) throws IOException {
+    String lowerPath = filePath.toLowerCase();
+    if (lowerPath.endsWith(".ppm")) {
+      writePPM(image, filePath);
+      return;
+    }
+    if (lowerPath.endsWith(".png")) {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath))) {
+        new PngWriter().write(image.getWidth(), image.getHeight(),
+                (y, rows, pixels) -> image.readRegion(0, y, image.getWidth(), rows, pixels), out);
+      }
+      return;
+    }
+    if (!lowerPath.endsWith(".jpg") && !lowerPath.endsWith(".jpeg")) {
+      throw new UnsupportedOperationException("Only PPM, PNG and JPG formats are supported.");
+    }
+    int width = image.getWidth();
+    BufferedImage buffered = new BufferedImage(width, image.getHeight(),
+            BufferedImage.TYPE_INT_RGB);
+    int[] strip = new int[width * image.getTileSize()];
+    for (int top = 0; top < image.getHeight(); top += image.getTileSize()) {
+      int rows = Math.min(image.getTileSize(), image.getHeight() - top);
+      image.readRegion(0, top, width, rows, strip);
+      buffered.setRGB(0, top, width, rows, strip, 0, width);
+    }
+    ImageIO.write(buffered, "jpg", new File(filePath));
+  }
+
+  /**
+   * Reads a PNG file with the row-streaming {@link PngReader}, falling back to a single-pass
+   * {@code ImageIO} decode for PNG variants it does not handle.
+   */
+  private static TiledImage readPNG(String filePath, int tileSize) throws IOException {
+    try (InputStream input = new BufferedInputStream(new FileInputStream(filePath))) {
+      PngReader reader = new PngReader(input);
+      if (!reader.isSupported()) {
+        return readStandard(filePath, tileSize);
+      }
+      int width = reader.getWidth();
+      int height = reader.getHeight();
+      TiledImage image = TiledImage.createTemporary(width, height, tileSize);
+      try {
+        int[] strip = new int[width * tileSize];
+        for (int top = 0; top < height; top += tileSize) {
+          int rows = Math.min(tileSize, height - top);
+          reader.readRows(rows, strip);
+          image.writeRegion(0, top, width, rows, strip);
+        }
+      } catch (IOException | RuntimeException e) {
+        image.close();
+        throw e;
+      }
+      return image;
+    }
+  }
+
+  /**
+   * Decodes an image file with {@code ImageIO} in one pass and copies it into tiles. The PNG and
+   * JPEG readers cannot seek, so reading the file region by region would decode it again from
+   * the top for every region; the decoded image is held in the heap until it has been copied.
+   */
+  private static TiledImage readStandard(String filePath, int tileSize) throws IOException {
+    BufferedImage decoded = ImageIO.read(new File(filePath));
+    if (decoded == null) {
+      throw new IOException("Unsupported image format.");
+    }
+    int width = decoded.getWidth();
+    int height = decoded.getHeight();
+    TiledImage image = TiledImage.createTemporary(width, height, tileSize);
+    try {
+      int[] strip = new int[width * tileSize];
+      for (int top = 0; top < height; top += tileSize) {
+        int rows = Math.min(tileSize, height - top);
+        decoded.getRGB(0, top, width, rows, strip, 0, width);
+        for (int i = 0; i < width * rows; i++) {
+          strip[i] &= 0xFFFFFF;
+        }
+        image.writeRegion(0, top, width, rows, strip);
+      }
+    } catch (RuntimeException e) {
+      image.close();
+      throw e;
+    }
+    return image;
+  }
+
+  private static TiledImage readPPM(String filePath, int tileSize) throws IOException {
+    try (InputStream input = new BufferedInputStream(new FileInputStream(filePath))) {
+      PpmTokens tokens = new PpmTokens(input);
+      if (!"P3".equals(tokens.next())) {
+        throw new IllegalArgumentException("PPM file must start with P3");
+      }
+      int width = Integer.parseInt(tokens.next());
+      int height = Integer.parseInt(tokens.next());
+      tokens.next(); // Skip max color value (assume it's 255)
+
+      TiledImage image = TiledImage.createTemporary(width, height, tileSize);
+      try {
+        int[] strip = new int[width * tileSize];
+        for (int top = 0; top < height; top += tileSize) {
+          int rows = Math.min(tileSize, height - top);
+          for (int i = 0; i < width * rows; i++) {
+            strip[i] = (tokens.nextInt() << 16) | (tokens.nextInt() << 8) | tokens.nextInt();
+          }
+          image.writeRegion(0, top, width, rows, strip);
+        }
+      } catch (IOException | RuntimeException e) {
+        image.close();
+        throw e;
+      }
+      return image;
+    }
+  }
+
+  private static void writePPM(TiledImage image, String filePath) throws IOException {
+    int width = image.getWidth();
+    try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filePath)))) {
+      writer.println("P3");
+      writer.println(width + " " + image.getHeight());
+      writer.println(255);
+      int[] strip = new int[width * image.getTileSize()];
+      for (int top = 0; top < image.getHeight(); top += image.getTileSize()) {
+        int rows = Math.min(image.getTileSize(), image.getHeight() - top);
+        image.readRegion(0, top, width, rows, strip);
+        for (int row = 0; row < rows; row++) {
+          for (int col = 0; col < width; col++) {
+            int rgb = strip[row * width + col];
+            writer.print(((rgb >> 16) & 0xFF) + " ");
+            writer.print(((rgb >> 8) & 0xFF) + " ");
+            writer.print((rgb & 0xFF) + " ");
+          }
+          writer.println();
+        }
+      }
+      if (writer.checkError()) {
+        throw new IOException("Error writing PPM file: " + filePath);
+      }
+    }
+  }
+
+  /**
+   * Splits a plain PPM stream into whitespace-separated tokens, skipping comments.
+   */
+  private static final class PpmTokens {
+    private final InputStream input;
+    private final StringBuilder token;
+
+    PpmTokens(InputStream input) {
+      this.input = input;
+      this.token = new StringBuilder();
+    }
+
+    String next() throws IOException {
+      token.setLength(0);
+      int c = input.read();
+      while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+        if (c == '#') {
+          while (c != -1 && c != '\n') {
+            c = input.read();
+          }
+        }
+        c = input.read();
+      }
+      while (c != -1 && !Character.isWhitespace(c)) {
+        token.append((char) c);
+        c = input.read();
+      }
+      if (token.length() == 0) {
+        throw new IOException("Unexpected end of PPM data.");
+      }
+      return token.toString();
+    }
+
+    int nextInt() throws IOException {
+      int value = 0;
+      int c = input.read();
+      while (c != -1 && Character.isWhitespace(c)) {
+        c = input.read();
+      }
+      if (c < '0' || c > '9') {
+        throw new IOException("Invalid or truncated PPM pixel data.");
+      }
+      while (c >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        c = input.read();
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package model.tiled;
+
+import java.io.IOException;
+import java.util.List;
+
+import model.strategy.BlurOperation;
+import model.strategy.SharpenOperation;
+
+/**
+ * Applies a named operation to an image file through a {@link TiledImage}, for images too large
+ * to load into the model. The operation names and arguments follow the script commands.
+ */
+public class TiledImageProcessor {
+  private final int tileSize;
+
+  /**
+   * Constructs a processor that uses tiles of the given size.
+   *
+   * @param tileSize the edge length of a tile in pixels.
+   */
+  public TiledImageProcessor(int tileSize) {
+    if (tileSize <= 0) {
+      throw new IllegalArgumentException("Tile size must be positive.");
+    }
+    this.tileSize = tileSize;
+  }
+
+  /**
+   * Reads an image file, applies an operation and writes the result to another file.
+   *
+   * @param operation  the operation: "brighten", "blur", "sharpen", "sepia", "flip",
+   *                   "greyscale", "downscale" or a "-component" visualization.
+   * @param arguments  the operation arguments, e.g. the amount for "brighten", the direction for
+   *                   "flip", the component for "greyscale" or the width and height for
+   *                   "downscale".
+   * @param inputPath  the image file to read.
+   * @param outputPath the image file to write.
+   * @throws IOException if a file cannot be read or written.
+   * @throws IllegalArgumentException if the operation or its arguments are invalid.
+   */
+  public void process(String operation, List<String> arguments, String inputPath,
+                      String outputPath) throws IOException {
+    try (TiledImage source = TiledImageIO.read(inputPath, tileSize)) {
+      TiledImage result = apply(operation.toLowerCase(), arguments, source);
+      try {
+        TiledImageIO.write(result, outputPath);
+      } finally {
+        if (result != source) {
+          result.close();
+        }
+      }
+    }
+  }
+
+  private TiledImage apply(String operation, List<String> arguments, TiledImage source)
+          throws IOException {
+    switch (operation) {
+      case "brighten":
+        TiledOperations.map(source, source,
+                TiledOperations.brighten(Integer.parseInt(argument(arguments, 0, operation))));
+        return source;
+      case "sepia":
+        TiledOperations.map(source, source, TiledOperations.sepia());
+        return source;
+      case "greyscale":
+        TiledOperations.map(source, source,
+                TiledOperations.component(argument(arguments, 0, operation)));
+        return source;
+      case "red-component":
+      case "green-component":
+      case "blue-component":
+      case "value-component":
+      case "intensity-component":
+      case "luma-component":
+        TiledOperations.map(source, source,
+                TiledOperations.component(operation.substring(0, operation.indexOf('-'))));
+        return source;
+      case "blur":
+        return convolve(source, BlurOperation.getKernel());
+      case "sharpen":
+        return convolve(source, SharpenOperation.getKernel());
+      case "flip":
+        TiledImage flipped = TiledImage.createTemporary(source.getWidth(), source.getHeight(),
+                tileSize);
+        try {
+          TiledOperations.flip(argument(arguments, 0, operation), source, flipped);
+        } catch (RuntimeException e) {
+          flipped.close();
+          throw e;
+        }
+        return flipped;
+      case "downscale":
+        return TiledOperations.downscale(source,
+                Integer.parseInt(argument(arguments, 0, operation)),
+                Integer.parseInt(argument(arguments, 1, operation)));
+      default:
+        throw new IllegalArgumentException("Unsupported tiled operation: " + operation);
+    }
+  }
+
+  private TiledImage convolve(TiledImage source, float[][] kernel) throws IOException {
+    TiledImage dest = TiledImage.createTemporary(source.getWidth(), source.getHeight(),
+            tileSize);
+    try {
+      TiledOperations.convolve(source, dest, kernel);
+    } catch (RuntimeException e) {
+      dest.close();
+      throw e;
+    }
+    return dest;
+  }
+
+  private static String argument(List<String> arguments, int index, String operation) {
+    if (arguments.size() <= index) {
+      throw new IllegalArgumentException("Missing argument for tiled operation: " + operation);
+    }
+    return arguments.get(index);
+  }
+}
@@ -0,0 +1,282 @@
+package model.tiled;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import model.ColorMath;
+
+import static model.ImageUtils.clamp;
+
+/**
+ * Tile-aware versions of the image operations for {@link TiledImage}s.
+ * <p>
+ * Every operation walks the destination tile by tile and reads only the source pixels that the
+ * tile depends on, so memory use is bounded by a few tiles regardless of the image size. Tiles are
+ * processed in parallel. The results match the corresponding {@code ImageModelImpl} operations
+ * pixel for pixel.
+ * </p>
+ */
+public final class TiledOperations {
+
+  /**
+   * A function from one packed {@code 0xRRGGBB} pixel to another.
+   */
+  public interface PixelMapper {
+
+    /**
+     * Maps one pixel.
+     *
+     * @param rgb the packed source pixel.
+     * @return the packed result pixel.
+     */
+    int apply(int rgb);
+  }
+
+  private TiledOperations() {
+  }
+
+  /**
+   * Returns a mapper that adds a constant to every channel.
+   *
+   * @param amount the amount to add; negative values darken.
+   * @return the mapper.
+   */
+  public static PixelMapper brighten(int amount) {
+    return rgb -> pack(clamp(((rgb >> 16) & 0xFF) + amount), clamp(((rgb >> 8) & 0xFF) + amount),
+            clamp((rgb & 0xFF) + amount));
+  }
+
+  /**
+   * Returns a mapper that applies the sepia tone.
+   *
+   * @return the mapper.
+   */
+  public static PixelMapper sepia() {
+    return rgb -> {
+      int r = (rgb >> 16) & 0xFF;
+      int g = (rgb >> 8) & 0xFF;
+      int b = rgb & 0xFF;
+      return pack(ColorMath.sepiaRed(r, g, b), ColorMath.sepiaGreen(r, g, b),
+              ColorMath.sepiaBlue(r, g, b));
+    };
+  }
+
+  /**
+   * Returns a mapper that visualizes one channel or greyscale component.
+   *
+   * @param component one of "red", "green", "blue", "value", "intensity" or "luma".
+   * @return the mapper.
+   * @throws IllegalArgumentException if the component is unknown.
+   */
+  public static PixelMapper component(String component) {
+    switch (component.toLowerCase()) {
+      case "red":
+        return rgb -> rgb & 0xFF0000;
+      case "green":
+        return rgb -> rgb & 0x00FF00;
+      case "blue":
+        return rgb -> rgb & 0x0000FF;
+      case "value":
+        return rgb -> grey(Math.max((rgb >> 16) & 0xFF, Math.max((rgb >> 8) & 0xFF, rgb & 0xFF)));
+      case "intensity":
+        return rgb -> grey((((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3);
+      case "luma":
+        return rgb -> grey(ColorMath.luma((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF));
+      default:
+        throw new IllegalArgumentException("Unknown component or channel: " + component);
+    }
+  }
+
+  /**
+   * Applies a per-pixel function to every pixel of the source.
+   *
+   * @param source the source image.
+   * @param dest   the destination image, of the same size; may be the source itself.
+   * @param mapper the function to apply.
+   */
+  public static void map(TiledImage source, TiledImage dest, PixelMapper mapper) {
+    requireSameSize(source, dest);
+    forEachTile(dest, (x, y, w, h) -> {
+      int[] pixels = new int[w * h];
+      source.readRegion(x, y, w, h, pixels);
+      for (int i = 0; i < pixels.length; i++) {
+        pixels[i] = mapper.apply(pixels[i]);
+      }
+      dest.writeRegion(x, y, w, h, pixels);
+    });
+  }
+
+  /**
+   * Convolves the source with a square kernel, clamping reads at the image edges. Each tile reads
+   * a halo of the kernel radius around itself from the neighbouring tiles.
+   *
+   * @param source the source image.
+   * @param dest   a different destination image of the same size.
+   * @param kernel the square kernel with odd edge length.
+   */
+  public static void convolve(TiledImage source, TiledImage dest, float[][] kernel) {
+    requireSameSize(source, dest);
+    if (source == dest) {
+      throw new IllegalArgumentException("Convolution needs a separate destination image.");
+    }
+    int radius = kernel.length / 2;
+    int width = source.getWidth();
+    int height = source.getHeight();
+    forEachTile(dest, (x, y, w, h) -> {
+      int haloLeft = Math.max(0, x - radius);
+      int haloTop = Math.max(0, y - radius);
+      int haloWidth = Math.min(width, x + w + radius) - haloLeft;
+      int haloHeight = Math.min(height, y + h + radius) - haloTop;
+      int[] halo = new int[haloWidth * haloHeight];
+      source.readRegion(haloLeft, haloTop, haloWidth, haloHeight, halo);
+
+      int[] pixels = new int[w * h];
+      for (int py = y; py < y + h; py++) {
+        for (int px = x; px < x + w; px++) {
+          float red = 0f;
+          float green = 0f;
+          float blue = 0f;
+          for (int ky = -radius; ky <= radius; ky++) {
+            int row = (Math.min(Math.max(py + ky, 0), height - 1) - haloTop) * haloWidth;
+            for (int kx = -radius; kx <= radius; kx++) {
+              int rgb = halo[row + Math.min(Math.max(px + kx, 0), width - 1) - haloLeft];
+              float weight = kernel[ky + radius][kx + radius];
+              red += ((rgb >> 16) & 0xFF) * weight;
+              green += ((rgb >> 8) & 0xFF) * weight;
+              blue += (rgb & 0xFF) * weight;
+            }
+          }
+          pixels[(py - y) * w + (px - x)] = pack(clamp(Math.round(red)),
+                  clamp(Math.round(green)), clamp(Math.round(blue)));
+        }
+      }
+      dest.writeRegion(x, y, w, h, pixels);
+    });
+  }
+
+  /**
+   * Mirrors the source horizontally or vertically.
+   *
+   * @param direction "horizontal" or "vertical".
+   * @param source    the source image.
+   * @param dest      a different destination image of the same size.
+   * @throws IllegalArgumentException if the direction is invalid.
+   */
+  public static void flip(String direction, TiledImage source, TiledImage dest) {
+    requireSameSize(source, dest);
+    boolean horizontal = direction.equalsIgnoreCase("horizontal");
+    if (!horizontal && !direction.equalsIgnoreCase("vertical")) {
+      throw new IllegalArgumentException("Invalid flip direction: " + direction);
+    }
+    if (source == dest) {
+      throw new IllegalArgumentException("Flipping needs a separate destination image.");
+    }
+    forEachTile(dest, (x, y, w, h) -> {
+      int[] mirrored = new int[w * h];
+      if (horizontal) {
+        source.readRegion(source.getWidth() - x - w, y, w, h, mirrored);
+      } else {
+        source.readRegion(x, source.getHeight() - y - h, w, h, mirrored);
+      }
+      int[] pixels = new int[w * h];
+      for (int row = 0; row < h; row++) {
+        for (int col = 0; col < w; col++) {
+          pixels[row * w + col] = horizontal ? mirrored[row * w + (w - 1 - col)]
+                  : mirrored[(h - 1 - row) * w + col];
+        }
+      }
+      dest.writeRegion(x, y, w, h, pixels);
+    });
+  }
+
+  /**
+   * Downscales the source with bilinear interpolation into a new temporary tiled image.
+   *
+   * @param source    the source image.
+   * @param newWidth  the width of the result, at most the source width.
+   * @param newHeight the height of the result, at most the source height.
+   * @return the downscaled image; the caller must close it.
+   * @throws IOException if the result cannot be created.
+   */
+  public static TiledImage downscale(TiledImage source, int newWidth, int newHeight)
+          throws IOException {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    if (newWidth <= 0 || newHeight <= 0 || newWidth > width || newHeight > height) {
+      throw new IllegalArgumentException("Invalid dimensions for downscaling.");
+    }
+    double xScale = (double) width / newWidth;
+    double yScale = (double) height / newHeight;
+    TiledImage dest = TiledImage.createTemporary(newWidth, newHeight, source.getTileSize());
+    forEachTile(dest, (x, y, w, h) -> {
+      int left = (int) Math.floor(x * xScale);
+      int top = (int) Math.floor(y * yScale);
+      int right = Math.min((int) Math.floor((x + w - 1) * xScale) + 1, width - 1);
+      int bottom = Math.min((int) Math.floor((y + h - 1) * yScale) + 1, height - 1);
+      int regionWidth = right - left + 1;
+      int[] region = new int[regionWidth * (bottom - top + 1)];
+      source.readRegion(left, top, regionWidth, bottom - top + 1, region);
+
+      int[] pixels = new int[w * h];
+      for (int py = y; py < y + h; py++) {
+        double originalY = py * yScale;
+        int y1 = (int) Math.floor(originalY);
+        int y2 = Math.min(y1 + 1, height - 1);
+        double yFraction = originalY - y1;
+        for (int px = x; px < x + w; px++) {
+          double originalX = px * xScale;
+          int x1 = (int) Math.floor(originalX);
+          int x2 = Math.min(x1 + 1, width - 1);
+          double xFraction = originalX - x1;
+          int topLeft = region[(y1 - top) * regionWidth + x1 - left];
+          int topRight = region[(y1 - top) * regionWidth + x2 - left];
+          int bottomLeft = region[(y2 - top) * regionWidth + x1 - left];
+          int bottomRight = region[(y2 - top) * regionWidth + x2 - left];
+          int rgb = 0;
+          for (int shift = 16; shift >= 0; shift -= 8) {
+            int topValue = (int) ((1 - xFraction) * ((topLeft >> shift) & 0xFF)
+                    + xFraction * ((topRight >> shift) & 0xFF));
+            int bottomValue = (int) ((1 - xFraction) * ((bottomLeft >> shift) & 0xFF)
+                    + xFraction * ((bottomRight >> shift) & 0xFF));
+            rgb |= ((int) ((1 - yFraction) * topValue + yFraction * bottomValue)) << shift;
+          }
+          pixels[(py - y) * w + (px - x)] = rgb;
+        }
+      }
+      dest.writeRegion(x, y, w, h, pixels);
+    });
+    return dest;
+  }
+
+  /**
+   * Work done for one tile-sized rectangle of the destination.
+   */
+  private interface TileTask {
+    void run(int x, int y, int w, int h);
+  }
+
+  private static void forEachTile(TiledImage image, TileTask task) {
+    int tileSize = image.getTileSize();
+    int across = image.getTilesAcross();
+    IntStream.range(0, across * image.getTilesDown()).parallel().forEach(index -> {
+      int x = (index % across) * tileSize;
+      int y = (index / across) * tileSize;
+      task.run(x, y, Math.min(tileSize, image.getWidth() - x),
+              Math.min(tileSize, image.getHeight() - y));
+    });
+  }
+
+  private static void requireSameSize(TiledImage source, TiledImage dest) {
+    if (source.getWidth() != dest.getWidth() || source.getHeight() != dest.getHeight()) {
+      throw new IllegalArgumentException("Source and destination sizes differ.");
+    }
+  }
+
+  private static int grey(int value) {
+    return pack(value, value, value);
+  }
+
+  private static int pack(int r, int g, int b) {
+    return (r << 16) | (g << 8) | b;
+  }
+}
@@ -0,0 +1,55 @@
+package view;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+
+import javax.swing.JPanel;
+
+import model.histogram.Histogram;
+import model.histogram.HistogramRenderer;
+
+/**
+ * A panel that draws the red, green and blue histograms of the current image with
+ * {@link HistogramRenderer}. The panel and its bins are created once; an update copies the new
+ * counts into the bins and asks for a repaint.
+ */
+public class HistogramPanel extends JPanel {
+  private final int[][] bins = new int[3][Histogram.BINS];
+
+  /**
+   * Replaces the histograms shown and repaints the panel.
+   *
+   * @param histograms the red, green and blue histograms, in that order.
+   * @throws IllegalArgumentException if there are not three histograms of 256 bins.
+   */
+  public void setHistograms(int[][] histograms) {
+    if (histograms.length != bins.length) {
+      throw new IllegalArgumentException("Expected red, green and blue histograms.");
+    }
+    for (int channel = 0; channel < bins.length; channel++) {
+      if (histograms[channel].length != Histogram.BINS) {
+        throw new IllegalArgumentException("A histogram needs " + Histogram.BINS + " bins.");
+      }
+      System.arraycopy(histograms[channel], 0, bins[channel], 0, Histogram.BINS);
+    }
+    repaint();
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    Insets insets = getInsets();
+    int width = getWidth() - insets.left - insets.right;
+    int height = getHeight() - insets.top - insets.bottom;
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+    Graphics2D area = (Graphics2D) g.create(insets.left, insets.top, width, height);
+    try {
+      HistogramRenderer.draw(area, bins, width, height);
+    } finally {
+      area.dispose();
+    }
+  }
+}
@@ -1,22 +1,21 @@
 package view;
 
 import model.Image;
-import org.jfree.chart.ChartPanel;
 
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.JTextField;
 import javax.swing.JOptionPane;
-import javax.swing.JScrollPane;
 import javax.swing.JComboBox;
 import javax.swing.SwingConstants;
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
 import javax.swing.JSlider;
 import javax.swing.JFileChooser;
+import javax.swing.JComponent;
+import javax.swing.AbstractAction;
+import javax.swing.KeyStroke;
 
 import javax.swing.border.TitledBorder;
 
@@ -28,6 +27,9 @@ import java.awt.FlowLayout;
 import java.awt.Dimension;
 import java.awt.CardLayout;
 import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 
 /**
@@ -36,8 +38,11 @@ import java.awt.Color;
  */
 
 public class ImageViewGUI extends JFrame {
-  private JLabel imageLabel;
-  private JPanel histogramPanel;
+  private static final int DEFAULT_DISPLAY_WIDTH = 800;
+  private static final int DEFAULT_DISPLAY_HEIGHT = 600;
+
+  private TiledImageViewer imageViewer;
+  private HistogramPanel histogramPanel;
   private JComboBox<String> operationSelector;
   private JPanel operationInputsPanel;
   private JButton loadButton;
@@ -45,6 +50,14 @@ public class ImageViewGUI extends JFrame {
   private JButton saveButton;
   private JLabel statusLabel;
   private JButton toggleButton;
+  private JButton applyButton;
+  private JButton undoButton;
+  private JButton redoButton;
+  private JSlider compressionSlider;
+  private JSlider[] levelSliders;
+  private JComboBox<String> splitOperationSelector;
+  private JSlider splitSlider;
+  private JSlider[] splitLevelSliders;
 
 
 
@@ -73,16 +86,15 @@ public class ImageViewGUI extends JFrame {
     add(statusPanel, BorderLayout.NORTH);
 
     // Main Image Display
-    imageLabel = new JLabel("No Image Loaded", SwingConstants.CENTER);
-    imageLabel.setBorder(BorderFactory.createTitledBorder("Image View"));
-    JScrollPane imageScrollPane = new JScrollPane(imageLabel);
-    add(imageScrollPane, BorderLayout.CENTER);
+    imageViewer = new TiledImageViewer("No Image Loaded");
+    imageViewer.setBorder(BorderFactory.createTitledBorder("Image View"));
+    imageViewer.setToolTipText("Scroll to zoom, drag to pan, double-click to fit");
+    add(imageViewer, BorderLayout.CENTER);
 
     // Histogram Panel
-    histogramPanel = new JPanel();
+    histogramPanel = new HistogramPanel();
     histogramPanel.setPreferredSize(new Dimension(400, 300));
     histogramPanel.setBorder(new TitledBorder("Histogram"));
-    histogramPanel.setLayout(new BorderLayout());
     add(histogramPanel, BorderLayout.EAST);
 
     // Control Panel
@@ -100,14 +112,30 @@ public class ImageViewGUI extends JFrame {
     saveButton = new JButton("Save Image");
     toggleButton = new JButton("Toggle View");
     toggleButton.setEnabled(false);
+    applyButton = new JButton("Apply Full Size");
+    applyButton.setEnabled(false);
+    undoButton = new JButton("Undo");
+    undoButton.setEnabled(false);
+    undoButton.setToolTipText("Undo the last operation (Ctrl+Z)");
+    redoButton = new JButton("Redo");
+    redoButton.setEnabled(false);
+    redoButton.setToolTipText("Redo the last undone operation (Ctrl+Y)");
 
     loadButton.setPreferredSize(buttonSize);
     saveButton.setPreferredSize(buttonSize);
     toggleButton.setPreferredSize(buttonSize);
+    applyButton.setPreferredSize(buttonSize);
+    undoButton.setPreferredSize(new Dimension(80, 40));
+    redoButton.setPreferredSize(new Dimension(80, 40));
 
     topButtonPanel.add(loadButton);
     topButtonPanel.add(saveButton);
     topButtonPanel.add(toggleButton);
+    topButtonPanel.add(applyButton);
+    topButtonPanel.add(undoButton);
+    topButtonPanel.add(redoButton);
+    bindShortcut(undoButton, KeyEvent.VK_Z);
+    bindShortcut(redoButton, KeyEvent.VK_Y);
 
     // Operation Selector Panel
     JPanel operationSelectorPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
@@ -138,7 +166,9 @@ public class ImageViewGUI extends JFrame {
     // Dynamic Operation Inputs Panel
     operationInputsPanel = new JPanel(new CardLayout());
     operationInputsPanel.setBorder(BorderFactory.createTitledBorder("Operation Inputs"));
-    operationInputsPanel.setPreferredSize(new Dimension(400, 100));
+    operationInputsPanel.setPreferredSize(new Dimension(400, 130));
+    createOperationInputs();
+    controlPanel.add(operationInputsPanel, BorderLayout.CENTER);
 
     
     // Execute Button
@@ -170,20 +200,113 @@ public class ImageViewGUI extends JFrame {
    * @param image The image to be displayed.
    */
   public void setImage(BufferedImage image) {
-    imageLabel.setIcon(new ImageIcon(image));
-    imageLabel.setText("");
+    imageViewer.setImage(TileCache.of(image));
+  }
+
+  /**
+   * Sets the image to be displayed in the GUI, reading its channels directly.
+   *
+   * @param image The image to be displayed.
+   */
+  public void setImage(Image image) {
+    imageViewer.setImage(TileCache.of(image));
+  }
+
+  /**
+   * Displays a full-resolution image, using a display-sized proxy of it for zoomed-out views.
+   *
+   * @param image The full-resolution image.
+   * @param proxy A reduced copy of the image.
+   */
+  public void setImage(Image image, Image proxy) {
+    imageViewer.setImage(TileCache.of(image), TileCache.of(proxy));
+  }
+
+  /**
+   * Returns the size of the area the image is displayed in, which bounds the size of the
+   * previews.
+   *
+   * @return the visible size of the image area, or a default size before the window is shown.
+   */
+  public Dimension getDisplaySize() {
+    Dimension size = imageViewer.getSize();
+    if (size.width <= 0 || size.height <= 0) {
+      return new Dimension(DEFAULT_DISPLAY_WIDTH, DEFAULT_DISPLAY_HEIGHT);
+    }
+    return size;
+  }
+
+  /**
+   * Enables or disables the button that applies the previewed operations at full resolution.
+   *
+   * @param enabled whether some operations are waiting to be applied.
+   */
+  public void enableApplyButton(boolean enabled) {
+    applyButton.setEnabled(enabled);
+  }
+
+  /**
+   * Adds a listener to the button that applies the previewed operations at full resolution.
+   *
+   * @param callback the action to perform when the button is clicked.
+   */
+  public void addApplyListener(Runnable callback) {
+    applyButton.addActionListener(e -> callback.run());
+  }
+
+  /**
+   * Enables or disables the undo and redo buttons.
+   *
+   * @param canUndo whether there is an operation to undo.
+   * @param canRedo whether there is an undone operation to redo.
+   */
+  public void enableUndoRedoButtons(boolean canUndo, boolean canRedo) {
+    undoButton.setEnabled(canUndo);
+    redoButton.setEnabled(canRedo);
+  }
+
+  /**
+   * Adds a listener to the undo button, which Ctrl+Z also triggers.
+   *
+   * @param callback the action to perform when the button is clicked.
+   */
+  public void addUndoListener(Runnable callback) {
+    undoButton.addActionListener(e -> callback.run());
+  }
+
+  /**
+   * Adds a listener to the redo button, which Ctrl+Y also triggers.
+   *
+   * @param callback the action to perform when the button is clicked.
+   */
+  public void addRedoListener(Runnable callback) {
+    redoButton.addActionListener(e -> callback.run());
+  }
+
+  /**
+   * Makes Ctrl and the given key click a button anywhere in the window, while it is enabled.
+   */
+  private void bindShortcut(JButton button, int keyCode) {
+    String name = button.getText();
+    getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke(keyCode, InputEvent.CTRL_DOWN_MASK), name);
+    getRootPane().getActionMap().put(name, new AbstractAction() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        if (button.isEnabled()) {
+          button.doClick();
+        }
+      }
+    });
   }
 
   /**
-   * Updates the histogram panel with the provided chart panel.
+   * Updates the histogram panel with new histograms.
    *
-   * @param chartPanel The ChartPanel containing the histogram to be displayed.
+   * @param histograms the red, green and blue histograms of the displayed image.
    */
-  public void updateHistogramPanel(ChartPanel chartPanel) {
-    histogramPanel.removeAll();
-    histogramPanel.add(chartPanel, BorderLayout.CENTER);
-    histogramPanel.revalidate();
-    histogramPanel.repaint();
+  public void updateHistogramPanel(int[][] histograms) {
+    histogramPanel.setHistograms(histograms);
   }
 
   /**
@@ -200,66 +323,30 @@ public class ImageViewGUI extends JFrame {
   }
 
   /**
-   * Retrieves the selected operation from the operation selector dropdown.
+   * Returns the compression percentage set on the Compression slider.
    *
-   * @return The name of the selected operation.
+   * @return the percentage, from 0 to 100.
    */
   public int getCompressionPercentage() {
-    JSlider compressionSlider = new JSlider(0, 100, 50);
-    compressionSlider.setPaintTicks(true);
-    compressionSlider.setPaintLabels(true);
-    compressionSlider.setMajorTickSpacing(25);
-    compressionSlider.setMinorTickSpacing(5);
-    JOptionPane.showMessageDialog(this, compressionSlider,
-            "Set Compression Percentage", JOptionPane.PLAIN_MESSAGE);
     return compressionSlider.getValue();
   }
 
   /**
-   * Prompts the user to select a compression percentage using a slider.
-   * Displays a dialog with a slider that allows the user to select a value
-   * between 0 and 100 (with a default value of 50).
+   * Returns the operation chosen for Split View.
    *
-   * @return The selected compression percentage value.
+   * @return the name of the operation applied to part of the image.
    */
   public String getSplitOperationName() {
-    String[] operations = {"Blur", "Sharpen", "Greyscale", "Sepia", "Color Correction",
-                           "Adjust Levels"};
-    return (String) JOptionPane.showInputDialog(this, "Select the " +
-            "operation to apply for Split View:", "Split View Operation",
-            JOptionPane.PLAIN_MESSAGE, null, operations, operations[0]);
+    return (String) splitOperationSelector.getSelectedItem();
   }
 
   /**
-   * Prompts the user to select an operation to apply for the Split View operation.
-   * A dialog will appear with a list of possible operations.
+   * Returns the split percentage set on the Split View slider.
    *
-   * @return The name of the selected operation for Split View.
+   * @return the percentage of the width the operation is applied to, from 0 to 100.
    */
   public int getSplitPercentage() {
-    JSlider splitSlider = new JSlider(0, 100, 50);
-    splitSlider.setPaintTicks(true);
-    splitSlider.setPaintLabels(true);
-    splitSlider.setMajorTickSpacing(25);
-    splitSlider.setMinorTickSpacing(5);
-
-    JPanel sliderPanel = new JPanel(new BorderLayout());
-    sliderPanel.add(new JLabel("Set Split Percentage:"), BorderLayout.NORTH);
-    sliderPanel.add(splitSlider, BorderLayout.CENTER);
-
-    int result = JOptionPane.showConfirmDialog(
-            this,
-            sliderPanel,
-            "Split Percentage",
-            JOptionPane.OK_CANCEL_OPTION,
-            JOptionPane.PLAIN_MESSAGE
-    );
-
-    if (result == JOptionPane.OK_OPTION) {
-      return splitSlider.getValue();
-    } else {
-      return -1;
-    }
+    return splitSlider.getValue();
   }
 
   /**
@@ -298,39 +385,118 @@ public class ImageViewGUI extends JFrame {
 
 
   /**
-   * Prompts the user to adjust levels for an image (black, mid, and white points).
-   * A dialog will appear where the user can input values for each point.
+   * Returns the black, mid and white points set on the Adjust Levels sliders.
    *
-   * @return An array containing the black point, mid point, and white point values, or null
-   *        if the user cancels.
+   * @return an array containing the black point, mid point, and white point values.
    */
   public int[] getLevelAdjustments() {
-    JTextField blackPointField = new JTextField("0", 5);
-    JTextField midPointField = new JTextField("128", 5);
-    JTextField whitePointField = new JTextField("255", 5);
-
-    JPanel panel = new JPanel();
-    panel.add(new JLabel("Black Point:"));
-    panel.add(blackPointField);
-    panel.add(new JLabel("Mid Point:"));
-    panel.add(midPointField);
-    panel.add(new JLabel("White Point:"));
-    panel.add(whitePointField);
-
-    int result = JOptionPane.showConfirmDialog(this, panel,
-            "Adjust Levels for Split", JOptionPane.OK_CANCEL_OPTION);
-    if (result == JOptionPane.OK_OPTION) {
-      try {
-        return new int[]{
-                Integer.parseInt(blackPointField.getText()),
-                Integer.parseInt(midPointField.getText()),
-                Integer.parseInt(whitePointField.getText())
-        };
-      } catch (NumberFormatException e) {
-        showMessage("Invalid input for levels adjustment!", JOptionPane.ERROR_MESSAGE);
-      }
+    return valuesOf(levelSliders);
+  }
+
+  /**
+   * Returns the black, mid and white points set for a Split View of Adjust Levels.
+   *
+   * @return an array containing the black point, mid point, and white point values.
+   */
+  public int[] getSplitLevelAdjustments() {
+    return valuesOf(splitLevelSliders);
+  }
+
+  /**
+   * Adds a listener that is notified whenever a slider or choice of the operation inputs
+   * changes, including while a slider is being dragged.
+   *
+   * @param callback the action to perform on each change.
+   */
+  public void addLiveInputListener(Runnable callback) {
+    compressionSlider.addChangeListener(e -> callback.run());
+    splitSlider.addChangeListener(e -> callback.run());
+    splitOperationSelector.addActionListener(e -> callback.run());
+    for (JSlider slider : levelSliders) {
+      slider.addChangeListener(e -> callback.run());
     }
-    return null;
+    for (JSlider slider : splitLevelSliders) {
+      slider.addChangeListener(e -> callback.run());
+    }
+  }
+
+  /**
+   * Shows a reduced copy of the displayed image in its place, e.g. a live preview.
+   *
+   * @param image  the reduced copy.
+   * @param width  the width of the displayed image.
+   * @param height the height of the displayed image.
+   */
+  public void setPreviewImage(Image image, int width, int height) {
+    imageViewer.setImage(TileCache.of(image), width, height);
+  }
+
+  /**
+   * Creates the cards of the operation inputs panel: sliders for the operations that take
+   * numeric parameters, and an empty card for the others.
+   */
+  private void createOperationInputs() {
+    JPanel defaultCard = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    defaultCard.add(new JLabel("This operation has no inputs."));
+    operationInputsPanel.add(defaultCard, "Default");
+
+    compressionSlider = createSlider(0, 100, 50, 25);
+    operationInputsPanel.add(labelled("Compression %:", compressionSlider), "Compression");
+
+    levelSliders = createLevelSliders();
+    operationInputsPanel.add(levelsPanel(levelSliders), "Adjust Levels");
+
+    splitOperationSelector = new JComboBox<>(new String[]{"Blur", "Sharpen", "Greyscale",
+                                                          "Sepia", "Color Correction",
+                                                          "Adjust Levels"});
+    splitSlider = createSlider(0, 100, 50, 25);
+    splitLevelSliders = createLevelSliders();
+    JPanel splitCard = new JPanel(new BorderLayout());
+    JPanel splitTop = labelled("Split %:", splitSlider);
+    splitTop.add(splitOperationSelector, 0);
+    splitCard.add(splitTop, BorderLayout.NORTH);
+    JPanel splitLevels = levelsPanel(splitLevelSliders);
+    splitCard.add(splitLevels, BorderLayout.CENTER);
+    splitLevels.setVisible(false);
+    splitOperationSelector.addActionListener(e -> splitLevels.setVisible(
+            "Adjust Levels".equals(splitOperationSelector.getSelectedItem())));
+    operationInputsPanel.add(splitCard, "Split View");
+  }
+
+  private static JSlider createSlider(int min, int max, int value, int majorTicks) {
+    JSlider slider = new JSlider(min, max, value);
+    slider.setPaintTicks(true);
+    slider.setPaintLabels(true);
+    slider.setMajorTickSpacing(majorTicks);
+    slider.setMinorTickSpacing(majorTicks / 5);
+    return slider;
+  }
+
+  private static JSlider[] createLevelSliders() {
+    return new JSlider[]{createSlider(0, 255, 0, 85), createSlider(0, 255, 128, 85),
+                         createSlider(0, 255, 255, 85)};
+  }
+
+  private static JPanel levelsPanel(JSlider[] sliders) {
+    JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    String[] names = {"Black:", "Mid:", "White:"};
+    for (int i = 0; i < sliders.length; i++) {
+      panel.add(new JLabel(names[i]));
+      panel.add(sliders[i]);
+    }
+    return panel;
+  }
+
+  private static JPanel labelled(String label, JSlider slider) {
+    JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    panel.add(new JLabel(label));
+    slider.setPreferredSize(new Dimension(400, slider.getPreferredSize().height));
+    panel.add(slider);
+    return panel;
+  }
+
+  private static int[] valuesOf(JSlider[] sliders) {
+    return new int[]{sliders[0].getValue(), sliders[1].getValue(), sliders[2].getValue()};
   }
 
 
@@ -482,16 +648,9 @@ public class ImageViewGUI extends JFrame {
       enableToggleButton(false); // Deactivate for other operations
     }
     switch (operation) {
-      case "Flip":
-      case "Blur":
-      case "Sharpen":
-      case "Greyscale":
-      case "Sepia":
       case "Compression":
       case "Adjust Levels":
-      case "Color Correction":
       case "Split View":
-      case "Visualization":
         layout.show(operationInputsPanel, operation);
         break;
       default:
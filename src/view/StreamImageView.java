@@ -0,0 +1,70 @@
+package view;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An {@link ImageView} that writes messages as lines of text to an output stream, used to answer
+ * clients of the daemon over a socket.
+ * <p>
+ * Each response ends with a line containing a single {@code "."}. A message line that itself
+ * starts with a dot gets one extra leading dot, so clients can always recognize the end of a
+ * response.
+ * </p>
+ */
+public class StreamImageView implements ImageView {
+  /**
+   * The line that marks the end of a response.
+   */
+  public static final String END_OF_RESPONSE = ".";
+
+  private final PrintWriter writer;
+
+  /**
+   * Constructs a StreamImageView that writes UTF-8 text to the given stream.
+   *
+   * @param out the stream to write messages to.
+   */
+  public StreamImageView(OutputStream out) {
+    this.writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes the message as one or more lines. The output is not flushed until
+   * {@link #endResponse()} is called.
+   *
+   * @param message the message to be sent to the client.
+   */
+  @Override
+  public void renderMessage(String message) {
+    for (String line : message.split("\\r?\\n", -1)) {
+      if (line.startsWith(".")) {
+        writer.print('.');
+      }
+      writer.print(line);
+      writer.print('\n');
+    }
+  }
+
+  /**
+   * Input is read by the daemon session from the socket, not through the view.
+   *
+   * @return never returns normally.
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public String getUserInput() {
+    throw new UnsupportedOperationException("Input is read by the daemon session.");
+  }
+
+  /**
+   * Terminates the current response and flushes it to the client.
+   */
+  public void endResponse() {
+    writer.print(END_OF_RESPONSE);
+    writer.print('\n');
+    writer.flush();
+  }
+}
@@ -0,0 +1,327 @@
+package view;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.Image;
+
+/**
+ * Display tiles of an image at every zoom level, made on demand and kept in a bounded cache.
+ * <p>
+ * Level 0 is the image itself and each further level halves the previous one, averaging blocks
+ * of 2x2 pixels, until the whole image fits in one tile. A tile of a level other than 0 is made
+ * from the four tiles below it in the next finer level, so no level is ever held as a whole.
+ * When a reduced copy of the image is supplied, tiles of the levels it is at least as large as
+ * are sampled from the copy instead, so that a zoomed-out view of a large image never has to
+ * read the full image. Tiles are 256x256 {@code TYPE_INT_RGB} images, and only the most
+ * recently used {@code maxTiles} of them are kept, which bounds the memory of every level.
+ * Tiles may be rendered from any thread.
+ * </p>
+ */
+public class TileCache {
+
+  /**
+   * The width and height of a tile in pixels.
+   */
+  public static final int TILE_SIZE = 256;
+
+  /**
+   * Read access to the pixels of level 0.
+   */
+  public interface PixelSource {
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return the width in pixels.
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return the height in pixels.
+     */
+    int getHeight();
+
+    /**
+     * Copies a rectangle of pixels as packed {@code 0xRRGGBB} values, row by row.
+     *
+     * @param x      the left edge of the rectangle.
+     * @param y      the top edge of the rectangle.
+     * @param width  the width of the rectangle.
+     * @param height the height of the rectangle.
+     * @param out    the array to fill, at least width * height long.
+     */
+    void getPixels(int x, int y, int width, int height, int[] out);
+  }
+
+  private final PixelSource source;
+  private final PixelSource coarse;
+  private final int levelCount;
+  private final int[] levelWidths;
+  private final int[] levelHeights;
+  private final Map<Long, BufferedImage> tiles;
+
+  /**
+   * Creates a cache over the given pixels.
+   *
+   * @param source   the pixels of the image.
+   * @param maxTiles the largest number of tiles to keep.
+   * @throws IllegalArgumentException if maxTiles is not positive.
+   */
+  public TileCache(PixelSource source, int maxTiles) {
+    this(source, null, maxTiles);
+  }
+
+  /**
+   * Creates a cache over the given pixels that renders coarse levels from a reduced copy.
+   *
+   * @param source   the pixels of the image.
+   * @param coarse   a reduced copy of the image, or null to build every level from the image.
+   * @param maxTiles the largest number of tiles to keep.
+   * @throws IllegalArgumentException if maxTiles is not positive.
+   */
+  public TileCache(PixelSource source, PixelSource coarse, int maxTiles) {
+    if (maxTiles <= 0) {
+      throw new IllegalArgumentException("The tile cache must hold at least one tile.");
+    }
+    this.source = source;
+    this.coarse = coarse;
+    int count = 1;
+    int width = source.getWidth();
+    int height = source.getHeight();
+    while (width > TILE_SIZE || height > TILE_SIZE) {
+      width = (width + 1) / 2;
+      height = (height + 1) / 2;
+      count++;
+    }
+    this.levelCount = count;
+    this.levelWidths = new int[count];
+    this.levelHeights = new int[count];
+    levelWidths[0] = source.getWidth();
+    levelHeights[0] = source.getHeight();
+    for (int level = 1; level < count; level++) {
+      levelWidths[level] = (levelWidths[level - 1] + 1) / 2;
+      levelHeights[level] = (levelHeights[level - 1] + 1) / 2;
+    }
+    this.tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+        return size() > maxTiles;
+      }
+    };
+  }
+
+  /**
+   * Returns a pixel source that reads a buffered image.
+   *
+   * @param image the image.
+   * @return the pixel source.
+   */
+  public static PixelSource of(BufferedImage image) {
+    return new PixelSource() {
+      @Override
+      public int getWidth() {
+        return image.getWidth();
+      }
+
+      @Override
+      public int getHeight() {
+        return image.getHeight();
+      }
+
+      @Override
+      public void getPixels(int x, int y, int width, int height, int[] out) {
+        image.getRGB(x, y, width, height, out, 0, width);
+      }
+    };
+  }
+
+  /**
+   * Returns a pixel source that reads the channels of an image directly, without converting the
+   * whole image first.
+   *
+   * @param image the image.
+   * @return the pixel source.
+   */
+  public static PixelSource of(Image image) {
+    return new PixelSource() {
+      @Override
+      public int getWidth() {
+        return image.getWidth();
+      }
+
+      @Override
+      public int getHeight() {
+        return image.getHeight();
+      }
+
+      @Override
+      public void getPixels(int x, int y, int width, int height, int[] out) {
+        for (int row = 0; row < height; row++) {
+          int[] red = image.getRedChannel()[y + row];
+          int[] green = image.getGreenChannel()[y + row];
+          int[] blue = image.getBlueChannel()[y + row];
+          for (int column = 0; column < width; column++) {
+            out[row * width + column] = (red[x + column] << 16) | (green[x + column] << 8)
+                    | blue[x + column];
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the number of zoom levels.
+   *
+   * @return the number of levels, at least 1.
+   */
+  public int getLevelCount() {
+    return levelCount;
+  }
+
+  /**
+   * Returns the width of the image at a level.
+   *
+   * @param level the level, 0 for the full image.
+   * @return the width in pixels.
+   */
+  public int getLevelWidth(int level) {
+    return levelWidths[level];
+  }
+
+  /**
+   * Returns the height of the image at a level.
+   *
+   * @param level the level, 0 for the full image.
+   * @return the height in pixels.
+   */
+  public int getLevelHeight(int level) {
+    return levelHeights[level];
+  }
+
+  /**
+   * Returns a tile if it is in the cache.
+   *
+   * @param level  the level.
+   * @param column the column of the tile.
+   * @param row    the row of the tile.
+   * @return the tile, or null if it has not been rendered or was evicted.
+   */
+  public synchronized BufferedImage getCachedTile(int level, int column, int row) {
+    return tiles.get(key(level, column, row));
+  }
+
+  /**
+   * Returns a tile, rendering it and any finer tiles it is made from first if it is not in the
+   * cache. Tiles at the right and bottom edges are smaller than {@link #TILE_SIZE}.
+   *
+   * @param level  the level.
+   * @param column the column of the tile.
+   * @param row    the row of the tile.
+   * @return the tile.
+   */
+  public BufferedImage getTile(int level, int column, int row) {
+    BufferedImage tile = getCachedTile(level, column, row);
+    if (tile != null) {
+      return tile;
+    }
+    int x = column * TILE_SIZE;
+    int y = row * TILE_SIZE;
+    int width = Math.min(TILE_SIZE, levelWidths[level] - x);
+    int height = Math.min(TILE_SIZE, levelHeights[level] - y);
+    int[] pixels = new int[width * height];
+    if (level == 0) {
+      source.getPixels(x, y, width, height, pixels);
+    } else if (coarse != null && coarse.getWidth() >= levelWidths[level]
+            && coarse.getHeight() >= levelHeights[level]) {
+      sampleCoarse(level, x, y, width, height, pixels);
+    } else {
+      halveFinerTiles(level, column, row, width, height, pixels);
+    }
+    tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    tile.setRGB(0, 0, width, height, pixels, 0, width);
+    synchronized (this) {
+      tiles.put(key(level, column, row), tile);
+    }
+    return tile;
+  }
+
+  /**
+   * Averages the 2x2 blocks of the up to four tiles of the next finer level that a tile covers.
+   * A tile has an even size, so every block lies within one finer tile.
+   */
+  private void halveFinerTiles(int level, int column, int row, int width, int height,
+                               int[] pixels) {
+    int half = TILE_SIZE / 2;
+    int finerColumns = (levelWidths[level - 1] + TILE_SIZE - 1) / TILE_SIZE;
+    int finerRows = (levelHeights[level - 1] + TILE_SIZE - 1) / TILE_SIZE;
+    for (int quadrantY = 0; quadrantY < 2; quadrantY++) {
+      for (int quadrantX = 0; quadrantX < 2; quadrantX++) {
+        int finerColumn = 2 * column + quadrantX;
+        int finerRow = 2 * row + quadrantY;
+        if (finerColumn >= finerColumns || finerRow >= finerRows) {
+          continue;
+        }
+        BufferedImage finer = getTile(level - 1, finerColumn, finerRow);
+        int finerWidth = finer.getWidth();
+        int finerHeight = finer.getHeight();
+        int[] finerPixels = finer.getRGB(0, 0, finerWidth, finerHeight, null, 0, finerWidth);
+        int left = quadrantX * half;
+        int top = quadrantY * half;
+        int right = Math.min(width, left + (finerWidth + 1) / 2);
+        int bottom = Math.min(height, top + (finerHeight + 1) / 2);
+        for (int ty = top; ty < bottom; ty++) {
+          int upper = 2 * (ty - top);
+          int lower = Math.min(upper + 1, finerHeight - 1);
+          for (int tx = left; tx < right; tx++) {
+            int first = 2 * (tx - left);
+            int second = Math.min(first + 1, finerWidth - 1);
+            pixels[ty * width + tx] = average(finerPixels[upper * finerWidth + first],
+                    finerPixels[upper * finerWidth + second],
+                    finerPixels[lower * finerWidth + first],
+                    finerPixels[lower * finerWidth + second]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Samples the pixels of a tile from the reduced copy, taking the copy's pixel nearest to the
+   * center of each level pixel.
+   */
+  private void sampleCoarse(int level, int x, int y, int width, int height, int[] pixels) {
+    int coarseWidth = coarse.getWidth();
+    int coarseHeight = coarse.getHeight();
+    double scaleX = (double) coarseWidth / levelWidths[level];
+    double scaleY = (double) coarseHeight / levelHeights[level];
+    int[] columns = new int[width];
+    for (int i = 0; i < width; i++) {
+      columns[i] = Math.min(coarseWidth - 1, (int) ((x + i + 0.5) * scaleX));
+    }
+    int[] coarseRow = new int[coarseWidth];
+    for (int j = 0; j < height; j++) {
+      coarse.getPixels(0, Math.min(coarseHeight - 1, (int) ((y + j + 0.5) * scaleY)),
+              coarseWidth, 1, coarseRow);
+      for (int i = 0; i < width; i++) {
+        pixels[j * width + i] = coarseRow[columns[i]] & 0xFFFFFF;
+      }
+    }
+  }
+
+  private static int average(int a, int b, int c, int d) {
+    int red = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF)
+            + ((d >> 16) & 0xFF) + 2) / 4;
+    int green = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF)
+            + ((d >> 8) & 0xFF) + 2) / 4;
+    int blue = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) / 4;
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  private static long key(int level, int column, int row) {
+    return ((long) level << 48) | ((long) column << 24) | row;
+  }
+}
@@ -0,0 +1,303 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Displays an image with zoom and pan, drawing only the tiles that are visible.
+ * <p>
+ * Tiles come from a {@link TileCache} at the level that matches the zoom, so zoomed-out views
+ * read small precomputed levels rather than the full image. Missing tiles are rendered on a
+ * background thread and the component repaints when they arrive; meanwhile the matching part of
+ * a coarser cached level is stretched into their place. Requests for tiles that have scrolled out
+ * of view by the time a thread picks them up are dropped.
+ * </p>
+ * <p>
+ * The mouse wheel zooms around the pointer, dragging pans, and a double click fits the image to
+ * the component.
+ * </p>
+ */
+public class TiledImageViewer extends JComponent {
+  private static final int MAX_TILES = 256;
+  private static final double MAX_ZOOM = 16;
+  private static final double WHEEL_ZOOM_STEP = 1.25;
+
+  private final ExecutorService renderer;
+  private final Set<Long> requested = new HashSet<>();
+  private final String emptyText;
+  private volatile TileCache cache;
+  private volatile int visibleLevel;
+  private volatile Rectangle visibleTiles = new Rectangle();
+  private int imageWidth;
+  private int imageHeight;
+  private double sourceScale = 1;
+  private double zoom = 1;
+  private double offsetX;
+  private double offsetY;
+  private boolean fitted;
+
+  /**
+   * Creates a viewer with no image.
+   *
+   * @param emptyText the text shown while there is no image.
+   */
+  public TiledImageViewer(String emptyText) {
+    this.emptyText = emptyText;
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    this.renderer = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "tile-renderer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    MouseAdapter mouse = new MouseAdapter() {
+      private Point dragStart;
+
+      @Override
+      public void mousePressed(MouseEvent e) {
+        dragStart = e.getPoint();
+      }
+
+      @Override
+      public void mouseDragged(MouseEvent e) {
+        if (dragStart != null) {
+          offsetX += e.getX() - dragStart.x;
+          offsetY += e.getY() - dragStart.y;
+          dragStart = e.getPoint();
+          fitted = false;
+          repaint();
+        }
+      }
+
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        if (e.getClickCount() == 2) {
+          fitToView();
+        }
+      }
+
+      @Override
+      public void mouseWheelMoved(MouseWheelEvent e) {
+        double factor = Math.pow(WHEEL_ZOOM_STEP, -e.getPreciseWheelRotation());
+        zoomAround(e.getX(), e.getY(), factor);
+      }
+    };
+    addMouseListener(mouse);
+    addMouseMotionListener(mouse);
+    addMouseWheelListener(mouse);
+    addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        if (fitted) {
+          fitToView();
+        }
+      }
+    });
+    setPreferredSize(new Dimension(800, 600));
+  }
+
+  /**
+   * Shows a new image. If it has the same size as the current one the zoom and position are
+   * kept, so that successive results of an operation can be compared; otherwise the image is
+   * fitted to the component.
+   *
+   * @param source the pixels of the image.
+   */
+  public void setImage(TileCache.PixelSource source) {
+    setImage(source, null, source.getWidth(), source.getHeight());
+  }
+
+  /**
+   * Shows a new image, drawing zoomed-out views from a reduced copy of it so that they appear
+   * without reading the whole image. Zoom and position are kept as for
+   * {@link #setImage(TileCache.PixelSource)}.
+   *
+   * @param source the pixels of the image.
+   * @param coarse the pixels of a reduced copy of the image.
+   */
+  public void setImage(TileCache.PixelSource source, TileCache.PixelSource coarse) {
+    setImage(source, coarse, source.getWidth(), source.getHeight());
+  }
+
+  /**
+   * Shows a reduced copy of an image at the size of the image, so that a quick preview takes
+   * the place of the image without changing the zoom or position.
+   *
+   * @param source the pixels of the reduced copy.
+   * @param width  the width of the image the copy stands for.
+   * @param height the height of the image the copy stands for.
+   */
+  public void setImage(TileCache.PixelSource source, int width, int height) {
+    setImage(source, null, width, height);
+  }
+
+  private void setImage(TileCache.PixelSource source, TileCache.PixelSource coarse, int width,
+                        int height) {
+    boolean sameSize = cache != null && imageWidth == width && imageHeight == height;
+    imageWidth = width;
+    imageHeight = height;
+    sourceScale = (double) source.getWidth() / width;
+    synchronized (requested) {
+      requested.clear();
+    }
+    cache = new TileCache(source, coarse, MAX_TILES);
+    if (!sameSize || fitted) {
+      fitToView();
+    } else {
+      repaint();
+    }
+  }
+
+  /**
+   * Zooms and centres the image so that it fits in the component.
+   */
+  public void fitToView() {
+    if (cache == null) {
+      return;
+    }
+    int width = Math.max(1, getWidth());
+    int height = Math.max(1, getHeight());
+    zoom = Math.min(1, Math.min((double) width / imageWidth, (double) height / imageHeight));
+    offsetX = (width - imageWidth * zoom) / 2;
+    offsetY = (height - imageHeight * zoom) / 2;
+    fitted = true;
+    repaint();
+  }
+
+  private void zoomAround(int x, int y, double factor) {
+    if (cache == null) {
+      return;
+    }
+    double minZoom = Math.min(1, Math.min((double) Math.max(1, getWidth()) / imageWidth,
+            (double) Math.max(1, getHeight()) / imageHeight)) / 2;
+    double newZoom = Math.max(minZoom, Math.min(MAX_ZOOM, zoom * factor));
+    offsetX = x - (x - offsetX) * newZoom / zoom;
+    offsetY = y - (y - offsetY) * newZoom / zoom;
+    zoom = newZoom;
+    fitted = false;
+    repaint();
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    Graphics2D g2 = (Graphics2D) g;
+    g2.setColor(getBackground() != null ? getBackground() : Color.LIGHT_GRAY);
+    g2.fillRect(0, 0, getWidth(), getHeight());
+    TileCache current = cache;
+    if (current == null) {
+      g2.setColor(Color.DARK_GRAY);
+      int textWidth = g2.getFontMetrics().stringWidth(emptyText);
+      g2.drawString(emptyText, (getWidth() - textWidth) / 2, getHeight() / 2);
+      return;
+    }
+    // The zoom is relative to the image; the source may be a reduced copy of it.
+    double pixelZoom = zoom / sourceScale;
+    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, pixelZoom < 1
+            ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+    int level = levelFor(current, pixelZoom);
+    double tileScale = pixelZoom * (1 << level);
+    double tileExtent = TileCache.TILE_SIZE * tileScale;
+    int columns = (current.getLevelWidth(level) + TileCache.TILE_SIZE - 1) / TileCache.TILE_SIZE;
+    int rows = (current.getLevelHeight(level) + TileCache.TILE_SIZE - 1) / TileCache.TILE_SIZE;
+    int firstColumn = Math.max(0, (int) Math.floor(-offsetX / tileExtent));
+    int firstRow = Math.max(0, (int) Math.floor(-offsetY / tileExtent));
+    int lastColumn = Math.min(columns - 1, (int) Math.floor((getWidth() - offsetX) / tileExtent));
+    int lastRow = Math.min(rows - 1, (int) Math.floor((getHeight() - offsetY) / tileExtent));
+    visibleLevel = level;
+    visibleTiles = new Rectangle(firstColumn, firstRow, lastColumn - firstColumn + 1,
+            lastRow - firstRow + 1);
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int x = (int) Math.floor(offsetX + column * tileExtent);
+        int y = (int) Math.floor(offsetY + row * tileExtent);
+        int right = (int) Math.floor(offsetX + (column + 1) * tileExtent);
+        int bottom = (int) Math.floor(offsetY + (row + 1) * tileExtent);
+        BufferedImage tile = current.getCachedTile(level, column, row);
+        if (tile != null) {
+          g2.drawImage(tile, x, y, x + (int) Math.ceil(tile.getWidth() * tileScale),
+                  y + (int) Math.ceil(tile.getHeight() * tileScale), 0, 0, tile.getWidth(),
+                  tile.getHeight(), null);
+        } else {
+          drawFallback(g2, current, level, column, row, x, y, right, bottom);
+          request(current, level, column, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stretches the part of the nearest coarser cached tile that covers a missing tile.
+   */
+  private void drawFallback(Graphics2D g2, TileCache current, int level, int column, int row,
+                            int x, int y, int right, int bottom) {
+    for (int coarser = level + 1; coarser < current.getLevelCount(); coarser++) {
+      int shift = coarser - level;
+      BufferedImage tile = current.getCachedTile(coarser, column >> shift, row >> shift);
+      if (tile == null) {
+        continue;
+      }
+      int size = TileCache.TILE_SIZE >> shift;
+      int sourceX = (column - ((column >> shift) << shift)) * size;
+      int sourceY = (row - ((row >> shift) << shift)) * size;
+      int sourceRight = Math.min(tile.getWidth(), sourceX + size);
+      int sourceBottom = Math.min(tile.getHeight(), sourceY + size);
+      if (sourceRight > sourceX && sourceBottom > sourceY) {
+        g2.drawImage(tile, x, y, right, bottom, sourceX, sourceY, sourceRight, sourceBottom,
+                null);
+      }
+      return;
+    }
+  }
+
+  private void request(TileCache current, int level, int column, int row) {
+    long key = ((long) level << 48) | ((long) column << 24) | row;
+    synchronized (requested) {
+      if (!requested.add(key)) {
+        return;
+      }
+    }
+    renderer.execute(() -> {
+      try {
+        Rectangle visible = visibleTiles;
+        if (current != cache || level != visibleLevel || !visible.contains(column, row)) {
+          return;
+        }
+        current.getTile(level, column, row);
+        SwingUtilities.invokeLater(this::repaint);
+      } finally {
+        synchronized (requested) {
+          requested.remove(key);
+        }
+      }
+    });
+  }
+
+  private static int levelFor(TileCache current, double zoom) {
+    int level = 0;
+    while (level + 1 < current.getLevelCount() && zoom * (1 << (level + 1)) <= 1) {
+      level++;
+    }
+    return level;
+  }
+}
@@ -0,0 +1,92 @@
+import org.junit.Test;
+
+import model.ColorMath;
+import model.ColorMatrix;
+import model.Image;
+import model.ImageModelImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the fixed-point color matrices in {@link ColorMath} and {@link ColorMatrix} stay
+ * within one level of the floating-point form, for every possible pixel and against the golden
+ * output images, and that composed matrices match applying their steps one by one.
+ */
+public class ColorMathTest {
+
+  @Test
+  public void testFixedPointWithinOneLevelForAllPixels() {
+    long mismatches = 0;
+    for (int r = 0; r < 256; r++) {
+      for (int g = 0; g < 256; g++) {
+        for (int b = 0; b < 256; b++) {
+          mismatches += compare(clampedProduct(0.393, 0.769, 0.189, r, g, b),
+                  ColorMath.sepiaRed(r, g, b));
+          mismatches += compare(clampedProduct(0.349, 0.686, 0.168, r, g, b),
+                  ColorMath.sepiaGreen(r, g, b));
+          mismatches += compare(clampedProduct(0.272, 0.534, 0.131, r, g, b),
+                  ColorMath.sepiaBlue(r, g, b));
+          mismatches += compare((int) (0.2126 * r + 0.7152 * g + 0.0722 * b),
+                  ColorMath.luma(r, g, b));
+        }
+      }
+    }
+    assertTrue("Too many results off by one: " + mismatches, mismatches < 4L * (1 << 24) / 1000);
+  }
+
+  @Test
+  public void testGoldenImages() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "source");
+    model.convertToSepia("source", "sepia");
+    model.load("test/test_image/Output_png/download-png-sepia.png", "golden-sepia");
+    assertWithinOneLevel(model.getImage("golden-sepia"), model.getImage("sepia"));
+
+    model.visualizeComponent("luma", "source", "luma");
+    model.load("test/test_image/Output_png/download-png-luma-component.png", "golden-luma");
+    assertWithinOneLevel(model.getImage("golden-luma"), model.getImage("luma"));
+  }
+
+  @Test
+  public void testComposedMatrixMatchesStepsWithinOneLevel() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "source");
+    model.visualizeComponent("luma", "source", "luma");
+    model.visualizeChannel("red", "luma", "stepwise");
+    model.applyOperation(ColorMatrix.LUMA.then(ColorMatrix.RED), "source", "fused");
+    assertWithinOneLevel(model.getImage("stepwise"), model.getImage("fused"));
+    assertEquals("color-matrix", ColorMatrix.LUMA.getName());
+
+    ColorMatrix swap = ColorMatrix.of(0, 1, 0, 0, 1, 0, 0, 0, 0, 0, 1, 0);
+    assertEquals(ColorMatrix.IDENTITY, swap.then(swap));
+    assertEquals(ColorMath.sepiaRed(200, 100, 50), ColorMatrix.named("sepia").red(200, 100, 50));
+    assertEquals(17, ColorMatrix.of(1, 0, 0, 10, 0, 1, 0, 0, 0, 0, 1, 0).red(7, 0, 0));
+  }
+
+  private static int clampedProduct(double cr, double cg, double cb, int r, int g, int b) {
+    return Math.max(0, Math.min(255, (int) (cr * r + cg * g + cb * b)));
+  }
+
+  private static int compare(int expected, int actual) {
+    assertTrue("Expected " + expected + " but was " + actual, Math.abs(expected - actual) <= 1);
+    return expected == actual ? 0 : 1;
+  }
+
+  private static void assertWithinOneLevel(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    int[][][] expectedChannels = {expected.getRedChannel(), expected.getGreenChannel(),
+        expected.getBlueChannel()};
+    int[][][] actualChannels = {actual.getRedChannel(), actual.getGreenChannel(),
+        actual.getBlueChannel()};
+    for (int c = 0; c < 3; c++) {
+      for (int y = 0; y < expected.getHeight(); y++) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+          assertTrue("Channel " + c + " differs at " + x + "," + y,
+                  Math.abs(expectedChannels[c][y][x] - actualChannels[c][y][x]) <= 1);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.ConcurrentImageModel;
+import model.Image;
+import model.ImageModelImpl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link ConcurrentImageModel} gives the same results as {@link ImageModelImpl} when
+ * shared between threads.
+ */
+public class ConcurrentImageModelTest {
+
+  private ConcurrentImageModel model;
+  private ImageModelImpl reference;
+
+  @Before
+  public void setUp() {
+    model = new ConcurrentImageModel();
+    model.load("resources/test_image/download.png", "source");
+    reference = new ImageModelImpl();
+    reference.load("resources/test_image/download.png", "source");
+  }
+
+  private void assertImageEquals(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      assertArrayEquals(expected.getRedChannel()[i], actual.getRedChannel()[i]);
+      assertArrayEquals(expected.getGreenChannel()[i], actual.getGreenChannel()[i]);
+      assertArrayEquals(expected.getBlueChannel()[i], actual.getBlueChannel()[i]);
+    }
+  }
+
+  /**
+   * Tests that many threads can read one shared source while writing different destinations.
+   */
+  @Test
+  public void testConcurrentOperationsOnSharedSource() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        int amount = i * 5;
+        tasks.add(pool.submit(() -> model.brighten(amount, "source", "bright-" + amount)));
+        tasks.add(pool.submit(() -> model.blur("source", "blur-" + amount)));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    reference.blur("source", "blur");
+    for (int i = 0; i < 16; i++) {
+      int amount = i * 5;
+      reference.brighten(amount, "source", "bright");
+      assertImageEquals(reference.getImage("bright"), model.getImage("bright-" + amount));
+      assertImageEquals(reference.getImage("blur"), model.getImage("blur-" + amount));
+    }
+  }
+
+  /**
+   * Tests that writers replacing the same destination never publish a partial image.
+   */
+  @Test
+  public void testConcurrentWritesToSameDestination() throws Exception {
+    reference.convertToSepia("source", "expected");
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        tasks.add(pool.submit(() -> model.convertToSepia("source", "shared")));
+        tasks.add(pool.submit(() -> model.imageExists("shared")
+                ? model.getImage("shared") : null));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertImageEquals(reference.getImage("expected"), model.getImage("shared"));
+  }
+}
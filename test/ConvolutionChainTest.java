@@ -0,0 +1,79 @@
+import org.junit.Test;
+
+import model.ConvolutionChain;
+import model.Image;
+import model.ImageModelImpl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link ConvolutionChain} produces exactly the images of the separate blur and
+ * sharpen operations.
+ */
+public class ConvolutionChainTest {
+
+  @Test
+  public void testChainsMatchSeparateOperations() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+    String[][] chains = {{"blur"}, {"sharpen"}, {"blur", "sharpen"},
+        {"sharpen", "blur", "blur"}, {"blur", "blur", "blur", "blur"}};
+    for (String[] filters : chains) {
+      assertChainMatches(model, "photo", filters);
+    }
+  }
+
+  @Test
+  public void testImagesSmallerThanTheKernels() {
+    ImageModelImpl model = new ImageModelImpl();
+    int[][] sizes = {{1, 1}, {3, 2}, {2, 7}, {129, 130}, {300, 1}};
+    for (int[] size : sizes) {
+      String name = "random" + size[0] + "x" + size[1];
+      model.putImage(name, TestImages.randomImage(size[0], size[1]));
+      assertChainMatches(model, name, new String[]{"sharpen", "blur", "sharpen"});
+    }
+  }
+
+  @Test
+  public void testChainMetadata() {
+    ConvolutionChain chain = ConvolutionChain.BLUR.then(ConvolutionChain.named("sharpen"));
+    assertEquals(2, chain.getLength());
+    assertEquals(3, chain.getRadius());
+    assertEquals(chain, ConvolutionChain.named("blur").then(ConvolutionChain.SHARPEN));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenKernelRejected() {
+    ConvolutionChain.of(new float[][]{{1, 0}, {0, 1}});
+  }
+
+  private static void assertChainMatches(ImageModelImpl model, String imageName,
+                                         String[] filters) {
+    String source = imageName;
+    ConvolutionChain chain = null;
+    for (int i = 0; i < filters.length; i++) {
+      String dest = imageName + "-step" + i;
+      if (filters[i].equals("blur")) {
+        model.blur(source, dest);
+      } else {
+        model.sharpen(source, dest);
+      }
+      source = dest;
+      ConvolutionChain next = ConvolutionChain.named(filters[i]);
+      chain = chain == null ? next : chain.then(next);
+    }
+    assertEquals("filter-chain", chain.getName());
+    model.applyOperation(chain, imageName, imageName + "-chain");
+    Image expected = model.getImage(source);
+    Image actual = model.getImage(imageName + "-chain");
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      assertArrayEquals(String.join(",", filters), expected.getRedChannel()[y],
+              actual.getRedChannel()[y]);
+      assertArrayEquals(expected.getGreenChannel()[y], actual.getGreenChannel()[y]);
+      assertArrayEquals(expected.getBlueChannel()[y], actual.getBlueChannel()[y]);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.Convolution;
+import model.Image;
+import model.ImageModelImpl;
+import model.strategy.BlurOperation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link Convolution}, checking the Fourier path against the direct sums.
+ */
+public class ConvolutionTest {
+
+  @Test
+  public void testFourierMatchesDirect() {
+    int[][] sizes = {{150, 97}, {1, 1}, {5, 3}, {40, 1}};
+    for (int kernelSize : new int[]{3, 9, 17, 31}) {
+      Convolution convolution = Convolution.of(randomKernel(kernelSize));
+      for (int[] size : sizes) {
+        Image image = TestImages.randomImage(size[0], size[1]);
+        assertWithinOneLevel(convolution.applyDirect(image), convolution.applyFourier(image));
+      }
+    }
+  }
+
+  @Test
+  public void testSmallKernelMatchesBlur() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+    model.blur("photo", "blurred");
+    Convolution convolution = Convolution.of(BlurOperation.getKernel());
+    assertFalse(convolution.isFourier());
+    assertEquals("convolve", convolution.getName());
+    model.applyOperation(convolution, "photo", "convolved");
+    Image expected = model.getImage("blurred");
+    Image actual = model.getImage("convolved");
+    for (int y = 0; y < expected.getHeight(); y++) {
+      assertArrayEquals(expected.getRedChannel()[y], actual.getRedChannel()[y]);
+      assertArrayEquals(expected.getGreenChannel()[y], actual.getGreenChannel()[y]);
+      assertArrayEquals(expected.getBlueChannel()[y], actual.getBlueChannel()[y]);
+    }
+  }
+
+  @Test
+  public void testParseKernelText() {
+    Convolution convolution = Convolution.parse("# box blur\n"
+            + "1, 1, 1\n"
+            + "\n"
+            + "1 1 1   # middle row\n"
+            + "1\t1 1\n");
+    assertEquals(3, convolution.getSize());
+    Image image = new Image(1, 1, new int[][]{{10}}, new int[][]{{20}}, new int[][]{{30}});
+    assertEquals(90, convolution.apply(image).getRedChannel()[0][0]);
+    assertEquals(255, convolution.apply(image).getBlueChannel()[0][0]);
+    assertTrue(Convolution.of(new float[31][31]).isFourier());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonSquareKernelRejected() {
+    Convolution.parse("1 2 3\n4 5 6\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidWeightRejected() {
+    Convolution.parse("1 x 1\n1 1 1\n1 1 1\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingKernelFileRejected() {
+    Convolution.read("resources/no-such-kernel.txt");
+  }
+
+  private static void assertWithinOneLevel(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    int[][][] a = {expected.getRedChannel(), expected.getGreenChannel(),
+        expected.getBlueChannel()};
+    int[][][] b = {actual.getRedChannel(), actual.getGreenChannel(), actual.getBlueChannel()};
+    for (int c = 0; c < 3; c++) {
+      for (int y = 0; y < expected.getHeight(); y++) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+          assertTrue("channel " + c + " at " + x + "," + y,
+                  Math.abs(a[c][y][x] - b[c][y][x]) <= 1);
+        }
+      }
+    }
+  }
+
+  private static float[][] randomKernel(int size) {
+    Random random = new Random(size);
+    float[][] kernel = new float[size][size];
+    float sum = 0;
+    for (float[] row : kernel) {
+      for (int x = 0; x < size; x++) {
+        row[x] = random.nextFloat() * 1.5f - 0.5f;
+        sum += row[x];
+      }
+    }
+    for (float[] row : kernel) {
+      for (int x = 0; x < size; x++) {
+        row[x] /= sum;
+      }
+    }
+    return kernel;
+  }
+}
@@ -0,0 +1,131 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.gui.EditHistory;
+import controller.gui.EditStep;
+import controller.gui.PreviewSession;
+import model.Image;
+import model.ImageModelImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link EditHistory} restores every state exactly, whether from a checkpoint, a
+ * delta or by replaying steps, and that its checkpoints stay within the memory budget.
+ */
+public class EditHistoryTest {
+  private static final EditStep BLUR = new EditStep("Blur",
+      (m, source, dest, scale) -> m.blur(source, dest));
+  private static final EditStep SEPIA = new EditStep("Sepia",
+      (m, source, dest, scale) -> m.convertToSepia(source, dest));
+  private static final EditStep FLIP = new EditStep("Flip horizontal",
+      (m, source, dest, scale) -> m.flip("horizontal", source, dest));
+  private static final EditStep SPLIT_BLUR = new EditStep("Split View blur",
+      (m, source, dest, scale) -> m.splitOperation("blur", source, dest, 20, null));
+
+  private ImageModelImpl model;
+
+  @Before
+  public void setUp() {
+    model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+  }
+
+  @Test
+  public void testUndoRedoRestoresEveryStateWithinBudget() {
+    EditStep[] steps = {BLUR, SEPIA, SPLIT_BLUR, FLIP, BLUR, SEPIA};
+    Image[] expected = new Image[steps.length + 1];
+    expected[0] = model.getImage("photo");
+    for (int i = 0; i < steps.length; i++) {
+      steps[i].apply(model, i == 0 ? "photo" : "expected" + (i - 1), "expected" + i, 1);
+      expected[i + 1] = model.getImage("expected" + i);
+    }
+
+    long fullImage = 12L * 500 * 200 + 48L * 200;
+    for (long budget : new long[]{0, 2 * fullImage, 100 * fullImage}) {
+      EditHistory history = new EditHistory(model, expected[0], 500, 200, budget);
+      for (int i = 0; i < steps.length; i++) {
+        history.record(steps[i], "step" + i, expected[i + 1], 500, 200);
+        assertTrue(history.getMemoryUsed() <= budget);
+      }
+      for (int state = steps.length - 1; state >= 0; state--) {
+        TestImages.assertSameImage(expected[state], history.undo());
+      }
+      assertFalse(history.canUndo());
+      for (int state = 1; state <= steps.length; state++) {
+        TestImages.assertSameImage(expected[state], history.redo());
+      }
+      assertFalse(history.canRedo());
+      TestImages.assertSameImage(expected[3], history.imageAt(3));
+    }
+  }
+
+  @Test
+  public void testPartialChangesAreKeptAsDeltas() {
+    Image start = model.getImage("photo");
+    SPLIT_BLUR.apply(model, "photo", "split", 1);
+    EditHistory history = new EditHistory(model, start, 500, 200, Long.MAX_VALUE);
+    history.record(SPLIT_BLUR, "split", model.getImage("split"), 500, 200);
+    assertTrue(history.hasCheckpoint(1));
+    // The patch is compressed below the three bytes per pixel of the changed half.
+    assertTrue(history.getMemoryUsed() < 3L * 500 * 200 / 2);
+
+    history.undo();
+    TestImages.assertSameImage(model.getImage("split"), history.redo());
+  }
+
+  @Test
+  public void testNewStepDiscardsRedo() {
+    EditHistory history = new EditHistory(model, model.getImage("photo"), 500, 200, 0);
+    BLUR.apply(model, "photo", "blurred", 1);
+    history.record(BLUR, "blurred", model.getImage("blurred"), 500, 200);
+    history.undo();
+    assertTrue(history.canRedo());
+    SEPIA.apply(model, "photo", "sepia", 1);
+    history.record(SEPIA, "sepia", model.getImage("sepia"), 500, 200);
+    assertFalse(history.canRedo());
+    assertEquals(1, history.size());
+    assertSame(SEPIA, history.getStep(0));
+  }
+
+  @Test
+  public void testSessionUndoesAppliedSteps() {
+    PreviewSession session = new PreviewSession(model, "photo", 100, 100, 0);
+    session.preview(BLUR, "blurred");
+    session.preview(SEPIA, "toned");
+    assertEquals("toned", session.apply());
+
+    assertEquals("blurred" + PreviewSession.PREVIEW_SUFFIX, session.undo());
+    assertEquals("blurred", session.getImageName());
+    assertFalse(session.hasPendingSteps());
+    assertEquals("photo" + PreviewSession.PREVIEW_SUFFIX, session.undo());
+    assertEquals("photo", session.getImageName());
+
+    session.redo();
+    session.preview(FLIP, "flipped");
+    assertEquals(2, session.getPendingSteps().size());
+    assertEquals("flipped", session.apply());
+
+    BLUR.apply(model, "photo", "expected-blur", 1);
+    FLIP.apply(model, "expected-blur", "expected", 1);
+    TestImages.assertSameImage(model.getImage("expected"), model.getImage("flipped"));
+  }
+
+  @Test
+  public void testSessionRewindsToOriginalWhenResultWasReplaced() {
+    PreviewSession session = new PreviewSession(model, "photo", 100, 100, 0);
+    session.preview(BLUR, "same");
+    session.preview(SEPIA, "same");
+    session.apply();
+    session.undo();
+    assertEquals("photo", session.getImageName());
+    assertEquals(1, session.getPendingSteps().size());
+    session.apply();
+
+    BLUR.apply(model, "photo", "expected", 1);
+    TestImages.assertSameImage(model.getImage("expected"), model.getImage("same"));
+  }
+}
@@ -0,0 +1,82 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.ColorMath;
+import model.Image;
+import model.histogram.Histogram;
+import model.histogram.HistogramService;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link HistogramService} counts the same as a plain sequential scan, whether the
+ * image is counted on one thread or in parallel bands, and that sampled histograms stay close.
+ */
+public class HistogramServiceTest {
+
+  @Test
+  public void testSmallImageMatchesSequentialCount() {
+    Image image = skewedImage(37, 11, 1);
+    assertMatchesSequential(image, HistogramService.compute(image));
+  }
+
+  @Test
+  public void testParallelCountMatchesSequentialCount() {
+    Image image = skewedImage(1013, 517, 2);
+    Histogram histogram = HistogramService.compute(image);
+    assertMatchesSequential(image, histogram);
+    assertFalse(histogram.isSampled());
+    assertEquals(1013L * 517, histogram.getPixels());
+  }
+
+  @Test
+  public void testSampledHistogramIsScaledEstimate() {
+    Image image = skewedImage(1000, 800, 3);
+    Histogram exact = HistogramService.compute(image);
+    Histogram sampled = HistogramService.sample(image, 50_000);
+    assertTrue(sampled.isSampled());
+    long total = 0;
+    for (int i = 0; i < Histogram.BINS; i++) {
+      total += sampled.getRed()[i];
+      assertEquals(exact.getGreen()[i], sampled.getGreen()[i], exact.getGreen()[i] * 0.35);
+    }
+    assertEquals(exact.getPixels(), total, exact.getPixels() * 0.01);
+
+    Image small = skewedImage(10, 10, 4);
+    assertFalse(HistogramService.sample(small, 100).isSampled());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSampleNeedsPositiveCount() {
+    HistogramService.sample(skewedImage(2, 2, 5), 0);
+  }
+
+  private static void assertMatchesSequential(Image image, Histogram histogram) {
+    int[][] expected = new int[4][Histogram.BINS];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int r = image.getRedChannel()[y][x];
+        int g = image.getGreenChannel()[y][x];
+        int b = image.getBlueChannel()[y][x];
+        expected[0][r]++;
+        expected[1][g]++;
+        expected[2][b]++;
+        expected[3][ColorMath.luma(r, g, b)]++;
+      }
+    }
+    assertArrayEquals(expected[0], histogram.getRed());
+    assertArrayEquals(expected[1], histogram.getGreen());
+    assertArrayEquals(expected[2], histogram.getBlue());
+    assertArrayEquals(expected[3], histogram.getLuma());
+  }
+
+  private static Image skewedImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    // A skewed distribution so that the sampled bins have very different sizes.
+    return TestImages.image(width, height, () -> (int) (255 * Math.pow(random.nextDouble(), 2)));
+  }
+}
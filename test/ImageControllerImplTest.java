@@ -3,15 +3,27 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 import controller.ImageControllerImpl;
+import model.Image;
 import model.ImageModel;
 import model.ImageModelImpl;
+import model.metrics.OperationStats;
+import model.metrics.PerformanceMonitor;
 import view.ImageViewImpl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for the {@link ImageControllerImpl} class.
@@ -807,6 +819,150 @@ public class ImageControllerImplTest {
     assertEquals(normalizeOutput(expectedOutput), normalizeOutput(outputStreamCaptor.toString()));
   }
 
+  /**
+   * Tests that the 'batch' command writes one result per input file.
+   */
+  @Test
+  public void testBatchCommand() throws IOException {
+    Path outputDir = Files.createTempDirectory("batch-output");
+
+    controller.processCommand("batch sepia " + outputDir + " resources/test_image/download.png "
+            + "resources/test_image/download.ppm resources/test_image/download.jpg");
+
+    String expectedOutput = "Batch sepia processed 3 images into " + outputDir;
+    assertEquals(normalizeOutput(expectedOutput), normalizeOutput(outputStreamCaptor.toString()));
+    assertTrue(new File(outputDir.toFile(), "download-sepia.png").exists());
+    assertTrue(new File(outputDir.toFile(), "download-sepia.ppm").exists());
+    assertTrue(new File(outputDir.toFile(), "download-sepia.jpg").exists());
+  }
+
+  /**
+   * Tests that 'batch' rejects inputs from different directories that would share an output file.
+   */
+  @Test
+  public void testBatchCommandRejectsOutputCollision() throws IOException {
+    Path outputDir = Files.createTempDirectory("batch-output");
+    Path otherDir = Files.createTempDirectory("batch-input");
+    Path copy = otherDir.resolve("download.png");
+    Files.copy(Paths.get("resources/test_image/download.png"), copy);
+
+    controller.processCommand("batch sepia " + outputDir + " resources/test_image/download.png "
+            + copy);
+
+    assertTrue(outputStreamCaptor.toString().contains("would both be saved as"));
+    assertFalse(new File(outputDir.toFile(), "download-sepia.png").exists());
+  }
+
+  /**
+   * Tests that commands and model operations are recorded and can be exported as JSON.
+   */
+  @Test
+  public void testStatsCommand() throws IOException {
+    controller.processCommand("load resources/test_image/download.png source");
+    controller.processCommand("blur source source-blur");
+    controller.processCommand("blur source-blur source-blur2");
+
+    PerformanceMonitor monitor = controller.getMonitor();
+    Map<String, OperationStats> stats = new HashMap<>();
+    for (OperationStats entry : monitor.getStats()) {
+      stats.put(entry.getName(), entry);
+    }
+    assertEquals(1, stats.get("command:load").getCount());
+    assertEquals(2, stats.get("command:blur").getCount());
+    assertEquals(2, stats.get("model:blur").getCount());
+    assertEquals(stats.get("model:blur").getPixels(), stats.get("command:blur").getPixels());
+    assertEquals(2 * stats.get("model:load").getPixels(), stats.get("model:blur").getPixels());
+    assertTrue(stats.get("command:blur").getWallNanos()
+            >= stats.get("model:blur").getWallNanos());
+
+    Path json = Files.createTempFile("stats", ".json");
+    controller.processCommand("stats json " + json);
+    String text = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+    assertTrue(text.contains("\"name\": \"command:blur\", \"count\": 2"));
+
+    controller.processCommand("stats reset");
+    assertTrue(monitor.getStats().isEmpty());
+  }
+
+  /**
+   * Tests that a stats file that cannot be written is reported as such after a script runs,
+   * rather than as a failure to read the script.
+   */
+  @Test
+  public void testRunScriptReportsStatsFileError() throws IOException {
+    Path script = Files.createTempFile("stats-script", ".txt");
+    Files.write(script, "load resources/test_image/download.png source\n"
+            .getBytes(StandardCharsets.UTF_8));
+    Path directory = Files.createTempDirectory("stats");
+    System.setProperty(ImageControllerImpl.STATS_FILE_PROPERTY, directory.toString());
+    try {
+      controller.runScript(script.toString());
+    } finally {
+      System.clearProperty(ImageControllerImpl.STATS_FILE_PROPERTY);
+    }
+    String output = outputStreamCaptor.toString();
+    assertTrue(output.contains("Script executed successfully."));
+    assertTrue(output.contains("Error writing stats file: "));
+    assertFalse(output.contains("Error reading script file"));
+  }
+
+  /**
+   * Tests that 'load --max' shrinks every format to fit the bounds while keeping the aspect
+   * ratio, leaves images that already fit unchanged, and combines with '--region' and 'crop'.
+   */
+  @Test
+  public void testLoadWithMaxSize() {
+    ImageModel model = new ImageModelImpl();
+    ImageControllerImpl sizedController = new ImageControllerImpl(model, new ImageViewImpl());
+    sizedController.processCommand("load resources/test_image/download.png png --max 100x100");
+    assertEquals(100, model.getImage("png").getWidth());
+    assertEquals(40, model.getImage("png").getHeight());
+    sizedController.processCommand("load resources/test_image/download.jpg jpg --max 100x100");
+    assertEquals(100, model.getImage("jpg").getWidth());
+    assertEquals(67, model.getImage("jpg").getHeight());
+    sizedController.processCommand("load resources/test_image/download.ppm ppm --max 2x3");
+    assertEquals(2, model.getImage("ppm").getWidth());
+    assertEquals(2, model.getImage("ppm").getHeight());
+    sizedController.processCommand("load resources/test_image/download.png full --max 800x600");
+    assertEquals(500, model.getImage("full").getWidth());
+    assertEquals(200, model.getImage("full").getHeight());
+
+    sizedController.processCommand("load resources/test_image/download.png patch "
+            + "--region 100 50 200 100 --max 50x50");
+    assertEquals(50, model.getImage("patch").getWidth());
+    assertEquals(25, model.getImage("patch").getHeight());
+    sizedController.processCommand("crop 10 5 20 15 full full-crop");
+    assertEquals(20, model.getImage("full-crop").getWidth());
+    assertEquals(15, model.getImage("full-crop").getHeight());
+
+    sizedController.processCommand("load resources/test_image/download.png bad --max 100");
+    assertTrue(outputStreamCaptor.toString().contains("Invalid maximum size"));
+    assertFalse(model.imageExists("bad"));
+  }
+
+  /**
+   * Tests that 'color-matrix' composes a custom matrix with a named one, so that swapping red and
+   * green before sepia weighs green with the sepia red weight.
+   */
+  @Test
+  public void testColorMatrixCommand() {
+    ImageModel model = new ImageModelImpl();
+    ImageControllerImpl matrixController = new ImageControllerImpl(model, new ImageViewImpl());
+    matrixController.processCommand("load resources/test_image/download.png source");
+    matrixController.processCommand("color-matrix source swapped 0 1 0 0 1 0 0 0 0 0 1 0 sepia");
+    assertTrue(outputStreamCaptor.toString().contains("Applied 2 color matrix steps to source"));
+
+    Image source = model.getImage("source");
+    Image swapped = model.getImage("swapped");
+    for (int x = 0; x < source.getWidth(); x += 37) {
+      int r = source.getRedChannel()[0][x];
+      int g = source.getGreenChannel()[0][x];
+      int b = source.getBlueChannel()[0][x];
+      int expected = Math.min(255, (int) (0.393 * g + 0.769 * r + 0.189 * b));
+      assertTrue(Math.abs(expected - swapped.getRedChannel()[0][x]) <= 1);
+    }
+  }
+
   /**
    * Restores the original standard output after each test case is run.
    */
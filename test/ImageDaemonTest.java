@@ -0,0 +1,243 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import controller.daemon.ImageDaemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the {@link ImageDaemon} socket protocol.
+ */
+public class ImageDaemonTest {
+
+  private ImageDaemon daemon;
+
+  @Before
+  public void setUp() throws IOException {
+    daemon = new ImageDaemon(0);
+    daemon.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    daemon.close();
+  }
+
+  /**
+   * Reads one dot-terminated response from the daemon.
+   *
+   * @param reader the reader connected to the daemon.
+   * @return the response lines joined by newlines.
+   * @throws IOException if reading fails.
+   */
+  private String readResponse(BufferedReader reader) throws IOException {
+    StringBuilder response = new StringBuilder();
+    String line;
+    while (!(line = reader.readLine()).equals(".")) {
+      if (response.length() > 0) {
+        response.append('\n');
+      }
+      response.append(line);
+    }
+    return response.toString();
+  }
+
+  private void send(OutputStream out, String command) throws IOException {
+    out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private void authenticate(BufferedReader in, OutputStream out) throws IOException {
+    assertEquals("Image daemon ready.", readResponse(in));
+    send(out, daemon.getToken());
+    assertEquals("Authenticated.", readResponse(in));
+  }
+
+  /**
+   * Reads everything the daemon sends until it closes the connection. A reset is treated as
+   * the end, since the daemon may close before reading all of the client's bytes.
+   *
+   * @param reader the reader connected to the daemon.
+   * @return the lines read, joined by newlines.
+   */
+  private String readUntilClosed(BufferedReader reader) {
+    StringBuilder text = new StringBuilder();
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        text.append(line).append('\n');
+      }
+    } catch (IOException e) {
+      // The daemon reset the connection after closing it.
+    }
+    return text.toString();
+  }
+
+  /**
+   * Tests that commands run in a session and that each session has its own images.
+   */
+  @Test
+  public void testCommandsAndSessionNamespaces() throws IOException {
+    try (Socket first = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+         Socket second = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader firstIn = new BufferedReader(new InputStreamReader(
+              first.getInputStream(), StandardCharsets.UTF_8));
+      BufferedReader secondIn = new BufferedReader(new InputStreamReader(
+              second.getInputStream(), StandardCharsets.UTF_8));
+      authenticate(firstIn, first.getOutputStream());
+      authenticate(secondIn, second.getOutputStream());
+
+      send(first.getOutputStream(), "load resources/test_image/download.png img");
+      assertEquals("Loaded image: img", readResponse(firstIn));
+      send(first.getOutputStream(), "brighten 10 img img-bright");
+      assertEquals("Brightened image by 10: img-bright", readResponse(firstIn));
+
+      send(second.getOutputStream(), "histogram img img-hist");
+      assertEquals("Error executing command: histogram - Image not found: img",
+              readResponse(secondIn));
+
+      send(first.getOutputStream(), "quit");
+      assertEquals("Goodbye.", readResponse(firstIn));
+    }
+  }
+
+  /**
+   * Tests that an uploaded image can be processed in the same session.
+   */
+  @Test
+  public void testUpload() throws IOException {
+    byte[] data = Files.readAllBytes(Path.of("resources/test_image/download.png"));
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      authenticate(in, out);
+
+      send(out, "upload uploaded png " + data.length);
+      out.write(data);
+      out.flush();
+      assertEquals("Uploaded image: uploaded", readResponse(in));
+
+      send(out, "sepia uploaded uploaded-sepia");
+      assertEquals("sepia applied to: uploaded-sepia", readResponse(in));
+    }
+  }
+
+  /**
+   * Tests that a command line longer than the limit is rejected and ends the session.
+   */
+  @Test
+  public void testOverlongLineClosesSession() throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      authenticate(in, out);
+
+      byte[] line = new byte[64 * 1024 + 1];
+      Arrays.fill(line, (byte) 'a');
+      out.write(line);
+      out.flush();
+      assertEquals("Error: Command line exceeds 65536 bytes; closing connection.",
+              readResponse(in));
+      assertNull(in.readLine());
+    }
+  }
+
+  /**
+   * Tests that a client sending the wrong token cannot run commands.
+   */
+  @Test
+  public void testWrongTokenClosesSession() throws IOException {
+    Path output = Files.createTempFile("daemon-token", ".png");
+    Files.delete(output);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      assertEquals("Image daemon ready.", readResponse(in));
+
+      send(out, "load resources/test_image/download.png img");
+      send(out, "save " + output + " img");
+      assertEquals("Error: Invalid session token; closing connection.\n.\n",
+              readUntilClosed(in));
+    }
+    assertFalse(Files.exists(output));
+  }
+
+  /**
+   * Tests that an HTTP request sent by a browser runs none of the commands in its body, even
+   * after the token.
+   */
+  @Test
+  public void testHttpRequestRunsNothing() throws IOException {
+    Path output = Files.createTempFile("daemon-http", ".png");
+    Files.delete(output);
+    String body = "load resources/test_image/download.png img\nsave " + output + " img\n";
+    String request = "POST / HTTP/1.1\r\nHost: 127.0.0.1:" + daemon.getPort()
+            + "\r\nContent-Type: text/plain\r\nContent-Length: " + body.length()
+            + "\r\n\r\n" + body;
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      send(socket.getOutputStream(), request);
+      assertEquals("Image daemon ready.\n.\n"
+              + "Error: Invalid session token; closing connection.\n.\n", readUntilClosed(in));
+    }
+    assertFalse(Files.exists(output));
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      authenticate(in, out);
+      send(out, request);
+      assertEquals("Error: HTTP requests are not accepted; closing connection.\n.\n",
+              readUntilClosed(in));
+    }
+    assertFalse(Files.exists(output));
+  }
+
+  /**
+   * Tests that a header line or an unknown command ends the session instead of being skipped.
+   */
+  @Test
+  public void testUnknownCommandClosesSession() throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      authenticate(in, out);
+
+      send(out, "Accept: */*");
+      assertEquals("Error: HTTP requests are not accepted; closing connection.\n.\n",
+              readUntilClosed(in));
+    }
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(
+              socket.getInputStream(), StandardCharsets.UTF_8));
+      OutputStream out = socket.getOutputStream();
+      authenticate(in, out);
+
+      send(out, "fetch something");
+      send(out, "load resources/test_image/download.png img");
+      assertEquals("Error: Unknown command: fetch; closing connection.\n.\n",
+              readUntilClosed(in));
+    }
+  }
+}
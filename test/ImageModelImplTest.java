@@ -1,8 +1,19 @@
+import model.BufferedImageConverter;
 import model.Image;
 import model.ImageModelImpl;
+import model.factory.LoadOptions;
+import model.histogram.HistogramRenderer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -297,6 +308,29 @@ public class ImageModelImplTest {
             actualImage.getGreenChannel(), actualImage.getBlueChannel());
   }
 
+  @Test
+  public void testHistogramRendererMatchesGolden() {
+    model.load("resources/test_image/download.png", "download-png");
+    model.histogram("download-png", "download-histogram");
+    model.load("test/test_image/Output_png/download-histogram.png", "golden-histogram");
+
+    Image expected = model.getImage("golden-histogram");
+    Image actual = new BufferedImageConverter().toCustomImage(
+            model.getProcessedImage("download-histogram"));
+    assertImageEquals(expected.getRedChannel(), expected.getGreenChannel(),
+            expected.getBlueChannel(), actual.getRedChannel(), actual.getGreenChannel(),
+            actual.getBlueChannel());
+
+    // Drawn at another size, the graph scales to fill the area.
+    int[][] histograms = model.getImage("download-png").getStatistics().getHistogram().getRgb();
+    BufferedImage wide = new BufferedImage(512, 128, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = wide.createGraphics();
+    HistogramRenderer.draw(g, histograms, 512, 128);
+    g.dispose();
+    assertEquals(Color.LIGHT_GRAY.getRGB(), wide.getRGB(256, 5));
+    assertEquals(Color.WHITE.getRGB(), wide.getRGB(300, 2));
+  }
+
   @Test
   public void testColorCorrectionPNG() {
     model.load("resources/test_image/download.png", "download-png");
@@ -711,4 +745,77 @@ public class ImageModelImplTest {
     }
   }
 
+
+  /**
+   * Tests that loading a region decodes the same pixels as loading the whole file and cropping,
+   * for PNG, JPG, plain PPM and binary PPM files.
+   */
+  @Test
+  public void testRegionLoadMatchesCrop() throws IOException {
+    Path binary = Files.createTempFile("region", ".ppm");
+    try {
+      model.load("resources/test_image/download.png", "full");
+      Image full = model.getImage("full");
+      writeBinaryPPM(binary, full);
+      model.load(binary.toString(), "binary-full");
+      assertPixelsEqual(full, model.getImage("binary-full"));
+
+      model.cropImage(120, 30, 57, 41, "full", "cropped");
+      model.load("resources/test_image/download.png", "png-region",
+              LoadOptions.NONE.withRegion(120, 30, 57, 41));
+      assertPixelsEqual(model.getImage("cropped"), model.getImage("png-region"));
+      model.load(binary.toString(), "binary-region",
+              LoadOptions.NONE.withRegion(120, 30, 57, 41));
+      assertPixelsEqual(model.getImage("cropped"), model.getImage("binary-region"));
+
+      model.load(binary.toString(), "binary-thumb", LoadOptions.maxSize(100, 100));
+      assertEquals(100, model.getImage("binary-thumb").getWidth());
+      assertEquals(40, model.getImage("binary-thumb").getHeight());
+
+      model.load("resources/test_image/download.jpg", "jpg");
+      model.cropImage(10, 20, 30, 40, "jpg", "jpg-cropped");
+      model.load("resources/test_image/download.jpg", "jpg-region",
+              LoadOptions.NONE.withRegion(10, 20, 30, 40));
+      assertPixelsEqual(model.getImage("jpg-cropped"), model.getImage("jpg-region"));
+
+      model.load("resources/test_image/download.ppm", "ppm");
+      model.cropImage(1, 2, 3, 2, "ppm", "ppm-cropped");
+      model.load("resources/test_image/download.ppm", "ppm-region",
+              LoadOptions.NONE.withRegion(1, 2, 3, 2));
+      assertPixelsEqual(model.getImage("ppm-cropped"), model.getImage("ppm-region"));
+    } finally {
+      Files.deleteIfExists(binary);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutsideImage() {
+    model.load("resources/test_image/download.ppm", "ppm");
+    model.cropImage(2, 2, 3, 3, "ppm", "ppm-cropped");
+  }
+
+  private static void writeBinaryPPM(Path path, Image image) throws IOException {
+    byte[] header = ("P6\n# region test\n" + image.getWidth() + " " + image.getHeight()
+            + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+    byte[] pixels = new byte[image.getWidth() * image.getHeight() * 3];
+    int index = 0;
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        pixels[index++] = (byte) image.getRedChannel()[y][x];
+        pixels[index++] = (byte) image.getGreenChannel()[y][x];
+        pixels[index++] = (byte) image.getBlueChannel()[y][x];
+      }
+    }
+    byte[] file = Arrays.copyOf(header, header.length + pixels.length);
+    System.arraycopy(pixels, 0, file, header.length, pixels.length);
+    Files.write(path, file);
+  }
+
+  private void assertPixelsEqual(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertImageEquals(expected.getRedChannel(), expected.getGreenChannel(),
+            expected.getBlueChannel(), actual.getRedChannel(), actual.getGreenChannel(),
+            actual.getBlueChannel());
+  }
 }
@@ -0,0 +1,70 @@
+import org.junit.Test;
+
+import model.Image;
+import model.ImageModelImpl;
+import model.histogram.HistogramService;
+import model.histogram.ImageStatistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the statistics images compute once and keep, and the statistics derived for the results
+ * of lookup-table operations.
+ */
+public class ImageStatisticsTest {
+
+  @Test
+  public void testStatisticsOfKnownImage() {
+    int[][] red = {{0, 10}, {10, 250}};
+    int[][] green = {{5, 5}, {5, 5}};
+    int[][] blue = {{1, 2}, {3, 4}};
+    ImageStatistics statistics = new Image(2, 2, red, green, blue).getStatistics();
+    assertEquals(0, statistics.getMin(ImageStatistics.RED));
+    assertEquals(250, statistics.getMax(ImageStatistics.RED));
+    assertEquals(67.5, statistics.getMean(ImageStatistics.RED), 1e-9);
+    assertEquals(10, statistics.getPeak(ImageStatistics.RED));
+    assertEquals(5, statistics.getMin(ImageStatistics.GREEN));
+    assertEquals(5, statistics.getPeak(ImageStatistics.GREEN));
+    assertEquals(1, statistics.getPeak(ImageStatistics.BLUE));
+    assertEquals(2.5, statistics.getMean(ImageStatistics.BLUE), 1e-9);
+  }
+
+  @Test
+  public void testStatisticsAreComputedOnce() {
+    Image image = new Image(1, 1, new int[][]{{1}}, new int[][]{{2}}, new int[][]{{3}});
+    assertFalse(image.hasStatistics());
+    ImageStatistics statistics = image.getStatistics();
+    assertTrue(image.hasStatistics());
+    assertSame(statistics, image.getStatistics());
+  }
+
+  @Test
+  public void testBrightenDerivesStatisticsWithoutScan() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "source");
+    model.getImage("source").getStatistics();
+    model.brighten(60, "source", "bright");
+
+    Image bright = model.getImage("bright");
+    assertTrue(bright.hasStatistics());
+    ImageStatistics derived = bright.getStatistics();
+    assertFalse(derived.getHistogram().hasLuma());
+    assertArrayEquals(HistogramService.compute(bright).getRgb(), derived.getHistogram().getRgb());
+
+    model.brighten(-30, "bright", "dim");
+    assertArrayEquals(HistogramService.compute(model.getImage("dim")).getRgb(),
+            model.getImage("dim").getStatistics().getHistogram().getRgb());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMapRejectsOutOfRangeTable() {
+    Image image = new Image(1, 1, new int[][]{{1}}, new int[][]{{2}}, new int[][]{{3}});
+    int[] table = new int[256];
+    table[7] = 256;
+    image.getStatistics().map(table);
+  }
+}
@@ -0,0 +1,151 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.gui.EditStep;
+import controller.gui.LivePreview;
+import model.Image;
+import model.ImageModelImpl;
+import model.ImageUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link LivePreview} coalesces requests, drops superseded results and runs steps on
+ * a reduced copy of the image.
+ */
+public class LivePreviewTest {
+  private final List<EditStep> delivered = new CopyOnWriteArrayList<>();
+  private final List<Image> results = new CopyOnWriteArrayList<>();
+  private final List<String> failures = new CopyOnWriteArrayList<>();
+  private final CountDownLatch deliveries = new CountDownLatch(1);
+  private Image photo;
+  private LivePreview preview;
+
+  @Before
+  public void setUp() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+    photo = model.getImage("photo");
+  }
+
+  @After
+  public void tearDown() {
+    if (preview != null) {
+      preview.shutdown();
+    }
+  }
+
+  @Test
+  public void testRequestsAreCoalesced() throws InterruptedException {
+    preview = create(200, 1 << 20);
+    AtomicInteger runs = new AtomicInteger();
+    EditStep last = null;
+    for (int value = 0; value < 20; value++) {
+      int percent = value;
+      last = new EditStep("Compression " + percent, (m, source, dest, scale) -> {
+        runs.incrementAndGet();
+        m.compress(percent, source, dest);
+      });
+      preview.request(photo, 1, last);
+    }
+    assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+    Thread.sleep(100);
+    assertEquals(1, runs.get());
+    assertEquals(1, delivered.size());
+    assertSame(last, delivered.get(0));
+    assertFalse(preview.isPending());
+  }
+
+  @Test
+  public void testSupersededComputationIsDropped() throws InterruptedException {
+    preview = create(0, 1 << 20);
+    CountDownLatch started = new CountDownLatch(1);
+    EditStep slow = new EditStep("Slow", (m, source, dest, scale) -> {
+      started.countDown();
+      try {
+        Thread.sleep(300);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      m.blur(source, dest);
+    });
+    EditStep fast = new EditStep("Sepia", (m, source, dest, scale) ->
+        m.convertToSepia(source, dest));
+    preview.request(photo, 1, slow);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    preview.request(photo, 1, fast);
+    assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+    Thread.sleep(400);
+    assertEquals(1, delivered.size());
+    assertSame(fast, delivered.get(0));
+  }
+
+  @Test
+  public void testStepsRunOnReducedCopy() throws InterruptedException {
+    preview = create(0, 10000);
+    EditStep sepia = new EditStep("Sepia", (m, source, dest, scale) ->
+        m.convertToSepia(source, dest));
+    preview.request(photo, 1, sepia);
+    assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+    Image result = results.get(0);
+    assertTrue((long) result.getWidth() * result.getHeight() <= 10000);
+    assertEquals(158, result.getWidth());
+
+    ImageModelImpl expected = new ImageModelImpl();
+    expected.putImage("small", ImageUtils.downscale(photo, result.getWidth(),
+            result.getHeight()));
+    sepia.apply(expected, "small", "toned", 1);
+    for (int y = 0; y < result.getHeight(); y++) {
+      assertArrayEquals(expected.getImage("toned").getRedChannel()[y],
+              result.getRedChannel()[y]);
+    }
+  }
+
+  @Test
+  public void testRejectedParametersAreReported() throws InterruptedException {
+    preview = create(0, 1 << 20);
+    preview.request(photo, 1, new EditStep("Adjust Levels", (m, source, dest, scale) ->
+        m.levelsAdjust(200, 100, 50, source, dest)));
+    assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+    assertEquals(1, failures.size());
+    assertTrue(delivered.isEmpty());
+  }
+
+  @Test
+  public void testCancelDropsPendingRequest() throws InterruptedException {
+    preview = create(100, 1 << 20);
+    preview.request(photo, 1, new EditStep("Blur", (m, source, dest, scale) ->
+        m.blur(source, dest)));
+    preview.cancel();
+    assertFalse(deliveries.await(300, TimeUnit.MILLISECONDS));
+    assertTrue(delivered.isEmpty());
+  }
+
+  private LivePreview create(long delay, int maxPixels) {
+    return new LivePreview(new ImageModelImpl(), new LivePreview.Listener() {
+      @Override
+      public void previewReady(Image image, EditStep step) {
+        results.add(image);
+        delivered.add(step);
+        deliveries.countDown();
+      }
+
+      @Override
+      public void previewFailed(String message, EditStep step) {
+        failures.add(message);
+        deliveries.countDown();
+      }
+    }, Runnable::run, delay, maxPixels);
+  }
+}
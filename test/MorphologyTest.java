@@ -0,0 +1,126 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.BinaryMask;
+import model.Image;
+import model.ImageModelImpl;
+import model.Morphology;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link BinaryMask} morphology against the pixel-by-pixel definitions.
+ */
+public class MorphologyTest {
+
+  private static final int[][] ELEMENTS = {{1, 1}, {3, 3}, {4, 2}, {7, 1}, {1, 9}, {20, 5},
+      {130, 3}};
+
+  @Test
+  public void testErodeAndDilateMatchDefinitions() {
+    int[][] sizes = {{1, 1}, {63, 5}, {64, 17}, {65, 40}, {130, 23}};
+    for (int[] size : sizes) {
+      for (double density : new double[]{0.2, 0.9}) {
+        BinaryMask mask = randomMask(size[0], size[1], density);
+        for (int[] element : ELEMENTS) {
+          int w = element[0];
+          int h = element[1];
+          String label = size[0] + "x" + size[1] + " with " + w + "x" + h;
+          assertSame(label, erode(mask, w, h), mask.erode(w, h));
+          assertSame(label, dilate(mask, w, h), mask.dilate(w, h));
+          assertSame(label, dilate(erode(mask, w, h), w, h), mask.open(w, h));
+          assertSame(label, erode(dilate(mask, w, h), w, h), mask.close(w, h));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMaskImageRoundTrip() {
+    int[][] red = {{0, 255, 10}, {0, 0, 255}};
+    Image image = new Image(3, 2, red, red, red);
+    BinaryMask mask = BinaryMask.of(image);
+    assertEquals(3, mask.count());
+    assertTrue(mask.get(0, 1));
+    assertFalse(mask.get(2, 0));
+    Image back = mask.toImage();
+    assertEquals(0, back.getRedChannel()[1][1]);
+    assertEquals(255, back.getBlueChannel()[0][2]);
+  }
+
+  @Test
+  public void testDilateGrowsMaskedArea() {
+    int[][] white = new int[9][9];
+    for (int[] row : white) {
+      java.util.Arrays.fill(row, 255);
+    }
+    white[4][4] = 0;
+    ImageModelImpl model = new ImageModelImpl();
+    model.putImage("mask", new Image(9, 9, white, white, white));
+    model.applyOperation(Morphology.named("dilate", 3, 5), "mask", "grown");
+    BinaryMask grown = BinaryMask.of(model.getImage("grown"));
+    assertEquals(15, grown.count());
+    assertTrue(grown.get(3, 2));
+    assertFalse(grown.get(2, 4));
+    assertEquals("open", Morphology.named("open", 3, 5).getName());
+    model.applyOperation(Morphology.named("open", 3, 5), "grown", "opened");
+    assertEquals(15, BinaryMask.of(model.getImage("opened")).count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyElementRejected() {
+    Morphology.named("erode", 0, 3);
+  }
+
+  private static BinaryMask erode(BinaryMask mask, int w, int h) {
+    return naive(mask, -(w - 1) / 2, w / 2, -(h - 1) / 2, h / 2, true);
+  }
+
+  private static BinaryMask dilate(BinaryMask mask, int w, int h) {
+    return naive(mask, -w / 2, (w - 1) / 2, -h / 2, (h - 1) / 2, false);
+  }
+
+  private static BinaryMask naive(BinaryMask mask, int left, int right, int top, int bottom,
+                                  boolean and) {
+    BinaryMask result = new BinaryMask(mask.getWidth(), mask.getHeight());
+    for (int y = 0; y < mask.getHeight(); y++) {
+      for (int x = 0; x < mask.getWidth(); x++) {
+        boolean value = and;
+        for (int dy = top; dy <= bottom; dy++) {
+          for (int dx = left; dx <= right; dx++) {
+            int sx = x + dx;
+            int sy = y + dy;
+            if (sx >= 0 && sy >= 0 && sx < mask.getWidth() && sy < mask.getHeight()) {
+              value = and ? value && mask.get(sx, sy) : value || mask.get(sx, sy);
+            }
+          }
+        }
+        result.set(x, y, value);
+      }
+    }
+    return result;
+  }
+
+  private static void assertSame(String label, BinaryMask expected, BinaryMask actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(label + " at " + x + "," + y, expected.get(x, y), actual.get(x, y));
+      }
+    }
+    assertEquals(label, expected.count(), actual.count());
+  }
+
+  private static BinaryMask randomMask(int width, int height, double density) {
+    Random random = new Random(width * 131L + height);
+    BinaryMask mask = new BinaryMask(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        mask.set(x, y, random.nextDouble() < density);
+      }
+    }
+    return mask;
+  }
+}
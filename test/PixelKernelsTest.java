@@ -0,0 +1,106 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.kernel.PixelKernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that every {@link PixelKernels} backend produces exactly the same results as the scalar
+ * reference, including at the image edges and for out-of-range input.
+ */
+public class PixelKernelsTest {
+  private final PixelKernels scalar = PixelKernels.named("scalar");
+  private final PixelKernels vectorized = PixelKernels.named("vectorized");
+  private final Random random = new Random(7);
+
+  @Test
+  public void testAddMatches() {
+    int[] source = randomRow(1000, -50, 300);
+    for (int amount : new int[]{-300, -10, 0, 10, 300}) {
+      assertArrayEquals(run(scalar, source, amount), run(vectorized, source, amount));
+    }
+    int[] dest = new int[3];
+    scalar.add(new int[]{250, 5, 100}, dest, 10, 3);
+    assertArrayEquals(new int[]{255, 15, 110}, dest);
+  }
+
+  @Test
+  public void testLookupMatches() {
+    int[] table = randomRow(256, 0, 256);
+    int[] source = randomRow(1000, -20, 280);
+    int[] expected = new int[source.length];
+    int[] actual = new int[source.length];
+    scalar.lookup(source, expected, table, source.length);
+    vectorized.lookup(source, actual, table, source.length);
+    assertArrayEquals(expected, actual);
+
+    scalar.lookup(new int[]{-5, 300}, actual, table, 2);
+    assertEquals(table[0], actual[0]);
+    assertEquals(table[255], actual[1]);
+  }
+
+  @Test
+  public void testColorMatrixMatches() {
+    int length = 777;
+    int[] red = randomRow(length, 0, 256);
+    int[] green = randomRow(length, 0, 256);
+    int[] blue = randomRow(length, 0, 256);
+    int[] matrix = randomRow(12, -(1 << 17), 1 << 17);
+    int[][] expected = new int[3][length];
+    int[][] actual = new int[3][length];
+    scalar.colorMatrix(red, green, blue, expected[0], expected[1], expected[2], matrix, length);
+    vectorized.colorMatrix(red, green, blue, actual[0], actual[1], actual[2], matrix, length);
+    for (int c = 0; c < 3; c++) {
+      assertArrayEquals(expected[c], actual[c]);
+    }
+  }
+
+  @Test
+  public void testConvolveRowMatches() {
+    int[][] sizes = {{1, 1}, {2, 3}, {5, 4}, {64, 37}};
+    for (int[] size : sizes) {
+      int[][] channel = new int[size[1]][];
+      for (int y = 0; y < channel.length; y++) {
+        channel[y] = randomRow(size[0], 0, 256);
+      }
+      for (int radius = 0; radius <= 3; radius++) {
+        float[][] kernel = new float[2 * radius + 1][2 * radius + 1];
+        for (float[] row : kernel) {
+          for (int i = 0; i < row.length; i++) {
+            row[i] = random.nextFloat() - 0.3f;
+          }
+        }
+        for (int y = 0; y < channel.length; y++) {
+          int[] expected = new int[size[0]];
+          int[] actual = new int[size[0]];
+          scalar.convolveRow(channel, y, kernel, expected);
+          vectorized.convolveRow(channel, y, kernel, actual);
+          assertArrayEquals("size " + size[0] + "x" + size[1] + " radius " + radius + " row " + y,
+                  expected, actual);
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownBackend() {
+    PixelKernels.named("gpu");
+  }
+
+  private int[] run(PixelKernels kernels, int[] source, int amount) {
+    int[] dest = new int[source.length];
+    kernels.add(source, dest, amount, source.length);
+    return dest;
+  }
+
+  private int[] randomRow(int length, int min, int max) {
+    int[] row = new int[length];
+    for (int i = 0; i < length; i++) {
+      row[i] = min + random.nextInt(max - min);
+    }
+    return row;
+  }
+}
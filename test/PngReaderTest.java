@@ -0,0 +1,109 @@
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import model.PngReader;
+import model.PngWriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link PngReader} decodes the same pixels as the standard decoder.
+ */
+public class PngReaderTest {
+
+  private void assertDecodesLikeImageIO(byte[] png) throws IOException {
+    BufferedImage expected = ImageIO.read(new ByteArrayInputStream(png));
+    int width = expected.getWidth();
+    int height = expected.getHeight();
+    int[] expectedPixels = expected.getRGB(0, 0, width, height, null, 0, width);
+    for (int i = 0; i < expectedPixels.length; i++) {
+      expectedPixels[i] &= 0xFFFFFF;
+    }
+
+    PngReader reader = new PngReader(new ByteArrayInputStream(png));
+    assertTrue(reader.isSupported());
+    assertEquals(width, reader.getWidth());
+    assertEquals(height, reader.getHeight());
+    // Read in uneven strips to cross strip boundaries at arbitrary rows.
+    int[] actualPixels = new int[width * height];
+    int[] strip = new int[width * 7];
+    for (int top = 0; top < height; top += 7) {
+      int rows = Math.min(7, height - top);
+      reader.readRows(rows, strip);
+      System.arraycopy(strip, 0, actualPixels, top * width, rows * width);
+    }
+    assertArrayEquals(expectedPixels, actualPixels);
+  }
+
+  private byte[] encode(BufferedImage image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+
+  private BufferedImage source() throws IOException {
+    return ImageIO.read(new File("resources/test_image/download.png"));
+  }
+
+  private BufferedImage convert(BufferedImage image, int type) {
+    BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+    converted.getGraphics().drawImage(image, 0, 0, null);
+    return converted;
+  }
+
+  /**
+   * Tests 8-bit and 4-bit indexed images from the test resources.
+   */
+  @Test
+  public void testIndexedImages() throws IOException {
+    for (String path : new String[]{"resources/test_image/download.png",
+        "test/test_image/Output_png/download-histogram.png"}) {
+      try (InputStream in = new FileInputStream(path)) {
+        assertDecodesLikeImageIO(in.readAllBytes());
+      }
+    }
+  }
+
+  /**
+   * Tests truecolor output of the streaming writer, whose rows use every filter type and span
+   * several IDAT chunks.
+   */
+  @Test
+  public void testTruecolorImages() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new PngWriter(6, 3).write(source(), out);
+    assertDecodesLikeImageIO(out.toByteArray());
+    assertDecodesLikeImageIO(encode(convert(source(), BufferedImage.TYPE_INT_RGB)));
+  }
+
+  /**
+   * Tests that alpha is dropped from truecolor images with an alpha channel.
+   */
+  @Test
+  public void testAlphaIsDropped() throws IOException {
+    BufferedImage image = convert(source(), BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(0, 0, 0x10203040);
+    assertDecodesLikeImageIO(encode(image));
+  }
+
+  /**
+   * Tests that greyscale images are reported as unsupported so callers fall back to ImageIO.
+   */
+  @Test
+  public void testGreyscaleIsUnsupported() throws IOException {
+    byte[] png = encode(convert(source(), BufferedImage.TYPE_BYTE_GRAY));
+    assertFalse(new PngReader(new ByteArrayInputStream(png)).isSupported());
+  }
+}
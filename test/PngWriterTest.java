@@ -0,0 +1,76 @@
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import model.BufferedImageConverter;
+import model.Image;
+import model.ImageModelImpl;
+import model.PngWriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link PngWriter} output decodes to the original pixels with the standard decoder.
+ */
+public class PngWriterTest {
+
+  private Image loadSource() {
+    ImageModelImpl model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "source");
+    return model.getImage("source");
+  }
+
+  private Image roundTrip(PngWriter writer, Image image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.write(image, out);
+    BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    return new BufferedImageConverter().toCustomImage(decoded);
+  }
+
+  private void assertImageEquals(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      assertArrayEquals(expected.getRedChannel()[i], actual.getRedChannel()[i]);
+      assertArrayEquals(expected.getGreenChannel()[i], actual.getGreenChannel()[i]);
+      assertArrayEquals(expected.getBlueChannel()[i], actual.getBlueChannel()[i]);
+    }
+  }
+
+  /**
+   * Tests every compression level with many small row groups, so that the output joins many
+   * deflate segments primed with dictionaries.
+   */
+  @Test
+  public void testLosslessAtAllLevels() throws IOException {
+    Image source = loadSource();
+    for (int level = 0; level <= 9; level++) {
+      assertImageEquals(source, roundTrip(new PngWriter(level, 3), source));
+    }
+    assertImageEquals(source, roundTrip(new PngWriter(), source));
+  }
+
+  /**
+   * Tests that higher levels compress better and that a single-row image is handled.
+   */
+  @Test
+  public void testCompressionLevelAndTinyImage() throws IOException {
+    Image source = loadSource();
+    ByteArrayOutputStream stored = new ByteArrayOutputStream();
+    ByteArrayOutputStream best = new ByteArrayOutputStream();
+    new PngWriter(0).write(source, stored);
+    new PngWriter(9).write(source, best);
+    assertTrue(best.size() < stored.size());
+
+    Image tiny = new Image(2, 1, new int[][]{{255, 0}}, new int[][]{{10, 20}},
+            new int[][]{{0, 255}});
+    assertImageEquals(tiny, roundTrip(new PngWriter(6), tiny));
+  }
+}
@@ -0,0 +1,98 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.gui.EditStep;
+import controller.gui.PreviewSession;
+import model.BufferedImageConverter;
+import model.Image;
+import model.ImageModelImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link PreviewSession} runs steps on a display-sized proxy and replays them at full
+ * resolution with the same result as running them directly.
+ */
+public class PreviewSessionTest {
+  private static final EditStep BLUR = new EditStep("Blur",
+      (m, source, dest, scale) -> m.blur(source, dest));
+  private static final EditStep LEVELS = new EditStep("Adjust Levels",
+      (m, source, dest, scale) -> m.levelsAdjust(20, 100, 230, source, dest));
+
+  private ImageModelImpl model;
+
+  @Before
+  public void setUp() {
+    model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+  }
+
+  @Test
+  public void testStepsRunOnProxyUntilApplied() {
+    PreviewSession session = new PreviewSession(model, "photo", 100, 100);
+    Image proxy = model.getImage(session.getPreviewName());
+    assertEquals(100, proxy.getWidth());
+    assertEquals(40, proxy.getHeight());
+    assertEquals(0.2, session.getScale(), 1e-9);
+
+    String shown = session.preview(LEVELS, "levelled");
+    session.preview(BLUR, "blurred");
+    assertEquals("levelled" + PreviewSession.PREVIEW_SUFFIX, shown);
+    assertEquals(100, model.getImage(session.getPreviewName()).getWidth());
+    assertFalse(model.imageExists("blurred"));
+    assertTrue(session.hasPendingSteps());
+    assertEquals(500, session.getWidth());
+
+    assertEquals("blurred", session.apply());
+    assertFalse(session.hasPendingSteps());
+
+    model.levelsAdjust(20, 100, 230, "photo", "expected-levels");
+    model.putImage("expected-levels", new BufferedImageConverter()
+            .toCustomImage(model.getProcessedImage("expected-levels")));
+    model.blur("expected-levels", "expected");
+    TestImages.assertSameImage(model.getImage("expected"), model.getImage("blurred"));
+  }
+
+  @Test
+  public void testSmallImageRunsAtFullResolution() {
+    PreviewSession session = new PreviewSession(model, "photo", 1000, 1000);
+    assertEquals("photo", session.getPreviewName());
+    assertEquals("blurred", session.preview(BLUR, "blurred"));
+    assertFalse(session.hasPendingSteps());
+    model.blur("photo", "expected");
+    TestImages.assertSameImage(model.getImage("expected"), model.getImage("blurred"));
+  }
+
+  @Test
+  public void testDownscaleStepScalesWithProxy() {
+    PreviewSession session = new PreviewSession(model, "photo", 250, 250);
+    EditStep downscale = new EditStep("Downscale", 200, 80, (m, source, dest, scale) ->
+        m.downscaleImage((int) Math.round(200 * scale), (int) Math.round(80 * scale), source,
+            dest));
+    session.preview(downscale, "small");
+    assertEquals(200, session.getWidth());
+    assertEquals(80, session.getHeight());
+    assertEquals(100, model.getImage(session.getPreviewName()).getWidth());
+
+    session.apply();
+    assertEquals(200, model.getImage("small").getWidth());
+    assertEquals(80, model.getImage("small").getHeight());
+  }
+
+  @Test
+  public void testPrecomputedResultIsRecorded() {
+    PreviewSession session = new PreviewSession(model, "photo", 100, 100);
+    ImageModelImpl workspace = new ImageModelImpl();
+    workspace.putImage("proxy", session.getPreviewImage());
+    BLUR.apply(workspace, "proxy", "blurred-proxy", session.getScale());
+
+    assertEquals("blurred" + PreviewSession.PREVIEW_SUFFIX,
+            session.preview(BLUR, "blurred", workspace.getImage("blurred-proxy")));
+    assertTrue(session.hasPendingSteps());
+    assertEquals("blurred", session.apply());
+    model.blur("photo", "expected");
+    TestImages.assertSameImage(model.getImage("expected"), model.getImage("blurred"));
+  }
+}
@@ -0,0 +1,138 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import controller.gui.EditStep;
+import controller.gui.ProgressiveRenderer;
+import model.Image;
+import model.ImageModelImpl;
+import model.ImageUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link ProgressiveRenderer} delivers coarse passes before the full result and
+ * drops the passes of superseded renderings.
+ */
+public class ProgressiveRendererTest {
+  private static final EditStep BLUR = new EditStep("Blur",
+      (m, source, dest, scale) -> m.blur(source, dest));
+
+  private final List<String> events = new CopyOnWriteArrayList<>();
+  private final List<Image> passes = new CopyOnWriteArrayList<>();
+  private final CountDownLatch done = new CountDownLatch(1);
+  private ImageModelImpl model;
+  private Image finalImage;
+  private ProgressiveRenderer renderer;
+
+  @Before
+  public void setUp() {
+    model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "photo");
+    renderer = new ProgressiveRenderer(new ImageModelImpl(), new ProgressiveRenderer.Listener() {
+      @Override
+      public void passReady(Image image, int width, int height, EditStep step) {
+        passes.add(image);
+        events.add("pass " + image.getWidth() + "x" + image.getHeight() + " as " + width + "x"
+                + height + " " + step.getDescription());
+      }
+
+      @Override
+      public void renderingFinished(Image image, EditStep step) {
+        finalImage = image;
+        events.add("final " + step.getDescription());
+        done.countDown();
+      }
+
+      @Override
+      public void renderingFailed(String message, EditStep step) {
+        events.add("failed " + step.getDescription());
+        done.countDown();
+      }
+    }, Runnable::run);
+  }
+
+  @After
+  public void tearDown() {
+    renderer.shutdown();
+  }
+
+  @Test
+  public void testCoarsePassesPrecedeFullResult() throws InterruptedException {
+    renderer.render(model.getImage("photo"), 1, BLUR);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(3, events.size());
+    assertEquals("pass 63x25 as 500x200 Blur", events.get(0));
+    assertEquals("pass 250x100 as 500x200 Blur", events.get(1));
+    assertEquals("final Blur", events.get(2));
+
+    model.blur("photo", "expected");
+    TestImages.assertSameImage(model.getImage("expected"), finalImage);
+    ImageModelImpl reduced = new ImageModelImpl();
+    reduced.putImage("half", ImageUtils.downscale(model.getImage("photo"), 250, 100));
+    reduced.blur("half", "expected");
+    TestImages.assertSameImage(reduced.getImage("expected"), passes.get(1));
+  }
+
+  @Test
+  public void testSmallImagesRenderInOnePass() throws InterruptedException {
+    model.downscaleImage(200, 80, "photo", "small");
+    renderer.render(model.getImage("small"), 1, BLUR);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, events.size());
+    assertEquals("final Blur", events.get(0));
+  }
+
+  @Test
+  public void testResizingStepsScalePasses() throws InterruptedException {
+    EditStep downscale = new EditStep("Downscale", 400, 160, (m, source, dest, scale) ->
+        m.downscaleImage((int) Math.round(400 * scale), (int) Math.round(160 * scale), source,
+            dest));
+    renderer.render(model.getImage("photo"), 1, downscale);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals("pass 200x80 as 400x160 Downscale", events.get(1));
+    assertEquals(400, finalImage.getWidth());
+  }
+
+  @Test
+  public void testNewRenderingDropsPrevious() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    EditStep slow = new EditStep("Slow", (m, source, dest, scale) -> {
+      started.countDown();
+      try {
+        Thread.sleep(300);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      m.blur(source, dest);
+    });
+    EditStep sepia = new EditStep("Sepia", (m, source, dest, scale) ->
+        m.convertToSepia(source, dest));
+    renderer.render(model.getImage("photo"), 1, slow);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    renderer.render(model.getImage("photo"), 1, sepia);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    Thread.sleep(400);
+    for (String event : events) {
+      assertTrue(event, event.endsWith("Sepia"));
+    }
+    assertEquals("final Sepia", events.get(events.size() - 1));
+  }
+
+  @Test
+  public void testFailureEndsRendering() throws InterruptedException {
+    EditStep levels = new EditStep("Levels", (m, source, dest, scale) ->
+        m.levelsAdjust(200, 100, 50, source, dest));
+    renderer.render(model.getImage("photo"), 1, levels);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals("failed Levels", events.get(events.size() - 1));
+    assertNull(finalImage);
+  }
+}
@@ -0,0 +1,97 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.Image;
+import model.ImageModelImpl;
+import model.RankFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link RankFilter} against sorting every window.
+ */
+public class RankFilterTest {
+
+  @Test
+  public void testMatchesSortedWindows() {
+    int[][] sizes = {{1, 1}, {7, 3}, {2, 9}, {53, 141}};
+    for (int[] size : sizes) {
+      Image image = TestImages.randomImage(size[0], size[1]);
+      for (int radius : new int[]{0, 1, 2, 5}) {
+        for (String name : new String[]{"median", "min", "max"}) {
+          assertMatches(RankFilter.named(name, radius), image);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMedianRemovesSpeckles() {
+    int[][] grey = new int[20][20];
+    for (int[] row : grey) {
+      Arrays.fill(row, 100);
+    }
+    grey[5][5] = 255;
+    grey[12][3] = 0;
+    ImageModelImpl model = new ImageModelImpl();
+    model.putImage("noisy", new Image(20, 20, grey, grey, grey));
+    assertEquals("rank-filter", RankFilter.median(1).getName());
+    model.applyOperation(RankFilter.median(1), "noisy", "clean");
+    Image clean = model.getImage("clean");
+    for (int y = 0; y < 20; y++) {
+      for (int x = 0; x < 20; x++) {
+        assertEquals(100, clean.getRedChannel()[y][x]);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRadiusRejected() {
+    RankFilter.median(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownFilterRejected() {
+    RankFilter.named("mode", 1);
+  }
+
+  private static void assertMatches(RankFilter filter, Image image) {
+    Image actual = filter.apply(image);
+    int radius = filter.getRadius();
+    int window = 2 * radius + 1;
+    int[][][] source = {image.getRedChannel(), image.getGreenChannel(),
+        image.getBlueChannel()};
+    int[][][] result = {actual.getRedChannel(), actual.getGreenChannel(),
+        actual.getBlueChannel()};
+    for (int c = 0; c < 3; c++) {
+      for (int y = 0; y < image.getHeight(); y++) {
+        int[] expected = new int[image.getWidth()];
+        for (int x = 0; x < image.getWidth(); x++) {
+          int[] values = new int[window * window];
+          int i = 0;
+          for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+              int sy = Math.min(Math.max(y + dy, 0), image.getHeight() - 1);
+              int sx = Math.min(Math.max(x + dx, 0), image.getWidth() - 1);
+              values[i++] = source[c][sy][sx];
+            }
+          }
+          Arrays.sort(values);
+          switch (filter.getRank()) {
+            case MIN:
+              expected[x] = values[0];
+              break;
+            case MAX:
+              expected[x] = values[values.length - 1];
+              break;
+            default:
+              expected[x] = values[values.length / 2];
+          }
+        }
+        assertArrayEquals(filter + " row " + y, expected, result[c][y]);
+      }
+    }
+  }
+}
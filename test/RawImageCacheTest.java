@@ -0,0 +1,85 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import model.Image;
+import model.factory.CachingImageLoader;
+import model.factory.ImageLoader;
+import model.factory.RawImageCache;
+import model.factory.StandardImageLoader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the raw image cache and the caching loader built on it.
+ */
+public class RawImageCacheTest {
+
+  private RawImageCache cache;
+  private Path source;
+
+  @Before
+  public void setUp() throws IOException {
+    cache = new RawImageCache(Files.createTempDirectory("raw-cache"));
+    source = Files.createTempFile("source", ".png");
+    Files.copy(Path.of("resources/test_image/download.png"), source,
+            StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void assertImageEquals(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      assertArrayEquals(expected.getRedChannel()[i], actual.getRedChannel()[i]);
+      assertArrayEquals(expected.getGreenChannel()[i], actual.getGreenChannel()[i]);
+      assertArrayEquals(expected.getBlueChannel()[i], actual.getBlueChannel()[i]);
+    }
+  }
+
+  /**
+   * Tests that a stored image reads back unchanged and that modifying the source invalidates it.
+   */
+  @Test
+  public void testEntryIsKeyedBySourceState() throws IOException {
+    Image decoded = new StandardImageLoader().load(source.toString());
+    assertNull(cache.get(source.toString()));
+
+    cache.put(source.toString(), decoded);
+    assertImageEquals(decoded, cache.get(source.toString()));
+
+    Files.setLastModifiedTime(source, FileTime.fromMillis(
+            Files.getLastModifiedTime(source).toMillis() + 5000));
+    assertNull(cache.get(source.toString()));
+  }
+
+  /**
+   * Tests that the caching loader only decodes a file once while it is unchanged.
+   */
+  @Test
+  public void testCachingLoaderSkipsDecode() throws IOException {
+    int[] decodes = new int[1];
+    ImageLoader counting = filePath -> {
+      decodes[0]++;
+      return new StandardImageLoader().load(filePath);
+    };
+    ImageLoader loader = new CachingImageLoader(counting, cache);
+
+    Image first = loader.load(source.toString());
+    Image second = loader.load(source.toString());
+    assertEquals(1, decodes[0]);
+    assertImageEquals(first, second);
+
+    ImageLoader failing = filePath -> {
+      throw new IOException("should not decode");
+    };
+    Image third = new CachingImageLoader(failing, cache).load(source.toString());
+    assertImageEquals(first, third);
+  }
+}
@@ -0,0 +1,78 @@
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import model.Image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Builds synthetic images for the tests and compares images.
+ */
+final class TestImages {
+
+  private TestImages() {
+  }
+
+  /**
+   * Returns an image of uniformly random channel values. The values depend only on the size, so
+   * a test sees the same image on every run.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the image.
+   */
+  static Image randomImage(int width, int height) {
+    return randomImage(width, height, width * 131L + height);
+  }
+
+  /**
+   * Returns an image of uniformly random channel values drawn from the given seed.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param seed   the seed of the random values.
+   * @return the image.
+   */
+  static Image randomImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    return image(width, height, () -> random.nextInt(256));
+  }
+
+  /**
+   * Returns an image whose channel values are taken from a supplier, red channel first, each
+   * channel row by row.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param values the supplier of channel values from 0 to 255.
+   * @return the image.
+   */
+  static Image image(int width, int height, IntSupplier values) {
+    int[][][] channels = new int[3][height][width];
+    for (int[][] channel : channels) {
+      for (int[] row : channel) {
+        for (int x = 0; x < width; x++) {
+          row[x] = values.getAsInt();
+        }
+      }
+    }
+    return new Image(width, height, channels[0], channels[1], channels[2]);
+  }
+
+  /**
+   * Asserts that two images have the same size and the same value in every channel.
+   *
+   * @param expected the expected image.
+   * @param actual   the image to check.
+   */
+  static void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      assertArrayEquals(expected.getRedChannel()[y], actual.getRedChannel()[y]);
+      assertArrayEquals(expected.getGreenChannel()[y], actual.getGreenChannel()[y]);
+      assertArrayEquals(expected.getBlueChannel()[y], actual.getBlueChannel()[y]);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import model.Image;
+import view.TileCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the zoom levels and tiles of {@link TileCache}.
+ */
+public class TileCacheTest {
+
+  @Test
+  public void testLevelsHalveUntilOneTile() {
+    TileCache cache = new TileCache(TileCache.of(TestImages.randomImage(1000, 300)), 8);
+    assertEquals(3, cache.getLevelCount());
+    assertEquals(500, cache.getLevelWidth(1));
+    assertEquals(150, cache.getLevelHeight(1));
+    assertEquals(250, cache.getLevelWidth(2));
+    assertEquals(75, cache.getLevelHeight(2));
+    assertEquals(4, new TileCache(TileCache.of(TestImages.randomImage(1025, 20)), 1)
+            .getLevelCount());
+    assertEquals(1, new TileCache(TileCache.of(TestImages.randomImage(10, 10)), 1)
+            .getLevelCount());
+  }
+
+  @Test
+  public void testTilesMatchSourcePixels() {
+    Image image = TestImages.randomImage(600, 300);
+    TileCache cache = new TileCache(TileCache.of(image), 16);
+    BufferedImage edge = cache.getTile(0, 2, 1);
+    assertEquals(600 - 512, edge.getWidth());
+    assertEquals(300 - 256, edge.getHeight());
+    assertEquals(pixel(image, 512 + 7, 256 + 3), edge.getRGB(7, 3) & 0xFFFFFF);
+
+    BufferedImage halved = cache.getTile(1, 1, 0);
+    int x = 256 + 10;
+    int y = 20;
+    int expectedRed = (red(image, 2 * x, 2 * y) + red(image, 2 * x + 1, 2 * y)
+            + red(image, 2 * x, 2 * y + 1) + red(image, 2 * x + 1, 2 * y + 1) + 2) / 4;
+    assertEquals(expectedRed, (halved.getRGB(10, 20) >> 16) & 0xFF);
+  }
+
+  @Test
+  public void testImageAndBufferedImageSourcesAgree() {
+    Image image = TestImages.randomImage(300, 260);
+    BufferedImage buffered = new BufferedImage(300, 260, BufferedImage.TYPE_3BYTE_BGR);
+    for (int y = 0; y < 260; y++) {
+      for (int x = 0; x < 300; x++) {
+        buffered.setRGB(x, y, pixel(image, x, y));
+      }
+    }
+    BufferedImage fromImage = new TileCache(TileCache.of(image), 4).getTile(1, 0, 0);
+    BufferedImage fromBuffered = new TileCache(TileCache.of(buffered), 4).getTile(1, 0, 0);
+    for (int y = 0; y < fromImage.getHeight(); y++) {
+      for (int x = 0; x < fromImage.getWidth(); x++) {
+        assertEquals(fromImage.getRGB(x, y), fromBuffered.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testCoarseLevelsHalveFinerTilesAcrossTileEdges() {
+    Image image = TestImages.randomImage(1100, 700);
+    TileCache cache = new TileCache(TileCache.of(image), 4);
+    BufferedImage coarse = cache.getTile(2, 1, 0);
+    assertEquals(275 - 256, coarse.getWidth());
+    assertEquals(175, coarse.getHeight());
+    // Level 2 pixel (256 + 18, 174) is the average of level 1 pixels taken from two tiles that
+    // the small cache has long evicted.
+    TileCache fresh = new TileCache(TileCache.of(image), 64);
+    int expected = 0;
+    for (int dy = 0; dy < 2; dy++) {
+      for (int dx = 0; dx < 2; dx++) {
+        int x = Math.min(2 * (256 + 18) + dx, 549);
+        int y = Math.min(2 * 174 + dy, 349);
+        expected += (fresh.getTile(1, x / 256, y / 256).getRGB(x % 256, y % 256) >> 16) & 0xFF;
+      }
+    }
+    assertEquals((expected + 2) / 4, (coarse.getRGB(18, 174) >> 16) & 0xFF);
+  }
+
+  @Test
+  public void testCoarseCopyServesZoomedOutLevels() {
+    Image image = TestImages.randomImage(2000, 1000);
+    Image proxy = TestImages.randomImage(500, 250);
+    TileCache cache = new TileCache(TileCache.of(image), TileCache.of(proxy), 8);
+    assertEquals(pixel(image, 300, 40), cache.getTile(0, 1, 0).getRGB(44, 40) & 0xFFFFFF);
+    // Level 2 is 500x250, the size of the proxy, so its pixels are the proxy's.
+    assertEquals(pixel(proxy, 300, 40), cache.getTile(2, 1, 0).getRGB(44, 40) & 0xFFFFFF);
+    // Level 3 samples every other proxy pixel.
+    assertEquals(pixel(proxy, 2 * 100 + 1, 2 * 60 + 1),
+            cache.getTile(3, 0, 0).getRGB(100, 60) & 0xFFFFFF);
+  }
+
+  @Test
+  public void testCacheKeepsMostRecentTiles() {
+    TileCache cache = new TileCache(TileCache.of(TestImages.randomImage(1024, 256)), 2);
+    BufferedImage first = cache.getTile(0, 0, 0);
+    cache.getTile(0, 1, 0);
+    assertSame(first, cache.getCachedTile(0, 0, 0));
+    cache.getTile(0, 2, 0);
+    assertNull(cache.getCachedTile(0, 1, 0));
+    assertNotNull(cache.getCachedTile(0, 0, 0));
+  }
+
+  private static int pixel(Image image, int x, int y) {
+    return (image.getRedChannel()[y][x] << 16) | (image.getGreenChannel()[y][x] << 8)
+            | image.getBlueChannel()[y][x];
+  }
+
+  private static int red(Image image, int x, int y) {
+    return image.getRedChannel()[y][x];
+  }
+}
@@ -0,0 +1,181 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import model.Image;
+import model.ImageModelImpl;
+import model.strategy.BlurOperation;
+import model.strategy.SharpenOperation;
+import model.tiled.TiledImage;
+import model.tiled.TiledOperations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the tile-aware operations on {@link TiledImage} match the in-memory operations of
+ * {@link ImageModelImpl}. A small tile size puts many tile boundaries inside the test image.
+ */
+public class TiledImageTest {
+
+  private static final int TILE_SIZE = 16;
+
+  private ImageModelImpl model;
+  private TiledImage source;
+
+  @Before
+  public void setUp() throws IOException {
+    model = new ImageModelImpl();
+    model.load("resources/test_image/download.png", "source");
+    source = TiledImage.fromImage(model.getImage("source"), TILE_SIZE);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    source.close();
+  }
+
+  private void assertImageEquals(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      assertArrayEquals(expected.getRedChannel()[i], actual.getRedChannel()[i]);
+      assertArrayEquals(expected.getGreenChannel()[i], actual.getGreenChannel()[i]);
+      assertArrayEquals(expected.getBlueChannel()[i], actual.getBlueChannel()[i]);
+    }
+  }
+
+  private TiledImage blank() throws IOException {
+    return TiledImage.createTemporary(source.getWidth(), source.getHeight(), TILE_SIZE);
+  }
+
+  /**
+   * Tests that copying into tiles and back preserves every pixel.
+   */
+  @Test
+  public void testRoundTrip() {
+    assertImageEquals(model.getImage("source"), source.toImage());
+  }
+
+  /**
+   * Tests the point operations, applied in place.
+   */
+  @Test
+  public void testPointOperations() {
+    model.brighten(40, "source", "bright");
+    model.convertToSepia("bright", "expected");
+    TiledOperations.map(source, source, TiledOperations.brighten(40));
+    TiledOperations.map(source, source, TiledOperations.sepia());
+    assertImageEquals(model.getImage("expected"), source.toImage());
+  }
+
+  /**
+   * Tests the greyscale and channel components.
+   */
+  @Test
+  public void testComponents() throws IOException {
+    for (String component : Arrays.asList("red", "value", "intensity", "luma")) {
+      model.convertToGreyscale(component, "source", "expected");
+      try (TiledImage dest = blank()) {
+        TiledOperations.map(source, dest, TiledOperations.component(component));
+        assertImageEquals(model.getImage("expected"), dest.toImage());
+      }
+    }
+  }
+
+  /**
+   * Tests that convolution across tile boundaries matches, including at the image edges.
+   */
+  @Test
+  public void testConvolution() throws IOException {
+    model.blur("source", "blurred");
+    model.sharpen("source", "sharpened");
+    try (TiledImage blurred = blank(); TiledImage sharpened = blank()) {
+      TiledOperations.convolve(source, blurred, BlurOperation.getKernel());
+      TiledOperations.convolve(source, sharpened, SharpenOperation.getKernel());
+      assertImageEquals(model.getImage("blurred"), blurred.toImage());
+      assertImageEquals(model.getImage("sharpened"), sharpened.toImage());
+    }
+  }
+
+  /**
+   * Tests flipping in both directions.
+   */
+  @Test
+  public void testFlip() throws IOException {
+    for (String direction : Arrays.asList("horizontal", "vertical")) {
+      model.flip(direction, "source", "expected");
+      try (TiledImage dest = blank()) {
+        TiledOperations.flip(direction, source, dest);
+        assertImageEquals(model.getImage("expected"), dest.toImage());
+      }
+    }
+  }
+
+  /**
+   * Tests downscaling to a size that does not divide the source evenly.
+   */
+  @Test
+  public void testDownscale() throws IOException {
+    int newWidth = source.getWidth() * 2 / 3;
+    int newHeight = source.getHeight() / 2 + 1;
+    model.downscaleImage(newWidth, newHeight, "source", "expected");
+    try (TiledImage dest = TiledOperations.downscale(source, newWidth, newHeight)) {
+      assertImageEquals(model.getImage("expected"), dest.toImage());
+    }
+  }
+
+  /**
+   * Tests processing a file end to end through the model.
+   */
+  @Test
+  public void testTiledProcessFromFile() throws IOException {
+    File output = Files.createTempFile("tiled", ".ppm").toFile();
+    output.deleteOnExit();
+    model.tiledProcess("blur", Collections.emptyList(), "resources/test_image/download.ppm",
+            output.getPath());
+
+    model.load("resources/test_image/download.ppm", "ppm");
+    model.blur("ppm", "expected");
+    model.load(output.getPath(), "actual");
+    assertImageEquals(model.getImage("expected"), model.getImage("actual"));
+  }
+
+  /**
+   * Tests that a kept tile file holds every pixel after close, including tiles evicted from the
+   * mapping cache while writing.
+   */
+  @Test
+  public void testCreatedFileHoldsPixelsAfterClose() throws IOException {
+    Path file = Files.createTempFile("tiled", ".tiles");
+    int tiles = TiledImage.DEFAULT_CACHE_TILES + 8;
+    int[] pixels = new int[tiles * 4 * 4];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = i * 2654435 & 0xFFFFFF;
+    }
+    try {
+      try (TiledImage image = TiledImage.create(file, tiles * 4, 4, 4)) {
+        image.writeRegion(0, 0, tiles * 4, 4, pixels);
+      }
+      byte[] bytes = Files.readAllBytes(file);
+      assertEquals(pixels.length * 3, bytes.length);
+      for (int i = 0; i < pixels.length; i++) {
+        int x = i % (tiles * 4);
+        int y = i / (tiles * 4);
+        int offset = ((x / 4) * 16 + y * 4 + x % 4) * 3;
+        int rgb = ((bytes[offset] & 0xFF) << 16) | ((bytes[offset + 1] & 0xFF) << 8)
+                | (bytes[offset + 2] & 0xFF);
+        assertEquals(pixels[i], rgb);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.Image;
+import model.ImageModelImpl;
+import model.UnsharpMask;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link UnsharpMask} against blurring the whole image first.
+ */
+public class UnsharpMaskTest {
+
+  @Test
+  public void testMatchesWholeImageBlur() {
+    int[][] sizes = {{1, 1}, {7, 3}, {40, 200}, {130, 70}};
+    double[][] settings = {{0.7, 1.5, 0}, {3, 1, 0}, {10, 0.8, 4}};
+    for (int[] size : sizes) {
+      Image image = TestImages.randomImage(size[0], size[1]);
+      for (double[] setting : settings) {
+        UnsharpMask mask = new UnsharpMask(setting[0], setting[1], (int) setting[2]);
+        assertWithinOneLevel(reference(mask, image), mask.apply(image));
+      }
+    }
+  }
+
+  @Test
+  public void testBoxesApproximateGaussian() {
+    for (double sigma : new double[]{2, 3.5, 10, 40}) {
+      int[] radii = new UnsharpMask(sigma, 1, 0).getBoxRadii();
+      assertEquals(3, radii.length);
+      double variance = 0;
+      for (int r : radii) {
+        variance += ((2.0 * r + 1) * (2.0 * r + 1) - 1) / 12;
+      }
+      assertTrue("sigma " + sigma, Math.abs(Math.sqrt(variance) - sigma) < 0.5);
+    }
+    assertEquals(0, new UnsharpMask(1, 1, 0).getBoxRadii().length);
+  }
+
+  @Test
+  public void testEdgeOvershootAndThreshold() {
+    int[][] step = new int[5][20];
+    for (int[] row : step) {
+      Arrays.fill(row, 0, 10, 80);
+      Arrays.fill(row, 10, 20, 160);
+    }
+    ImageModelImpl model = new ImageModelImpl();
+    model.putImage("step", new Image(20, 5, step, step, step));
+    assertEquals("unsharp", new UnsharpMask(1.5, 1, 0).getName());
+    model.applyOperation(new UnsharpMask(1.5, 1, 0), "step", "sharp");
+    int[] row = model.getImage("sharp").getRedChannel()[2];
+    assertTrue(row[9] < 80);
+    assertTrue(row[10] > 160);
+    assertEquals(80, row[0]);
+    assertEquals(160, row[19]);
+
+    model.applyOperation(new UnsharpMask(1.5, 1, 255), "step", "untouched");
+    assertArrayEquals(step[2], model.getImage("untouched").getRedChannel()[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeAmountRejected() {
+    new UnsharpMask(2, -1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroRadiusRejected() {
+    new UnsharpMask(0, 1, 0);
+  }
+
+  /**
+   * Blurs the whole image with the same passes, then sharpens it.
+   */
+  private static Image reference(UnsharpMask mask, Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][][] source = {image.getRedChannel(), image.getGreenChannel(),
+        image.getBlueChannel()};
+    int[][][] dest = new int[3][height][width];
+    double[] weights = gaussian(mask.getRadius());
+    for (int c = 0; c < 3; c++) {
+      double[][] blurred = new double[height][width];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          blurred[y][x] = source[c][y][x];
+        }
+      }
+      int[] radii = mask.getBoxRadii();
+      if (radii.length == 0) {
+        blurred = pass(blurred, weights, true);
+        blurred = pass(blurred, weights, false);
+      }
+      for (int r : radii) {
+        blurred = pass(blurred, box(r), true);
+      }
+      for (int r : radii) {
+        blurred = pass(blurred, box(r), false);
+      }
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          double difference = source[c][y][x] - blurred[y][x];
+          dest[c][y][x] = Math.abs(difference) < mask.getThreshold() ? source[c][y][x]
+                  : Math.min(Math.max((int) Math.round(source[c][y][x]
+                  + mask.getAmount() * difference), 0), 255);
+        }
+      }
+    }
+    return new Image(width, height, dest[0], dest[1], dest[2]);
+  }
+
+  private static double[][] pass(double[][] in, double[] weights, boolean horizontal) {
+    int height = in.length;
+    int width = in[0].length;
+    int reach = weights.length / 2;
+    double[][] out = new double[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int d = -reach; d <= reach; d++) {
+          int sx = horizontal ? Math.min(Math.max(x + d, 0), width - 1) : x;
+          int sy = horizontal ? y : Math.min(Math.max(y + d, 0), height - 1);
+          out[y][x] += weights[d + reach] * in[sy][sx];
+        }
+      }
+    }
+    return out;
+  }
+
+  private static double[] box(int radius) {
+    double[] weights = new double[2 * radius + 1];
+    Arrays.fill(weights, 1.0 / weights.length);
+    return weights;
+  }
+
+  private static double[] gaussian(double sigma) {
+    int reach = (int) Math.ceil(3 * sigma);
+    double[] weights = new double[2 * reach + 1];
+    double total = 0;
+    for (int d = -reach; d <= reach; d++) {
+      weights[d + reach] = Math.exp(-d * d / (2 * sigma * sigma));
+      total += weights[d + reach];
+    }
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] /= total;
+    }
+    return weights;
+  }
+
+  private static void assertWithinOneLevel(Image expected, Image actual) {
+    int[][][] a = {expected.getRedChannel(), expected.getGreenChannel(),
+        expected.getBlueChannel()};
+    int[][][] b = {actual.getRedChannel(), actual.getGreenChannel(), actual.getBlueChannel()};
+    for (int c = 0; c < 3; c++) {
+      for (int y = 0; y < expected.getHeight(); y++) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+          assertTrue("channel " + c + " at " + x + "," + y,
+                  Math.abs(a[c][y][x] - b[c][y][x]) <= 1);
+        }
+      }
+    }
+  }
+}